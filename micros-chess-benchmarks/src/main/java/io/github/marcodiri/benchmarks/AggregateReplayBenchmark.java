@@ -0,0 +1,109 @@
+package io.github.marcodiri.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.marcodiri.core.domain.Aggregate;
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.InMemoryEventStore;
+import io.github.marcodiri.gameservice.domain.GameAggregate;
+import io.github.marcodiri.gameservice.domain.GameFactory;
+import io.github.marcodiri.gameservice.repository.eventstore.GameESRepository;
+
+/**
+ * Restores a game of {@code streamLength} events from an
+ * {@link InMemoryEventStore}: applying already converted events with
+ * {@code applyEventsToAggregate}, which also encodes them again, reading and
+ * converting the whole stream before applying it the way ESRepository did
+ * before, and replaying the events as they are read the way
+ * {@code restoreAggregate} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregateReplayBenchmark {
+
+    /** Opens the protected replay paths of the game repository. */
+    public static class ReplayRepository extends GameESRepository {
+
+        ReplayRepository(final EventStore eventStore) {
+            super(eventStore, new GameFactory());
+        }
+
+        List<EncodedEvent> apply(Aggregate aggregate, List<DomainEvent> events) throws ReflectiveOperationException {
+            return applyEventsToAggregate(aggregate, events);
+        }
+
+        Aggregate restore(UUID gameId) throws ReflectiveOperationException, InterruptedException,
+                ExecutionException, IOException {
+            return restoreAggregate(gameId);
+        }
+
+    }
+
+    @Param({ "10", "100", "1000" })
+    private int streamLength;
+
+    private final UUID gameId = UUID.randomUUID();
+
+    private EventStore eventStore;
+    private ReplayRepository repository;
+    private List<DomainEvent> events;
+
+    @Setup
+    public void writeGame() throws IOException, InterruptedException, ExecutionException {
+        eventStore = new InMemoryEventStore();
+        repository = new ReplayRepository(eventStore);
+        events = GameStreams.game(gameId, UUID.randomUUID(), UUID.randomUUID(), streamLength);
+        List<EncodedEvent> encoded = new ArrayList<>();
+        for (DomainEvent event : events) {
+            encoded.add(GameESRepository.EVENT_CODEC.encodeEvent(event));
+        }
+        eventStore.append(String.format("Game_%s", gameId), EventStore.NO_STREAM, encoded).get();
+    }
+
+    @TearDown
+    public void closeEventStore() {
+        eventStore.close();
+    }
+
+    @Benchmark
+    public List<EncodedEvent> applyEventsToAggregate() throws ReflectiveOperationException {
+        return repository.apply(new GameAggregate(), events);
+    }
+
+    @Benchmark
+    public List<EncodedEvent> readConvertAndApply() throws ReflectiveOperationException, InterruptedException,
+            ExecutionException, IOException {
+        return repository.apply(new GameAggregate(), repository.readEventsForAggregate(gameId, 0));
+    }
+
+    @Benchmark
+    public Aggregate streamingReplay() throws ReflectiveOperationException, InterruptedException,
+            ExecutionException, IOException {
+        return repository.restore(gameId);
+    }
+
+}
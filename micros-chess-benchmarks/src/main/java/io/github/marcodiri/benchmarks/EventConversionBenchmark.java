@@ -0,0 +1,127 @@
+package io.github.marcodiri.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventRecord;
+import io.github.marcodiri.core.eventstore.InMemoryEventStore;
+import io.github.marcodiri.gameservice.domain.GameFactory;
+import io.github.marcodiri.gameservice.repository.eventstore.GameESRepository;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCanceled;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.lobbyservice.domain.GameProposalFactory;
+import io.github.marcodiri.lobbyservice.repository.eventstore.GameProposalESRepository;
+
+/**
+ * Converts {@value #EVENTS} events read from the event store into domain
+ * events with the {@code convertEvents} of the repositories: a game stream,
+ * mostly binary moves, and a mix of JSON game proposal events. Times are
+ * per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventConversionBenchmark {
+
+    private static final int EVENTS = 100;
+
+    /** Opens the conversion of the game repository. */
+    public static class GameConverter extends GameESRepository {
+
+        GameConverter() {
+            super(new InMemoryEventStore(), new GameFactory());
+        }
+
+        List<DomainEvent> convert(List<EventRecord> records) throws IOException {
+            return convertEvents(records);
+        }
+
+    }
+
+    /** Opens the conversion of the game proposal repository. */
+    public static class GameProposalConverter extends GameProposalESRepository {
+
+        GameProposalConverter() {
+            super(new InMemoryEventStore(), new GameProposalFactory());
+        }
+
+        List<DomainEvent> convert(List<EventRecord> records) throws IOException {
+            return convertEvents(records);
+        }
+
+    }
+
+    private final GameConverter gameConverter = new GameConverter();
+    private final GameProposalConverter gameProposalConverter = new GameProposalConverter();
+
+    private List<EventRecord> gameRecords;
+    private List<EventRecord> gameProposalRecords;
+
+    @Setup
+    public void encodeEvents() throws IOException {
+        UUID gameId = UUID.randomUUID();
+        gameRecords = records("Game_" + gameId, GameESRepository.EVENT_CODEC,
+                GameStreams.game(gameId, UUID.randomUUID(), UUID.randomUUID(), EVENTS));
+
+        List<DomainEvent> gameProposalEvents = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            UUID gameProposalId = UUID.randomUUID();
+            switch (i % 3) {
+                case 0:
+                    gameProposalEvents.add(new GameProposalCreated(gameProposalId, UUID.randomUUID()));
+                    break;
+                case 1:
+                    gameProposalEvents.add(
+                            new GameProposalAccepted(gameProposalId, UUID.randomUUID(), UUID.randomUUID()));
+                    break;
+                default:
+                    gameProposalEvents.add(new GameProposalCanceled(gameProposalId));
+            }
+        }
+        gameProposalRecords = records("GameProposal_events", GameProposalESRepository.EVENT_CODEC,
+                gameProposalEvents);
+    }
+
+    private static List<EventRecord> records(String streamId, EventCodec codec, List<DomainEvent> events)
+            throws IOException {
+        List<EventRecord> records = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            records.add(new EventRecord(streamId, i, i, codec.encodeEvent(events.get(i))));
+        }
+        return records;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public List<DomainEvent> gameEvents() throws IOException {
+        return gameConverter.convert(gameRecords);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public List<DomainEvent> gameProposalEvents() throws IOException {
+        return gameProposalConverter.convert(gameProposalRecords);
+    }
+
+}
@@ -0,0 +1,126 @@
+package io.github.marcodiri.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.marcodiri.core.domain.Aggregate;
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.DomainEventType;
+import io.github.marcodiri.core.domain.event.EventDispatcher;
+
+/**
+ * Replays a stream of events on an aggregate through the reflective
+ * {@code getMethod("apply", ...).invoke(...)} path ESRepository used before
+ * and through {@link EventDispatcher}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+    public static enum CounterEventType implements DomainEventType {
+        INCREMENTED(Incremented.class),
+        DECREMENTED(Decremented.class);
+
+        private final Class<? extends DomainEvent> eventClass;
+
+        CounterEventType(final Class<? extends DomainEvent> eventClass) {
+            this.eventClass = eventClass;
+        }
+
+        @Override
+        public Class<? extends DomainEvent> getEventClass() {
+            return eventClass;
+        }
+    }
+
+    public static class Incremented implements DomainEvent {
+
+        @Override
+        public DomainEventType getType() {
+            return CounterEventType.INCREMENTED;
+        }
+
+    }
+
+    public static class Decremented implements DomainEvent {
+
+        @Override
+        public DomainEventType getType() {
+            return CounterEventType.DECREMENTED;
+        }
+
+    }
+
+    public static class CounterAggregate extends Aggregate {
+
+        private long value;
+
+        public CounterAggregate() {
+            this.id = UUID.randomUUID();
+        }
+
+        public void apply(Incremented event) {
+            value++;
+        }
+
+        public void apply(Decremented event) {
+            value--;
+        }
+
+        long getValue() {
+            return value;
+        }
+
+    }
+
+    @Param({ "10", "100", "1000" })
+    private int streamLength;
+
+    private List<DomainEvent> events;
+
+    @Setup
+    public void createEvents() {
+        events = new ArrayList<>();
+        for (int i = 0; i < streamLength; i++) {
+            events.add(i % 3 == 2 ? new Decremented() : new Incremented());
+        }
+    }
+
+    @Benchmark
+    public long reflection() throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        CounterAggregate aggregate = new CounterAggregate();
+        for (DomainEvent event : events) {
+            aggregate.getClass().getMethod("apply", event.getClass()).invoke(aggregate, event);
+        }
+        return aggregate.getValue();
+    }
+
+    @Benchmark
+    public long dispatcher() throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        CounterAggregate aggregate = new CounterAggregate();
+        for (DomainEvent event : events) {
+            EventDispatcher.apply(aggregate, event);
+        }
+        return aggregate.getValue();
+    }
+
+}
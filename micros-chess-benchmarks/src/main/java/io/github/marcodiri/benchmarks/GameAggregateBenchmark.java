@@ -0,0 +1,89 @@
+package io.github.marcodiri.benchmarks;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.domain.GameAggregate;
+import io.github.marcodiri.gameservice.domain.GameNotInProgressException;
+import io.github.marcodiri.gameservice.domain.IllegalMoveException;
+import io.github.marcodiri.gameservice.domain.command.PlayMoveCommand;
+
+/**
+ * Moves per millisecond through {@link GameAggregate}: validating a move
+ * with {@code process}, playing it with {@code apply}, and both in turn the
+ * way a move request does. The moves shuffle the knights, so the game never
+ * ends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameAggregateBenchmark {
+
+    private static final int CYCLE = 4;
+
+    private final UUID gameId = UUID.randomUUID();
+    private final UUID player1Id = UUID.randomUUID();
+    private final UUID player2Id = UUID.randomUUID();
+
+    private final PlayMoveCommand[] commands = new PlayMoveCommand[CYCLE];
+    private final MovePlayed[] moves = new MovePlayed[CYCLE];
+
+    private GameAggregate game;
+    private int ply;
+
+    @Setup
+    public void createGame() {
+        for (int i = 0; i < CYCLE; i++) {
+            UUID playerId = i % 2 == 0 ? player1Id : player2Id;
+            commands[i] = new PlayMoveCommand(playerId, GameStreams.move(i));
+            moves[i] = new MovePlayed(gameId, playerId, GameStreams.move(i));
+        }
+        game = new GameAggregate();
+        game.apply(new GameCreated(gameId, player1Id, player2Id));
+        ply = 0;
+    }
+
+    @Benchmark
+    public List<DomainEvent> process() throws GameNotInProgressException, IllegalMoveException {
+        // The position does not change, so the same move stays legal
+        return game.process(commands[0]);
+    }
+
+    @Benchmark
+    public GameAggregate apply() {
+        game.apply(moves[nextPly()]);
+        return game;
+    }
+
+    @Benchmark
+    public GameAggregate processAndApply() throws GameNotInProgressException, IllegalMoveException {
+        List<DomainEvent> events = game.process(commands[nextPly()]);
+        game.apply((MovePlayed) events.get(0));
+        return game;
+    }
+
+    private int nextPly() {
+        int current = ply;
+        ply = (ply + 1) % CYCLE;
+        return current;
+    }
+
+}
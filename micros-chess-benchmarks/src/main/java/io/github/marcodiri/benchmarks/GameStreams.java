@@ -0,0 +1,51 @@
+package io.github.marcodiri.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.web.Move;
+
+/**
+ * Game streams of any length: both sides move a knight out and back, which
+ * stays legal forever.
+ */
+final class GameStreams {
+
+    private static final Move[] KNIGHT_SHUFFLE = {
+            new Move("g1", "f3"),
+            new Move("g8", "f6"),
+            new Move("f3", "g1"),
+            new Move("f6", "g8") };
+
+    private GameStreams() {
+    }
+
+    /**
+     * @param ply the number of moves already played.
+     * @return the next move of the shuffle.
+     */
+    static Move move(int ply) {
+        return KNIGHT_SHUFFLE[ply % KNIGHT_SHUFFLE.length];
+    }
+
+    /**
+     * @param gameId    the id of the game.
+     * @param player1Id the player with white.
+     * @param player2Id the player with black.
+     * @param length    the number of events, the game creation included.
+     * @return the events of the game.
+     */
+    static List<DomainEvent> game(UUID gameId, UUID player1Id, UUID player2Id, int length) {
+        List<DomainEvent> events = new ArrayList<>(length);
+        events.add(new GameCreated(gameId, player1Id, player2Id));
+        for (int ply = 0; ply < length - 1; ply++) {
+            events.add(new MovePlayed(gameId, ply % 2 == 0 ? player1Id : player2Id, move(ply)));
+        }
+        return events;
+    }
+
+}
@@ -0,0 +1,119 @@
+package io.github.marcodiri.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.web.Move;
+import io.github.marcodiri.gameservice.api.web.PlayMoveRequest;
+import io.github.marcodiri.webservice.AppConfig;
+import io.github.marcodiri.webservice.web.BackendClient;
+
+/**
+ * POSTs a play-move request the way WebController did before, with a client
+ * created and closed per request, and the way it does now, through the
+ * {@link BackendClient} of the game service over the pooled client, both as
+ * configured by {@link AppConfig} with its defaults.
+ * <p>
+ * The server is an in-process {@link HttpServer} on localhost, so the
+ * difference is the cost of the connection setup against that of the
+ * executor hop; against the game service on another container the setup
+ * only grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class HttpClientBenchmark {
+
+    private final PlayMoveRequest playMoveRequest = new PlayMoveRequest(UUID.randomUUID(), UUID.randomUUID(),
+            new Move("e2", "e4"));
+
+    private HttpServer server;
+    private String uri;
+    private EventCodec eventCodec;
+    private CloseableHttpClient httpClient;
+    private BackendClient gameServiceClient;
+
+    @Setup
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/game/play-move", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+        uri = "http://localhost:" + server.getAddress().getPort() + "/game/play-move";
+
+        // The defaults of the properties of AppConfig
+        AppConfig appConfig = new AppConfig();
+        eventCodec = appConfig.eventCodec(new ObjectMapper());
+        httpClient = appConfig.httpClient(200, 50, 2000, 5000, 1000, 30000);
+        gameServiceClient = appConfig.gameServiceClient(httpClient, eventCodec, 50, 500);
+    }
+
+    @TearDown
+    public void stopServer() throws IOException {
+        gameServiceClient.close();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public int clientPerRequest() throws IOException {
+        HttpPost request = new HttpPost(uri);
+        ByteArrayEntity entity = new ByteArrayEntity(eventCodec.encode(playMoveRequest));
+        entity.setContentType(ContentType.APPLICATION_JSON.getMimeType());
+        request.setEntity(entity);
+        try (CloseableHttpClient client = HttpClients.createDefault()) {
+            return client.execute(request, HttpClientBenchmark::consume);
+        }
+    }
+
+    @Benchmark
+    public StatusLine backendClient() throws InterruptedException, ExecutionException {
+        return gameServiceClient.post(uri, playMoveRequest).get();
+    }
+
+    private static int consume(HttpResponse response) throws IOException {
+        EntityUtils.consume(response.getEntity());
+        return response.getStatusLine().getStatusCode();
+    }
+
+}
@@ -0,0 +1,119 @@
+package io.github.marcodiri.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.github.marcodiri.core.domain.event.DomainEventType;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+import io.github.marcodiri.gameservice.api.event.GameEventType;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.event.MovePlayedFormat;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEventType;
+
+/**
+ * Serializes the payloads WebController.notifyClients publishes: a game
+ * proposal, a game created, and a batch of {@code batchSize} moves in an
+ * array frame. The payloads are encoded once with the web service
+ * {@link EventCodec}, the way FanOutPublisher and MoveBatcher do, and
+ * converted by the message converter {@code convertAndSend} ran once per
+ * destination before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotifyClientsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class MoveBatch {
+
+        @Param({ "1", "8" })
+        private int batchSize;
+
+        private MovePlayed[] moves;
+
+        @Setup
+        public void createMoves() {
+            moves = GameStreams.game(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), batchSize + 1).stream()
+                    .skip(1)
+                    .toArray(MovePlayed[]::new);
+        }
+
+    }
+
+    private EventCodec eventCodec;
+    private ObjectWriter batchWriter;
+    private MappingJackson2MessageConverter converter;
+
+    private GameProposalCreated gameProposalCreated;
+    private GameCreated gameCreated;
+
+    @Setup
+    public void createPayloads() {
+        // The codec of the web service AppConfig
+        List<DomainEventType> eventTypes = new ArrayList<>();
+        Collections.addAll(eventTypes, GameProposalEventType.values());
+        Collections.addAll(eventTypes, GameEventType.values());
+        ObjectMapper mapper = new ObjectMapper();
+        eventCodec = new EventCodec(mapper, eventTypes.toArray(new DomainEventType[0]))
+                .withFormat(GameEventType.MOVE, new MovePlayedFormat());
+        batchWriter = eventCodec.writerFor(MovePlayed[].class);
+        converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(mapper);
+
+        UUID player1Id = UUID.randomUUID();
+        gameProposalCreated = new GameProposalCreated(UUID.randomUUID(), player1Id);
+        gameCreated = new GameCreated(UUID.randomUUID(), player1Id, UUID.randomUUID());
+    }
+
+    @Benchmark
+    public byte[] gameProposalCreated() throws JsonProcessingException {
+        return eventCodec.encode(gameProposalCreated);
+    }
+
+    @Benchmark
+    public byte[] gameCreated() throws JsonProcessingException {
+        return eventCodec.encode(gameCreated);
+    }
+
+    @Benchmark
+    public byte[] movesPlayed(MoveBatch batch) throws JsonProcessingException {
+        return batchWriter.writeValueAsBytes(batch.moves);
+    }
+
+    @Benchmark
+    public Message<?> gameCreatedConverted() {
+        return converter.toMessage(gameCreated, null);
+    }
+
+    @Benchmark
+    public Message<?> movesPlayedConverted(MoveBatch batch) {
+        return converter.toMessage(batch.moves, null);
+    }
+
+}
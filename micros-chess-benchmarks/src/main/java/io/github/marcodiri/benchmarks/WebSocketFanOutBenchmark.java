@@ -0,0 +1,118 @@
+package io.github.marcodiri.benchmarks;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+import io.github.marcodiri.gameservice.api.event.GameEventType;
+import io.github.marcodiri.webservice.web.FanOutPublisher;
+
+/**
+ * Publishes a {@link GameCreated} event to {@code destinations} topics
+ * sharing {@code subscribers} subscribers of the simple broker, with
+ * {@code convertAndSend} once per destination the way WebController did
+ * before, and through the {@link FanOutPublisher} of the web service, which
+ * serializes it once and sends every destination the same bytes.
+ * <p>
+ * The channels are synchronous and the outbound one only counts the
+ * messages, so the cost measured is the conversion and the broker's fan-out
+ * alone; the STOMP encoding and the socket writes per session are the same
+ * on both paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketFanOutBenchmark {
+
+    @Param({ "1000", "10000" })
+    private int subscribers;
+
+    @Param({ "1", "2" })
+    private int destinations;
+
+    private final GameCreated event = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+    private SimpleBrokerMessageHandler broker;
+    private SimpMessagingTemplate messagingTemplate;
+    private FanOutPublisher fanOutPublisher;
+    private String[] topics;
+    private long delivered;
+
+    @Setup
+    public void startBroker() {
+        ExecutorSubscribableChannel clientInboundChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutboundChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        clientOutboundChannel.subscribe(message -> delivered++);
+
+        broker = new SimpleBrokerMessageHandler(clientInboundChannel, clientOutboundChannel, brokerChannel,
+                List.of("/topic"));
+        broker.start();
+
+        topics = new String[destinations];
+        for (int i = 0; i < destinations; i++) {
+            topics[i] = "/topic/game/" + UUID.randomUUID();
+        }
+        for (int i = 0; i < subscribers; i++) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            headers.setSessionId("session-" + i);
+            headers.setSubscriptionId("sub-0");
+            headers.setDestination(topics[i % destinations]);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(mapper);
+        messagingTemplate.setMessageConverter(converter);
+        fanOutPublisher = new FanOutPublisher(messagingTemplate, new EventCodec(mapper, GameEventType.values()));
+    }
+
+    @TearDown
+    public void stopBroker() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public long convertPerDestination() {
+        for (String topic : topics) {
+            messagingTemplate.convertAndSend(topic, event);
+        }
+        return delivered;
+    }
+
+    @Benchmark
+    public long encodeOnce() {
+        fanOutPublisher.publish(event, topics);
+        return delivered;
+    }
+
+}
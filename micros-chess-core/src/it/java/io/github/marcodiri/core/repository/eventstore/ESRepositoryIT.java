@@ -2,6 +2,7 @@ package io.github.marcodiri.core.repository.eventstore;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -14,7 +15,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -40,6 +43,11 @@ import io.github.marcodiri.core.domain.Aggregate;
 import io.github.marcodiri.core.domain.AggregateFactory;
 import io.github.marcodiri.core.domain.event.DomainEvent;
 import io.github.marcodiri.core.domain.event.DomainEventType;
+import io.github.marcodiri.core.eventstore.EventRecord;
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.EventStoreDBEventStore;
+import io.github.marcodiri.core.eventstore.EventStoreSubscription;
+import io.github.marcodiri.core.eventstore.WrongExpectedRevisionException;
 
 @ExtendWith(MockitoExtension.class)
 public class ESRepositoryIT {
@@ -50,7 +58,12 @@ public class ESRepositoryIT {
     private static EventStoreDBClient client;
 
     private static enum TestEventType implements DomainEventType {
-        TEST
+        TEST;
+
+        @Override
+        public Class<? extends DomainEvent> getEventClass() {
+            return TestEvent.class;
+        }
     }
 
     @SuppressWarnings("unused")
@@ -109,7 +122,7 @@ public class ESRepositoryIT {
         }
 
         @Override
-        protected List<DomainEvent> convertEvents(List<ResolvedEvent> resolvedEvents)
+        protected List<DomainEvent> convertEvents(List<EventRecord> records)
                 throws StreamReadException, DatabindException, IOException {
             return null;
         }
@@ -158,6 +171,7 @@ public class ESRepositoryIT {
         List<DomainEvent> events = Arrays.asList(event1, event2);
         UUID aggregateId = UUID.randomUUID();
         when(aggregate.getId()).thenReturn(aggregateId);
+        when(aggregate.getRevision()).thenReturn(Aggregate.NO_REVISION);
 
         repository.applyAndWriteEvents(aggregate, events);
 
@@ -175,6 +189,7 @@ public class ESRepositoryIT {
         List<DomainEvent> events = Arrays.asList(event1, event2);
         UUID aggregateId = UUID.randomUUID();
         when(aggregate.getId()).thenReturn(aggregateId);
+        when(aggregate.getRevision()).thenReturn(Aggregate.NO_REVISION);
 
         repository.applyAndWriteEvents(aggregate, events);
 
@@ -192,6 +207,24 @@ public class ESRepositoryIT {
         assertThat(secondWrittenEvent).isEqualTo(event2);
     }
 
+    @Test
+    void applyAndWriteEventsFailsIfStreamMovedPastAggregateRevision()
+            throws InterruptedException, ExecutionException {
+        UUID aggregateId = UUID.randomUUID();
+        List<DomainEvent> events = Arrays.asList(
+                new TestEvent(UUID.randomUUID(), TestEventType.TEST),
+                new TestEvent(UUID.randomUUID(), TestEventType.TEST));
+        insertTestEventsInEventStore(String.format("Test_%s", aggregateId), events);
+        when(aggregate.getId()).thenReturn(aggregateId);
+        when(aggregate.getRevision()).thenReturn(0L);
+
+        assertThatThrownBy(() -> {
+            repository.applyAndWriteEvents(aggregate,
+                    Arrays.asList(new TestEvent(UUID.randomUUID(), TestEventType.TEST)));
+        }).isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(WrongExpectedRevisionException.class);
+    }
+
     @Test
     @SuppressWarnings("unused")
     void readEventsForGameProposalRetrievesAllPastEventsForAggregate()
@@ -205,8 +238,52 @@ public class ESRepositoryIT {
 
         List<DomainEvent> pastEvents = repository.readEventsForAggregate(aggregateId);
 
-        List<ResolvedEvent> resolvedEvents = readAllEventsFromStream(streamName);
-        verify(repository).convertEvents(resolvedEvents);
+        List<EventRecord> records = new EventStoreDBEventStore(client).read(streamName, 0, Integer.MAX_VALUE).get();
+        verify(repository).convertEvents(records);
+    }
+
+    @Test
+    void forEachStreamsEveryEventOfTheStreamAcrossPages() throws InterruptedException, ExecutionException {
+        String streamName = String.format("Test_%s", UUID.randomUUID());
+        List<DomainEvent> events = new ArrayList<>();
+        for (int i = 0; i < EventStore.READ_PAGE_SIZE * 2 + 1; i++) {
+            events.add(new TestEvent(UUID.randomUUID(), TestEventType.TEST));
+        }
+        insertTestEventsInEventStore(streamName, events);
+        List<Long> revisions = new ArrayList<>();
+
+        long count = new EventStoreDBEventStore(client)
+                .forEach(streamName, 1, event -> revisions.add(event.getRevision()))
+                .get();
+
+        assertThat(count).isEqualTo(events.size() - 1);
+        assertThat(revisions).hasSize(events.size() - 1).isSorted().startsWith(1L);
+    }
+
+    @Test
+    void forEachOfMissingStreamReadsNothing() throws InterruptedException, ExecutionException {
+        long count = new EventStoreDBEventStore(client).forEach(String.format("Test_%s", UUID.randomUUID()), 0,
+                event -> {
+                }).get();
+
+        assertThat(count).isZero();
+    }
+
+    @Test
+    void subscriptionResumesRightAfterTheCommitAndPreparePositionsOfAnEvent()
+            throws InterruptedException, ExecutionException {
+        String streamName = String.format("Test_%s", UUID.randomUUID());
+        insertTestEventsInEventStore(streamName, List.of(new TestEvent(UUID.randomUUID(), TestEventType.TEST),
+                new TestEvent(UUID.randomUUID(), TestEventType.TEST)));
+        EventStoreDBEventStore store = new EventStoreDBEventStore(client);
+        List<EventRecord> events = store.read(streamName, 0, Integer.MAX_VALUE).get();
+        List<EventRecord> received = new CopyOnWriteArrayList<>();
+
+        try (EventStoreSubscription subscription = store.subscribe(events.get(0), received::add)) {
+            await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(received).isNotEmpty());
+        }
+
+        assertThat(received.get(0)).isEqualTo(events.get(1));
     }
 
     private List<ResolvedEvent> readAllEventsFromStream(String streamName)
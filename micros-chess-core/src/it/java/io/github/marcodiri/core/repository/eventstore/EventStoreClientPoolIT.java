@@ -0,0 +1,69 @@
+package io.github.marcodiri.core.repository.eventstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eventstore.dbclient.EventData;
+import com.eventstore.dbclient.EventStoreDBClient;
+import com.eventstore.dbclient.ReadStreamOptions;
+
+public class EventStoreClientPoolIT {
+
+    private EventStoreClientPool pool;
+
+    @BeforeEach
+    void setupPool() {
+        pool = new EventStoreClientPool(EventStoreClientPool.settings("localhost", 2113,
+                Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(10)), 2);
+    }
+
+    @AfterEach
+    void teardownPool() {
+        pool.close();
+    }
+
+    @Test
+    void concurrentRequestsShareThePooledClients() throws Exception {
+        int requests = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            String stream = "PoolTest_" + UUID.randomUUID();
+            results.add(CompletableFuture.supplyAsync(() -> {
+                EventStoreDBClient client = pool.get();
+                EventData eventData = EventData.builderAsJson("pool-test", Map.of("stream", stream)).build();
+                client.appendToStream(stream, eventData).join();
+                return (long) client.readStream(stream, ReadStreamOptions.get().fromStart()).join()
+                        .getEvents().size();
+            }, executor));
+        }
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(results).allSatisfy(result -> assertThat(result.join()).isEqualTo(1));
+    }
+
+    @Test
+    void closeShutsDownTheClients() {
+        List<EventStoreDBClient> clients = List.of(pool.get(), pool.get());
+
+        pool.close();
+
+        assertThat(clients).allSatisfy(client -> assertThat(client.isShutdown()).isTrue());
+    }
+
+}
@@ -8,8 +8,12 @@ import org.apache.logging.log4j.Logger;
 
 public abstract class Aggregate {
 
+    public static final long NO_REVISION = -1;
+
     protected UUID id;
 
+    private long revision = NO_REVISION;
+
     protected static final Logger LOGGER = LogManager.getLogger(Aggregate.class);
 
     @Override
@@ -25,4 +29,16 @@ public abstract class Aggregate {
         return id;
     }
 
+    /**
+     * @return the revision of the last event applied from (or written to) the
+     *         aggregate stream, or {@link #NO_REVISION} if none.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
 }
@@ -0,0 +1,9 @@
+package io.github.marcodiri.core.domain;
+
+import java.io.Serializable;
+
+/**
+ * Serializable state of an {@link Aggregate} at a given stream revision.
+ */
+public interface AggregateSnapshot extends Serializable {
+}
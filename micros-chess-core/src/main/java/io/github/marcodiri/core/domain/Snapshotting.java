@@ -0,0 +1,25 @@
+package io.github.marcodiri.core.domain;
+
+/**
+ * Implemented by the {@link Aggregate}s whose state can be captured in an
+ * {@link AggregateSnapshot}, so they can be restored without replaying their
+ * whole stream. The repositories only read and write snapshots of these.
+ */
+public interface Snapshotting {
+
+    /**
+     * Captures the current state of the aggregate.
+     *
+     * @return the snapshot of the aggregate state.
+     */
+    AggregateSnapshot takeSnapshot();
+
+    /**
+     * Replaces the aggregate state with the one captured by
+     * {@link #takeSnapshot()}.
+     *
+     * @param snapshot the snapshot to restore from.
+     */
+    void restoreSnapshot(AggregateSnapshot snapshot);
+
+}
@@ -0,0 +1,86 @@
+package io.github.marcodiri.core.domain.command;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs the commands of an aggregate one at a time, in submission order, and
+ * the commands of different aggregates in parallel.
+ * <p>
+ * Each aggregate has a mailbox: a command starts only once the previous
+ * command of the same aggregate has completed, successfully or not, so it
+ * finds the aggregate the previous one left in the repository cache instead
+ * of racing it on the event store. Commands are started on one of a fixed
+ * set of single threaded stripes chosen by aggregate id, which spreads the
+ * aggregates over the cores; a command that returns a pending stage does not
+ * hold its stripe while waiting.
+ */
+public class AggregateCommandExecutor implements AutoCloseable {
+
+    private final ExecutorService[] stripes;
+    private final Map<UUID, CompletableFuture<?>> mailboxes = new ConcurrentHashMap<>();
+
+    public AggregateCommandExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripeCount the number of threads starting the commands.
+     */
+    public AggregateCommandExecutor(final int stripeCount) {
+        this.stripes = new ExecutorService[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            String threadName = "aggregate-commands-" + i;
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Queues a command of an aggregate behind the commands already submitted
+     * for it.
+     *
+     * @param <T>         the result type of the command.
+     * @param aggregateId the id of the aggregate the command targets.
+     * @param command     starts the command and returns its completion.
+     * @return the completion of the command.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(UUID aggregateId, Supplier<? extends CompletionStage<T>> command) {
+        ExecutorService stripe = stripes[Math.floorMod(aggregateId.hashCode(), stripes.length)];
+        CompletableFuture<T> completion = (CompletableFuture<T>) mailboxes.compute(aggregateId,
+                (id, previous) -> (previous != null ? previous : CompletableFuture.completedFuture(null))
+                        .handleAsync((result, e) -> null, stripe)
+                        .thenCompose(ignored -> command.get()));
+        // Outside compute, since the command may already be complete. The
+        // returned stage completes only once the mailbox is cleaned up.
+        return completion.whenComplete((result, e) -> mailboxes.remove(aggregateId, completion));
+    }
+
+    /**
+     * @return the number of aggregates with a command queued or running.
+     */
+    public int pendingAggregates() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Stops starting commands; those already started still complete.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+    }
+
+}
@@ -1,4 +1,7 @@
 package io.github.marcodiri.core.domain.event;
 
 public interface DomainEventType {
+
+    Class<? extends DomainEvent> getEventClass();
+
 }
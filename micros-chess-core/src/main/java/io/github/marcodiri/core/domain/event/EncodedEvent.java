@@ -0,0 +1,40 @@
+package io.github.marcodiri.core.domain.event;
+
+/**
+ * An event serialized by {@link EventCodec}, ready to be written.
+ */
+public class EncodedEvent {
+
+    private final String type;
+    private final byte[] data;
+    private final byte[] metadata;
+    private final boolean json;
+
+    public EncodedEvent(final String type, final byte[] data, final byte[] metadata, final boolean json) {
+        this.type = type;
+        this.data = data;
+        this.metadata = metadata;
+        this.json = json;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return the JSON metadata naming the event type and the format the data
+     *         is written in.
+     */
+    public byte[] getMetadata() {
+        return metadata;
+    }
+
+    public boolean isJson() {
+        return json;
+    }
+
+}
@@ -0,0 +1,182 @@
+package io.github.marcodiri.core.domain.event;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Serializes and deserializes events, and the other payloads a service
+ * exchanges, with a single {@link ObjectMapper}.
+ * <p>
+ * Building an {@link ObjectMapper} is expensive and each one keeps its own
+ * serializer caches, so services share one codec instead of creating a mapper
+ * per event or per request. The readers and writers of the registered event
+ * types are built up front; those of any other class are built on first use
+ * and cached.
+ * <p>
+ * Events are written as JSON unless an {@link EventFormat} is registered for
+ * their type. The type, format and format version of each event go in its
+ * metadata, so a reader decodes JSON and binary events alike, as well as the
+ * JSON events written before formats existed, which have no metadata.
+ */
+public class EventCodec {
+
+    public static final String JSON_FORMAT = "json";
+    public static final int JSON_FORMAT_VERSION = 1;
+
+    private static final ObjectMapper SHARED_MAPPER = new ObjectMapper();
+
+    private final ObjectMapper mapper;
+    private final Map<String, ObjectReader> eventReaders = new HashMap<>();
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final Map<String, EventFormat> formats = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> jsonMetadata = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> formatMetadata = new ConcurrentHashMap<>();
+    private final ObjectReader metadataReader;
+
+    /**
+     * @param eventTypes the event types this codec can decode by name.
+     */
+    public EventCodec(final DomainEventType... eventTypes) {
+        this(SHARED_MAPPER, eventTypes);
+    }
+
+    /**
+     * @param mapper     the mapper every reader and writer derives from.
+     * @param eventTypes the event types this codec can decode by name.
+     */
+    public EventCodec(final ObjectMapper mapper, final DomainEventType... eventTypes) {
+        this.mapper = mapper;
+        this.metadataReader = mapper.readerFor(EventMetadata.class);
+        for (DomainEventType eventType : eventTypes) {
+            Class<? extends DomainEvent> eventClass = eventType.getEventClass();
+            eventReaders.put(eventType.toString(), readerFor(eventClass));
+            writerFor(eventClass);
+        }
+    }
+
+    /**
+     * Writes the events of a type in the given format instead of JSON.
+     *
+     * @param eventType the event type.
+     * @param format    the format of the events of that type.
+     * @return this codec.
+     */
+    public EventCodec withFormat(DomainEventType eventType, EventFormat format) {
+        formats.put(eventType.toString(), format);
+        formatMetadata.remove(eventType.toString());
+        return this;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    public ObjectReader readerFor(Class<?> valueClass) {
+        return readers.computeIfAbsent(valueClass, mapper::readerFor);
+    }
+
+    public ObjectWriter writerFor(Class<?> valueClass) {
+        return writers.computeIfAbsent(valueClass, mapper::writerFor);
+    }
+
+    /**
+     * @param value the event, or any other value, to serialize.
+     * @return the JSON representation of the value.
+     * @throws JsonProcessingException
+     */
+    public byte[] encode(Object value) throws JsonProcessingException {
+        return writerFor(value.getClass()).writeValueAsBytes(value);
+    }
+
+    /**
+     * Serializes an event in the format registered for its type, or as JSON.
+     *
+     * @param event the event to serialize.
+     * @return the encoded event and its metadata.
+     * @throws IOException
+     */
+    public EncodedEvent encodeEvent(DomainEvent event) throws IOException {
+        String eventType = event.getType().toString();
+        EventFormat format = formats.get(eventType);
+        if (format != null && format.canEncode(event)) {
+            byte[] metadata = formatMetadata.computeIfAbsent(eventType,
+                    type -> metadata(type, format.getName(), format.getVersion()));
+            return new EncodedEvent(eventType, format.encode(event), metadata, false);
+        }
+        byte[] metadata = jsonMetadata.computeIfAbsent(eventType,
+                type -> metadata(type, JSON_FORMAT, JSON_FORMAT_VERSION));
+        return new EncodedEvent(eventType, encode(event), metadata, true);
+    }
+
+    private byte[] metadata(String eventType, String format, int formatVersion) {
+        try {
+            return mapper.writeValueAsBytes(new EventMetadata(eventType, format, formatVersion));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deserializes an event written by {@link #encodeEvent(DomainEvent)}, or a
+     * JSON event without metadata.
+     *
+     * @param eventType the name of a registered event type.
+     * @param data      the encoded event.
+     * @param metadata  the metadata written with the event, possibly empty.
+     * @return the event.
+     * @throws IOException              if the event is written in a format
+     *                                  this codec does not know.
+     * @throws IllegalArgumentException if the event type is not registered.
+     */
+    public DomainEvent decode(String eventType, byte[] data, byte[] metadata) throws IOException {
+        if (metadata == null || metadata.length == 0) {
+            return decode(eventType, data);
+        }
+        EventMetadata eventMetadata = metadataReader.readValue(metadata);
+        if (eventMetadata.getFormat() == null || JSON_FORMAT.equals(eventMetadata.getFormat())) {
+            return decode(eventType, data);
+        }
+        EventFormat format = formats.get(eventType);
+        if (format == null || !format.getName().equals(eventMetadata.getFormat())) {
+            throw new IOException(String.format("Unknown format %s of event type %s",
+                    eventMetadata.getFormat(), eventType));
+        }
+        return format.decode(data, eventMetadata.getFormatVersion());
+    }
+
+    /**
+     * @param eventType the name of a registered event type.
+     * @param data      the JSON representation of the event.
+     * @return the event.
+     * @throws IOException
+     * @throws IllegalArgumentException if the event type is not registered.
+     */
+    public DomainEvent decode(String eventType, byte[] data) throws IOException {
+        ObjectReader reader = eventReaders.get(eventType);
+        if (reader == null) {
+            throw new IllegalArgumentException(String.format("Unknown event type %s", eventType));
+        }
+        return reader.readValue(data);
+    }
+
+    /**
+     * @param <T>        the type of the value.
+     * @param data       the JSON representation of the value.
+     * @param valueClass the class of the value.
+     * @return the value.
+     * @throws IOException
+     */
+    public <T> T decode(byte[] data, Class<T> valueClass) throws IOException {
+        return readerFor(valueClass).readValue(data);
+    }
+
+}
@@ -0,0 +1,106 @@
+package io.github.marcodiri.core.domain.event;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import io.github.marcodiri.core.domain.Aggregate;
+
+/**
+ * Calls the {@code apply} method of an aggregate that takes the exact class of
+ * an event, the same method {@link Class#getMethod(String, Class...)} would
+ * find.
+ * <p>
+ * The method is resolved once per (aggregate class, event class) pair and
+ * bound to a {@link BiConsumer} through {@link LambdaMetafactory}, so
+ * dispatching an event is a plain interface call the JIT can inline instead of
+ * a lookup and a reflective invoke.
+ */
+public final class EventDispatcher {
+
+    private static final MethodType APPLY_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<Map<Class<?>, BiConsumer<Aggregate, DomainEvent>>> HANDLERS = new ClassValue<>() {
+        @Override
+        protected Map<Class<?>, BiConsumer<Aggregate, DomainEvent>> computeValue(Class<?> aggregateClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private EventDispatcher() {
+    }
+
+    /**
+     * Applies an event to an aggregate.
+     *
+     * @param aggregate the aggregate to apply the event to.
+     * @param event     the event to apply.
+     * @throws NoSuchMethodException     if the aggregate has no public
+     *                                   {@code apply} method for the event class.
+     * @throws IllegalAccessException    if the {@code apply} method cannot be
+     *                                   accessed.
+     * @throws InvocationTargetException if the {@code apply} method throws.
+     */
+    public static void apply(Aggregate aggregate, DomainEvent event)
+            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        BiConsumer<Aggregate, DomainEvent> handler = handlerFor(aggregate.getClass(), event.getClass());
+        try {
+            handler.accept(aggregate, event);
+        } catch (RuntimeException | Error e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    static BiConsumer<Aggregate, DomainEvent> handlerFor(Class<? extends Aggregate> aggregateClass,
+            Class<? extends DomainEvent> eventClass) throws NoSuchMethodException, IllegalAccessException {
+        Map<Class<?>, BiConsumer<Aggregate, DomainEvent>> handlers = HANDLERS.get(aggregateClass);
+        BiConsumer<Aggregate, DomainEvent> handler = handlers.get(eventClass);
+        if (handler == null) {
+            handler = createHandler(aggregateClass, aggregateClass.getMethod("apply", eventClass));
+            BiConsumer<Aggregate, DomainEvent> existing = handlers.putIfAbsent(eventClass, handler);
+            if (existing != null) {
+                handler = existing;
+            }
+        }
+        return handler;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Aggregate, DomainEvent> createHandler(Class<?> aggregateClass, Method applyMethod)
+            throws IllegalAccessException {
+        // A lookup in the aggregate class defines the lambda in its class loader
+        // and lets it reach aggregates and events that are not public.
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(aggregateClass, MethodHandles.lookup());
+        MethodHandle applyHandle = lookup.unreflect(applyMethod);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    APPLY_TYPE,
+                    applyHandle,
+                    MethodType.methodType(void.class, aggregateClass, applyMethod.getParameterTypes()[0]));
+            return (BiConsumer<Aggregate, DomainEvent>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // The metafactory rejects some handles: invoke the handle directly.
+            MethodHandle handle = applyHandle.asType(APPLY_TYPE);
+            return (aggregate, event) -> {
+                try {
+                    handle.invokeExact((Object) aggregate, (Object) event);
+                } catch (RuntimeException | Error applyException) {
+                    throw applyException;
+                } catch (Throwable applyException) {
+                    throw new IllegalStateException(applyException);
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package io.github.marcodiri.core.domain.event;
+
+import java.io.IOException;
+
+/**
+ * A binary encoding of the events of one {@link DomainEventType}, used by
+ * {@link EventCodec} in place of JSON.
+ * <p>
+ * The name and version of the format are stored with every event written in
+ * it, so the layout can change without making older events unreadable: a new
+ * layout gets a new version, and {@link #decode(byte[], int)} keeps reading the
+ * previous ones.
+ */
+public interface EventFormat {
+
+    /**
+     * @return the name stored in the metadata of the events written in this
+     *         format.
+     */
+    String getName();
+
+    /**
+     * @return the version of the layout written by {@link #encode(DomainEvent)}.
+     */
+    int getVersion();
+
+    /**
+     * @param event the event to write.
+     * @return false if the event has values the format cannot represent, in
+     *         which case it is written as JSON.
+     */
+    boolean canEncode(DomainEvent event);
+
+    byte[] encode(DomainEvent event) throws IOException;
+
+    /**
+     * @param data    the encoded event.
+     * @param version the version of the layout the event was written with.
+     * @return the event.
+     * @throws IOException if the data is malformed or the version unknown.
+     */
+    DomainEvent decode(byte[] data, int version) throws IOException;
+
+}
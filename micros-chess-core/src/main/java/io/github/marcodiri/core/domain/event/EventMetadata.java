@@ -0,0 +1,40 @@
+package io.github.marcodiri.core.domain.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The metadata {@link EventCodec} writes with every event. Events written
+ * before it existed have no metadata and are JSON.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+class EventMetadata {
+
+    private final String type;
+    private final String format;
+    private final int formatVersion;
+
+    @JsonCreator
+    EventMetadata(
+            @JsonProperty("type") final String type,
+            @JsonProperty("format") final String format,
+            @JsonProperty("formatVersion") final int formatVersion) {
+        this.type = type;
+        this.format = format;
+        this.formatVersion = formatVersion;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+}
@@ -0,0 +1,111 @@
+package io.github.marcodiri.core.eventstore;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+
+/**
+ * An event as stored in a stream.
+ * <p>
+ * Besides its position, an event has a prepare position: EventStoreDB
+ * identifies an event by both, so that resuming a subscription after it
+ * needs the two. Stores without such a distinction give both the same value.
+ */
+public final class EventRecord {
+
+    private static final byte[] NO_METADATA = new byte[0];
+
+    private final String streamId;
+    private final long revision;
+    private final long position;
+    private final long preparePosition;
+    private final String type;
+    private final byte[] data;
+    private final byte[] metadata;
+    private final boolean json;
+
+    public EventRecord(final String streamId, final long revision, final long position, final long preparePosition,
+            final String type, final byte[] data, final byte[] metadata, final boolean json) {
+        this.streamId = streamId;
+        this.revision = revision;
+        this.position = position;
+        this.preparePosition = preparePosition;
+        this.type = type;
+        this.data = data;
+        this.metadata = metadata != null ? metadata : NO_METADATA;
+        this.json = json;
+    }
+
+    public EventRecord(final String streamId, final long revision, final long position, final String type,
+            final byte[] data, final byte[] metadata, final boolean json) {
+        this(streamId, revision, position, position, type, data, metadata, json);
+    }
+
+    public EventRecord(final String streamId, final long revision, final long position, final EncodedEvent event) {
+        this(streamId, revision, position, event.getType(), event.getData(), event.getMetadata(), event.isJson());
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getPreparePosition() {
+        return preparePosition;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return the metadata, empty if the event has none.
+     */
+    public byte[] getMetadata() {
+        return metadata;
+    }
+
+    public boolean isJson() {
+        return json;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        EventRecord record = (EventRecord) o;
+        return revision == record.revision
+                && position == record.position
+                && preparePosition == record.preparePosition
+                && json == record.json
+                && Objects.equals(streamId, record.streamId)
+                && Objects.equals(type, record.type)
+                && Arrays.equals(data, record.data)
+                && Arrays.equals(metadata, record.metadata);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(streamId, revision, position);
+    }
+
+    @Override
+    public String toString() {
+        return type + "@" + revision + "@" + streamId;
+    }
+
+}
@@ -0,0 +1,201 @@
+package io.github.marcodiri.core.eventstore;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+
+/**
+ * The operations the repositories need from an event store: streams of
+ * events appended at an expected revision and read back from a revision,
+ * and a subscription to the events of every stream in the order they were
+ * written.
+ * <p>
+ * Revisions number the events of a stream from 0. Positions order the events
+ * of all the streams; they grow with every append but are not contiguous.
+ */
+public interface EventStore extends AutoCloseable {
+
+    /** Expected revision of a stream with no events. */
+    long NO_STREAM = -1;
+
+    /** Expected revision accepting a stream at any revision. */
+    long ANY = -2;
+
+    /** Position before the first event of the store. */
+    long START = -1;
+
+    /** Events fetched at a time by {@link #forEach}. */
+    int READ_PAGE_SIZE = 256;
+
+    /**
+     * Receives the events of a subscription, one at a time, in position
+     * order.
+     */
+    interface Listener {
+
+        void onEvent(EventRecord event);
+
+        /**
+         * Called once when the subscription stops because of an error,
+         * including an exception thrown by {@link #onEvent(EventRecord)}.
+         *
+         * @param e the error.
+         */
+        default void onError(Throwable e) {
+        }
+
+    }
+
+    /**
+     * Appends events to a stream, all or none of them.
+     *
+     * @param streamId         the name of the stream.
+     * @param expectedRevision the revision of the last event of the stream,
+     *                         {@link #NO_STREAM} or {@link #ANY}.
+     * @param events           the events to append.
+     * @return the position of the last event appended; completes
+     *         exceptionally with a {@link WrongExpectedRevisionException} if
+     *         the stream is at another revision.
+     */
+    CompletableFuture<Long> append(String streamId, long expectedRevision, List<EncodedEvent> events);
+
+    /**
+     * Reads the events of a stream forwards.
+     *
+     * @param streamId     the name of the stream.
+     * @param fromRevision the revision of the first event to read.
+     * @param maxCount     the maximum number of events to read.
+     * @return the events, none if the stream does not exist.
+     */
+    CompletableFuture<List<EventRecord>> read(String streamId, long fromRevision, int maxCount);
+
+    /**
+     * Reads the events of a stream forwards, handing each one to an action
+     * as soon as it is read instead of collecting them, so that the memory
+     * used does not grow with the length of the stream. The default
+     * implementation reads pages of {@link #READ_PAGE_SIZE} events.
+     *
+     * @param streamId     the name of the stream.
+     * @param fromRevision the revision of the first event to read.
+     * @param action       receives the events in revision order; an
+     *                     exception it throws stops the read.
+     * @return the number of events read, 0 if the stream does not exist;
+     *         completes exceptionally with the exception of the action.
+     */
+    default CompletableFuture<Long> forEach(String streamId, long fromRevision, Consumer<EventRecord> action) {
+        return forEach(streamId, fromRevision, action, 0);
+    }
+
+    private CompletableFuture<Long> forEach(String streamId, long fromRevision, Consumer<EventRecord> action,
+            long count) {
+        return read(streamId, fromRevision, READ_PAGE_SIZE).thenCompose(events -> {
+            events.forEach(action);
+            long read = count + events.size();
+            return events.size() < READ_PAGE_SIZE
+                    ? CompletableFuture.completedFuture(read)
+                    : forEach(streamId, fromRevision + events.size(), action, read);
+        });
+    }
+
+    /**
+     * Keeps only the last events of a stream: the older ones are no longer
+     * read and the store may discard them. The default implementation keeps
+     * every event.
+     *
+     * @param streamId the name of the stream, which may not exist yet.
+     * @param maxCount the number of events to keep.
+     * @return completes once the limit is set.
+     */
+    default CompletableFuture<Void> setMaxCount(String streamId, long maxCount) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * @param streamId the name of the stream.
+     * @return the last event of the stream, empty if it does not exist.
+     */
+    CompletableFuture<Optional<EventRecord>> readLast(String streamId);
+
+    /**
+     * @return the position of the last event written to the store, of any
+     *         stream, or {@link #START} if there is none.
+     */
+    CompletableFuture<Long> readLastPosition();
+
+    /**
+     * Delivers the events of every stream written after an event, then the
+     * events written afterwards as they are appended.
+     *
+     * @param afterPosition        the position of the last event already
+     *                             seen, or {@link #START}.
+     * @param afterPreparePosition its prepare position, see
+     *                             {@link EventRecord#getPreparePosition()}, or
+     *                             {@link #START}.
+     * @param listener             receives the events.
+     * @return the subscription, to be closed once no longer needed.
+     */
+    EventStoreSubscription subscribe(long afterPosition, long afterPreparePosition, Listener listener);
+
+    /**
+     * Like {@link #subscribe(long, long, Listener)}, but delivers only the
+     * events of some types. The default implementation drops the other
+     * events as they are delivered.
+     *
+     * @param afterPosition        the position of the last event already
+     *                             seen, or {@link #START}.
+     * @param afterPreparePosition its prepare position, or {@link #START}.
+     * @param eventTypes           the types of the events to deliver.
+     * @param listener             receives the events.
+     * @return the subscription, to be closed once no longer needed.
+     */
+    default EventStoreSubscription subscribe(long afterPosition, long afterPreparePosition, Set<String> eventTypes,
+            Listener listener) {
+        return subscribe(afterPosition, afterPreparePosition, new Listener() {
+            @Override
+            public void onEvent(EventRecord event) {
+                if (eventTypes.contains(event.getType())) {
+                    listener.onEvent(event);
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                listener.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Delivers the events of every stream written after an event, then the
+     * events written afterwards as they are appended.
+     *
+     * @param after    the last event already seen.
+     * @param listener receives the events.
+     * @return the subscription, to be closed once no longer needed.
+     */
+    default EventStoreSubscription subscribe(EventRecord after, Listener listener) {
+        return subscribe(after.getPosition(), after.getPreparePosition(), listener);
+    }
+
+    /**
+     * Delivers every event of the store, then the events written afterwards
+     * as they are appended.
+     *
+     * @param listener receives the events.
+     * @return the subscription, to be closed once no longer needed.
+     */
+    default EventStoreSubscription subscribeFromStart(Listener listener) {
+        return subscribe(START, START, listener);
+    }
+
+    /**
+     * Stops the subscriptions and releases the resources of the store.
+     */
+    @Override
+    void close();
+
+}
@@ -0,0 +1,320 @@
+package io.github.marcodiri.core.eventstore;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.reactivestreams.Subscriber;
+
+import com.eventstore.dbclient.AppendToStreamOptions;
+import com.eventstore.dbclient.EventData;
+import com.eventstore.dbclient.EventDataBuilder;
+import com.eventstore.dbclient.EventStoreDBClient;
+import com.eventstore.dbclient.ExpectedRevision;
+import com.eventstore.dbclient.Position;
+import com.eventstore.dbclient.ReadAllOptions;
+import com.eventstore.dbclient.ReadMessage;
+import com.eventstore.dbclient.ReadResult;
+import com.eventstore.dbclient.ReadStreamOptions;
+import com.eventstore.dbclient.RecordedEvent;
+import com.eventstore.dbclient.ResolvedEvent;
+import com.eventstore.dbclient.StreamMetadata;
+import com.eventstore.dbclient.StreamNotFoundException;
+import com.eventstore.dbclient.SubscribeToAllOptions;
+import com.eventstore.dbclient.Subscription;
+import com.eventstore.dbclient.SubscriptionFilter;
+import com.eventstore.dbclient.SubscriptionListener;
+import com.eventstore.dbclient.WrongExpectedVersionException;
+
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+
+/**
+ * An {@link EventStore} backed by EventStoreDB.
+ * <p>
+ * Positions are the commit positions of the events, prepare positions their
+ * prepare positions. Subscriptions leave out
+ * the system events. The clients are owned by the caller, so closing this
+ * store leaves them running.
+ */
+public class EventStoreDBEventStore implements EventStore {
+
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    private static final SubscriptionFilter USER_EVENTS = SubscriptionFilter.newBuilder()
+            .withEventTypeRegularExpression("^[^\\$].*")
+            .build();
+
+    private final Supplier<EventStoreDBClient> clients;
+
+    /**
+     * @param clients supplies the client of each call, such as an
+     *                {@link io.github.marcodiri.core.repository.eventstore.EventStoreClientPool}.
+     */
+    public EventStoreDBEventStore(final Supplier<EventStoreDBClient> clients) {
+        this.clients = clients;
+    }
+
+    public EventStoreDBEventStore(final EventStoreDBClient client) {
+        this(() -> client);
+    }
+
+    @Override
+    public CompletableFuture<Long> append(String streamId, long expectedRevision, List<EncodedEvent> events) {
+        AppendToStreamOptions options = AppendToStreamOptions.get().expectedRevision(expected(expectedRevision));
+        List<EventData> eventData = events.stream()
+                .map(EventStoreDBEventStore::toEventData)
+                .collect(Collectors.toList());
+        return clients.get().appendToStream(streamId, options, eventData.iterator())
+                .thenApply(result -> result.getLogPosition().getCommitUnsigned())
+                .exceptionallyCompose(e -> {
+                    Throwable cause = unwrap(e);
+                    return CompletableFuture.failedFuture(cause instanceof WrongExpectedVersionException
+                            ? new WrongExpectedRevisionException(streamId, expectedRevision, cause)
+                            : cause);
+                });
+    }
+
+    private static ExpectedRevision expected(long expectedRevision) {
+        if (expectedRevision == ANY) {
+            return ExpectedRevision.any();
+        }
+        if (expectedRevision == NO_STREAM) {
+            return ExpectedRevision.noStream();
+        }
+        return ExpectedRevision.expectedRevision(expectedRevision);
+    }
+
+    private static EventData toEventData(EncodedEvent event) {
+        EventDataBuilder builder = event.isJson()
+                ? EventData.builderAsJson(event.getType(), event.getData())
+                : EventData.builderAsBinary(event.getType(), event.getData());
+        return builder
+                .metadataAsBytes(event.getMetadata())
+                .build();
+    }
+
+    /**
+     * Sets the {@code $maxCount} of the metadata of the stream; the server
+     * drops the older events when it scavenges.
+     */
+    @Override
+    public CompletableFuture<Void> setMaxCount(String streamId, long maxCount) {
+        StreamMetadata metadata = new StreamMetadata();
+        metadata.setMaxCount(maxCount);
+        return clients.get().setStreamMetadata(streamId, metadata)
+                .<Void>thenApply(result -> null)
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(unwrap(e)));
+    }
+
+    @Override
+    public CompletableFuture<List<EventRecord>> read(String streamId, long fromRevision, int maxCount) {
+        return read(streamId, ReadStreamOptions.get()
+                .forwards()
+                .fromRevision(fromRevision)
+                .maxCount(maxCount));
+    }
+
+    @Override
+    public CompletableFuture<Optional<EventRecord>> readLast(String streamId) {
+        return read(streamId, ReadStreamOptions.get()
+                .backwards()
+                .fromEnd()
+                .maxCount(1))
+                .thenApply(events -> events.stream().findFirst());
+    }
+
+    private CompletableFuture<List<EventRecord>> read(String streamId, ReadStreamOptions options) {
+        return clients.get().readStream(streamId, options)
+                .thenApply(EventStoreDBEventStore::toRecords)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = unwrap(e);
+                    return cause instanceof StreamNotFoundException
+                            ? CompletableFuture.completedFuture(Collections.emptyList())
+                            : CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    /**
+     * Reads the stream through the reactive API, requesting
+     * {@link #READ_PAGE_SIZE} messages at a time, so that at most a page of
+     * events is buffered whatever the length of the stream.
+     */
+    @Override
+    public CompletableFuture<Long> forEach(String streamId, long fromRevision, Consumer<EventRecord> action) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        ReadStreamOptions options = ReadStreamOptions.get()
+                .forwards()
+                .fromRevision(fromRevision);
+        clients.get().readStreamReactive(streamId, options).subscribe(new Subscriber<ReadMessage>() {
+            private org.reactivestreams.Subscription subscription;
+            private long received;
+            private long count;
+
+            @Override
+            public void onSubscribe(org.reactivestreams.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(READ_PAGE_SIZE);
+            }
+
+            @Override
+            public void onNext(ReadMessage message) {
+                if (result.isDone()) {
+                    return;
+                }
+                if (message.hasEvent()) {
+                    try {
+                        action.accept(toRecord(message.getEvent().getOriginalEvent()));
+                    } catch (RuntimeException e) {
+                        subscription.cancel();
+                        result.completeExceptionally(e);
+                        return;
+                    }
+                    count++;
+                }
+                if (++received % READ_PAGE_SIZE == 0) {
+                    subscription.request(READ_PAGE_SIZE);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                Throwable cause = unwrap(throwable);
+                if (cause instanceof StreamNotFoundException) {
+                    result.complete(count);
+                } else {
+                    result.completeExceptionally(cause);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(count);
+            }
+        });
+        return result;
+    }
+
+    private static List<EventRecord> toRecords(ReadResult result) {
+        return result.getEvents().stream()
+                .map(event -> toRecord(event.getOriginalEvent()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param event an event read from EventStoreDB.
+     * @return the event as an {@link EventRecord}.
+     */
+    public static EventRecord toRecord(RecordedEvent event) {
+        return new EventRecord(
+                event.getStreamId(),
+                event.getRevision(),
+                event.getPosition().getCommitUnsigned(),
+                event.getPosition().getPrepareUnsigned(),
+                event.getEventType(),
+                event.getEventData(),
+                event.getUserMetadata(),
+                JSON_CONTENT_TYPE.equals(event.getContentType()));
+    }
+
+    /**
+     * Reads the last event of {@code $all}, system events included.
+     */
+    @Override
+    public CompletableFuture<Long> readLastPosition() {
+        return clients.get().readAll(ReadAllOptions.get()
+                .backwards()
+                .fromEnd()
+                .maxCount(1))
+                .thenApply(result -> result.getEvents().isEmpty()
+                        ? START
+                        : result.getEvents().get(0).getOriginalEvent().getPosition().getCommitUnsigned());
+    }
+
+    @Override
+    public EventStoreSubscription subscribe(long afterPosition, long afterPreparePosition, Listener listener) {
+        return subscribe(afterPosition, afterPreparePosition, USER_EVENTS, listener);
+    }
+
+    /**
+     * Filters the events by type on the server.
+     */
+    @Override
+    public EventStoreSubscription subscribe(long afterPosition, long afterPreparePosition, Set<String> eventTypes,
+            Listener listener) {
+        return subscribe(afterPosition, afterPreparePosition, eventTypeFilter(eventTypes), listener);
+    }
+
+    private EventStoreSubscription subscribe(long afterPosition, long afterPreparePosition, SubscriptionFilter filter,
+            Listener listener) {
+        SubscribeToAllOptions options = SubscribeToAllOptions.get().filter(filter);
+        if (afterPosition == START) {
+            options.fromStart();
+        } else {
+            options.fromPosition(new Position(afterPosition, afterPreparePosition));
+        }
+        // The error of a subscription that could not start may come both
+        // ways, the listener hears it once
+        AtomicBoolean failed = new AtomicBoolean();
+        CompletableFuture<Subscription> subscription = clients.get().subscribeToAll(new SubscriptionListener() {
+            @Override
+            public void onEvent(Subscription subscription, ResolvedEvent event) {
+                listener.onEvent(toRecord(event.getOriginalEvent()));
+            }
+
+            @Override
+            public void onError(Subscription subscription, Throwable throwable) {
+                if (failed.compareAndSet(false, true)) {
+                    listener.onError(throwable);
+                }
+            }
+        }, options);
+        subscription.whenComplete((result, e) -> {
+            if (e != null && failed.compareAndSet(false, true)) {
+                listener.onError(unwrap(e));
+            }
+        });
+        return () -> subscription.thenAccept(Subscription::stop);
+    }
+
+    /**
+     * @param eventTypes the names of the event types.
+     * @return a server side filter selecting the events of those types.
+     */
+    public static SubscriptionFilter eventTypeFilter(Collection<String> eventTypes) {
+        return SubscriptionFilter.newBuilder()
+                .withEventTypeRegularExpression(eventTypePattern(eventTypes))
+                .build();
+    }
+
+    /**
+     * @param eventTypes the names of the event types.
+     * @return a regular expression matching exactly those names.
+     */
+    public static String eventTypePattern(Collection<String> eventTypes) {
+        // Escaped one character at a time, the server does not support \Q...\E
+        return eventTypes.stream()
+                .map(eventType -> eventType.replaceAll("[^\\w-]", "\\\\$0"))
+                .collect(Collectors.joining("|", "^(", ")$"));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        if ((e instanceof ExecutionException || e instanceof CompletionException) && e.getCause() != null) {
+            return e.getCause();
+        }
+        return e;
+    }
+
+}
@@ -0,0 +1,14 @@
+package io.github.marcodiri.core.eventstore;
+
+/**
+ * A subscription started by {@link EventStore#subscribe}.
+ */
+public interface EventStoreSubscription extends AutoCloseable {
+
+    /**
+     * Stops delivering events; an event being delivered is completed.
+     */
+    @Override
+    void close();
+
+}
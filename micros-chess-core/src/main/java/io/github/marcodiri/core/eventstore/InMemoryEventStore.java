@@ -0,0 +1,153 @@
+package io.github.marcodiri.core.eventstore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+
+/**
+ * An event store kept on the heap, for tests, benchmarks and local runs.
+ * <p>
+ * A stream is an immutable array of its events, replaced by
+ * compare-and-set on every append, so readers never wait and a write only
+ * retries when another write to the same stream won the race. Every append
+ * first reserves its positions in a global log and, once its stream has been
+ * replaced or not, fills them with its events or with skip markers; the
+ * subscriptions read the log in position order, stopping at the first
+ * position not yet filled. Copying the array makes an append linear in the
+ * length of its stream, which is fine for streams of a few hundred events.
+ */
+public class InMemoryEventStore extends LocalEventStore {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16;
+
+    private static final EventRecord[] NO_EVENTS = new EventRecord[0];
+
+    /** Fills the position of an append that lost the race on its stream. */
+    private static final Object SKIPPED = new Object();
+
+    private final Map<String, AtomicReference<EventRecord[]>> streams = new ConcurrentHashMap<>();
+
+    /** The global log: positions split in lazily allocated chunks. */
+    private final AtomicReferenceArray<AtomicReferenceArray<Object>> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicLong nextPosition = new AtomicLong();
+
+    @Override
+    public CompletableFuture<Long> append(String streamId, long expectedRevision, List<EncodedEvent> events) {
+        AtomicReference<EventRecord[]> stream = streams.computeIfAbsent(streamId,
+                id -> new AtomicReference<>(NO_EVENTS));
+        while (true) {
+            EventRecord[] current = stream.get();
+            long actualRevision = current.length - 1;
+            if (expectedRevision != ANY && expectedRevision != actualRevision) {
+                return CompletableFuture.failedFuture(
+                        new WrongExpectedRevisionException(streamId, expectedRevision, actualRevision));
+            }
+            long firstPosition = nextPosition.getAndAdd(events.size());
+            EventRecord[] appended = Arrays.copyOf(current, current.length + events.size());
+            for (int i = 0; i < events.size(); i++) {
+                appended[current.length + i] = new EventRecord(streamId, current.length + i, firstPosition + i,
+                        events.get(i));
+            }
+            boolean won = stream.compareAndSet(current, appended);
+            for (int i = 0; i < events.size(); i++) {
+                fill(firstPosition + i, won ? appended[current.length + i] : SKIPPED);
+            }
+            signal();
+            if (won) {
+                return CompletableFuture.completedFuture(firstPosition + events.size() - 1);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> readLastPosition() {
+        return CompletableFuture.completedFuture(nextPosition.get() - 1);
+    }
+
+    private void fill(long position, Object slot) {
+        int chunkIndex = (int) (position >>> CHUNK_BITS);
+        if (chunkIndex >= MAX_CHUNKS) {
+            throw new IllegalStateException("Event store is full");
+        }
+        AtomicReferenceArray<Object> chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunks.compareAndSet(chunkIndex, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = chunks.get(chunkIndex);
+        }
+        chunk.set((int) (position & (CHUNK_SIZE - 1)), slot);
+    }
+
+    private Object slot(long position) {
+        int chunkIndex = (int) (position >>> CHUNK_BITS);
+        if (chunkIndex >= MAX_CHUNKS) {
+            return null;
+        }
+        AtomicReferenceArray<Object> chunk = chunks.get(chunkIndex);
+        return chunk != null ? chunk.get((int) (position & (CHUNK_SIZE - 1))) : null;
+    }
+
+    @Override
+    public CompletableFuture<List<EventRecord>> read(String streamId, long fromRevision, int maxCount) {
+        EventRecord[] events = events(streamId);
+        if (fromRevision >= events.length) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        int to = (int) Math.min(events.length, fromRevision + maxCount);
+        return CompletableFuture.completedFuture(
+                Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(events, (int) fromRevision, to))));
+    }
+
+    @Override
+    public CompletableFuture<Long> forEach(String streamId, long fromRevision, Consumer<EventRecord> action) {
+        EventRecord[] events = events(streamId);
+        try {
+            for (long revision = fromRevision; revision < events.length; revision++) {
+                action.accept(events[(int) revision]);
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.completedFuture(Math.max(events.length - fromRevision, 0));
+    }
+
+    @Override
+    public CompletableFuture<Optional<EventRecord>> readLast(String streamId) {
+        EventRecord[] events = events(streamId);
+        return CompletableFuture.completedFuture(
+                events.length > 0 ? Optional.of(events[events.length - 1]) : Optional.empty());
+    }
+
+    private EventRecord[] events(String streamId) {
+        AtomicReference<EventRecord[]> stream = streams.get(streamId);
+        return stream != null ? stream.get() : NO_EVENTS;
+    }
+
+    @Override
+    protected List<EventRecord> readAll(long afterPosition, int maxCount) {
+        List<EventRecord> events = new ArrayList<>();
+        for (long position = afterPosition + 1; events.size() < maxCount; position++) {
+            Object slot = slot(position);
+            if (slot == null) {
+                break;
+            }
+            if (slot != SKIPPED) {
+                events.add((EventRecord) slot);
+            }
+        }
+        return events;
+    }
+
+}
@@ -0,0 +1,118 @@
+package io.github.marcodiri.core.eventstore;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An event store living in this process, whose subscriptions read the
+ * store directly.
+ * <p>
+ * Each subscription has a thread reading the events after the last one it
+ * delivered; when there are none it parks until {@link #signal()} reports an
+ * append.
+ * <p>
+ * The prepare position of an event is its position.
+ */
+public abstract class LocalEventStore implements EventStore {
+
+    private static final Logger LOGGER = LogManager.getLogger(LocalEventStore.class);
+
+    /** Events read by a subscription at a time. */
+    private static final int BATCH_SIZE = 256;
+
+    /** Longest park of an idle subscription, in case a signal is missed. */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final List<PollingSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private class PollingSubscription implements EventStoreSubscription, Runnable {
+
+        private final Listener listener;
+        private final Thread thread;
+        private long afterPosition;
+        private volatile boolean running = true;
+
+        private PollingSubscription(final long afterPosition, final Listener listener) {
+            this.afterPosition = afterPosition;
+            this.listener = listener;
+            this.thread = new Thread(this, "event-store-subscription");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                List<EventRecord> events;
+                try {
+                    events = readAll(afterPosition, BATCH_SIZE);
+                    for (EventRecord event : events) {
+                        if (!running) {
+                            return;
+                        }
+                        listener.onEvent(event);
+                        afterPosition = event.getPosition();
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Subscription stopped after position {}", afterPosition, e);
+                    close();
+                    listener.onError(e);
+                    return;
+                }
+                if (events.isEmpty()) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+        }
+
+    }
+
+    /**
+     * Reads the events of every stream written after a position, in
+     * position order, stopping before the first event not yet completely
+     * written.
+     *
+     * @param afterPosition the position of the last event already read, or
+     *                      {@link #START}.
+     * @param maxCount      the maximum number of events to read.
+     * @return the events, none if no event was written after the position.
+     */
+    protected abstract List<EventRecord> readAll(long afterPosition, int maxCount);
+
+    /**
+     * Wakes up the subscriptions waiting for new events; called after every
+     * append.
+     */
+    protected void signal() {
+        for (PollingSubscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.thread);
+        }
+    }
+
+    @Override
+    public EventStoreSubscription subscribe(long afterPosition, long afterPreparePosition, Listener listener) {
+        PollingSubscription subscription = new PollingSubscription(afterPosition, listener);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    @Override
+    public void close() {
+        for (PollingSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+}
@@ -0,0 +1,423 @@
+package io.github.marcodiri.core.eventstore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+
+/**
+ * A single-node event store appending every event to a log of
+ * memory-mapped segment files, with an in-memory index of the positions of
+ * the events of each stream.
+ * <p>
+ * The position of an event is its offset in the log: the index of its
+ * segment times the segment size plus its offset in the segment. A record
+ * is its length followed by its revision, stream, type, format, data and
+ * metadata; a length of {@code -1} skips the rest of a segment and a zero
+ * length ends the log. The first length of an append is written after all
+ * its records, so an append cut short by a crash reads as the end of the
+ * log, all its events with it. The index is rebuilt by scanning the segments
+ * when the store is opened.
+ * <p>
+ * Appends are serialized; reads and subscriptions run concurrently with
+ * them, seeing an append only once it is complete.
+ */
+public class MappedLogEventStore extends LocalEventStore {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private static final String SEGMENT_FORMAT = "segment-%06d.log";
+
+    /** Length, revision, stream length, type length, format, data length, metadata length. */
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Short.BYTES + Short.BYTES + Byte.BYTES
+            + Integer.BYTES + Integer.BYTES;
+
+    /** Length marking the rest of a segment as unused. */
+    private static final int SEGMENT_END = -1;
+
+    /** The positions of the events of a stream, appended under the store lock. */
+    private static class StreamIndex {
+
+        private volatile long[] positions = new long[8];
+        private volatile int size;
+
+        private void add(long position) {
+            long[] current = positions;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                positions = current;
+            }
+            current[size] = position;
+            size = size + 1;
+        }
+
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+
+    private final Map<String, StreamIndex> index = new ConcurrentHashMap<>();
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /** The position after the last complete record. */
+    private volatile long end;
+    /** The position of the last complete record. */
+    private volatile long lastPosition = START;
+    private boolean closed;
+
+    /**
+     * Opens the store with {@link #DEFAULT_SEGMENT_SIZE} segments, without
+     * forcing appends to the disk.
+     *
+     * @param directory the directory of the segment files, created if
+     *                  missing.
+     * @throws IOException if the segments cannot be opened.
+     */
+    public MappedLogEventStore(final Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    /**
+     * @param directory   the directory of the segment files, created if
+     *                    missing.
+     * @param segmentSize the size of each segment file; an event must fit in
+     *                    a segment.
+     * @param sync        whether every append is forced to the disk before
+     *                    it completes; otherwise the operating system writes
+     *                    it back, and it survives a crash of the process but
+     *                    not of the machine.
+     * @throws IOException if the segments cannot be opened.
+     */
+    public MappedLogEventStore(final Path directory, final int segmentSize, final boolean sync) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be larger than " + HEADER_SIZE);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        int segmentCount;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentCount = (int) files.filter(file -> file.getFileName().toString().matches("segment-\\d{6}\\.log"))
+                    .count();
+        }
+        for (int i = 0; i < Math.max(segmentCount, 1); i++) {
+            addSegment();
+        }
+        long position = 0;
+        while (segment(position) < segments.length) {
+            int segment = segment(position);
+            int length = recordLength(segment, offset(position));
+            if (length == SEGMENT_END) {
+                position = nextSegment(position);
+                continue;
+            }
+            if (length == 0) {
+                break;
+            }
+            EventRecord record = decode(position);
+            StreamIndex stream = index.computeIfAbsent(record.getStreamId(), id -> new StreamIndex());
+            if (record.getRevision() != stream.size) {
+                throw new IOException("Event " + record + " out of order at position " + position);
+            }
+            stream.add(position);
+            lastPosition = position;
+            position += length;
+        }
+        end = position;
+    }
+
+    private void addSegment() throws IOException {
+        Path file = directory.resolve(String.format(SEGMENT_FORMAT, segments.length));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] extended = Arrays.copyOf(segments, segments.length + 1);
+            // The mapping outlives the channel
+            extended[segments.length] = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segments = extended;
+        }
+    }
+
+    private int segment(long position) {
+        return (int) (position / segmentSize);
+    }
+
+    private int offset(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private long nextSegment(long position) {
+        return (long) (segment(position) + 1) * segmentSize;
+    }
+
+    private boolean hasRoomForLength(long position) {
+        return offset(position) + Integer.BYTES <= segmentSize;
+    }
+
+    private int recordLength(int segment, int offset) {
+        return offset + Integer.BYTES > segmentSize ? SEGMENT_END : segments[segment].getInt(offset);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Long> append(String streamId, long expectedRevision,
+            List<EncodedEvent> events) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Event store is closed"));
+        }
+        StreamIndex stream = index.get(streamId);
+        long actualRevision = stream != null ? stream.size - 1 : NO_STREAM;
+        if (expectedRevision != ANY && expectedRevision != actualRevision) {
+            return CompletableFuture.failedFuture(
+                    new WrongExpectedRevisionException(streamId, expectedRevision, actualRevision));
+        }
+        byte[] streamName = streamId.getBytes(StandardCharsets.UTF_8);
+        byte[][] types = new byte[events.size()][];
+        int[] lengths = new int[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            EncodedEvent event = events.get(i);
+            types[i] = event.getType().getBytes(StandardCharsets.UTF_8);
+            lengths[i] = HEADER_SIZE + streamName.length + types[i].length + event.getData().length
+                    + (event.getMetadata() != null ? event.getMetadata().length : 0);
+            if (lengths[i] > segmentSize || streamName.length > Short.MAX_VALUE || types[i].length > Short.MAX_VALUE) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                        "Event " + event.getType() + " of " + lengths[i] + " bytes does not fit in a segment"));
+            }
+        }
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(end);
+        }
+        long position = end;
+        long[] positions = new long[events.size()];
+        // The first length of the append, written once all the records are
+        long commitPosition = -1;
+        int commitLength = 0;
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                if (offset(position) + lengths[i] > segmentSize) {
+                    if (hasRoomForLength(position)) {
+                        if (commitPosition < 0) {
+                            commitPosition = position;
+                            commitLength = SEGMENT_END;
+                        } else {
+                            putLength(position, SEGMENT_END);
+                        }
+                    }
+                    position = nextSegment(position);
+                }
+                if (segment(position) == segments.length) {
+                    addSegment();
+                }
+                write(position, actualRevision + 1 + i, streamName, types[i], events.get(i));
+                if (commitPosition < 0) {
+                    commitPosition = position;
+                    commitLength = lengths[i];
+                } else {
+                    putLength(position, lengths[i]);
+                }
+                positions[i] = position;
+                position += lengths[i];
+            }
+            terminate(position);
+            if (sync) {
+                // Including the segment ended by terminate
+                for (int segment = segment(commitPosition); segment < segments.length; segment++) {
+                    segments[segment].force();
+                }
+            }
+            putLength(commitPosition, commitLength);
+            if (sync) {
+                segments[segment(commitPosition)].force();
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+        StreamIndex streamIndex = index.computeIfAbsent(streamId, id -> new StreamIndex());
+        for (long eventPosition : positions) {
+            streamIndex.add(eventPosition);
+        }
+        lastPosition = positions[positions.length - 1];
+        end = position;
+        signal();
+        return CompletableFuture.completedFuture(positions[positions.length - 1]);
+    }
+
+    private void putLength(long position, int length) {
+        segments[segment(position)].putInt(offset(position), length);
+    }
+
+    /**
+     * Zeroes the length after the last record, which may belong to an append
+     * lost in a crash, so that the log ends there.
+     */
+    private void terminate(long position) {
+        if (!hasRoomForLength(position)) {
+            position = nextSegment(position);
+        }
+        if (segment(position) < segments.length) {
+            putLength(position, 0);
+        }
+    }
+
+    /**
+     * Writes a record but its length, see {@link #putLength}.
+     */
+    private void write(long position, long revision, byte[] stream, byte[] type, EncodedEvent event) {
+        byte[] metadata = event.getMetadata() != null ? event.getMetadata() : new byte[0];
+        MappedByteBuffer segment = segments[segment(position)];
+        int offset = offset(position) + Integer.BYTES;
+        segment.putLong(offset, revision);
+        offset += Long.BYTES;
+        segment.putShort(offset, (short) stream.length);
+        offset += Short.BYTES;
+        segment.put(offset, stream);
+        offset += stream.length;
+        segment.putShort(offset, (short) type.length);
+        offset += Short.BYTES;
+        segment.put(offset, type);
+        offset += type.length;
+        segment.put(offset, (byte) (event.isJson() ? 1 : 0));
+        offset += Byte.BYTES;
+        segment.putInt(offset, event.getData().length);
+        offset += Integer.BYTES;
+        segment.put(offset, event.getData());
+        offset += event.getData().length;
+        segment.putInt(offset, metadata.length);
+        offset += Integer.BYTES;
+        segment.put(offset, metadata);
+    }
+
+    private EventRecord decode(long position) {
+        MappedByteBuffer segment = segments[segment(position)];
+        int offset = offset(position) + Integer.BYTES;
+        long revision = segment.getLong(offset);
+        offset += Long.BYTES;
+        byte[] stream = new byte[segment.getShort(offset)];
+        offset += Short.BYTES;
+        segment.get(offset, stream);
+        offset += stream.length;
+        byte[] type = new byte[segment.getShort(offset)];
+        offset += Short.BYTES;
+        segment.get(offset, type);
+        offset += type.length;
+        boolean json = segment.get(offset) == 1;
+        offset += Byte.BYTES;
+        byte[] data = new byte[segment.getInt(offset)];
+        offset += Integer.BYTES;
+        segment.get(offset, data);
+        offset += data.length;
+        byte[] metadata = new byte[segment.getInt(offset)];
+        offset += Integer.BYTES;
+        segment.get(offset, metadata);
+        return new EventRecord(new String(stream, StandardCharsets.UTF_8), revision, position,
+                new String(type, StandardCharsets.UTF_8), data, metadata, json);
+    }
+
+    @Override
+    public CompletableFuture<List<EventRecord>> read(String streamId, long fromRevision, int maxCount) {
+        StreamIndex stream = index.get(streamId);
+        if (stream == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        int size = stream.size;
+        long[] positions = stream.positions;
+        List<EventRecord> events = new ArrayList<>();
+        for (long revision = fromRevision; revision < size && events.size() < maxCount; revision++) {
+            events.add(decode(positions[(int) revision]));
+        }
+        return CompletableFuture.completedFuture(events);
+    }
+
+    /**
+     * Decodes the events one at a time from the segments.
+     */
+    @Override
+    public CompletableFuture<Long> forEach(String streamId, long fromRevision, Consumer<EventRecord> action) {
+        StreamIndex stream = index.get(streamId);
+        if (stream == null) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        int size = stream.size;
+        long[] positions = stream.positions;
+        try {
+            for (long revision = fromRevision; revision < size; revision++) {
+                action.accept(decode(positions[(int) revision]));
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.completedFuture(Math.max(size - fromRevision, 0));
+    }
+
+    @Override
+    public CompletableFuture<Optional<EventRecord>> readLast(String streamId) {
+        StreamIndex stream = index.get(streamId);
+        if (stream == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        int size = stream.size;
+        return CompletableFuture.completedFuture(Optional.of(decode(stream.positions[size - 1])));
+    }
+
+    @Override
+    public CompletableFuture<Long> readLastPosition() {
+        return CompletableFuture.completedFuture(lastPosition);
+    }
+
+    @Override
+    protected List<EventRecord> readAll(long afterPosition, int maxCount) {
+        long end = this.end;
+        long position = afterPosition == START
+                ? 0
+                : afterPosition + recordLength(segment(afterPosition), offset(afterPosition));
+        List<EventRecord> events = new ArrayList<>();
+        while (position < end && events.size() < maxCount) {
+            int length = recordLength(segment(position), offset(position));
+            if (length == SEGMENT_END) {
+                position = nextSegment(position);
+                continue;
+            }
+            events.add(decode(position));
+            position += length;
+        }
+        return events;
+    }
+
+    /**
+     * Stops the subscriptions and writes the segments back to the disk.
+     */
+    @Override
+    public void close() {
+        super.close();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+
+}
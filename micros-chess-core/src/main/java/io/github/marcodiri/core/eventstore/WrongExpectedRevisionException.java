@@ -0,0 +1,37 @@
+package io.github.marcodiri.core.eventstore;
+
+/**
+ * An append found its stream at another revision than the expected one,
+ * meaning another writer appended to it first.
+ */
+public class WrongExpectedRevisionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String streamId;
+    private final long expectedRevision;
+
+    public WrongExpectedRevisionException(final String streamId, final long expectedRevision,
+            final long actualRevision) {
+        super(String.format("Stream %s is at revision %d, expected %d", streamId, actualRevision,
+                expectedRevision));
+        this.streamId = streamId;
+        this.expectedRevision = expectedRevision;
+    }
+
+    public WrongExpectedRevisionException(final String streamId, final long expectedRevision,
+            final Throwable cause) {
+        super(String.format("Stream %s is not at revision %d", streamId, expectedRevision), cause);
+        this.streamId = streamId;
+        this.expectedRevision = expectedRevision;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public long getExpectedRevision() {
+        return expectedRevision;
+    }
+
+}
@@ -0,0 +1,124 @@
+package io.github.marcodiri.core.repository.eventstore;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+import io.github.marcodiri.core.domain.Aggregate;
+
+/**
+ * Bounded cache of live aggregates keyed by id, evicted by size (least
+ * recently used first) and by time to live.
+ * <p>
+ * An aggregate is handed out by {@link #take(UUID)}, which removes it from the
+ * cache, and handed back by {@link #put(Aggregate)} once its events have been
+ * written, or by {@link #putIfAbsent(Aggregate)} when its command was
+ * rejected before any event was applied. Two commands on the same aggregate therefore never share an
+ * instance: the second one misses and restores from the event store, and the
+ * expected revision of the append settles which of the two wins.
+ */
+public class AggregateCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private static class Entry {
+
+        private final Aggregate aggregate;
+        private final long expiresAt;
+
+        private Entry(final Aggregate aggregate, final long expiresAt) {
+            this.aggregate = aggregate;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+    private final int maximumSize;
+    private final long timeToLive;
+    private final LongSupplier clock;
+    private final LinkedHashMap<UUID, Entry> entries;
+
+    public AggregateCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param maximumSize the maximum number of cached aggregates; 0 disables
+     *                    the cache.
+     * @param timeToLive  how long an aggregate stays cached after it was put.
+     */
+    public AggregateCache(final int maximumSize, final Duration timeToLive) {
+        this(maximumSize, timeToLive, System::nanoTime);
+    }
+
+    AggregateCache(final int maximumSize, final Duration timeToLive, final LongSupplier clock) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > AggregateCache.this.maximumSize;
+            }
+        };
+    }
+
+    public static AggregateCache disabled() {
+        return new AggregateCache(0, Duration.ZERO);
+    }
+
+    /**
+     * Removes and returns the cached aggregate with the given id.
+     *
+     * @param aggregateId the id of the aggregate.
+     * @return the aggregate, or null if it is not cached or expired.
+     */
+    public synchronized Aggregate take(UUID aggregateId) {
+        Entry entry = entries.remove(aggregateId);
+        if (entry == null || entry.expiresAt - clock.getAsLong() <= 0) {
+            return null;
+        }
+        return entry.aggregate;
+    }
+
+    /**
+     * Caches an aggregate whose state and revision match its stream.
+     *
+     * @param aggregate the aggregate to cache.
+     */
+    public synchronized void put(Aggregate aggregate) {
+        if (maximumSize == 0 || aggregate.getId() == null) {
+            return;
+        }
+        entries.put(aggregate.getId(), new Entry(aggregate, clock.getAsLong() + timeToLive));
+    }
+
+    /**
+     * Caches an aggregate whose state and revision match its stream, unless
+     * an aggregate with the same id was cached in the meantime: that one was
+     * put after a write, so it is at least as recent.
+     *
+     * @param aggregate the aggregate to cache.
+     */
+    public synchronized void putIfAbsent(Aggregate aggregate) {
+        if (maximumSize == 0 || aggregate.getId() == null || entries.containsKey(aggregate.getId())) {
+            return;
+        }
+        entries.put(aggregate.getId(), new Entry(aggregate, clock.getAsLong() + timeToLive));
+    }
+
+    public synchronized void invalidate(UUID aggregateId) {
+        entries.remove(aggregateId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,23 @@
+package io.github.marcodiri.core.repository.eventstore;
+
+import java.util.UUID;
+
+/**
+ * The stream of an aggregate to restore has no events, nor a snapshot.
+ */
+public class AggregateNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UUID aggregateId;
+
+    public AggregateNotFoundException(final UUID aggregateId, final String streamId) {
+        super(String.format("Stream %s of aggregate %s not found", streamId, aggregateId));
+        this.aggregateId = aggregateId;
+    }
+
+    public UUID getAggregateId() {
+        return aggregateId;
+    }
+
+}
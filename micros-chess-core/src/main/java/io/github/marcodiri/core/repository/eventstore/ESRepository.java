@@ -1,45 +1,163 @@
 package io.github.marcodiri.core.repository.eventstore;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.eventstore.dbclient.EventData;
 import com.eventstore.dbclient.EventStoreDBClient;
-import com.eventstore.dbclient.ReadResult;
-import com.eventstore.dbclient.ReadStreamOptions;
-import com.eventstore.dbclient.ResolvedEvent;
-import com.eventstore.dbclient.WriteResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.databind.DatabindException;
 
 import io.github.marcodiri.core.domain.Aggregate;
 import io.github.marcodiri.core.domain.AggregateFactory;
+import io.github.marcodiri.core.domain.AggregateSnapshot;
+import io.github.marcodiri.core.domain.Snapshotting;
 import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.domain.event.EventDispatcher;
+import io.github.marcodiri.core.eventstore.EventRecord;
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.EventStoreDBEventStore;
+import io.github.marcodiri.core.eventstore.WrongExpectedRevisionException;
 
 public abstract class ESRepository {
 
-    protected final EventStoreDBClient client;
+    protected static final String SNAPSHOT_STREAM_SUFFIX = "-snapshot";
+    protected static final String SNAPSHOT_EVENT_TYPE = "aggregate-snapshot";
+    /** Snapshots kept in a snapshot stream: only the latest one is read. */
+    protected static final long SNAPSHOT_STREAM_MAX_COUNT = 1;
+    private static final String SNAPSHOT_REVISION = "revision";
+
+    /** Attempts of a command that keeps losing the append race. */
+    public static final int MAX_WRITE_ATTEMPTS = 3;
+
+    protected final EventStore eventStore;
     protected final AggregateFactory aggregateFactory;
+    protected final EventCodec eventCodec;
+    protected final Class<? extends AggregateSnapshot> snapshotClass;
+    protected final int snapshotInterval;
+    protected final AggregateCache aggregateCache;
 
     protected static final Logger LOGGER = LogManager.getLogger(ESRepository.class);
 
+    /**
+     * Decides the events of a command on a loaded aggregate.
+     *
+     * @param <A> the aggregate type.
+     */
+    @FunctionalInterface
+    protected interface CommandProcessor<A extends Aggregate> {
+        List<DomainEvent> process(A aggregate) throws Exception;
+    }
+
     public ESRepository(final EventStoreDBClient client, final AggregateFactory aggregateFactory) {
-        this.client = client;
+        this(client, aggregateFactory, new EventCodec(), null, 0);
+    }
+
+    /**
+     * @param client           the EventStoreDB client.
+     * @param aggregateFactory the factory of the aggregates of this repository.
+     * @param eventCodec       the codec of the events of this repository.
+     * @param snapshotClass    the snapshot type produced by the aggregates.
+     * @param snapshotInterval a snapshot is written every {@code snapshotInterval}
+     *                         events of a {@link Snapshotting} aggregate; 0
+     *                         disables snapshots.
+     */
+    public ESRepository(final EventStoreDBClient client, final AggregateFactory aggregateFactory,
+            final EventCodec eventCodec, final Class<? extends AggregateSnapshot> snapshotClass,
+            final int snapshotInterval) {
+        this(client, aggregateFactory, eventCodec, snapshotClass, snapshotInterval, new AggregateCache());
+    }
+
+    /**
+     * @param client           the EventStoreDB client.
+     * @param aggregateFactory the factory of the aggregates of this repository.
+     * @param eventCodec       the codec of the events of this repository.
+     * @param snapshotClass    the snapshot type produced by the aggregates.
+     * @param snapshotInterval a snapshot is written every {@code snapshotInterval}
+     *                         events of a {@link Snapshotting} aggregate; 0
+     *                         disables snapshots.
+     * @param aggregateCache   the cache of the aggregates last written by this
+     *                         repository.
+     */
+    public ESRepository(final EventStoreDBClient client, final AggregateFactory aggregateFactory,
+            final EventCodec eventCodec, final Class<? extends AggregateSnapshot> snapshotClass,
+            final int snapshotInterval, final AggregateCache aggregateCache) {
+        this(new EventStoreDBEventStore(client), aggregateFactory, eventCodec, snapshotClass, snapshotInterval,
+                aggregateCache);
+    }
+
+    /**
+     * @param eventStore       the event store.
+     * @param aggregateFactory the factory of the aggregates of this repository.
+     * @param eventCodec       the codec of the events of this repository.
+     * @param snapshotClass    the snapshot type produced by the aggregates.
+     * @param snapshotInterval a snapshot is written every {@code snapshotInterval}
+     *                         events of a {@link Snapshotting} aggregate; 0
+     *                         disables snapshots.
+     */
+    public ESRepository(final EventStore eventStore, final AggregateFactory aggregateFactory,
+            final EventCodec eventCodec, final Class<? extends AggregateSnapshot> snapshotClass,
+            final int snapshotInterval) {
+        this(eventStore, aggregateFactory, eventCodec, snapshotClass, snapshotInterval, new AggregateCache());
+    }
+
+    /**
+     * @param eventStore       the event store.
+     * @param aggregateFactory the factory of the aggregates of this repository.
+     * @param eventCodec       the codec of the events of this repository.
+     * @param snapshotClass    the snapshot type produced by the aggregates.
+     * @param snapshotInterval a snapshot is written every {@code snapshotInterval}
+     *                         events of a {@link Snapshotting} aggregate; 0
+     *                         disables snapshots.
+     * @param aggregateCache   the cache of the aggregates last written by this
+     *                         repository.
+     */
+    public ESRepository(final EventStore eventStore, final AggregateFactory aggregateFactory,
+            final EventCodec eventCodec, final Class<? extends AggregateSnapshot> snapshotClass,
+            final int snapshotInterval, final AggregateCache aggregateCache) {
+        this.eventStore = eventStore;
         this.aggregateFactory = aggregateFactory;
+        this.eventCodec = eventCodec;
+        this.snapshotClass = snapshotClass;
+        this.snapshotInterval = snapshotClass != null ? snapshotInterval : 0;
+        this.aggregateCache = aggregateCache;
     }
 
     protected abstract String streamNameFromAggregateId(UUID aggregateId);
 
-    protected abstract List<DomainEvent> convertEvents(List<ResolvedEvent> resolvedEvents)
+    protected abstract List<DomainEvent> convertEvents(List<EventRecord> records)
             throws StreamReadException, DatabindException, IOException;
 
+    /**
+     * Converts a single event read from the event store, by default through
+     * {@link #convertEvents(List)}.
+     *
+     * @param record the event read.
+     * @return the {@link DomainEvent}.
+     * @throws IOException if the event cannot be decoded.
+     */
+    protected DomainEvent convertEvent(EventRecord record) throws IOException {
+        return convertEvents(Collections.singletonList(record)).get(0);
+    }
+
+    protected String snapshotStreamNameFromAggregateId(UUID aggregateId) {
+        return streamNameFromAggregateId(aggregateId) + SNAPSHOT_STREAM_SUFFIX;
+    }
+
     /**
      * Read all events for given GameProposal id.
      *
@@ -53,46 +171,312 @@ public abstract class ESRepository {
      */
     public List<DomainEvent> readEventsForAggregate(UUID gameProposalId)
             throws InterruptedException, ExecutionException, IOException {
-        ReadStreamOptions readLastEvent = ReadStreamOptions.get()
-                .forwards()
-                .fromStart();
+        return readEventsForAggregate(gameProposalId, 0);
+    }
 
-        ReadResult result = client.readStream(streamNameFromAggregateId(gameProposalId), readLastEvent)
-                .get();
+    /**
+     * Read the events for given aggregate id starting at a stream revision.
+     *
+     * @param aggregateId
+     * @param fromRevision the revision of the first event to read.
+     * @return a list of {@link DomainEvent}.
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws IOException
+     */
+    public List<DomainEvent> readEventsForAggregate(UUID aggregateId, long fromRevision)
+            throws InterruptedException, ExecutionException, IOException {
+        List<EventRecord> records = eventStore.read(streamNameFromAggregateId(aggregateId), fromRevision,
+                Integer.MAX_VALUE).get();
 
-        List<ResolvedEvent> resolvedEvents = result.getEvents();
-        List<DomainEvent> pastEvents = convertEvents(resolvedEvents);
+        List<DomainEvent> pastEvents = convertEvents(records);
         return pastEvents;
     }
 
-    private WriteResult writeEventsForAggregate(Aggregate aggregate, List<EventData> appliedEventsData)
+    /**
+     * Returns the cached aggregate with the given id or, on a cache miss,
+     * restores it from the event store. The aggregate is not cached again
+     * until its new events have been written.
+     *
+     * @param aggregateId the id of the aggregate to load.
+     * @return the aggregate.
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws IOException
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     * @throws NoSuchMethodException
+     */
+    protected Aggregate loadAggregate(UUID aggregateId)
+            throws InterruptedException, ExecutionException, IOException, IllegalAccessException,
+            InvocationTargetException, NoSuchMethodException {
+        Aggregate aggregate = aggregateCache.take(aggregateId);
+        if (aggregate != null) {
+            LOGGER.debug("Loaded aggregate {} from cache at revision {}", aggregateId, aggregate.getRevision());
+            return aggregate;
+        }
+        return restoreAggregate(aggregateId);
+    }
+
+    /**
+     * Hands an aggregate taken by {@link #loadAggregate(UUID)} back to the
+     * cache after its command was rejected: no event was applied, so it still
+     * matches its stream and the next command does not restore it again. An
+     * aggregate cached in the meantime by a written command is kept.
+     *
+     * @param aggregate the aggregate whose command was rejected.
+     */
+    protected void releaseAggregate(Aggregate aggregate) {
+        aggregateCache.putIfAbsent(aggregate);
+    }
+
+    /**
+     * Non-blocking variant of {@link #loadAggregate(UUID)}.
+     *
+     * @param aggregateId the id of the aggregate to load.
+     * @return the aggregate.
+     */
+    protected CompletableFuture<Aggregate> loadAggregateAsync(UUID aggregateId) {
+        Aggregate aggregate = aggregateCache.take(aggregateId);
+        if (aggregate != null) {
+            LOGGER.debug("Loaded aggregate {} from cache at revision {}", aggregateId, aggregate.getRevision());
+            return CompletableFuture.completedFuture(aggregate);
+        }
+        return restoreAggregateAsync(aggregateId);
+    }
+
+    /**
+     * Rebuilds an aggregate from its latest snapshot, if any, and the events
+     * written after it.
+     *
+     * @param aggregateId the id of the aggregate to restore.
+     * @return the restored aggregate.
+     * @throws AggregateNotFoundException if the aggregate has no events.
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws IOException
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     * @throws NoSuchMethodException
+     */
+    protected Aggregate restoreAggregate(UUID aggregateId)
+            throws InterruptedException, ExecutionException, IOException, IllegalAccessException,
+            InvocationTargetException, NoSuchMethodException {
+        Aggregate aggregate = aggregateFactory.createAggregate();
+        long fromRevision = restoreFromLatestSnapshot(aggregate, aggregateId);
+        long replayed = replayEventsForAggregate(aggregate, aggregateId, fromRevision);
+        return restored(aggregate, aggregateId, fromRevision, replayed);
+    }
+
+    /**
+     * Non-blocking variant of {@link #restoreAggregate(UUID)}.
+     *
+     * @param aggregateId the id of the aggregate to restore.
+     * @return the restored aggregate; completes exceptionally with an
+     *         {@link AggregateNotFoundException} if the aggregate has no
+     *         events.
+     */
+    protected CompletableFuture<Aggregate> restoreAggregateAsync(UUID aggregateId) {
+        Aggregate aggregate = aggregateFactory.createAggregate();
+        return restoreFromLatestSnapshotAsync(aggregate, aggregateId)
+                .thenCompose(fromRevision -> replayEventsForAggregateAsync(aggregate, aggregateId, fromRevision)
+                        .thenApply(replayed -> restored(aggregate, aggregateId, fromRevision, replayed)));
+    }
+
+    private Aggregate restored(Aggregate aggregate, UUID aggregateId, long fromRevision, long replayed) {
+        if (fromRevision + replayed == 0) {
+            throw new AggregateNotFoundException(aggregateId, streamNameFromAggregateId(aggregateId));
+        }
+        aggregate.setRevision(fromRevision + replayed - 1);
+        LOGGER.info("Restored aggregate from revision {} and {} events, \n{}", fromRevision, replayed, aggregate);
+        return aggregate;
+    }
+
+    /**
+     * Applies the events of an aggregate starting at a stream revision, one
+     * at a time as they are read, without keeping them or encoding them
+     * again: the memory of a replay does not grow with the stream.
+     *
+     * @param aggregate    the aggregate to apply the events to.
+     * @param aggregateId  the id of the aggregate.
+     * @param fromRevision the revision of the first event to apply.
+     * @return the number of events applied.
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws IOException
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     * @throws NoSuchMethodException
+     */
+    protected long replayEventsForAggregate(Aggregate aggregate, UUID aggregateId, long fromRevision)
+            throws InterruptedException, ExecutionException, IOException, IllegalAccessException,
+            InvocationTargetException, NoSuchMethodException {
+        try {
+            return replayEventsForAggregateAsync(aggregate, aggregateId, fromRevision).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof IllegalAccessException) {
+                throw (IllegalAccessException) cause;
+            }
+            if (cause instanceof InvocationTargetException) {
+                throw (InvocationTargetException) cause;
+            }
+            if (cause instanceof NoSuchMethodException) {
+                throw (NoSuchMethodException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@link #replayEventsForAggregate(Aggregate, UUID, long)}.
+     *
+     * @param aggregate    the aggregate to apply the events to.
+     * @param aggregateId  the id of the aggregate.
+     * @param fromRevision the revision of the first event to apply.
+     * @return the number of events applied.
+     */
+    protected CompletableFuture<Long> replayEventsForAggregateAsync(Aggregate aggregate, UUID aggregateId,
+            long fromRevision) {
+        return eventStore.forEach(streamNameFromAggregateId(aggregateId), fromRevision, record -> {
+            try {
+                EventDispatcher.apply(aggregate, convertEvent(record));
+            } catch (IOException | ReflectiveOperationException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Restores the aggregate from the latest snapshot in its snapshot stream,
+     * if it is {@link Snapshotting}.
+     *
+     * @param aggregate   the empty aggregate to restore.
+     * @param aggregateId the id of the aggregate.
+     * @return the revision of the first event not covered by the snapshot, 0
+     *         if no snapshot was found.
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws IOException
+     */
+    protected long restoreFromLatestSnapshot(Aggregate aggregate, UUID aggregateId)
+            throws InterruptedException, ExecutionException, IOException {
+        if (!snapshotsEnabled(aggregate)) {
+            return 0;
+        }
+        Optional<EventRecord> snapshot = eventStore.readLast(snapshotStreamNameFromAggregateId(aggregateId)).get();
+        return restoreSnapshot(aggregate, snapshot);
+    }
+
+    /**
+     * Non-blocking variant of {@link #restoreFromLatestSnapshot(Aggregate, UUID)}.
+     *
+     * @param aggregate   the empty aggregate to restore.
+     * @param aggregateId the id of the aggregate.
+     * @return the revision of the first event not covered by the snapshot, 0
+     *         if no snapshot was found.
+     */
+    protected CompletableFuture<Long> restoreFromLatestSnapshotAsync(Aggregate aggregate, UUID aggregateId) {
+        if (!snapshotsEnabled(aggregate)) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        return eventStore.readLast(snapshotStreamNameFromAggregateId(aggregateId))
+                .thenApply(snapshot -> {
+                    try {
+                        return restoreSnapshot(aggregate, snapshot);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private long restoreSnapshot(Aggregate aggregate, Optional<EventRecord> snapshot) throws IOException {
+        if (snapshot.isEmpty()) {
+            return 0;
+        }
+
+        EventRecord snapshotEvent = snapshot.get();
+        long revision = eventCodec.getMapper().readTree(snapshotEvent.getMetadata())
+                .get(SNAPSHOT_REVISION).asLong();
+        ((Snapshotting) aggregate).restoreSnapshot(eventCodec.decode(snapshotEvent.getData(), snapshotClass));
+        aggregate.setRevision(revision);
+        return revision + 1;
+    }
+
+    private long writeEventsForAggregate(Aggregate aggregate, List<EncodedEvent> appliedEvents)
             throws InterruptedException, ExecutionException {
+        return writeEventsForAggregateAsync(aggregate, appliedEvents).get();
+    }
+
+    private CompletableFuture<Long> writeEventsForAggregateAsync(Aggregate aggregate,
+            List<EncodedEvent> appliedEvents) {
         UUID aggregateId = aggregate.getId();
         if (aggregateId == null) {
             throw new RuntimeException("Aggregate id is null");
         }
-        WriteResult writeResult = client
-                .appendToStream(streamNameFromAggregateId(aggregateId),
-                        appliedEventsData.iterator())
-                .get();
-        return writeResult;
+        long revision = aggregate.getRevision();
+        return eventStore.append(streamNameFromAggregateId(aggregateId),
+                revision == Aggregate.NO_REVISION ? EventStore.NO_STREAM : revision,
+                appliedEvents);
+    }
+
+    /**
+     * @param e the exception thrown by a write, possibly wrapped in an
+     *          {@link ExecutionException} or a {@link CompletionException}.
+     * @return true if the write failed because the stream moved past the
+     *         revision the aggregate was loaded at.
+     */
+    protected static boolean isWriteConflict(Throwable e) {
+        return unwrap(e) instanceof WrongExpectedRevisionException;
+    }
+
+    /**
+     * @param e an exception thrown by a future.
+     * @return the cause of an {@link ExecutionException} or a
+     *         {@link CompletionException}, otherwise the exception itself.
+     */
+    protected static Throwable unwrap(Throwable e) {
+        if ((e instanceof ExecutionException || e instanceof CompletionException) && e.getCause() != null) {
+            return e.getCause();
+        }
+        return e;
     }
 
-    protected List<EventData> applyEventsToAggregate(Aggregate aggregate, List<DomainEvent> events)
+    protected List<EncodedEvent> applyEventsToAggregate(Aggregate aggregate, List<DomainEvent> events)
             throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
-        List<EventData> eventDataList = new ArrayList<>();
+        List<EncodedEvent> encodedEvents = new ArrayList<>();
         for (DomainEvent event : events) {
-            aggregate.getClass().getMethod("apply", event.getClass()).invoke(aggregate, event);
-            EventData eventData = EventData
-                    .builderAsJson(event.getType().toString(), event)
-                    .build();
-            eventDataList.add(eventData);
+            EventDispatcher.apply(aggregate, event);
+            encodedEvents.add(encode(event));
+        }
+        return encodedEvents;
+    }
+
+    /**
+     * @param event the event to write.
+     * @return the event encoded by the event codec, as JSON or binary data.
+     * @throws UncheckedIOException if the event cannot be serialized.
+     */
+    protected EncodedEvent encode(DomainEvent event) {
+        try {
+            return eventCodec.encodeEvent(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return eventDataList;
     }
 
     /**
-     * Applies events to an Aggregate and writes events to EventStoreDB.
+     * Applies events to an Aggregate and writes events to the event store.
+     * Appends expect the stream to be at the aggregate revision, so a
+     * concurrent write fails with a {@link WrongExpectedRevisionException}
+     * cause. On success the aggregate is cached; it is never cached after a
+     * failure, since its events have already been applied.
+     * Writes a snapshot when the new events cross a multiple of the snapshot
+     * interval.
      *
      * @param aggregate the Aggregate to apply events to.
      * @param events    the events to be applied.
@@ -106,10 +490,176 @@ public abstract class ESRepository {
     protected void applyAndWriteEvents(Aggregate aggregate, List<DomainEvent> events)
             throws IllegalAccessException,
             InvocationTargetException, NoSuchMethodException, InterruptedException, ExecutionException {
-        List<EventData> appliedEventsData = applyEventsToAggregate(aggregate, events);
-        WriteResult writeResult = writeEventsForAggregate(aggregate, appliedEventsData);
+        long previousRevision = aggregate.getRevision();
+        List<EncodedEvent> appliedEvents = applyEventsToAggregate(aggregate, events);
+        long position;
+        try {
+            position = writeEventsForAggregate(aggregate, appliedEvents);
+        } catch (ExecutionException e) {
+            aggregateCache.invalidate(aggregate.getId());
+            throw e;
+        }
+        onEventsWritten(aggregate, previousRevision, events, position);
+    }
+
+    /**
+     * Non-blocking variant of {@link #applyAndWriteEvents(Aggregate, List)}.
+     *
+     * @param aggregate the Aggregate to apply events to.
+     * @param events    the events to be applied.
+     * @return completes once the events are written.
+     */
+    protected CompletableFuture<Void> applyAndWriteEventsAsync(Aggregate aggregate, List<DomainEvent> events) {
+        long previousRevision = aggregate.getRevision();
+        CompletableFuture<Long> write;
+        try {
+            write = writeEventsForAggregateAsync(aggregate, applyEventsToAggregate(aggregate, events));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return write
+                .whenComplete((position, e) -> {
+                    if (e != null) {
+                        aggregateCache.invalidate(aggregate.getId());
+                    }
+                })
+                .thenAccept(position -> onEventsWritten(aggregate, previousRevision, events, position));
+    }
+
+    private void onEventsWritten(Aggregate aggregate, long previousRevision, List<DomainEvent> events,
+            long position) {
+        aggregate.setRevision(previousRevision + events.size());
+        // Taken before the aggregate is cached: once cached, another command
+        // can take it and apply the events of the next revision
+        EncodedEvent snapshotEvent = snapshotDue(aggregate, previousRevision) ? encodeSnapshot(aggregate) : null;
+        aggregateCache.put(aggregate);
         LOGGER.info("Saved events to EventStore: {}", events);
-        LOGGER.debug(writeResult);
+        LOGGER.debug("Appended up to position {}", position);
+
+        if (snapshotEvent != null) {
+            writeSnapshot(aggregate.getId(), previousRevision + events.size(), snapshotEvent,
+                    previousRevision + 1 < snapshotInterval);
+        }
+    }
+
+    /**
+     * Processes a command on an aggregate and writes its events, without
+     * blocking the calling thread. A rejected command hands the aggregate
+     * back to the cache, see {@link #releaseAggregate(Aggregate)}.
+     *
+     * @param <A>       the aggregate type.
+     * @param aggregate the new or loaded aggregate.
+     * @param processor decides the events of the command.
+     * @return the aggregate once its events are written.
+     */
+    protected <A extends Aggregate> CompletableFuture<A> processAndWriteAsync(A aggregate, CommandProcessor<A> processor) {
+        List<DomainEvent> events;
+        try {
+            events = processor.process(aggregate);
+        } catch (Exception e) {
+            releaseAggregate(aggregate);
+            return CompletableFuture.failedFuture(e);
+        }
+        return applyAndWriteEventsAsync(aggregate, events).thenApply(v -> aggregate);
+    }
+
+    /**
+     * Loads an aggregate, processes a command on it and writes its events,
+     * without blocking the calling thread. The command is processed again on
+     * a freshly loaded aggregate when the write loses the append race, up to
+     * {@link #MAX_WRITE_ATTEMPTS} times.
+     *
+     * @param <A>         the aggregate type.
+     * @param aggregateId the id of the aggregate.
+     * @param processor   decides the events of the command.
+     * @return the aggregate once its events are written; completes
+     *         exceptionally with the exception of the command or of the
+     *         event store.
+     */
+    protected <A extends Aggregate> CompletableFuture<A> updateAsync(UUID aggregateId,
+            CommandProcessor<A> processor) {
+        return updateAsync(aggregateId, processor, 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <A extends Aggregate> CompletableFuture<A> updateAsync(UUID aggregateId, CommandProcessor<A> processor,
+            int attempt) {
+        return loadAggregateAsync(aggregateId)
+                .thenCompose(aggregate -> processAndWriteAsync((A) aggregate, processor))
+                .handle((aggregate, e) -> {
+                    if (e == null) {
+                        return CompletableFuture.completedFuture(aggregate);
+                    }
+                    if (!isWriteConflict(e) || attempt == MAX_WRITE_ATTEMPTS) {
+                        return CompletableFuture.<A>failedFuture(unwrap(e));
+                    }
+                    LOGGER.info("Aggregate {} was modified concurrently, retrying", aggregateId);
+                    return updateAsync(aggregateId, processor, attempt + 1);
+                })
+                .thenCompose(future -> future);
+    }
+
+    private boolean snapshotsEnabled(Aggregate aggregate) {
+        return snapshotInterval > 0 && aggregate instanceof Snapshotting;
+    }
+
+    private boolean snapshotDue(Aggregate aggregate, long previousRevision) {
+        return snapshotsEnabled(aggregate)
+                && (aggregate.getRevision() + 1) / snapshotInterval > (previousRevision + 1) / snapshotInterval;
+    }
+
+    /**
+     * Captures the aggregate state at its current revision, see
+     * {@link Snapshotting#takeSnapshot()}.
+     *
+     * @param aggregate the {@link Snapshotting} aggregate to snapshot.
+     * @return the snapshot event to append to the snapshot stream, or null if
+     *         the snapshot cannot be serialized.
+     */
+    protected EncodedEvent encodeSnapshot(Aggregate aggregate) {
+        long revision = aggregate.getRevision();
+        AggregateSnapshot snapshot = ((Snapshotting) aggregate).takeSnapshot();
+        try {
+            byte[] snapshotBytes = eventCodec.writerFor(snapshot.getClass()).writeValueAsBytes(snapshot);
+            return new EncodedEvent(SNAPSHOT_EVENT_TYPE, snapshotBytes,
+                    eventCodec.getMapper().writeValueAsBytes(Collections.singletonMap(SNAPSHOT_REVISION, revision)),
+                    true);
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Could not serialize snapshot of {} at revision {}", aggregate.getId(), revision, e);
+            return null;
+        }
+    }
+
+    /**
+     * Appends a snapshot to the snapshot stream of an aggregate without
+     * waiting for the result: a missing snapshot only means a longer replay.
+     * The first snapshot also limits the stream to the last
+     * {@link #SNAPSHOT_STREAM_MAX_COUNT} snapshots, so that it does not grow
+     * with the aggregate.
+     *
+     * @param aggregateId   the id of the aggregate.
+     * @param revision      the revision captured by the snapshot.
+     * @param snapshotEvent the snapshot, see {@link #encodeSnapshot(Aggregate)}.
+     * @param first         whether it is the first snapshot of the aggregate.
+     */
+    protected void writeSnapshot(UUID aggregateId, long revision, EncodedEvent snapshotEvent, boolean first) {
+        String streamId = snapshotStreamNameFromAggregateId(aggregateId);
+        if (first) {
+            eventStore.setMaxCount(streamId, SNAPSHOT_STREAM_MAX_COUNT)
+                    .whenComplete((v, e) -> {
+                        if (e != null) {
+                            LOGGER.warn("Could not limit the snapshot stream of {}", aggregateId, e);
+                        }
+                    });
+        }
+        eventStore.append(streamId, EventStore.ANY, Collections.singletonList(snapshotEvent))
+                .whenComplete((position, e) -> {
+                    if (e != null) {
+                        LOGGER.warn("Could not write snapshot of {} at revision {}", aggregateId, revision, e);
+                    } else {
+                        LOGGER.info("Saved snapshot of {} at revision {}", aggregateId, revision);
+                    }
+                });
     }
 
 }
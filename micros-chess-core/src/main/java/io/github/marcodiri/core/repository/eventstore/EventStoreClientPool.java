@@ -0,0 +1,140 @@
+package io.github.marcodiri.core.repository.eventstore;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.eventstore.dbclient.EventStoreDBClient;
+import com.eventstore.dbclient.EventStoreDBClientSettings;
+import com.eventstore.dbclient.EventStoreDBConnectionString;
+
+/**
+ * A fixed set of EventStoreDB clients shared by every request of a service,
+ * handed out in turn.
+ * <p>
+ * Each client owns a gRPC channel: creating one costs a connection and a
+ * handshake, so the clients are created once and shut down by
+ * {@link #close()}. A single channel multiplexes the calls of all the
+ * requests, but HTTP/2 caps the calls in flight on a connection; a few
+ * channels let more of them run in parallel.
+ */
+public class EventStoreClientPool implements Supplier<EventStoreDBClient>, AutoCloseable {
+
+    public static final String DEFAULT_HOST = "eventstore";
+    public static final int DEFAULT_PORT = 2113;
+    public static final int DEFAULT_SIZE = 2;
+    public static final Duration DEFAULT_KEEP_ALIVE_INTERVAL = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_KEEP_ALIVE_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(10);
+
+    private static final Logger LOGGER = LogManager.getLogger(EventStoreClientPool.class);
+
+    private final EventStoreDBClient[] clients;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param settings the settings of every client.
+     * @param size     the number of clients, each with its own channel.
+     */
+    public EventStoreClientPool(final EventStoreDBClientSettings settings, final int size) {
+        this(size, () -> EventStoreDBClient.create(settings));
+    }
+
+    EventStoreClientPool(final int size, final Supplier<EventStoreDBClient> clientFactory) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.clients = new EventStoreDBClient[size];
+        for (int i = 0; i < size; i++) {
+            clients[i] = clientFactory.get();
+        }
+    }
+
+    /**
+     * Creates a pool configured by the {@code EVENTSTORE_HOST},
+     * {@code EVENTSTORE_PORT}, {@code EVENTSTORE_CHANNELS},
+     * {@code EVENTSTORE_KEEP_ALIVE_INTERVAL_MS},
+     * {@code EVENTSTORE_KEEP_ALIVE_TIMEOUT_MS} and
+     * {@code EVENTSTORE_DEADLINE_MS} variables, falling back to the defaults
+     * for those not set.
+     *
+     * @param variables the lookup of the variables, such as
+     *                  {@code System::getenv}.
+     * @return the pool.
+     */
+    public static EventStoreClientPool fromEnvironment(Function<String, String> variables) {
+        String host = variables.apply("EVENTSTORE_HOST");
+        EventStoreDBClientSettings settings = settings(
+                host != null ? host : DEFAULT_HOST,
+                intVariable(variables, "EVENTSTORE_PORT", DEFAULT_PORT),
+                durationVariable(variables, "EVENTSTORE_KEEP_ALIVE_INTERVAL_MS", DEFAULT_KEEP_ALIVE_INTERVAL),
+                durationVariable(variables, "EVENTSTORE_KEEP_ALIVE_TIMEOUT_MS", DEFAULT_KEEP_ALIVE_TIMEOUT),
+                durationVariable(variables, "EVENTSTORE_DEADLINE_MS", DEFAULT_DEADLINE));
+        return new EventStoreClientPool(settings, intVariable(variables, "EVENTSTORE_CHANNELS", DEFAULT_SIZE));
+    }
+
+    private static int intVariable(Function<String, String> variables, String name, int defaultValue) {
+        String value = variables.apply(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static Duration durationVariable(Function<String, String> variables, String name,
+            Duration defaultValue) {
+        String value = variables.apply(name);
+        return value != null ? Duration.ofMillis(Long.parseLong(value)) : defaultValue;
+    }
+
+    /**
+     * @param host              the host of the event store.
+     * @param port              the port of the event store.
+     * @param keepAliveInterval the idle time after which a channel is pinged.
+     * @param keepAliveTimeout  how long a ping waits for its answer before the
+     *                          channel is considered broken.
+     * @param deadline          how long a call waits for its answer.
+     * @return the settings of an insecure connection to the event store.
+     */
+    public static EventStoreDBClientSettings settings(String host, int port, Duration keepAliveInterval,
+            Duration keepAliveTimeout, Duration deadline) {
+        return EventStoreDBConnectionString.parseOrThrow(String.format(
+                "esdb://%s:%d?tls=false&keepAliveInterval=%d&keepAliveTimeout=%d&defaultDeadline=%d",
+                host, port, keepAliveInterval.toMillis(), keepAliveTimeout.toMillis(), deadline.toMillis()));
+    }
+
+    /**
+     * @return the next client, in turn.
+     */
+    @Override
+    public EventStoreDBClient get() {
+        return clients[Math.floorMod(next.getAndIncrement(), clients.length)];
+    }
+
+    /**
+     * @return the number of clients.
+     */
+    public int size() {
+        return clients.length;
+    }
+
+    /**
+     * Shuts down every client; calls in flight are cancelled.
+     */
+    @Override
+    public void close() {
+        for (EventStoreDBClient client : clients) {
+            try {
+                client.shutdown();
+            } catch (ExecutionException e) {
+                LOGGER.warn("Could not shut down client", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+}
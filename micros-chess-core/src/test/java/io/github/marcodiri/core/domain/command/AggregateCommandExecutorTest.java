@@ -0,0 +1,103 @@
+package io.github.marcodiri.core.domain.command;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class AggregateCommandExecutorTest {
+
+    private final AggregateCommandExecutor executor = new AggregateCommandExecutor(2);
+
+    @AfterEach
+    void close() {
+        executor.close();
+    }
+
+    @Test
+    void commandsOfOneAggregateRunInSubmissionOrder() {
+        UUID aggregateId = UUID.randomUUID();
+        List<Integer> started = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> completions = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            int command = i;
+            completions.add(executor.submit(aggregateId, () -> {
+                started.add(command);
+                return CompletableFuture.completedFuture(command);
+            }));
+        }
+
+        assertThat(CompletableFuture.allOf(completions.toArray(new CompletableFuture[0])))
+                .succeedsWithin(5, SECONDS);
+        assertThat(started).isSorted().hasSize(100);
+    }
+
+    @Test
+    void commandStartsOnlyOncePreviousCommandCompletes() {
+        UUID aggregateId = UUID.randomUUID();
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        executor.submit(aggregateId, () -> first);
+        CompletableFuture<String> second = executor.submit(aggregateId, () -> {
+            secondStarted.countDown();
+            return CompletableFuture.completedFuture("second");
+        });
+
+        assertThat(secondStarted.getCount()).isEqualTo(1);
+        assertThat(second).isNotDone();
+
+        first.complete("first");
+
+        assertThat(second).succeedsWithin(5, SECONDS).isEqualTo("second");
+    }
+
+    @Test
+    void failedCommandDoesNotBlockNextCommand() {
+        UUID aggregateId = UUID.randomUUID();
+
+        CompletableFuture<String> failed = executor.submit(aggregateId,
+                () -> CompletableFuture.failedFuture(new IllegalStateException()));
+        CompletableFuture<String> next = executor.submit(aggregateId,
+                () -> CompletableFuture.completedFuture("next"));
+
+        assertThat(failed).failsWithin(5, SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(next).succeedsWithin(5, SECONDS).isEqualTo("next");
+    }
+
+    @Test
+    void commandsOfDifferentAggregatesDoNotWaitForEachOther() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        executor.submit(UUID.randomUUID(), () -> pending);
+        CompletableFuture<String> other = executor.submit(UUID.randomUUID(),
+                () -> CompletableFuture.completedFuture("other"));
+
+        assertThat(other).succeedsWithin(5, SECONDS).isEqualTo("other");
+        pending.complete("pending");
+    }
+
+    @Test
+    void mailboxIsRemovedOnceCommandsComplete() {
+        UUID aggregateId = UUID.randomUUID();
+
+        CompletableFuture<String> completion = executor.submit(aggregateId,
+                () -> CompletableFuture.completedFuture("done"));
+
+        assertThat(completion).succeedsWithin(5, SECONDS);
+        assertThat(executor.pendingAggregates()).isZero();
+    }
+
+}
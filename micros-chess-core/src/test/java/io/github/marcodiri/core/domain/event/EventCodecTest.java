@@ -0,0 +1,179 @@
+package io.github.marcodiri.core.domain.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class EventCodecTest {
+
+    private static enum TestEventType implements DomainEventType {
+        TEST;
+
+        @Override
+        public Class<? extends DomainEvent> getEventClass() {
+            return TestEvent.class;
+        }
+
+        @Override
+        public String toString() {
+            return "test-event";
+        }
+    }
+
+    private static class TestEvent implements DomainEvent {
+
+        private final TestEventType type = TestEventType.TEST;
+
+        private final UUID id;
+
+        @JsonCreator
+        TestEvent(@JsonProperty("id") final UUID id) {
+            this.id = id;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public DomainEventType getType() {
+            return type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            TestEvent event = (TestEvent) o;
+            return Objects.equals(id, event.id);
+        }
+
+    }
+
+    private final EventCodec codec = new EventCodec(TestEventType.values());
+
+    @Test
+    void decodeByEventTypeReadsEncodedEvent() throws IOException {
+        TestEvent event = new TestEvent(UUID.randomUUID());
+
+        DomainEvent decoded = codec.decode("test-event", codec.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void decodeByClassReadsEncodedEvent() throws IOException {
+        TestEvent event = new TestEvent(UUID.randomUUID());
+
+        TestEvent decoded = codec.decode(codec.encode(event), TestEvent.class);
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void decodeThrowsOnUnknownEventType() {
+        assertThatThrownBy(() -> codec.decode("unknown", new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown event type unknown");
+    }
+
+    private static class TestEventFormat implements EventFormat {
+
+        @Override
+        public String getName() {
+            return "test-binary";
+        }
+
+        @Override
+        public int getVersion() {
+            return 2;
+        }
+
+        @Override
+        public boolean canEncode(DomainEvent event) {
+            return ((TestEvent) event).getId() != null;
+        }
+
+        @Override
+        public byte[] encode(DomainEvent event) {
+            return ((TestEvent) event).getId().toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public DomainEvent decode(byte[] data, int version) {
+            return new TestEvent(UUID.fromString(new String(data, StandardCharsets.US_ASCII)));
+        }
+
+    }
+
+    @Test
+    void encodeEventWritesJsonWithMetadata() throws IOException {
+        TestEvent event = new TestEvent(UUID.randomUUID());
+
+        EncodedEvent encodedEvent = codec.encodeEvent(event);
+
+        assertThat(encodedEvent.isJson()).isTrue();
+        assertThat(encodedEvent.getType()).isEqualTo("test-event");
+        assertThat(new String(encodedEvent.getMetadata(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"type\":\"test-event\",\"format\":\"json\",\"formatVersion\":1}");
+        assertThat(codec.decode("test-event", encodedEvent.getData(), encodedEvent.getMetadata())).isEqualTo(event);
+    }
+
+    @Test
+    void encodeEventUsesRegisteredFormat() throws IOException {
+        codec.withFormat(TestEventType.TEST, new TestEventFormat());
+        TestEvent event = new TestEvent(UUID.randomUUID());
+
+        EncodedEvent encodedEvent = codec.encodeEvent(event);
+
+        assertThat(encodedEvent.isJson()).isFalse();
+        assertThat(encodedEvent.getData()).isEqualTo(event.getId().toString().getBytes(StandardCharsets.US_ASCII));
+        assertThat(new String(encodedEvent.getMetadata(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"type\":\"test-event\",\"format\":\"test-binary\",\"formatVersion\":2}");
+        assertThat(codec.decode("test-event", encodedEvent.getData(), encodedEvent.getMetadata())).isEqualTo(event);
+    }
+
+    @Test
+    void encodeEventFallsBackToJsonIfFormatCannotEncodeEvent() throws IOException {
+        codec.withFormat(TestEventType.TEST, new TestEventFormat());
+
+        EncodedEvent encodedEvent = codec.encodeEvent(new TestEvent(null));
+
+        assertThat(encodedEvent.isJson()).isTrue();
+    }
+
+    @Test
+    void decodeReadsJsonWithoutMetadata() throws IOException {
+        codec.withFormat(TestEventType.TEST, new TestEventFormat());
+        TestEvent event = new TestEvent(UUID.randomUUID());
+
+        assertThat(codec.decode("test-event", codec.encode(event), new byte[0])).isEqualTo(event);
+    }
+
+    @Test
+    void decodeThrowsOnUnknownFormat() {
+        byte[] metadata = "{\"format\":\"other\",\"formatVersion\":1}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> codec.decode("test-event", new byte[0], metadata))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Unknown format other of event type test-event");
+    }
+
+    @Test
+    void readersAndWritersAreCachedPerClass() {
+        assertThat(codec.readerFor(TestEvent.class)).isSameAs(codec.readerFor(TestEvent.class));
+        assertThat(codec.writerFor(TestEvent.class)).isSameAs(codec.writerFor(TestEvent.class));
+    }
+
+}
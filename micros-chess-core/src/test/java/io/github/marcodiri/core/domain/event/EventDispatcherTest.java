@@ -0,0 +1,104 @@
+package io.github.marcodiri.core.domain.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.marcodiri.core.domain.Aggregate;
+
+public class EventDispatcherTest {
+
+    private static enum TestEventType implements DomainEventType {
+        TEST;
+
+        @Override
+        public Class<? extends DomainEvent> getEventClass() {
+            return TestEvent.class;
+        }
+    }
+
+    private static class TestEvent implements DomainEvent {
+
+        @Override
+        public DomainEventType getType() {
+            return TestEventType.TEST;
+        }
+
+    }
+
+    private static class OtherTestEvent extends TestEvent {
+    }
+
+    private static class FailingTestEvent extends TestEvent {
+    }
+
+    private static class TestAggregate extends Aggregate {
+
+        final List<DomainEvent> applied = new ArrayList<>();
+
+        public void apply(TestEvent event) {
+            applied.add(event);
+        }
+
+        public void apply(FailingTestEvent event) {
+            throw new IllegalStateException("apply failed");
+        }
+
+    }
+
+    private static class SubTestAggregate extends TestAggregate {
+    }
+
+    @Test
+    void applyCallsApplyMethodForEventClass() throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        TestAggregate aggregate = new TestAggregate();
+        TestEvent event1 = new TestEvent();
+        TestEvent event2 = new TestEvent();
+
+        EventDispatcher.apply(aggregate, event1);
+        EventDispatcher.apply(aggregate, event2);
+
+        assertThat(aggregate.applied).containsExactly(event1, event2);
+    }
+
+    @Test
+    void applyCallsInheritedApplyMethod() throws NoSuchMethodException, IllegalAccessException,
+            InvocationTargetException {
+        SubTestAggregate aggregate = new SubTestAggregate();
+        TestEvent event = new TestEvent();
+
+        EventDispatcher.apply(aggregate, event);
+
+        assertThat(aggregate.applied).containsExactly(event);
+    }
+
+    @Test
+    void applyThrowsIfNoApplyMethodTakesExactEventClass() {
+        TestAggregate aggregate = new TestAggregate();
+
+        assertThatThrownBy(() -> EventDispatcher.apply(aggregate, new OtherTestEvent()))
+                .isInstanceOf(NoSuchMethodException.class);
+    }
+
+    @Test
+    void applyWrapsExceptionThrownByApplyMethod() {
+        TestAggregate aggregate = new TestAggregate();
+
+        assertThatThrownBy(() -> EventDispatcher.apply(aggregate, new FailingTestEvent()))
+                .isInstanceOf(InvocationTargetException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void handlerIsResolvedOncePerAggregateAndEventClass() throws NoSuchMethodException, IllegalAccessException {
+        assertThat(EventDispatcher.handlerFor(TestAggregate.class, TestEvent.class))
+                .isSameAs(EventDispatcher.handlerFor(TestAggregate.class, TestEvent.class));
+    }
+
+}
@@ -0,0 +1,265 @@
+package io.github.marcodiri.core.eventstore;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+
+/**
+ * The behavior shared by every {@link EventStore} implementation.
+ */
+public abstract class EventStoreTest {
+
+    protected EventStore store;
+
+    protected abstract EventStore createStore() throws Exception;
+
+    @BeforeEach
+    void setupStore() throws Exception {
+        store = createStore();
+    }
+
+    @AfterEach
+    void teardownStore() {
+        store.close();
+    }
+
+    protected static EncodedEvent event(String data) {
+        return new EncodedEvent("test-event", data.getBytes(StandardCharsets.UTF_8),
+                "{\"type\":\"TEST\"}".getBytes(StandardCharsets.UTF_8), true);
+    }
+
+    protected static String data(EventRecord record) {
+        return new String(record.getData(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void appendedEventsAreReadBackInOrder() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), event("b"))).get();
+        store.append("Test_1", 1, List.of(event("c"))).get();
+
+        List<EventRecord> events = store.read("Test_1", 0, Integer.MAX_VALUE).get();
+
+        assertThat(events).extracting(EventStoreTest::data).containsExactly("a", "b", "c");
+        assertThat(events).extracting(EventRecord::getRevision).containsExactly(0L, 1L, 2L);
+        assertThat(events).allSatisfy(event -> {
+            assertThat(event.getStreamId()).isEqualTo("Test_1");
+            assertThat(event.getType()).isEqualTo("test-event");
+            assertThat(event.getMetadata()).isEqualTo("{\"type\":\"TEST\"}".getBytes(StandardCharsets.UTF_8));
+            assertThat(event.isJson()).isTrue();
+        });
+        assertThat(events.get(0).getPosition()).isLessThan(events.get(1).getPosition());
+        assertThat(events.get(1).getPosition()).isLessThan(events.get(2).getPosition());
+    }
+
+    @Test
+    void readStartsFromRevisionAndStopsAtMaxCount() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), event("b"), event("c"), event("d")))
+                .get();
+
+        assertThat(store.read("Test_1", 1, 2).get()).extracting(EventStoreTest::data).containsExactly("b", "c");
+        assertThat(store.read("Test_1", 4, 2).get()).isEmpty();
+    }
+
+    @Test
+    void missingStreamHasNoEvents() throws Exception {
+        assertThat(store.read("Test_missing", 0, Integer.MAX_VALUE).get()).isEmpty();
+        assertThat(store.readLast("Test_missing").get()).isEmpty();
+    }
+
+    @Test
+    void forEachHandsOverEveryEventFromRevision() throws Exception {
+        int count = EventStore.READ_PAGE_SIZE * 2 + 3;
+        for (int i = 0; i < count; i++) {
+            store.append("Test_1", i - 1, List.of(event(Integer.toString(i)))).get();
+        }
+        List<EventRecord> received = new ArrayList<>();
+
+        assertThat(store.forEach("Test_1", 2, received::add)).succeedsWithin(5, SECONDS)
+                .isEqualTo((long) count - 2);
+        assertThat(received).extracting(EventRecord::getRevision)
+                .containsExactlyElementsOf(LongStream.range(2, count).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void forEachOfMissingStreamReadsNothing() {
+        assertThat(store.forEach("Test_missing", 0, event -> {
+            throw new AssertionError("Unexpected event " + event);
+        })).succeedsWithin(5, SECONDS).isEqualTo(0L);
+    }
+
+    @Test
+    void forEachStopsAtTheFirstExceptionOfTheAction() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), event("b"), event("c"))).get();
+        List<String> received = new ArrayList<>();
+
+        assertThat(store.forEach("Test_1", 0, event -> {
+            if (data(event).equals("b")) {
+                throw new IllegalStateException("rejected");
+            }
+            received.add(data(event));
+        })).failsWithin(5, SECONDS)
+                .withThrowableOfType(Exception.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(received).containsExactly("a");
+    }
+
+    @Test
+    void readLastReturnsTheLastEvent() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), event("b"))).get();
+
+        assertThat(store.readLast("Test_1").get()).hasValueSatisfying(event -> {
+            assertThat(data(event)).isEqualTo("b");
+            assertThat(event.getRevision()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void appendAtAnotherRevisionFails() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"))).get();
+
+        assertThat(store.append("Test_1", EventStore.NO_STREAM, List.of(event("b"))))
+                .failsWithin(5, SECONDS)
+                .withThrowableOfType(Exception.class)
+                .withCauseInstanceOf(WrongExpectedRevisionException.class);
+        assertThat(store.append("Test_1", 5, List.of(event("b"))))
+                .failsWithin(5, SECONDS)
+                .withThrowableOfType(Exception.class)
+                .withCauseInstanceOf(WrongExpectedRevisionException.class);
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).extracting(EventStoreTest::data)
+                .containsExactly("a");
+    }
+
+    @Test
+    void appendAtAnyRevisionSucceeds() throws Exception {
+        store.append("Test_1", EventStore.ANY, List.of(event("a"))).get();
+        store.append("Test_1", EventStore.ANY, List.of(event("b"))).get();
+
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).extracting(EventStoreTest::data)
+                .containsExactly("a", "b");
+    }
+
+    @Test
+    void concurrentAppendsAtTheSameRevisionHaveOneWinner() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("first"))).get();
+        int writers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<CompletableFuture<Long>> appends = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            String data = "writer-" + i;
+            appends.add(CompletableFuture.supplyAsync(() -> store.append("Test_1", 0, List.of(event(data))), executor)
+                    .thenCompose(append -> append));
+        }
+        CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).handle((v, e) -> v).get();
+        executor.shutdown();
+
+        assertThat(appends).filteredOn(append -> !append.isCompletedExceptionally()).hasSize(1);
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).hasSize(2);
+    }
+
+    @Test
+    void concurrentAppendsToDifferentStreamsAllSucceed() throws Exception {
+        int writers = 8;
+        int appendsPerWriter = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            String streamId = "Test_" + w;
+            done.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < appendsPerWriter; i++) {
+                    store.append(streamId, i - 1, List.of(event(Integer.toString(i)))).join();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(30, SECONDS);
+        executor.shutdown();
+
+        for (int w = 0; w < writers; w++) {
+            assertThat(store.read("Test_" + w, 0, Integer.MAX_VALUE).get()).hasSize(appendsPerWriter);
+        }
+    }
+
+    @Test
+    void subscriptionReceivesPastAndNewEventsInPositionOrder() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"))).get();
+        store.append("Test_2", EventStore.NO_STREAM, List.of(event("b"))).get();
+        List<EventRecord> received = new CopyOnWriteArrayList<>();
+
+        try (EventStoreSubscription subscription = store.subscribeFromStart(received::add)) {
+            store.append("Test_1", 0, List.of(event("c"), event("d"))).get();
+
+            await().atMost(5, SECONDS).untilAsserted(() -> assertThat(received)
+                    .extracting(EventStoreTest::data).containsExactly("a", "b", "c", "d"));
+        }
+        assertThat(received).extracting(EventRecord::getPosition).isSorted();
+    }
+
+    @Test
+    void subscriptionResumesAfterPosition() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), event("b"))).get();
+        EventRecord last = store.readLast("Test_1").get().orElseThrow();
+        store.append("Test_2", EventStore.NO_STREAM, List.of(event("c"))).get();
+        List<EventRecord> received = new CopyOnWriteArrayList<>();
+
+        try (EventStoreSubscription subscription = store.subscribe(last, received::add)) {
+            await().atMost(5, SECONDS).untilAsserted(() -> assertThat(received)
+                    .extracting(EventStoreTest::data).containsExactly("c"));
+        }
+    }
+
+    @Test
+    void subscriptionToEventTypesReceivesOnlyThoseTypes() throws Exception {
+        EncodedEvent other = new EncodedEvent("other-event", "b".getBytes(StandardCharsets.UTF_8), null, false);
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), other, event("c"))).get();
+        List<EventRecord> received = new CopyOnWriteArrayList<>();
+
+        try (EventStoreSubscription subscription = store.subscribe(EventStore.START, EventStore.START,
+                Set.of("test-event"), received::add)) {
+            await().atMost(5, SECONDS).untilAsserted(() -> assertThat(received)
+                    .extracting(EventStoreTest::data).containsExactly("a", "c"));
+        }
+    }
+
+    @Test
+    void lastPositionIsThePositionOfTheLastEventOfAnyStream() throws Exception {
+        assertThat(store.readLastPosition().get()).isEqualTo(EventStore.START);
+
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"))).get();
+        long position = store.append("Test_2", EventStore.NO_STREAM, List.of(event("b"), event("c"))).get();
+
+        assertThat(store.readLastPosition().get()).isEqualTo(position);
+    }
+
+    @Test
+    void closedSubscriptionReceivesNoMoreEvents() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        EventStoreSubscription subscription = store.subscribeFromStart(event -> received.incrementAndGet());
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"))).get();
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(received).hasValue(1));
+
+        subscription.close();
+        store.append("Test_1", 0, List.of(event("b"))).get();
+
+        await().during(200, MILLISECONDS).atMost(1, SECONDS)
+                .untilAsserted(() -> assertThat(received).hasValue(1));
+    }
+
+}
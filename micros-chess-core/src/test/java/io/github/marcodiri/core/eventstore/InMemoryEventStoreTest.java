@@ -0,0 +1,10 @@
+package io.github.marcodiri.core.eventstore;
+
+class InMemoryEventStoreTest extends EventStoreTest {
+
+    @Override
+    protected EventStore createStore() {
+        return new InMemoryEventStore();
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.github.marcodiri.core.eventstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+
+class MappedLogEventStoreTest extends EventStoreTest {
+
+    private static final int SMALL_SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Override
+    protected EventStore createStore() throws IOException {
+        return new MappedLogEventStore(directory, SMALL_SEGMENT_SIZE * 64, false);
+    }
+
+    @Test
+    void eventsSurviveReopening() throws Exception {
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), event("b"))).get();
+        store.append("Test_2", EventStore.NO_STREAM, List.of(event("c"))).get();
+        store.close();
+
+        store = createStore();
+
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).extracting(EventStoreTest::data)
+                .containsExactly("a", "b");
+        assertThat(store.readLast("Test_2").get()).map(EventStoreTest::data).contains("c");
+        long position = store.append("Test_1", 1, List.of(event("d"))).get();
+        assertThat(store.readLast("Test_1").get()).map(EventRecord::getPosition).contains(position);
+    }
+
+    private EventStore createSmallSegmentStore(boolean sync) throws IOException {
+        store.close();
+        return new MappedLogEventStore(directory.resolve("small"), SMALL_SEGMENT_SIZE, sync);
+    }
+
+    @Test
+    void eventsRollOverToNewSegments() throws Exception {
+        store = createSmallSegmentStore(false);
+
+        for (int i = 0; i < 20; i++) {
+            store.append("Test_1", i - 1, List.of(event("event-" + i))).get();
+        }
+
+        try (Stream<Path> files = Files.list(directory.resolve("small"))) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).extracting(EventStoreTest::data)
+                .containsExactly(IntStream.range(0, 20).mapToObj(i -> "event-" + i)
+                        .toArray(String[]::new));
+
+        store = createSmallSegmentStore(false);
+
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).hasSize(20);
+        assertThat(store.readLast("Test_1").get()).map(EventRecord::getRevision).contains(19L);
+    }
+
+    @Test
+    void eventLargerThanASegmentIsRejected() throws Exception {
+        store = createSmallSegmentStore(false);
+        EncodedEvent large = new EncodedEvent("test-event", new byte[SMALL_SEGMENT_SIZE], null, false);
+
+        assertThatThrownBy(() -> store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), large)).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(store.readLast("Test_1").get()).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    void segmentSizeMustFitARecordHeader() {
+        assertThatThrownBy(() -> new MappedLogEventStore(directory, 16, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void syncedAppendsAreReadBack() throws Exception {
+        store = createSmallSegmentStore(true);
+
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"), event("b"), event("c"))).get();
+
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).extracting(EventStoreTest::data)
+                .containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void appendCutShortByACrashIsLostAsAWhole() throws Exception {
+        store = createSmallSegmentStore(false);
+        store.append("Test_1", EventStore.NO_STREAM, List.of(event("a"))).get();
+        store.append("Test_2", EventStore.NO_STREAM,
+                List.of(event("b"), event("c"), event("d"), event("e"), event("f"))).get();
+        long first = store.read("Test_2", 0, 1).get().get(0).getPosition();
+        long last = store.readLast("Test_2").get().orElseThrow().getPosition();
+        assertThat(last / SMALL_SEGMENT_SIZE).isGreaterThan(first / SMALL_SEGMENT_SIZE);
+        store.close();
+
+        // As if the crash came right before the first length of the append
+        zeroLength(directory.resolve("small"), first);
+        store = new MappedLogEventStore(directory.resolve("small"), SMALL_SEGMENT_SIZE, false);
+
+        assertThat(store.read("Test_1", 0, Integer.MAX_VALUE).get()).extracting(EventStoreTest::data)
+                .containsExactly("a");
+        assertThat(store.read("Test_2", 0, Integer.MAX_VALUE).get()).isEmpty();
+
+        store.append("Test_2", EventStore.NO_STREAM, List.of(event("g"))).get();
+        store = createSmallSegmentStore(false);
+
+        assertThat(store.read("Test_2", 0, Integer.MAX_VALUE).get()).extracting(EventStoreTest::data)
+                .containsExactly("g");
+    }
+
+    private static void zeroLength(Path segments, long position) throws IOException {
+        Path segment = segments.resolve(String.format("segment-%06d.log", position / SMALL_SEGMENT_SIZE));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), position % SMALL_SEGMENT_SIZE);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package io.github.marcodiri.core.repository.eventstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.marcodiri.core.domain.Aggregate;
+
+public class AggregateCacheTest {
+
+    private static class TestAggregate extends Aggregate {
+
+        TestAggregate() {
+            this(UUID.randomUUID());
+        }
+
+        TestAggregate(final UUID id) {
+            this.id = id;
+        }
+
+    }
+
+    private AtomicLong now;
+    private AggregateCache cache;
+
+    @BeforeEach
+    void setup() {
+        now = new AtomicLong();
+        cache = new AggregateCache(2, Duration.ofNanos(100), now::get);
+    }
+
+    @Test
+    void takeReturnsPutAggregateOnce() {
+        Aggregate aggregate = new TestAggregate();
+        cache.put(aggregate);
+
+        assertThat(cache.take(aggregate.getId())).isSameAs(aggregate);
+        assertThat(cache.take(aggregate.getId())).isNull();
+    }
+
+    @Test
+    void takeReturnsNullForUnknownAggregate() {
+        assertThat(cache.take(UUID.randomUUID())).isNull();
+    }
+
+    @Test
+    void takeReturnsNullAfterTimeToLive() {
+        Aggregate aggregate = new TestAggregate();
+        cache.put(aggregate);
+
+        now.set(100);
+
+        assertThat(cache.take(aggregate.getId())).isNull();
+    }
+
+    @Test
+    void putEvictsLeastRecentlyUsedAggregateWhenFull() {
+        Aggregate first = new TestAggregate();
+        Aggregate second = new TestAggregate();
+        Aggregate third = new TestAggregate();
+        cache.put(first);
+        cache.put(second);
+        cache.put(third);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.take(first.getId())).isNull();
+        assertThat(cache.take(second.getId())).isSameAs(second);
+        assertThat(cache.take(third.getId())).isSameAs(third);
+    }
+
+    @Test
+    void putIfAbsentKeepsAggregateCachedInTheMeantime() {
+        Aggregate taken = new TestAggregate();
+        cache.put(taken);
+        cache.take(taken.getId());
+
+        cache.putIfAbsent(taken);
+
+        assertThat(cache.take(taken.getId())).isSameAs(taken);
+
+        Aggregate written = new TestAggregate(taken.getId());
+        cache.put(written);
+
+        cache.putIfAbsent(taken);
+
+        assertThat(cache.take(taken.getId())).isSameAs(written);
+    }
+
+    @Test
+    void invalidateRemovesAggregate() {
+        Aggregate aggregate = new TestAggregate();
+        cache.put(aggregate);
+
+        cache.invalidate(aggregate.getId());
+
+        assertThat(cache.take(aggregate.getId())).isNull();
+    }
+
+    @Test
+    void disabledCacheKeepsNothing() {
+        AggregateCache disabled = AggregateCache.disabled();
+        Aggregate aggregate = new TestAggregate();
+
+        disabled.put(aggregate);
+
+        assertThat(disabled.take(aggregate.getId())).isNull();
+    }
+
+}
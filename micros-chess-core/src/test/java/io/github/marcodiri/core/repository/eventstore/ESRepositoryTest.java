@@ -0,0 +1,319 @@
+package io.github.marcodiri.core.repository.eventstore;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.github.marcodiri.core.domain.Aggregate;
+import io.github.marcodiri.core.domain.AggregateSnapshot;
+import io.github.marcodiri.core.domain.Snapshotting;
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.DomainEventType;
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventRecord;
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.InMemoryEventStore;
+
+public class ESRepositoryTest {
+
+    private static enum TestEventType implements DomainEventType {
+        TEST;
+
+        @Override
+        public Class<? extends DomainEvent> getEventClass() {
+            return TestEvent.class;
+        }
+
+        @Override
+        public String toString() {
+            return "test-event";
+        }
+    }
+
+    private static class TestEvent implements DomainEvent {
+
+        private final TestEventType type = TestEventType.TEST;
+
+        private final int number;
+
+        @JsonCreator
+        TestEvent(@JsonProperty("number") final int number) {
+            this.number = number;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        @Override
+        public DomainEventType getType() {
+            return type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            TestEvent event = (TestEvent) o;
+            return Objects.equals(number, event.number);
+        }
+
+    }
+
+    private static class TestAggregate extends Aggregate {
+
+        final List<Integer> applied = new ArrayList<>();
+
+        TestAggregate() {
+        }
+
+        TestAggregate(final UUID id) {
+            this.id = id;
+        }
+
+        public void apply(TestEvent event) {
+            applied.add(event.getNumber());
+        }
+
+    }
+
+    private static class TestSnapshot implements AggregateSnapshot {
+
+        private final int applied;
+
+        @JsonCreator
+        TestSnapshot(@JsonProperty("applied") final int applied) {
+            this.applied = applied;
+        }
+
+        public int getApplied() {
+            return applied;
+        }
+
+    }
+
+    private static class SnapshottingTestAggregate extends TestAggregate implements Snapshotting {
+
+        private final List<String> calls;
+
+        SnapshottingTestAggregate(final UUID id, final List<String> calls) {
+            super(id);
+            this.calls = calls;
+        }
+
+        @Override
+        public TestSnapshot takeSnapshot() {
+            calls.add("takeSnapshot");
+            return new TestSnapshot(applied.size());
+        }
+
+        @Override
+        public void restoreSnapshot(AggregateSnapshot snapshot) {
+            calls.add("restoreSnapshot");
+        }
+
+    }
+
+    private static class TestESRepository extends ESRepository {
+
+        TestESRepository(EventStore eventStore, EventCodec eventCodec) {
+            super(eventStore, TestAggregate::new, eventCodec, null, 0);
+        }
+
+        TestESRepository(EventStore eventStore, EventCodec eventCodec, AggregateCache aggregateCache) {
+            super(eventStore, TestAggregate::new, eventCodec, TestSnapshot.class, 1, aggregateCache);
+        }
+
+        @Override
+        protected String streamNameFromAggregateId(UUID aggregateId) {
+            return String.format("Test_%s", aggregateId);
+        }
+
+        @Override
+        protected List<DomainEvent> convertEvents(List<EventRecord> records) throws IOException {
+            List<DomainEvent> domainEvents = new ArrayList<>();
+            for (EventRecord record : records) {
+                domainEvents.add(convertEvent(record));
+            }
+            return domainEvents;
+        }
+
+        @Override
+        protected DomainEvent convertEvent(EventRecord record) throws IOException {
+            return eventCodec.decode(record.getType(), record.getData(), record.getMetadata());
+        }
+
+    }
+
+    private final EventCodec codec = new EventCodec(TestEventType.values());
+
+    private final EventStore eventStore = new InMemoryEventStore();
+
+    private final TestESRepository repository = spy(new TestESRepository(eventStore, codec));
+
+    @AfterEach
+    void closeEventStore() {
+        eventStore.close();
+    }
+
+    private UUID appendTestEvents(int count) throws Exception {
+        UUID aggregateId = UUID.randomUUID();
+        List<EncodedEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(codec.encodeEvent(new TestEvent(i)));
+        }
+        eventStore.append(String.format("Test_%s", aggregateId), EventStore.NO_STREAM, events).get();
+        return aggregateId;
+    }
+
+    @Test
+    void restoreAggregateReplaysEveryEventInOrder() throws Exception {
+        int count = EventStore.READ_PAGE_SIZE * 2 + 10;
+        UUID aggregateId = appendTestEvents(count);
+
+        TestAggregate aggregate = (TestAggregate) repository.restoreAggregate(aggregateId);
+
+        assertThat(aggregate.applied).hasSize(count).isSorted();
+        assertThat(aggregate.getRevision()).isEqualTo(count - 1);
+    }
+
+    @Test
+    void restoreAggregateAsyncReplaysEveryEventInOrder() throws Exception {
+        int count = EventStore.READ_PAGE_SIZE + 1;
+        UUID aggregateId = appendTestEvents(count);
+
+        assertThat(repository.restoreAggregateAsync(aggregateId)).succeedsWithin(5, SECONDS)
+                .satisfies(aggregate -> {
+                    assertThat(((TestAggregate) aggregate).applied).hasSize(count).isSorted();
+                    assertThat(aggregate.getRevision()).isEqualTo(count - 1);
+                });
+    }
+
+    @Test
+    void restoreAggregateOfMissingStreamFails() {
+        UUID aggregateId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> repository.restoreAggregate(aggregateId))
+                .isInstanceOf(AggregateNotFoundException.class)
+                .hasMessage(String.format("Stream Test_%s of aggregate %s not found", aggregateId, aggregateId));
+        assertThat(repository.restoreAggregateAsync(aggregateId)).failsWithin(5, SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(AggregateNotFoundException.class);
+    }
+
+    @Test
+    void replayNeitherCollectsNorEncodesEvents() throws Exception {
+        UUID aggregateId = appendTestEvents(3);
+
+        repository.restoreAggregate(aggregateId);
+
+        verify(repository, never()).convertEvents(any());
+        verify(repository, never()).encode(any());
+    }
+
+    @Test
+    void replayStopsAtAnEventThatCannotBeDecoded() throws Exception {
+        UUID aggregateId = appendTestEvents(2);
+        EncodedEvent malformed = new EncodedEvent("test-event", "{".getBytes(StandardCharsets.UTF_8), null, true);
+        eventStore.append(String.format("Test_%s", aggregateId), 1, List.of(malformed, codec.encodeEvent(
+                new TestEvent(3)))).get();
+        TestAggregate aggregate = new TestAggregate();
+
+        assertThatThrownBy(() -> repository.replayEventsForAggregate(aggregate, aggregateId, 0))
+                .isInstanceOf(IOException.class);
+        assertThat(aggregate.applied).containsExactly(0, 1);
+    }
+
+    @Test
+    void snapshotIsTakenBeforeTheAggregateIsCached() throws Exception {
+        List<String> calls = new ArrayList<>();
+        AggregateCache aggregateCache = new AggregateCache() {
+            @Override
+            public synchronized void put(Aggregate aggregate) {
+                calls.add("put");
+                super.put(aggregate);
+            }
+        };
+        TestESRepository snapshottingRepository = new TestESRepository(eventStore, codec, aggregateCache);
+        UUID aggregateId = UUID.randomUUID();
+
+        snapshottingRepository.applyAndWriteEvents(new SnapshottingTestAggregate(aggregateId, calls),
+                List.of(new TestEvent(0), new TestEvent(1)));
+
+        assertThat(calls).containsExactly("takeSnapshot", "put");
+        Optional<EventRecord> snapshot = eventStore.readLast(String.format("Test_%s-snapshot", aggregateId)).get();
+        assertThat(snapshot).isPresent();
+        assertThat(codec.decode(snapshot.get().getData(), TestSnapshot.class).getApplied()).isEqualTo(2);
+    }
+
+    @Test
+    void snapshotStreamIsLimitedByItsFirstSnapshot() throws Exception {
+        EventStore spiedEventStore = spy(eventStore);
+        TestESRepository snapshottingRepository = new TestESRepository(spiedEventStore, codec, new AggregateCache());
+        UUID aggregateId = UUID.randomUUID();
+        SnapshottingTestAggregate aggregate = new SnapshottingTestAggregate(aggregateId, new ArrayList<>());
+
+        snapshottingRepository.applyAndWriteEvents(aggregate, List.of(new TestEvent(0)));
+        snapshottingRepository.applyAndWriteEvents(aggregate, List.of(new TestEvent(1)));
+
+        verify(spiedEventStore, times(1)).setMaxCount(String.format("Test_%s-snapshot", aggregateId), 1);
+        verify(spiedEventStore, times(2)).append(eq(String.format("Test_%s-snapshot", aggregateId)),
+                eq(EventStore.ANY), any());
+    }
+
+    @Test
+    void aggregateThatIsNotSnapshottingIsNeverSnapshotted() throws Exception {
+        TestESRepository snapshottingRepository = new TestESRepository(eventStore, codec, new AggregateCache());
+        UUID aggregateId = UUID.randomUUID();
+
+        snapshottingRepository.applyAndWriteEvents(new TestAggregate(aggregateId),
+                List.of(new TestEvent(0), new TestEvent(1)));
+        TestAggregate restored = (TestAggregate) snapshottingRepository.restoreAggregate(aggregateId);
+
+        assertThat(eventStore.readLast(String.format("Test_%s-snapshot", aggregateId)).get()).isEmpty();
+        assertThat(restored.applied).containsExactly(0, 1);
+    }
+
+    @Test
+    void rejectedCommandLeavesTheAggregateCached() throws Exception {
+        TestESRepository cachingRepository = spy(new TestESRepository(eventStore, codec, new AggregateCache()));
+        UUID aggregateId = UUID.randomUUID();
+        cachingRepository.applyAndWriteEvents(new TestAggregate(aggregateId), List.of(new TestEvent(0)));
+
+        assertThat(cachingRepository.<TestAggregate>updateAsync(aggregateId, aggregate -> {
+            throw new IllegalStateException("rejected");
+        })).failsWithin(5, SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(cachingRepository.<TestAggregate>updateAsync(aggregateId,
+                aggregate -> List.of(new TestEvent(1)))).succeedsWithin(5, SECONDS)
+                .satisfies(aggregate -> assertThat(aggregate.applied).containsExactly(0, 1));
+
+        verify(cachingRepository, never()).restoreAggregateAsync(any());
+    }
+
+}
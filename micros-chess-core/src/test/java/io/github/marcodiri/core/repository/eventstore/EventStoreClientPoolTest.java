@@ -0,0 +1,90 @@
+package io.github.marcodiri.core.repository.eventstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.eventstore.dbclient.EventStoreDBClient;
+
+public class EventStoreClientPoolTest {
+
+    private final List<EventStoreDBClient> created = new ArrayList<>();
+
+    private EventStoreClientPool pool(int size) {
+        return new EventStoreClientPool(size, () -> {
+            EventStoreDBClient client = mock(EventStoreDBClient.class);
+            created.add(client);
+            return client;
+        });
+    }
+
+    @Test
+    void clientsAreCreatedOnceAndHandedOutInTurn() {
+        EventStoreClientPool pool = pool(2);
+
+        assertThat(created).hasSize(2);
+        assertThat(List.of(pool.get(), pool.get(), pool.get(), pool.get()))
+                .containsExactly(created.get(0), created.get(1), created.get(0), created.get(1));
+    }
+
+    @Test
+    void concurrentRequestsAreSpreadEvenly() throws Exception {
+        EventStoreClientPool pool = pool(4);
+        Map<EventStoreDBClient, AtomicInteger> uses = new ConcurrentHashMap<>();
+        int threads = 16;
+        int requestsPerThread = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < requestsPerThread; i++) {
+                    uses.computeIfAbsent(pool.get(), client -> new AtomicInteger()).incrementAndGet();
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(created).hasSize(4);
+        assertThat(uses).hasSize(4);
+        assertThat(uses.values()).allSatisfy(count -> assertThat(count.get())
+                .isEqualTo(threads * requestsPerThread / 4));
+    }
+
+    @Test
+    void closeShutsDownEveryClient() throws Exception {
+        EventStoreClientPool pool = pool(3);
+
+        pool.close();
+
+        for (EventStoreDBClient client : created) {
+            verify(client).shutdown();
+        }
+    }
+
+    @Test
+    void emptyPoolIsRejected() {
+        assertThatThrownBy(() -> pool(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
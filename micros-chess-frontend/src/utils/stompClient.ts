@@ -8,6 +8,9 @@ class MicrosChessClient {
   private _connected = ref(false)
   private subscribedToPlayerChannel: boolean = false
   public readonly gameProposals: Ref<any[]> = ref([])
+  // Version of gameProposals, -1 until the snapshot is received
+  private gameProposalsVersion: number = -1
+  private pendingGameProposalDeltas: { version: number; event: any }[] = []
   private gameAcceptedCallbacks = new Map<(event: any) => void, (event: any) => void>()
   private movePlayedCallbacks = new Map<(event: any) => void, (event: any) => void>()
 
@@ -61,12 +64,55 @@ class MicrosChessClient {
   }
 
   private subscribeGameProposalsChannel() {
+    this.gameProposalsVersion = -1
+    this.pendingGameProposalDeltas = []
+    // Deltas received before the snapshot are kept and applied on top of it
     this.stompClient.subscribe('/topic/game-proposals', (message) => {
-      const gameProposal = JSON.parse(message.body)
-      this.gameProposals.value.push(gameProposal)
-      console.log(gameProposal)
+      const delta = { version: Number(message.headers['version']), event: JSON.parse(message.body) }
+      if (this.gameProposalsVersion < 0) {
+        this.pendingGameProposalDeltas.push(delta)
+      } else {
+        this.applyGameProposalDelta(delta.version, delta.event)
+      }
     })
     console.log('Subscribed to game-proposals channel')
+    this.requestGameProposalsSnapshot()
+  }
+
+  private requestGameProposalsSnapshot() {
+    const subscription = this.stompClient.subscribe('/app/game-proposals', (message) => {
+      subscription.unsubscribe()
+      const snapshot = JSON.parse(message.body)
+      this.gameProposals.value = snapshot.gameProposals
+      this.gameProposalsVersion = snapshot.version
+      const pending = this.pendingGameProposalDeltas
+      this.pendingGameProposalDeltas = []
+      pending.forEach((delta) => this.applyGameProposalDelta(delta.version, delta.event))
+      console.log(`Received ${snapshot.gameProposals.length} game proposals`)
+    })
+  }
+
+  private applyGameProposalDelta(version: number, event: any) {
+    if (version <= this.gameProposalsVersion) {
+      // Already in the snapshot
+      return
+    }
+    if (version > this.gameProposalsVersion + 1) {
+      // A delta was missed: start over from a new snapshot
+      this.gameProposalsVersion = -1
+      this.pendingGameProposalDeltas = [{ version, event }]
+      this.requestGameProposalsSnapshot()
+      return
+    }
+    if (event.type == 'CREATED') {
+      this.gameProposals.value.push(event)
+    } else {
+      this.gameProposals.value = this.gameProposals.value.filter(
+        (gameProposal) => gameProposal.gameProposalId !== event.gameProposalId
+      )
+    }
+    this.gameProposalsVersion = version
+    console.log(event)
   }
 
   private subscribePlayerChannel() {
@@ -87,16 +133,83 @@ class MicrosChessClient {
 
   private subscribeGameChannel(gameId: string) {
     this.stompClient.subscribe(`/topic/game/${gameId}`, (message) => {
-      const event = JSON.parse(message.body)
-      if (event.type == 'MOVE') {
-        this.movePlayedCallbacks.forEach((callback) => {
-          callback(event)
-        })
-      }
+      // A frame holds either one event or a batch of them
+      const payload = JSON.parse(message.body)
+      const events = Array.isArray(payload) ? payload : [payload]
+      events.forEach((event) => {
+        if (event.type == 'MOVE') {
+          this.movePlayedCallbacks.forEach((callback) => {
+            callback(event)
+          })
+        }
+      })
     })
     console.log('Subscribed to game channel')
   }
 
+  /**
+   * Watches a game: onSnapshot receives the position of the game in FEN,
+   * onMove each move played after it. Returns a function to stop watching.
+   */
+  public spectateGame(
+    gameId: string,
+    onSnapshot: (fen: string) => void,
+    onMove: (event: any) => void
+  ): () => void {
+    // Version of the game, the number of moves applied, -1 until the snapshot
+    // is received
+    let version = -1
+    let pendingFrames: { version: number; events: any[] }[] = []
+
+    const requestSnapshot = () => {
+      const subscription = this.stompClient.subscribe(`/app/game/${gameId}/spectate`, (message) => {
+        subscription.unsubscribe()
+        const snapshot = JSON.parse(message.body)
+        version = snapshot.version
+        onSnapshot(snapshot.fen)
+        const pending = pendingFrames
+        pendingFrames = []
+        pending.forEach(applyFrame)
+      })
+    }
+
+    const applyFrame = (frame: { version: number; events: any[] }) => {
+      // A frame is versioned by its last move
+      const first = frame.version - frame.events.length + 1
+      if (first > version + 1) {
+        // Frames were skipped, the connection could not keep up: start over
+        // from a new snapshot
+        version = -1
+        pendingFrames = [frame]
+        requestSnapshot()
+        return
+      }
+      frame.events.forEach((event, i) => {
+        if (first + i > version) {
+          onMove(event)
+        }
+      })
+      version = Math.max(version, frame.version)
+    }
+
+    // Frames received before the snapshot are kept and applied on top of it
+    const subscription = this.stompClient.subscribe(`/topic/game/${gameId}`, (message) => {
+      const payload = JSON.parse(message.body)
+      const frame = {
+        version: Number(message.headers['version']),
+        events: Array.isArray(payload) ? payload : [payload]
+      }
+      if (version < 0) {
+        pendingFrames.push(frame)
+      } else {
+        applyFrame(frame)
+      }
+    })
+    requestSnapshot()
+    console.log(`Spectating game ${gameId}`)
+    return () => subscription.unsubscribe()
+  }
+
   public connect() {
     this.stompClient.activate()
   }
@@ -34,6 +34,7 @@ public enum GameEventType implements DomainEventType {
         return type;
     }
 
+    @Override
     public Class<? extends GameEvent> getEventClass() {
         return eventClass;
     }
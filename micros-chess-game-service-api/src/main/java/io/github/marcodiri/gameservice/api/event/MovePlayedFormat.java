@@ -0,0 +1,95 @@
+package io.github.marcodiri.gameservice.api.event;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EventFormat;
+import io.github.marcodiri.gameservice.api.web.Move;
+
+/**
+ * Fixed 34 byte layout of {@link MovePlayed}: the game and player ids as two
+ * longs each, then the origin and destination squares as one byte each (a1 = 0,
+ * h8 = 63).
+ */
+public class MovePlayedFormat implements EventFormat {
+
+    public static final String NAME = "move-played-fixed";
+    public static final int VERSION = 1;
+
+    static final int LENGTH = 4 * Long.BYTES + 2;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean canEncode(DomainEvent event) {
+        if (!(event instanceof MovePlayed)) {
+            return false;
+        }
+        MovePlayed movePlayed = (MovePlayed) event;
+        return movePlayed.getGameId() != null
+                && movePlayed.getPlayerId() != null
+                && movePlayed.getMove() != null
+                && square(movePlayed.getMove().getFrom()) >= 0
+                && square(movePlayed.getMove().getTo()) >= 0;
+    }
+
+    @Override
+    public byte[] encode(DomainEvent event) {
+        MovePlayed movePlayed = (MovePlayed) event;
+        return ByteBuffer.allocate(LENGTH)
+                .putLong(movePlayed.getGameId().getMostSignificantBits())
+                .putLong(movePlayed.getGameId().getLeastSignificantBits())
+                .putLong(movePlayed.getPlayerId().getMostSignificantBits())
+                .putLong(movePlayed.getPlayerId().getLeastSignificantBits())
+                .put((byte) square(movePlayed.getMove().getFrom()))
+                .put((byte) square(movePlayed.getMove().getTo()))
+                .array();
+    }
+
+    @Override
+    public MovePlayed decode(byte[] data, int version) throws IOException {
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported %s version %d", NAME, version));
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            UUID gameId = new UUID(buffer.getLong(), buffer.getLong());
+            UUID playerId = new UUID(buffer.getLong(), buffer.getLong());
+            Move move = new Move(squareName(buffer.get()), squareName(buffer.get()));
+            return new MovePlayed(gameId, playerId, move);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(String.format("Malformed %s event", NAME), e);
+        }
+    }
+
+    static int square(String name) {
+        if (name == null || name.length() != 2) {
+            return -1;
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return -1;
+        }
+        return rank * 8 + file;
+    }
+
+    static String squareName(int square) {
+        if (square < 0 || square > 63) {
+            throw new IllegalArgumentException(String.format("Invalid square %d", square));
+        }
+        return new String(new char[] { (char) ('a' + (square & 7)), (char) ('1' + (square >>> 3)) });
+    }
+
+}
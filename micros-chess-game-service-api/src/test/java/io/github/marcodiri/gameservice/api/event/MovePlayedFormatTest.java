@@ -0,0 +1,58 @@
+package io.github.marcodiri.gameservice.api.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.marcodiri.gameservice.api.web.Move;
+
+public class MovePlayedFormatTest {
+
+    private final MovePlayedFormat format = new MovePlayedFormat();
+
+    @Test
+    void encodeWritesFixedLength() {
+        MovePlayed event = new MovePlayed(UUID.randomUUID(), UUID.randomUUID(), new Move("e2", "e4"));
+
+        assertThat(format.encode(event)).hasSize(34);
+    }
+
+    @Test
+    void decodeReadsEncodedEvent() throws IOException {
+        MovePlayed event = new MovePlayed(UUID.randomUUID(), UUID.randomUUID(), new Move("a1", "h8"));
+
+        assertThat(format.decode(format.encode(event), MovePlayedFormat.VERSION)).isEqualTo(event);
+    }
+
+    @Test
+    void canEncodeRejectsMovesOutsideTheBoard() {
+        UUID gameId = UUID.randomUUID();
+        UUID playerId = UUID.randomUUID();
+
+        assertThat(format.canEncode(new MovePlayed(gameId, playerId, new Move("e2", "e4")))).isTrue();
+        assertThat(format.canEncode(new MovePlayed(gameId, playerId, new Move("e2", "e9")))).isFalse();
+        assertThat(format.canEncode(new MovePlayed(gameId, playerId, new Move("e2", null)))).isFalse();
+        assertThat(format.canEncode(new MovePlayed(gameId, playerId, null))).isFalse();
+        assertThat(format.canEncode(new GameCreated(gameId, playerId, UUID.randomUUID()))).isFalse();
+    }
+
+    @Test
+    void decodeThrowsOnUnknownVersion() {
+        MovePlayed event = new MovePlayed(UUID.randomUUID(), UUID.randomUUID(), new Move("e2", "e4"));
+        byte[] data = format.encode(event);
+
+        assertThatThrownBy(() -> format.decode(data, MovePlayedFormat.VERSION + 1))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void decodeThrowsOnTruncatedData() {
+        assertThatThrownBy(() -> format.decode(new byte[10], MovePlayedFormat.VERSION))
+                .isInstanceOf(IOException.class);
+    }
+
+}
@@ -1,25 +1,25 @@
 package io.github.marcodiri.gameservice.domain;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
-
 import io.github.marcodiri.core.domain.Aggregate;
+import io.github.marcodiri.core.domain.AggregateSnapshot;
+import io.github.marcodiri.core.domain.Snapshotting;
 import io.github.marcodiri.core.domain.event.DomainEvent;
 import io.github.marcodiri.gameservice.api.event.GameCreated;
 import io.github.marcodiri.gameservice.api.event.MovePlayed;
 import io.github.marcodiri.gameservice.api.web.Move;
+import io.github.marcodiri.gameservice.domain.chess.Position;
 import io.github.marcodiri.gameservice.domain.command.CreateGameCommand;
 import io.github.marcodiri.gameservice.domain.command.PlayMoveCommand;
 
-public class GameAggregate extends Aggregate {
+public class GameAggregate extends Aggregate implements Snapshotting {
 
     private UUID player1Id;
     private UUID player2Id;
-    private List<ImmutablePair<UUID, Move>> movesList;
+    private Position position;
     private GameState state;
 
     public GameAggregate() {
@@ -37,8 +37,15 @@ public class GameAggregate extends Aggregate {
         return state;
     }
 
-    List<ImmutablePair<UUID, Move>> getMovesList() {
-        return movesList;
+    Position getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation.
+     */
+    public String getFen() {
+        return getPosition().toFen();
     }
 
     public List<DomainEvent> process(CreateGameCommand command) {
@@ -53,7 +60,7 @@ public class GameAggregate extends Aggregate {
         if (getState() != GameState.IN_PROGRESS) {
             throw new GameNotInProgressException(getState());
         }
-        if (!moveIsLegal()) {
+        if (!moveIsLegal(command.getPlayerId(), command.getMove())) {
             throw new IllegalMoveException(command.getMove());
         }
         return Collections.singletonList(
@@ -65,18 +72,66 @@ public class GameAggregate extends Aggregate {
         this.id = event.getGameId();
         this.player1Id = event.getPlayer1Id();
         this.player2Id = event.getPlayer2Id();
-        this.movesList = new ArrayList<>();
+        this.position = Position.initial();
         this.state = GameState.IN_PROGRESS;
     }
 
+    /**
+     * Plays the move on the current position. The game ends when the side to
+     * move is left without legal moves (checkmate or stalemate).
+     * <p>
+     * A recorded move is not validated again, {@link #process(PlayMoveCommand)}
+     * did before it was written. A move that cannot be played on the board at
+     * all means the aggregate does not match its stream, and fails the
+     * restore.
+     *
+     * @throws IllegalStateException if the move cannot be played.
+     */
     public void apply(MovePlayed event) {
         LOGGER.info("Calling apply for MovePlayed: {}", event);
-        getMovesList().add(ImmutablePair.of(event.getPlayerId(), event.getMove()));
+        int from = Position.parseSquare(event.getMove().getFrom());
+        int to = Position.parseSquare(event.getMove().getTo());
+        if (!getPosition().isPlayable(from, to)) {
+            throw new IllegalStateException(String.format("Recorded move %s cannot be played in position %s",
+                    event.getMove(), getPosition().toFen()));
+        }
+        getPosition().makeMove(from, to);
+        if (!getPosition().hasLegalMove()) {
+            this.state = GameState.ENDED;
+        }
     }
 
-    boolean moveIsLegal() {
-        // TODO
-        return true;
+    @Override
+    public GameSnapshot takeSnapshot() {
+        return new GameSnapshot(getId(), getPlayer1Id(), getPlayer2Id(), getState(), getPosition().toFen());
+    }
+
+    @Override
+    public void restoreSnapshot(AggregateSnapshot snapshot) {
+        GameSnapshot gameSnapshot = (GameSnapshot) snapshot;
+        this.id = gameSnapshot.getGameId();
+        this.player1Id = gameSnapshot.getPlayer1Id();
+        this.player2Id = gameSnapshot.getPlayer2Id();
+        this.state = gameSnapshot.getState();
+        this.position = Position.fromFen(gameSnapshot.getFen());
+    }
+
+    /**
+     * Checks that the move is legal in the current position and that it is
+     * played by the player whose turn it is. Player 1 plays white.
+     *
+     * @param playerId the player who wants to play the move.
+     * @param move     the move to validate.
+     * @return true if the move can be played.
+     */
+    boolean moveIsLegal(UUID playerId, Move move) {
+        if (move == null) {
+            return false;
+        }
+        UUID playerToMove = getPosition().getSideToMove() == Position.WHITE ? getPlayer1Id() : getPlayer2Id();
+        return playerToMove != null
+                && playerToMove.equals(playerId)
+                && getPosition().isLegal(Position.parseSquare(move.getFrom()), Position.parseSquare(move.getTo()));
     }
 
 }
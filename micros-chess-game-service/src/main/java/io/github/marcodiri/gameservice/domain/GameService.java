@@ -1,25 +1,34 @@
 package io.github.marcodiri.gameservice.domain;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.core.exc.StreamReadException;
-import com.fasterxml.jackson.databind.DatabindException;
-
+import io.github.marcodiri.core.domain.command.AggregateCommandExecutor;
+import io.github.marcodiri.core.repository.eventstore.AggregateNotFoundException;
 import io.github.marcodiri.gameservice.api.web.Move;
 import io.github.marcodiri.gameservice.domain.command.CreateGameCommand;
 import io.github.marcodiri.gameservice.domain.command.PlayMoveCommand;
 import io.github.marcodiri.gameservice.repository.eventstore.GameESRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 
+/**
+ * A single instance serves every request, so that the moves of a game are
+ * played one at a time against the game cached by the repository. Moves are
+ * only played through {@link #playMoveAsync}, which submits them to the
+ * executor of the commands of the game.
+ */
+@Singleton
 public class GameService {
 
     private final GameESRepository gameESRepository;
+    private final AggregateCommandExecutor commandExecutor = new AggregateCommandExecutor();
 
     private static final Logger LOGGER = LogManager.getLogger(GameService.class);
 
@@ -35,12 +44,37 @@ public class GameService {
         return game;
     }
 
-    public GameAggregate playMove(UUID gameId, UUID playerId, Move move) throws StreamReadException,
-            DatabindException, IllegalAccessException, InvocationTargetException, NoSuchMethodException,
-            InterruptedException, ExecutionException, IOException, GameNotInProgressException, IllegalMoveException {
-        GameAggregate game = gameESRepository.update(gameId, new PlayMoveCommand(playerId, move));
-        LOGGER.info("Played move in: {}", game);
-        return game;
+    public CompletionStage<GameAggregate> createGameAsync(UUID player1Id, UUID player2Id) {
+        return gameESRepository.saveAsync(new CreateGameCommand(player1Id, player2Id))
+                .thenApply(game -> {
+                    LOGGER.info("Created: {}", game);
+                    return game;
+                });
+    }
+
+    public CompletionStage<GameAggregate> playMoveAsync(UUID gameId, UUID playerId, Move move) {
+        PlayMoveCommand cmd = new PlayMoveCommand(playerId, move);
+        return commandExecutor.submit(gameId, () -> gameESRepository.updateAsync(gameId, cmd))
+                .thenApply(game -> {
+                    LOGGER.info("Played move in: {}", game);
+                    return game;
+                });
+    }
+
+    /**
+     * Reads a game, outside the commands being played on it.
+     *
+     * @param gameId the id of the game.
+     * @return the game; completes exceptionally with an
+     *         {@link AggregateNotFoundException} if there is no such game.
+     */
+    public CompletionStage<GameAggregate> findGameAsync(UUID gameId) {
+        return gameESRepository.findAsync(gameId);
+    }
+
+    @PreDestroy
+    void close() {
+        commandExecutor.close();
     }
 
 }
@@ -0,0 +1,84 @@
+package io.github.marcodiri.gameservice.domain;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.github.marcodiri.core.domain.AggregateSnapshot;
+
+public class GameSnapshot implements AggregateSnapshot {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UUID gameId;
+    private final UUID player1Id;
+    private final UUID player2Id;
+    private final GameState state;
+    private final String fen;
+
+    /**
+     * @param fen the current position in Forsyth-Edwards Notation.
+     */
+    @JsonCreator
+    public GameSnapshot(
+            @JsonProperty("gameId") final UUID gameId,
+            @JsonProperty("player1Id") final UUID player1Id,
+            @JsonProperty("player2Id") final UUID player2Id,
+            @JsonProperty("state") final GameState state,
+            @JsonProperty("fen") final String fen) {
+        this.gameId = gameId;
+        this.player1Id = player1Id;
+        this.player2Id = player2Id;
+        this.state = state;
+        this.fen = fen;
+    }
+
+    public UUID getGameId() {
+        return gameId;
+    }
+
+    public UUID getPlayer1Id() {
+        return player1Id;
+    }
+
+    public UUID getPlayer2Id() {
+        return player2Id;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameId, player1Id, player2Id, state, fen);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        GameSnapshot snapshot = (GameSnapshot) o;
+        return Objects.equals(gameId, snapshot.gameId)
+                && Objects.equals(player1Id, snapshot.player1Id)
+                && Objects.equals(player2Id, snapshot.player2Id)
+                && Objects.equals(state, snapshot.state)
+                && Objects.equals(fen, snapshot.fen);
+    }
+
+}
@@ -0,0 +1,183 @@
+package io.github.marcodiri.gameservice.domain.chess;
+
+/**
+ * Precomputed attack tables indexed by square (a1 = 0, h8 = 63).
+ * <p>
+ * Sliding pieces use magic bitboards: the blockers relevant to a square are
+ * hashed by a multiply and a shift into a dense table, so a rook or bishop
+ * lookup costs the same as a knight lookup. Magics are searched once at class
+ * initialization with a fixed seed, so the tables are identical on every run.
+ */
+final class Attacks {
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    static final long[][] PAWN = new long[2][64];
+
+    private static final int[][] KNIGHT_STEPS = {
+            { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+    private static final int[][] KING_STEPS = {
+            { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 }, { 1, -1 } };
+    private static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+    private static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = stepAttacks(square, KNIGHT_STEPS);
+            KING[square] = stepAttacks(square, KING_STEPS);
+            PAWN[Position.WHITE][square] = stepAttacks(square, new int[][] { { -1, 1 }, { 1, 1 } });
+            PAWN[Position.BLACK][square] = stepAttacks(square, new int[][] { { -1, -1 }, { 1, -1 } });
+        }
+        ROOK_TABLE = initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+    }
+
+    private Attacks() {
+    }
+
+    static long rook(final int square, final long occupancy) {
+        return ROOK_TABLE[ROOK_OFFSETS[square]
+                + (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishop(final int square, final long occupancy) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    static long queen(final int square, final long occupancy) {
+        return rook(square, occupancy) | bishop(square, occupancy);
+    }
+
+    private static boolean onBoard(final int file, final int rank) {
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8;
+    }
+
+    private static long stepAttacks(final int square, final int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int file = (square & 7) + step[0];
+            int rank = (square >>> 3) + step[1];
+            if (onBoard(file, rank)) {
+                attacks |= 1L << (rank * 8 + file);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks every ray from the square, stopping on (and including) the first
+     * blocker. Only used to fill the magic tables.
+     */
+    private static long slidingAttacks(final int square, final long occupancy, final int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int file = (square & 7) + direction[0];
+            int rank = (square >>> 3) + direction[1];
+            while (onBoard(file, rank)) {
+                long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Squares whose occupancy changes the attacks from the given square: every
+     * ray square except the last one before the edge of the board.
+     */
+    private static long relevantMask(final int square, final int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int file = (square & 7) + direction[0];
+            int rank = (square >>> 3) + direction[1];
+            while (onBoard(file + direction[0], rank + direction[1])) {
+                mask |= 1L << (rank * 8 + file);
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long nextRandom(long state) {
+        state ^= state << 13;
+        state ^= state >>> 7;
+        state ^= state << 17;
+        return state;
+    }
+
+    private static long[] initMagics(final int[][] directions, final long[] masks, final long[] magics,
+            final int[] shifts, final int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantMask(square, directions);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+
+        long[] table = new long[size];
+        long[] occupancies = new long[4096];
+        long[] reference = new long[4096];
+        int[] usedInAttempt = new int[4096];
+        int attempt = 0;
+        long random = SEED;
+
+        for (int square = 0; square < 64; square++) {
+            int count = 0;
+            long subset = 0;
+            do {
+                occupancies[count] = subset;
+                reference[count] = slidingAttacks(square, subset, directions);
+                count++;
+                subset = (subset - masks[square]) & masks[square];
+            } while (subset != 0);
+
+            search: while (true) {
+                long magic = -1L;
+                for (int i = 0; i < 3; i++) {
+                    random = nextRandom(random);
+                    magic &= random;
+                }
+                if (Long.bitCount((masks[square] * magic) & 0xFF00000000000000L) < 6) {
+                    continue;
+                }
+                attempt++;
+                for (int i = 0; i < count; i++) {
+                    int index = (int) ((occupancies[i] * magic) >>> shifts[square]);
+                    if (usedInAttempt[index] != attempt) {
+                        usedInAttempt[index] = attempt;
+                        table[offsets[square] + index] = reference[i];
+                    } else if (table[offsets[square] + index] != reference[i]) {
+                        continue search;
+                    }
+                }
+                magics[square] = magic;
+                break;
+            }
+        }
+        return table;
+    }
+
+}
@@ -0,0 +1,486 @@
+package io.github.marcodiri.gameservice.domain.chess;
+
+import java.util.Arrays;
+
+/**
+ * Mutable chess position backed by bitboards.
+ * <p>
+ * Squares are numbered from a1 = 0 to h8 = 63. Move validation and
+ * generation work on primitives only and never allocate. Since a
+ * {@code Move} carries no promotion piece, pawns reaching the last rank are
+ * always promoted to a queen, like the frontend does.
+ */
+public final class Position {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    public static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    static final int PAWN = 0;
+    static final int KNIGHT = 1;
+    static final int BISHOP = 2;
+    static final int ROOK = 3;
+    static final int QUEEN = 4;
+    static final int KING = 5;
+
+    private static final byte NO_PIECE = -1;
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk";
+
+    /** Castling rights that survive a piece leaving or landing on a square. */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 0xF);
+        CASTLING_MASK[0] = ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] = ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] = ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] = ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] = ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] = ~BLACK_KINGSIDE;
+    }
+
+    /** One bitboard per piece, indexed by {@code color * 6 + type}. */
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private final byte[] board = new byte[64];
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+
+    private Position() {
+        Arrays.fill(board, NO_PIECE);
+    }
+
+    public Position(final Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        System.arraycopy(other.board, 0, board, 0, board.length);
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+    }
+
+    public static Position initial() {
+        return fromFen(STARTING_FEN);
+    }
+
+    public static Position fromFen(final String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException(String.format("Invalid FEN: %s", fen));
+        }
+        Position position = new Position();
+
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int piece = PIECE_CHARS.indexOf(c);
+                if (piece < 0 || file > 7 || rank < 0) {
+                    throw new IllegalArgumentException(String.format("Invalid FEN: %s", fen));
+                }
+                position.putPiece(rank * 8 + file, piece);
+                file++;
+            }
+        }
+
+        position.sideToMove = fields[1].equals("b") ? BLACK : WHITE;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K':
+                    position.castlingRights |= WHITE_KINGSIDE;
+                    break;
+                case 'Q':
+                    position.castlingRights |= WHITE_QUEENSIDE;
+                    break;
+                case 'k':
+                    position.castlingRights |= BLACK_KINGSIDE;
+                    break;
+                case 'q':
+                    position.castlingRights |= BLACK_QUEENSIDE;
+                    break;
+                default:
+                    break;
+            }
+        }
+        position.enPassantSquare = parseSquare(fields[3]);
+        if (fields.length > 5) {
+            position.halfmoveClock = Integer.parseInt(fields[4]);
+            position.fullmoveNumber = Integer.parseInt(fields[5]);
+        }
+        return position;
+    }
+
+    /**
+     * @param name a square in algebraic notation, e.g. {@code "e4"}.
+     * @return the square index, or {@link #NO_SQUARE} if the name is not a
+     *         valid square.
+     */
+    public static int parseSquare(final String name) {
+        if (name == null || name.length() != 2) {
+            return NO_SQUARE;
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return NO_SQUARE;
+        }
+        return rank * 8 + file;
+    }
+
+    public static String squareName(final int square) {
+        if (square == NO_SQUARE) {
+            return "-";
+        }
+        return new String(new char[] { (char) ('a' + (square & 7)), (char) ('1' + (square >>> 3)) });
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public boolean isInCheck() {
+        int king = Long.numberOfTrailingZeros(pieces[sideToMove * 6 + KING]);
+        return isAttacked(king, sideToMove ^ 1, colors[WHITE] | colors[BLACK], -1L);
+    }
+
+    /**
+     * Checks whether the side to move may play the given move.
+     *
+     * @param from the origin square index.
+     * @param to   the destination square index.
+     * @return true if the move is legal in this position.
+     */
+    public boolean isLegal(final int from, final int to) {
+        if (!isPlayable(from, to)) {
+            return false;
+        }
+        long toBit = 1L << to;
+        int type = board[from] % 6;
+        long occupancy = colors[WHITE] | colors[BLACK];
+        if ((pseudoTargets(from, type, occupancy) & toBit) == 0) {
+            return type == KING && isLegalCastling(from, to, occupancy);
+        }
+        return leavesKingSafe(from, to, type, occupancy);
+    }
+
+    /**
+     * Checks whether {@link #makeMove} can play the move at all, regardless
+     * of the rules: both squares are valid and distinct, a piece of the side
+     * to move stands on the origin and none stands on the destination.
+     *
+     * @param from the origin square index.
+     * @param to   the destination square index.
+     * @return true if the move can be played on the board.
+     */
+    public boolean isPlayable(final int from, final int to) {
+        if (((from | to) & ~63) != 0 || from == to) {
+            return false;
+        }
+        int piece = board[from];
+        return piece != NO_PIECE
+                && piece / 6 == sideToMove
+                && (colors[sideToMove] & (1L << to)) == 0;
+    }
+
+    /**
+     * Plays a move that has already been validated with {@link #isLegal}.
+     *
+     * @param from the origin square index.
+     * @param to   the destination square index.
+     */
+    public void makeMove(final int from, final int to) {
+        int piece = board[from];
+        int type = piece % 6;
+        int us = sideToMove;
+        int them = us ^ 1;
+
+        halfmoveClock++;
+        int captured = board[to];
+        if (captured != NO_PIECE) {
+            removePiece(to, captured);
+            halfmoveClock = 0;
+        }
+        movePiece(from, to, piece);
+
+        if (type == PAWN) {
+            halfmoveClock = 0;
+            if (to == enPassantSquare) {
+                removePiece(to ^ 8, them * 6 + PAWN);
+            } else if ((to >>> 3) == 0 || (to >>> 3) == 7) {
+                removePiece(to, piece);
+                putPiece(to, us * 6 + QUEEN);
+            }
+        } else if (type == KING && Math.abs(to - from) == 2) {
+            int rank = from & 56;
+            if (to > from) {
+                movePiece(rank + 7, rank + 5, us * 6 + ROOK);
+            } else {
+                movePiece(rank, rank + 3, us * 6 + ROOK);
+            }
+        }
+
+        enPassantSquare = type == PAWN && Math.abs(to - from) == 16 ? (from + to) >>> 1 : NO_SQUARE;
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        if (us == BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = them;
+    }
+
+    /**
+     * Writes every legal move into the buffer, encoded as
+     * {@code from | to << 6}. A buffer of 256 entries is always enough.
+     *
+     * @param moves the buffer to fill.
+     * @return the number of legal moves written.
+     */
+    public int generateLegalMoves(final int[] moves) {
+        return collectLegalMoves(moves, moves.length);
+    }
+
+    /**
+     * @return true if the side to move has at least one legal move; false on
+     *         checkmate or stalemate.
+     */
+    public boolean hasLegalMove() {
+        return collectLegalMoves(null, 1) > 0;
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = board[rank * 8 + file];
+                if (piece == NO_PIECE) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        fen.append(empty);
+                        empty = 0;
+                    }
+                    fen.append(PIECE_CHARS.charAt(piece));
+                }
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(sideToMove == WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) {
+                fen.append('K');
+            }
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) {
+                fen.append('Q');
+            }
+            if ((castlingRights & BLACK_KINGSIDE) != 0) {
+                fen.append('k');
+            }
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) {
+                fen.append('q');
+            }
+        }
+        fen.append(' ').append(squareName(enPassantSquare))
+                .append(' ').append(halfmoveClock)
+                .append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+
+    private int collectLegalMoves(final int[] moves, final int limit) {
+        int count = 0;
+        long occupancy = colors[WHITE] | colors[BLACK];
+        long own = colors[sideToMove];
+        for (long fromSet = own; fromSet != 0 && count < limit; fromSet &= fromSet - 1) {
+            int from = Long.numberOfTrailingZeros(fromSet);
+            int type = board[from] % 6;
+            for (long toSet = pseudoTargets(from, type, occupancy) & ~own; toSet != 0
+                    && count < limit; toSet &= toSet - 1) {
+                int to = Long.numberOfTrailingZeros(toSet);
+                if (leavesKingSafe(from, to, type, occupancy)) {
+                    if (moves != null) {
+                        moves[count] = from | to << 6;
+                    }
+                    count++;
+                }
+            }
+            if (type == KING) {
+                for (int to = from - 2; to <= from + 2 && count < limit; to += 4) {
+                    if (to >= 0 && to < 64 && isLegalCastling(from, to, occupancy)) {
+                        if (moves != null) {
+                            moves[count] = from | to << 6;
+                        }
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Squares the piece can reach ignoring pins and castling. May include
+     * squares occupied by own pieces.
+     */
+    private long pseudoTargets(final int from, final int type, final long occupancy) {
+        switch (type) {
+            case PAWN:
+                return pawnTargets(from, occupancy);
+            case KNIGHT:
+                return Attacks.KNIGHT[from];
+            case BISHOP:
+                return Attacks.bishop(from, occupancy);
+            case ROOK:
+                return Attacks.rook(from, occupancy);
+            case QUEEN:
+                return Attacks.queen(from, occupancy);
+            default:
+                return Attacks.KING[from];
+        }
+    }
+
+    private long pawnTargets(final int from, final long occupancy) {
+        long enPassant = enPassantSquare == NO_SQUARE ? 0 : 1L << enPassantSquare;
+        long targets = Attacks.PAWN[sideToMove][from] & (colors[sideToMove ^ 1] | enPassant);
+        int forward = sideToMove == WHITE ? from + 8 : from - 8;
+        if ((occupancy & (1L << forward)) == 0) {
+            targets |= 1L << forward;
+            int startRank = sideToMove == WHITE ? 1 : 6;
+            int doublePush = sideToMove == WHITE ? forward + 8 : forward - 8;
+            if ((from >>> 3) == startRank && (occupancy & (1L << doublePush)) == 0) {
+                targets |= 1L << doublePush;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Plays the move on a scratch occupancy and checks that the mover's king
+     * is not attacked afterwards.
+     */
+    private boolean leavesKingSafe(final int from, final int to, final int type, final long occupancy) {
+        long captured = colors[sideToMove ^ 1] & (1L << to);
+        if (type == PAWN && to == enPassantSquare) {
+            captured = 1L << (to ^ 8);
+        }
+        long occupancyAfter = (occupancy ^ (1L << from) ^ captured) | (1L << to);
+        int king = type == KING ? to : Long.numberOfTrailingZeros(pieces[sideToMove * 6 + KING]);
+        return !isAttacked(king, sideToMove ^ 1, occupancyAfter, ~captured);
+    }
+
+    private boolean isLegalCastling(final int from, final int to, final long occupancy) {
+        int rank = sideToMove == WHITE ? 0 : 56;
+        if (from != rank + 4) {
+            return false;
+        }
+        int right;
+        int rookSquare;
+        int passed;
+        long between;
+        if (to == rank + 6) {
+            right = sideToMove == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+            rookSquare = rank + 7;
+            passed = rank + 5;
+            between = 0x60L << rank;
+        } else if (to == rank + 2) {
+            right = sideToMove == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+            rookSquare = rank;
+            passed = rank + 3;
+            between = 0x0EL << rank;
+        } else {
+            return false;
+        }
+        if ((castlingRights & right) == 0
+                || board[rookSquare] != sideToMove * 6 + ROOK
+                || (occupancy & between) != 0) {
+            return false;
+        }
+        int them = sideToMove ^ 1;
+        return !isAttacked(from, them, occupancy, -1L)
+                && !isAttacked(passed, them, occupancy, -1L)
+                && !isAttacked(to, them, occupancy, -1L);
+    }
+
+    /**
+     * @param square    the square to test.
+     * @param by        the attacking color.
+     * @param occupancy the blockers for sliding pieces.
+     * @param mask      attackers outside the mask are ignored (used for
+     *                  captured pieces).
+     */
+    private boolean isAttacked(final int square, final int by, final long occupancy, final long mask) {
+        int base = by * 6;
+        return (Attacks.PAWN[by ^ 1][square] & pieces[base + PAWN] & mask) != 0
+                || (Attacks.KNIGHT[square] & pieces[base + KNIGHT] & mask) != 0
+                || (Attacks.KING[square] & pieces[base + KING]) != 0
+                || (Attacks.bishop(square, occupancy) & (pieces[base + BISHOP] | pieces[base + QUEEN]) & mask) != 0
+                || (Attacks.rook(square, occupancy) & (pieces[base + ROOK] | pieces[base + QUEEN]) & mask) != 0;
+    }
+
+    private void putPiece(final int square, final int piece) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        colors[piece / 6] |= bit;
+        board[square] = (byte) piece;
+    }
+
+    private void removePiece(final int square, final int piece) {
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        colors[piece / 6] &= ~bit;
+        board[square] = NO_PIECE;
+    }
+
+    private void movePiece(final int from, final int to, final int piece) {
+        long bits = (1L << from) | (1L << to);
+        pieces[piece] ^= bits;
+        colors[piece / 6] ^= bits;
+        board[from] = NO_PIECE;
+        board[to] = (byte) piece;
+    }
+
+}
@@ -1,23 +1,36 @@
 package io.github.marcodiri.gameservice.repository.eventstore;
 
-import com.eventstore.dbclient.EventStoreDBClient;
-import com.eventstore.dbclient.EventStoreDBClientSettings;
-import com.eventstore.dbclient.EventStoreDBConnectionString;
-
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.EventStoreDBEventStore;
+import io.github.marcodiri.core.repository.eventstore.EventStoreClientPool;
+import jakarta.enterprise.inject.Disposes;
 import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
 
+/**
+ * Produces the EventStoreDB clients shared by the whole application, created
+ * on first use and shut down with it.
+ * <p>
+ * The host defaults to the name of the event store docker container; the
+ * connection is configured by the {@code EVENTSTORE_*} environment
+ * variables, see {@link EventStoreClientPool#fromEnvironment}.
+ */
 public class EventStoreDBClientFactory {
 
-    // This is set to the name of the event store docker container
-    private static final String hostname = "eventstore";
-    private static final int port = 2113;
-    private static final String CONNECTION_STRING = String.format("esdb://%s:%s?tls=false", hostname, port);
+    @Produces
+    @Singleton
+    public EventStoreClientPool createClientPool() {
+        return EventStoreClientPool.fromEnvironment(System::getenv);
+    }
 
-    private EventStoreDBClientSettings setts = EventStoreDBConnectionString.parseOrThrow(CONNECTION_STRING);
+    public void closeClientPool(@Disposes EventStoreClientPool clients) {
+        clients.close();
+    }
 
     @Produces
-    public EventStoreDBClient createClient() {
-        return EventStoreDBClient.create(setts);
+    @Singleton
+    public EventStore createEventStore(EventStoreClientPool clients) {
+        return new EventStoreDBEventStore(clients);
     }
 
 }
@@ -5,31 +5,55 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 import com.eventstore.dbclient.EventStoreDBClient;
-import com.eventstore.dbclient.RecordedEvent;
-import com.eventstore.dbclient.ResolvedEvent;
 import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.databind.DatabindException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventRecord;
+import io.github.marcodiri.core.eventstore.EventStore;
 import io.github.marcodiri.core.repository.eventstore.ESRepository;
 import io.github.marcodiri.gameservice.api.event.GameEventType;
+import io.github.marcodiri.gameservice.api.event.MovePlayedFormat;
 import io.github.marcodiri.gameservice.domain.GameAggregate;
 import io.github.marcodiri.gameservice.domain.GameFactory;
 import io.github.marcodiri.gameservice.domain.GameNotInProgressException;
+import io.github.marcodiri.gameservice.domain.GameSnapshot;
 import io.github.marcodiri.gameservice.domain.IllegalMoveException;
 import io.github.marcodiri.gameservice.domain.command.CreateGameCommand;
 import io.github.marcodiri.gameservice.domain.command.PlayMoveCommand;
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 
+@Singleton
 public class GameESRepository extends ESRepository {
 
+    /** A 150-ply game is restored from its snapshot plus at most 49 moves. */
+    public static final int SNAPSHOT_INTERVAL = 50;
+
+    /**
+     * Codec of the game events, shared by every repository. Moves, the bulk of
+     * every game stream, are written in the fixed binary layout.
+     */
+    public static final EventCodec EVENT_CODEC = new EventCodec(GameEventType.values())
+            .withFormat(GameEventType.MOVE, new MovePlayedFormat());
+
     @Inject
+    public GameESRepository(final EventStore eventStore, final GameFactory gameFactory) {
+        super(eventStore, gameFactory, EVENT_CODEC, GameSnapshot.class, SNAPSHOT_INTERVAL);
+    }
+
     public GameESRepository(final EventStoreDBClient client, final GameFactory gameFactory) {
-        super(client, gameFactory);
+        this(client, gameFactory, SNAPSHOT_INTERVAL);
+    }
+
+    public GameESRepository(final EventStoreDBClient client, final GameFactory gameFactory,
+            final int snapshotInterval) {
+        super(client, gameFactory, EVENT_CODEC, GameSnapshot.class, snapshotInterval);
     }
 
     public GameAggregate save(CreateGameCommand cmd) throws IllegalAccessException, InvocationTargetException,
@@ -45,22 +69,63 @@ public class GameESRepository extends ESRepository {
     public GameAggregate update(UUID gameId, PlayMoveCommand cmd) throws StreamReadException, DatabindException,
             IllegalAccessException, InvocationTargetException, NoSuchMethodException, InterruptedException,
             ExecutionException, IOException, GameNotInProgressException, IllegalMoveException {
-        GameAggregate game = restoreAggregate(gameId);
+        for (int attempt = 1;; attempt++) {
+            GameAggregate game = (GameAggregate) loadAggregate(gameId);
 
-        List<DomainEvent> events = game.process(cmd);
-        applyAndWriteEvents(game, events);
-
-        return game;
+            List<DomainEvent> events;
+            try {
+                events = game.process(cmd);
+            } catch (GameNotInProgressException | IllegalMoveException | RuntimeException e) {
+                releaseAggregate(game);
+                throw e;
+            }
+            try {
+                applyAndWriteEvents(game, events);
+                return game;
+            } catch (ExecutionException e) {
+                if (!isWriteConflict(e) || attempt == MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.info("Game {} was modified concurrently, retrying {}", gameId, cmd);
+            }
+        }
     }
 
-    private GameAggregate restoreAggregate(UUID gameId)
-            throws InterruptedException, ExecutionException, StreamReadException,
-            DatabindException, IOException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+    /**
+     * Non-blocking variant of {@link #save(CreateGameCommand)}.
+     *
+     * @param cmd the command.
+     * @return the new game once its events are written.
+     */
+    public CompletionStage<GameAggregate> saveAsync(CreateGameCommand cmd) {
         GameAggregate game = (GameAggregate) aggregateFactory.createAggregate();
-        List<DomainEvent> pastEvents = readEventsForAggregate(gameId);
-        applyEventsToAggregate(game, pastEvents);
-        LOGGER.info("Restored Game from events: {}, \n{}", pastEvents, game);
-        return game;
+        return processAndWriteAsync(game, aggregate -> aggregate.process(cmd));
+    }
+
+    /**
+     * Non-blocking variant of {@link #update(UUID, PlayMoveCommand)}.
+     *
+     * @param gameId the id of the game.
+     * @param cmd    the command.
+     * @return the game once the move is written; completes exceptionally with
+     *         a {@link GameNotInProgressException} or an
+     *         {@link IllegalMoveException} if the move is rejected.
+     */
+    public CompletionStage<GameAggregate> updateAsync(UUID gameId, PlayMoveCommand cmd) {
+        return this.<GameAggregate>updateAsync(gameId, game -> game.process(cmd));
+    }
+
+    /**
+     * Reads a game for display, restoring it from its stream. The cache of
+     * the games being updated is not touched.
+     *
+     * @param gameId the id of the game.
+     * @return the game; completes exceptionally with an
+     *         {@link io.github.marcodiri.core.repository.eventstore.AggregateNotFoundException}
+     *         if there is no such game.
+     */
+    public CompletionStage<GameAggregate> findAsync(UUID gameId) {
+        return restoreAggregateAsync(gameId).thenApply(GameAggregate.class::cast);
     }
 
     @Override
@@ -69,17 +134,21 @@ public class GameESRepository extends ESRepository {
     }
 
     @Override
-    protected List<DomainEvent> convertEvents(List<ResolvedEvent> resolvedEvents)
+    protected List<DomainEvent> convertEvents(List<EventRecord> records)
             throws StreamReadException, DatabindException, IOException {
         List<DomainEvent> domainEvents = new ArrayList<>();
-        for (ResolvedEvent resolvedEvent : resolvedEvents) {
-            RecordedEvent originalEvent = resolvedEvent.getOriginalEvent();
-            DomainEvent event = new ObjectMapper().readValue(
-                    originalEvent.getEventData(),
-                    GameEventType.fromString(originalEvent.getEventType()).getEventClass());
-            domainEvents.add(event);
+        for (EventRecord record : records) {
+            domainEvents.add(convertEvent(record));
         }
         return domainEvents;
     }
 
+    @Override
+    protected DomainEvent convertEvent(EventRecord record) throws IOException {
+        return eventCodec.decode(
+                record.getType(),
+                record.getData(),
+                record.getMetadata());
+    }
+
 }
@@ -1,12 +1,16 @@
 package io.github.marcodiri.gameservice.web;
 
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import io.github.marcodiri.core.repository.eventstore.AggregateNotFoundException;
 import io.github.marcodiri.gameservice.api.web.CreateGameRequest;
 import io.github.marcodiri.gameservice.api.web.CreateGameResponse;
+import io.github.marcodiri.gameservice.api.web.GamePositionResponse;
 import io.github.marcodiri.gameservice.api.web.PlayMoveRequest;
-import io.github.marcodiri.gameservice.domain.GameAggregate;
 import io.github.marcodiri.gameservice.domain.GameNotInProgressException;
 import io.github.marcodiri.gameservice.domain.GameService;
 import io.github.marcodiri.gameservice.domain.IllegalMoveException;
@@ -15,7 +19,10 @@ import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -41,51 +48,86 @@ public class GameController {
     @Path("/create-game")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createGame(CreateGameRequest request) {
+    public void createGame(CreateGameRequest request, @Suspended AsyncResponse asyncResponse) {
         LOGGER.info("Received CreateGameRequest: {}", request);
 
-        try {
-            GameAggregate game = gameService.createGame(request.getPlayer1Id(), request.getPlayer2Id());
-            CreateGameResponse response = new CreateGameResponse(game.getId());
-            LOGGER.info("Sending CreateGameResponse: {}", response);
-            return Response
-                    .ok()
-                    .entity(response)
-                    .build();
-        } catch (Exception e) {
-            LOGGER.catching(e);
-        }
-
-        return Response
-                .serverError()
-                .build();
+        gameService.createGameAsync(request.getPlayer1Id(), request.getPlayer2Id())
+                .whenComplete((game, e) -> {
+                    if (e != null) {
+                        LOGGER.catching(e);
+                        asyncResponse.resume(Response
+                                .serverError()
+                                .build());
+                        return;
+                    }
+                    CreateGameResponse response = new CreateGameResponse(game.getId());
+                    LOGGER.info("Sending CreateGameResponse: {}", response);
+                    asyncResponse.resume(Response
+                            .ok()
+                            .entity(response)
+                            .build());
+                });
     }
 
     @POST
     @Path("/play-move")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response playMove(PlayMoveRequest request) {
+    public void playMove(PlayMoveRequest request, @Suspended AsyncResponse asyncResponse) {
         LOGGER.info("Received PlayMoveRequest: {}", request);
 
-        try {
-            gameService.playMove(request.getGameId(), request.getPlayerId(), request.getMove());
-            LOGGER.info("Sending OK");
-            return Response
-                    .ok()
-                    .build();
-        } catch (GameNotInProgressException | IllegalMoveException e) {
-            LOGGER.catching(e);
-            return Response
-                    .status(Response.Status.BAD_REQUEST)
-                    .build();
-        } catch (Exception e) {
-            LOGGER.catching(e);
-        }
+        gameService.playMoveAsync(request.getGameId(), request.getPlayerId(), request.getMove())
+                .whenComplete((game, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        LOGGER.catching(cause);
+                        if (cause instanceof GameNotInProgressException || cause instanceof IllegalMoveException) {
+                            asyncResponse.resume(Response
+                                    .status(Response.Status.BAD_REQUEST)
+                                    .build());
+                        } else {
+                            asyncResponse.resume(Response
+                                    .serverError()
+                                    .build());
+                        }
+                        return;
+                    }
+                    LOGGER.info("Sending OK");
+                    asyncResponse.resume(Response
+                            .ok()
+                            .build());
+                });
+    }
 
-        return Response
-                .serverError()
-                .build();
+    /**
+     * Replies with the position of a game and its version, for the spectators
+     * joining it.
+     */
+    @GET
+    @Path("/position/{gameId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getPosition(@PathParam("gameId") UUID gameId, @Suspended AsyncResponse asyncResponse) {
+        gameService.findGameAsync(gameId)
+                .whenComplete((game, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        if (cause instanceof AggregateNotFoundException) {
+                            asyncResponse.resume(Response
+                                    .status(Response.Status.NOT_FOUND)
+                                    .build());
+                        } else {
+                            LOGGER.catching(cause);
+                            asyncResponse.resume(Response
+                                    .serverError()
+                                    .build());
+                        }
+                        return;
+                    }
+                    asyncResponse.resume(Response
+                            .ok()
+                            .entity(new GamePositionResponse(game.getId(), game.getRevision(), game.getFen()))
+                            .build());
+                });
     }
 
 }
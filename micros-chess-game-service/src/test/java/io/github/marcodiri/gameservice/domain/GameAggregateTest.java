@@ -4,11 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.doReturn;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -23,6 +21,7 @@ import io.github.marcodiri.core.domain.event.DomainEvent;
 import io.github.marcodiri.gameservice.api.event.GameCreated;
 import io.github.marcodiri.gameservice.api.event.MovePlayed;
 import io.github.marcodiri.gameservice.api.web.Move;
+import io.github.marcodiri.gameservice.domain.chess.Position;
 import io.github.marcodiri.gameservice.domain.command.CreateGameCommand;
 import io.github.marcodiri.gameservice.domain.command.PlayMoveCommand;
 
@@ -78,6 +77,7 @@ public class GameAggregateTest {
             MovePlayed expectedEvent = new MovePlayed(gameId, playerId, move);
             doReturn(gameId).when(game).getId();
             doReturn(GameState.IN_PROGRESS).when(game).getState();
+            doReturn(true).when(game).moveIsLegal(playerId, move);
 
             List<DomainEvent> events = game.process(cmd);
 
@@ -99,7 +99,7 @@ public class GameAggregateTest {
         @Test
         void processThrowsIfMoveIsIllegal() {
             doReturn(GameState.IN_PROGRESS).when(game).getState();
-            doReturn(false).when(game).moveIsLegal();
+            doReturn(false).when(game).moveIsLegal(playerId, move);
 
             assertThatThrownBy(() -> game.process(cmd))
                     .isInstanceOf(IllegalMoveException.class)
@@ -108,6 +108,53 @@ public class GameAggregateTest {
 
     }
 
+    @Nested
+    class moveIsLegal {
+
+        private UUID gameId, player1Id, player2Id;
+
+        @BeforeEach
+        void createGame() {
+            gameId = UUID.randomUUID();
+            player1Id = UUID.randomUUID();
+            player2Id = UUID.randomUUID();
+            game.apply(new GameCreated(gameId, player1Id, player2Id));
+        }
+
+        @Test
+        void legalMoveByPlayerToMoveIsAccepted() {
+            assertThat(game.moveIsLegal(player1Id, new Move("e2", "e4"))).isTrue();
+        }
+
+        @Test
+        void moveByPlayerNotToMoveIsRejected() {
+            assertThat(game.moveIsLegal(player2Id, new Move("e7", "e5"))).isFalse();
+            assertThat(game.moveIsLegal(player2Id, new Move("e2", "e4"))).isFalse();
+        }
+
+        @Test
+        void illegalMoveIsRejected() {
+            assertThat(game.moveIsLegal(player1Id, new Move("e2", "e5"))).isFalse();
+            assertThat(game.moveIsLegal(player1Id, new Move("b1", "d2"))).isFalse();
+        }
+
+        @Test
+        void malformedMoveIsRejected() {
+            assertThat(game.moveIsLegal(player1Id, new Move("e2", "z9"))).isFalse();
+            assertThat(game.moveIsLegal(player1Id, new Move(null, "e4"))).isFalse();
+            assertThat(game.moveIsLegal(player1Id, null)).isFalse();
+        }
+
+        @Test
+        void legalityDependsOnPlayedMoves() {
+            game.apply(new MovePlayed(gameId, player1Id, new Move("e2", "e4")));
+
+            assertThat(game.moveIsLegal(player2Id, new Move("e7", "e5"))).isTrue();
+            assertThat(game.moveIsLegal(player1Id, new Move("d2", "d4"))).isFalse();
+        }
+
+    }
+
     @Nested
     class applyGameCreated {
 
@@ -129,7 +176,7 @@ public class GameAggregateTest {
             assertThat(game.getId()).isEqualTo(gameId);
             assertThat(game.getPlayer1Id()).isEqualTo(player1Id);
             assertThat(game.getPlayer2Id()).isEqualTo(player2Id);
-            assertThat(game.getMovesList()).isEmpty();
+            assertThat(game.getPosition().toFen()).isEqualTo(Position.STARTING_FEN);
             assertThat(game.getState()).isEqualTo(GameState.IN_PROGRESS);
         }
 
@@ -150,18 +197,87 @@ public class GameAggregateTest {
             player2Id = UUID.randomUUID();
             event1 = new MovePlayed(gameId, player1Id, move1);
             event2 = new MovePlayed(gameId, player2Id, move2);
+            game.apply(new GameCreated(gameId, player1Id, player2Id));
         }
 
         @Test
-        void applyMovePlayedAppendsMoveToMovesList() {
-            doReturn(new ArrayList<>()).when(game).getMovesList();
-
+        void applyMovePlayedUpdatesPosition() {
             game.apply(event1);
             game.apply(event2);
 
-            assertThat(game.getMovesList()).hasSize(2);
-            assertThat(game.getMovesList()).first().isEqualTo(ImmutablePair.of(player1Id, move1));
-            assertThat(game.getMovesList()).last().isEqualTo(ImmutablePair.of(player2Id, move2));
+            assertThat(game.getPosition().toFen())
+                    .isEqualTo("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2");
+            assertThat(game.getState()).isEqualTo(GameState.IN_PROGRESS);
+        }
+
+        @Test
+        void applyMovePlayedDoesNotValidateRecordedMove() {
+            game.apply(new MovePlayed(gameId, player1Id, new Move("e2", "e5")));
+
+            assertThat(game.getPosition().toFen())
+                    .isEqualTo("rnbqkbnr/pppppppp/8/4P3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        }
+
+        @Test
+        void applyMovePlayedThrowsIfMoveCannotBePlayed() {
+            MovePlayed event = new MovePlayed(gameId, player1Id, new Move("e4", "e5"));
+
+            assertThatThrownBy(() -> game.apply(event))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Recorded move %s cannot be played in position %s",
+                            event.getMove(), Position.STARTING_FEN);
+            assertThat(game.getPosition().toFen()).isEqualTo(Position.STARTING_FEN);
+        }
+
+        @Test
+        void applyMovePlayedEndsGameOnCheckmate() {
+            game.apply(new MovePlayed(gameId, player1Id, new Move("f2", "f3")));
+            game.apply(new MovePlayed(gameId, player2Id, new Move("e7", "e5")));
+            game.apply(new MovePlayed(gameId, player1Id, new Move("g2", "g4")));
+            game.apply(new MovePlayed(gameId, player2Id, new Move("d8", "h4")));
+
+            assertThat(game.getState()).isEqualTo(GameState.ENDED);
+        }
+
+    }
+
+    @Nested
+    class snapshot {
+
+        private UUID gameId;
+        private UUID player1Id;
+        private UUID player2Id;
+
+        @BeforeEach
+        void setup() {
+            gameId = UUID.randomUUID();
+            player1Id = UUID.randomUUID();
+            player2Id = UUID.randomUUID();
+            game.apply(new GameCreated(gameId, player1Id, player2Id));
+            game.apply(new MovePlayed(gameId, player1Id, new Move("e2", "e4")));
+        }
+
+        @Test
+        void takeSnapshotCapturesState() {
+            GameSnapshot snapshot = game.takeSnapshot();
+
+            assertThat(snapshot.getGameId()).isEqualTo(gameId);
+            assertThat(snapshot.getPlayer1Id()).isEqualTo(player1Id);
+            assertThat(snapshot.getPlayer2Id()).isEqualTo(player2Id);
+            assertThat(snapshot.getState()).isEqualTo(GameState.IN_PROGRESS);
+            assertThat(snapshot.getFen()).isEqualTo(game.getPosition().toFen());
+        }
+
+        @Test
+        void restoreSnapshotRebuildsEquivalentGame() {
+            GameAggregate restoredGame = new GameAggregate();
+
+            restoredGame.restoreSnapshot(game.takeSnapshot());
+
+            assertThat(restoredGame.getId()).isEqualTo(gameId);
+            assertThat(restoredGame.getState()).isEqualTo(GameState.IN_PROGRESS);
+            assertThat(restoredGame.getPosition().toFen()).isEqualTo(game.getPosition().toFen());
+            assertThat(restoredGame.moveIsLegal(player2Id, new Move("e7", "e5"))).isTrue();
         }
 
     }
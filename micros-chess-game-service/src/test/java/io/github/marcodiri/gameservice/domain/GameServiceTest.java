@@ -2,12 +2,15 @@ package io.github.marcodiri.gameservice.domain;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.Nested;
@@ -17,13 +20,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.fasterxml.jackson.core.exc.StreamReadException;
-import com.fasterxml.jackson.databind.DatabindException;
-
 import io.github.marcodiri.gameservice.api.web.Move;
 import io.github.marcodiri.gameservice.domain.command.CreateGameCommand;
 import io.github.marcodiri.gameservice.domain.command.PlayMoveCommand;
 import io.github.marcodiri.gameservice.repository.eventstore.GameESRepository;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(MockitoExtension.class)
@@ -65,33 +66,74 @@ public class GameServiceTest {
     }
 
     @Nested
-    class PlayMove {
+    class Async {
+
+        @Test
+        void createGameAsyncCallsRepositorySaveAsyncWithCommand() {
+            UUID player1Id = UUID.randomUUID();
+            UUID player2Id = UUID.randomUUID();
+            GameAggregate game = new GameAggregate();
+            when(gameESRepository.saveAsync(new CreateGameCommand(player1Id, player2Id)))
+                    .thenReturn(CompletableFuture.completedFuture(game));
 
-        private Move move = new Move("e2", "e4");
+            assertThat(gameService.createGameAsync(player1Id, player2Id)).succeedsWithin(5, SECONDS).isEqualTo(game);
+        }
 
         @Test
-        void playMoveCallsRepositoryUpdateWithCommand() throws StreamReadException, DatabindException,
-                IllegalAccessException, InvocationTargetException, NoSuchMethodException, InterruptedException,
-                ExecutionException, IOException, GameNotInProgressException, IllegalMoveException {
+        void findGameAsyncCallsRepositoryFindAsync() {
             UUID gameId = UUID.randomUUID();
-            UUID playerId = UUID.randomUUID();
-            PlayMoveCommand expectedCommand = new PlayMoveCommand(playerId, move);
-
-            gameService.playMove(gameId, playerId, move);
+            GameAggregate game = new GameAggregate();
+            when(gameESRepository.findAsync(gameId)).thenReturn(CompletableFuture.completedFuture(game));
 
-            verify(gameESRepository).update(gameId, expectedCommand);
+            assertThat(gameService.findGameAsync(gameId)).succeedsWithin(5, SECONDS).isEqualTo(game);
         }
 
         @Test
-        void playMoveReturnsAggregate() throws StreamReadException, DatabindException, IllegalAccessException,
-                InvocationTargetException, NoSuchMethodException, InterruptedException, ExecutionException, IOException,
-                GameNotInProgressException, IllegalMoveException {
+        void playMoveAsyncCallsRepositoryUpdateAsyncWithCommand() {
+            UUID gameId = UUID.randomUUID();
+            UUID playerId = UUID.randomUUID();
+            Move move = new Move("e2", "e4");
             GameAggregate game = new GameAggregate();
-            when(gameESRepository.update(isA(UUID.class), isA(PlayMoveCommand.class))).thenReturn(game);
+            when(gameESRepository.updateAsync(gameId, new PlayMoveCommand(playerId, move)))
+                    .thenReturn(CompletableFuture.completedFuture(game));
 
-            GameAggregate returnedGame = gameService.playMove(UUID.randomUUID(), UUID.randomUUID(), move);
+            assertThat(gameService.playMoveAsync(gameId, playerId, move)).succeedsWithin(5, SECONDS).isEqualTo(game);
+        }
 
-            assertThat(returnedGame).isEqualTo(game);
+        @Test
+        void playMoveAsyncPlaysMovesOfOneGameOneAtATime() {
+            UUID gameId = UUID.randomUUID();
+            UUID playerId = UUID.randomUUID();
+            PlayMoveCommand firstCommand = new PlayMoveCommand(playerId, new Move("e2", "e4"));
+            PlayMoveCommand secondCommand = new PlayMoveCommand(playerId, new Move("d2", "d4"));
+            CompletableFuture<GameAggregate> firstMove = new CompletableFuture<>();
+            when(gameESRepository.updateAsync(gameId, firstCommand)).thenReturn(firstMove);
+            when(gameESRepository.updateAsync(gameId, secondCommand))
+                    .thenReturn(CompletableFuture.completedFuture(new GameAggregate()));
+
+            gameService.playMoveAsync(gameId, playerId, new Move("e2", "e4"));
+            CompletionStage<GameAggregate> secondMove = gameService.playMoveAsync(gameId, playerId,
+                    new Move("d2", "d4"));
+
+            verify(gameESRepository, timeout(1000)).updateAsync(gameId, firstCommand);
+            verify(gameESRepository, after(200).never()).updateAsync(gameId, secondCommand);
+
+            firstMove.complete(new GameAggregate());
+
+            assertThat(secondMove).succeedsWithin(5, SECONDS);
+            verify(gameESRepository).updateAsync(gameId, secondCommand);
+        }
+
+        @Test
+        void playMoveAsyncPropagatesRejectedMove() {
+            Move move = new Move("e2", "e5");
+            when(gameESRepository.updateAsync(isA(UUID.class), isA(PlayMoveCommand.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalMoveException(move)));
+
+            assertThat(gameService.playMoveAsync(UUID.randomUUID(), UUID.randomUUID(), move))
+                    .failsWithin(5, SECONDS)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalMoveException.class);
         }
 
     }
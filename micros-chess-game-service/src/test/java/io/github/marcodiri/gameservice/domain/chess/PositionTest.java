@@ -0,0 +1,253 @@
+package io.github.marcodiri.gameservice.domain.chess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class PositionTest {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    private static int sq(String name) {
+        return Position.parseSquare(name);
+    }
+
+    private static long perft(Position position, int depth) {
+        int[] moves = new int[256];
+        int count = position.generateLegalMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            Position child = new Position(position);
+            child.makeMove(moves[i] & 63, moves[i] >>> 6);
+            nodes += perft(child, depth - 1);
+        }
+        return nodes;
+    }
+
+    @Nested
+    class Perft {
+
+        @ParameterizedTest
+        @CsvSource({ "1, 20", "2, 400", "3, 8902", "4, 197281" })
+        void startingPosition(int depth, long nodes) {
+            assertThat(perft(Position.initial(), depth)).isEqualTo(nodes);
+        }
+
+        @ParameterizedTest
+        @CsvSource({ "1, 48", "2, 2039", "3, 97862" })
+        void castlingAndPinsPosition(int depth, long nodes) {
+            assertThat(perft(Position.fromFen(KIWIPETE), depth)).isEqualTo(nodes);
+        }
+
+        @ParameterizedTest
+        @CsvSource({ "1, 14", "2, 191", "3, 2812", "4, 43238" })
+        void enPassantPinsPosition(int depth, long nodes) {
+            assertThat(perft(Position.fromFen(ENDGAME), depth)).isEqualTo(nodes);
+        }
+
+        @Test
+        void generatedMovesAreLegal() {
+            Position position = Position.fromFen(KIWIPETE);
+            int[] moves = new int[256];
+            int count = position.generateLegalMoves(moves);
+
+            int legal = 0;
+            for (int from = 0; from < 64; from++) {
+                for (int to = 0; to < 64; to++) {
+                    if (position.isLegal(from, to)) {
+                        legal++;
+                    }
+                }
+            }
+
+            assertThat(legal).isEqualTo(count);
+        }
+
+    }
+
+    @Nested
+    class IsLegal {
+
+        @Test
+        void pawnPushes() {
+            Position position = Position.initial();
+
+            assertThat(position.isLegal(sq("e2"), sq("e3"))).isTrue();
+            assertThat(position.isLegal(sq("e2"), sq("e4"))).isTrue();
+            assertThat(position.isLegal(sq("e2"), sq("e5"))).isFalse();
+            assertThat(position.isLegal(sq("e2"), sq("d3"))).isFalse();
+        }
+
+        @Test
+        void onlySideToMoveCanMove() {
+            Position position = Position.initial();
+
+            assertThat(position.isLegal(sq("e7"), sq("e5"))).isFalse();
+        }
+
+        @Test
+        void invalidSquares() {
+            Position position = Position.initial();
+
+            assertThat(position.isLegal(Position.NO_SQUARE, sq("e4"))).isFalse();
+            assertThat(position.isLegal(sq("e2"), Position.NO_SQUARE)).isFalse();
+            assertThat(position.isLegal(sq("e2"), sq("e2"))).isFalse();
+            assertThat(position.isLegal(sq("e4"), sq("e5"))).isFalse();
+        }
+
+        @Test
+        void pinnedPieceCannotMove() {
+            Position position = Position.fromFen("4k3/4r3/8/8/8/8/4N3/4K3 w - - 0 1");
+
+            assertThat(position.isLegal(sq("e2"), sq("c3"))).isFalse();
+            assertThat(position.isLegal(sq("e1"), sq("d1"))).isTrue();
+        }
+
+        @Test
+        void mustEscapeCheck() {
+            Position position = Position.fromFen("4k3/8/8/8/8/8/3P4/r3K3 w - - 0 1");
+
+            assertThat(position.isInCheck()).isTrue();
+            assertThat(position.isLegal(sq("d2"), sq("d3"))).isFalse();
+            assertThat(position.isLegal(sq("e1"), sq("e2"))).isTrue();
+            assertThat(position.isLegal(sq("e1"), sq("f1"))).isFalse();
+        }
+
+        @Test
+        void castling() {
+            Position position = Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+
+            assertThat(position.isLegal(sq("e1"), sq("g1"))).isTrue();
+            assertThat(position.isLegal(sq("e1"), sq("c1"))).isTrue();
+        }
+
+        @Test
+        void castlingThroughAttackedSquare() {
+            Position position = Position.fromFen("r3k2r/8/8/8/8/8/5r2/R3K2R w KQkq - 0 1");
+
+            assertThat(position.isLegal(sq("e1"), sq("g1"))).isFalse();
+        }
+
+        @Test
+        void castlingWithoutRights() {
+            Position position = Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w Qkq - 0 1");
+
+            assertThat(position.isLegal(sq("e1"), sq("g1"))).isFalse();
+            assertThat(position.isLegal(sq("e1"), sq("c1"))).isTrue();
+        }
+
+        @Test
+        void enPassant() {
+            Position position = Position.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+
+            assertThat(position.isLegal(sq("e5"), sq("d6"))).isTrue();
+        }
+
+        @Test
+        void enPassantExposingKing() {
+            Position position = Position.fromFen("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1");
+
+            assertThat(position.isLegal(sq("e5"), sq("d6"))).isFalse();
+        }
+
+    }
+
+    @Nested
+    class IsPlayable {
+
+        @Test
+        void ignoresTheRulesOfThePiece() {
+            Position position = Position.initial();
+
+            assertThat(position.isPlayable(sq("e2"), sq("e5"))).isTrue();
+            assertThat(position.isPlayable(sq("d1"), sq("h5"))).isTrue();
+        }
+
+        @Test
+        void needsAPieceOfTheSideToMoveOnTheOrigin() {
+            Position position = Position.initial();
+
+            assertThat(position.isPlayable(sq("e4"), sq("e5"))).isFalse();
+            assertThat(position.isPlayable(sq("e7"), sq("e5"))).isFalse();
+        }
+
+        @Test
+        void cannotCaptureOwnPiece() {
+            Position position = Position.initial();
+
+            assertThat(position.isPlayable(sq("d1"), sq("e1"))).isFalse();
+        }
+
+        @Test
+        void invalidSquares() {
+            Position position = Position.initial();
+
+            assertThat(position.isPlayable(Position.NO_SQUARE, sq("e4"))).isFalse();
+            assertThat(position.isPlayable(sq("e2"), Position.NO_SQUARE)).isFalse();
+            assertThat(position.isPlayable(sq("e2"), sq("e2"))).isFalse();
+        }
+
+    }
+
+    @Nested
+    class MakeMove {
+
+        @Test
+        void updatesStateAfterDoublePush() {
+            Position position = Position.initial();
+
+            position.makeMove(sq("e2"), sq("e4"));
+
+            assertThat(position.toFen())
+                    .isEqualTo("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        }
+
+        @Test
+        void castlingMovesRookAndClearsRights() {
+            Position position = Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 3 10");
+
+            position.makeMove(sq("e1"), sq("g1"));
+
+            assertThat(position.toFen()).isEqualTo("r3k2r/8/8/8/8/8/8/R4RK1 b kq - 4 10");
+        }
+
+        @Test
+        void enPassantRemovesCapturedPawn() {
+            Position position = Position.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+
+            position.makeMove(sq("e5"), sq("d6"));
+
+            assertThat(position.toFen()).isEqualTo("4k3/8/3P4/8/8/8/8/4K3 b - - 0 1");
+        }
+
+        @Test
+        void promotesToQueen() {
+            Position position = Position.fromFen("4k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+
+            position.makeMove(sq("a7"), sq("a8"));
+
+            assertThat(position.toFen()).isEqualTo("Q3k3/8/8/8/8/8/8/4K3 b - - 0 1");
+        }
+
+        @Test
+        void checkmateLeavesNoLegalMove() {
+            Position position = Position.initial();
+            position.makeMove(sq("f2"), sq("f3"));
+            position.makeMove(sq("e7"), sq("e5"));
+            position.makeMove(sq("g2"), sq("g4"));
+            position.makeMove(sq("d8"), sq("h4"));
+
+            assertThat(position.isInCheck()).isTrue();
+            assertThat(position.hasLegalMove()).isFalse();
+        }
+
+    }
+
+}
@@ -1,9 +1,16 @@
 package io.github.marcodiri.gameservice.repository.eventstore;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -12,6 +19,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,12 +31,15 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.eventstore.dbclient.EventData;
+import com.eventstore.dbclient.EventStoreDBClient;
 import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.databind.DatabindException;
 
 import io.github.marcodiri.core.domain.Aggregate;
 import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+import io.github.marcodiri.core.eventstore.WrongExpectedRevisionException;
+import io.github.marcodiri.core.repository.eventstore.ESRepository;
 import io.github.marcodiri.gameservice.api.event.GameCreated;
 import io.github.marcodiri.gameservice.api.event.MovePlayed;
 import io.github.marcodiri.gameservice.api.web.Move;
@@ -51,17 +62,21 @@ public class GameESRepositoryTest {
     private class TestGameESRepository extends GameESRepository {
 
         public TestGameESRepository() {
-            super(null, gameFactory);
+            super((EventStoreDBClient) null, gameFactory);
         }
 
         @Override
-        public List<DomainEvent> readEventsForAggregate(UUID gameId)
-                throws InterruptedException, ExecutionException, IOException {
-            return null;
+        protected long replayEventsForAggregate(Aggregate aggregate, UUID gameId, long fromRevision) {
+            return 1;
+        }
+
+        @Override
+        protected long restoreFromLatestSnapshot(Aggregate aggregate, UUID gameId) {
+            return 0;
         }
 
         @Override
-        protected List<EventData> applyEventsToAggregate(Aggregate aggregate, List<DomainEvent> events)
+        protected List<EncodedEvent> applyEventsToAggregate(Aggregate aggregate, List<DomainEvent> events)
                 throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
             return null;
         }
@@ -70,6 +85,22 @@ public class GameESRepositoryTest {
         protected void applyAndWriteEvents(Aggregate aggregate, List<DomainEvent> events) {
         }
 
+        @Override
+        protected CompletableFuture<Long> replayEventsForAggregateAsync(Aggregate aggregate, UUID gameId,
+                long fromRevision) {
+            return CompletableFuture.completedFuture(1L);
+        }
+
+        @Override
+        protected CompletableFuture<Long> restoreFromLatestSnapshotAsync(Aggregate aggregate, UUID gameId) {
+            return CompletableFuture.completedFuture(0L);
+        }
+
+        @Override
+        protected CompletableFuture<Void> applyAndWriteEventsAsync(Aggregate aggregate, List<DomainEvent> events) {
+            return CompletableFuture.completedFuture(null);
+        }
+
     }
 
     @Spy
@@ -137,20 +168,17 @@ public class GameESRepositoryTest {
         }
 
         @Test
-        void updateCreatesNewGameAndAppliesPastEvents() throws InterruptedException, ExecutionException, IOException,
+        void updateCreatesNewGameAndReplaysPastEvents() throws InterruptedException, ExecutionException, IOException,
                 IllegalAccessException, InvocationTargetException, NoSuchMethodException, GameNotInProgressException,
                 IllegalMoveException {
-            List<DomainEvent> events = Arrays.asList(
-                    new GameCreated(gameId, UUID.randomUUID(), UUID.randomUUID()),
-                    new MovePlayed(gameId, UUID.randomUUID(), move));
-            doReturn(events).when(gameESRepository).readEventsForAggregate(gameId);
+            doReturn(2L).when(gameESRepository).replayEventsForAggregate(game, gameId, 0L);
 
             gameESRepository.update(gameId, cmd);
 
             verify(gameFactory).createAggregate();
-            InOrder inOrder = inOrder(gameESRepository);
-            inOrder.verify(gameESRepository).readEventsForAggregate(gameId);
-            inOrder.verify(gameESRepository).applyEventsToAggregate(game, events);
+            InOrder inOrder = inOrder(gameESRepository, game);
+            inOrder.verify(gameESRepository).replayEventsForAggregate(game, gameId, 0L);
+            inOrder.verify(game).setRevision(1L);
         }
 
         @Test
@@ -176,6 +204,172 @@ public class GameESRepositoryTest {
             assertThat(returnedGame).isInstanceOf(GameAggregate.class);
         }
 
+        @Test
+        void updateRetriesOnWriteConflict() throws GameNotInProgressException, IllegalMoveException,
+                StreamReadException, DatabindException, IllegalAccessException, InvocationTargetException,
+                NoSuchMethodException, InterruptedException, ExecutionException, IOException {
+            List<DomainEvent> newEvents = Arrays.asList(new MovePlayed(gameId, UUID.randomUUID(), move));
+            when(game.process(isA(PlayMoveCommand.class))).thenReturn(newEvents);
+            doThrow(new ExecutionException(mock(WrongExpectedRevisionException.class)))
+                    .doNothing()
+                    .when(gameESRepository).applyAndWriteEvents(game, newEvents);
+
+            gameESRepository.update(gameId, cmd);
+
+            verify(gameFactory, times(2)).createAggregate();
+            verify(gameESRepository, times(2)).applyAndWriteEvents(game, newEvents);
+        }
+
+        @Test
+        void updateGivesUpAfterMaxWriteAttempts() throws GameNotInProgressException, IllegalMoveException,
+                IllegalAccessException, InvocationTargetException, NoSuchMethodException, InterruptedException,
+                ExecutionException {
+            List<DomainEvent> newEvents = Arrays.asList(new MovePlayed(gameId, UUID.randomUUID(), move));
+            when(game.process(isA(PlayMoveCommand.class))).thenReturn(newEvents);
+            doThrow(new ExecutionException(mock(WrongExpectedRevisionException.class)))
+                    .when(gameESRepository).applyAndWriteEvents(game, newEvents);
+
+            assertThatThrownBy(() -> gameESRepository.update(gameId, cmd))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(WrongExpectedRevisionException.class);
+            verify(gameESRepository, times(ESRepository.MAX_WRITE_ATTEMPTS)).applyAndWriteEvents(game, newEvents);
+        }
+
+        @Test
+        void updateAfterRejectedMoveDoesNotRestoreGameAgain() throws GameNotInProgressException,
+                IllegalMoveException, StreamReadException, DatabindException, IllegalAccessException,
+                InvocationTargetException, NoSuchMethodException, InterruptedException, ExecutionException,
+                IOException {
+            when(game.getId()).thenReturn(gameId);
+            List<DomainEvent> newEvents = Arrays.asList(new MovePlayed(gameId, UUID.randomUUID(), move));
+            when(game.process(isA(PlayMoveCommand.class)))
+                    .thenThrow(new IllegalMoveException(move))
+                    .thenReturn(newEvents);
+
+            assertThatThrownBy(() -> gameESRepository.update(gameId, cmd))
+                    .isInstanceOf(IllegalMoveException.class);
+            gameESRepository.update(gameId, cmd);
+
+            verify(gameFactory).createAggregate();
+            verify(gameESRepository).applyAndWriteEvents(game, newEvents);
+        }
+
+        @Test
+        void updateDoesNotRetryOtherWriteFailures() throws GameNotInProgressException, IllegalMoveException,
+                IllegalAccessException, InvocationTargetException, NoSuchMethodException, InterruptedException,
+                ExecutionException {
+            List<DomainEvent> newEvents = Arrays.asList(new MovePlayed(gameId, UUID.randomUUID(), move));
+            when(game.process(isA(PlayMoveCommand.class))).thenReturn(newEvents);
+            doThrow(new ExecutionException(new RuntimeException()))
+                    .when(gameESRepository).applyAndWriteEvents(game, newEvents);
+
+            assertThatThrownBy(() -> gameESRepository.update(gameId, cmd))
+                    .isInstanceOf(ExecutionException.class);
+            verify(gameESRepository).applyAndWriteEvents(game, newEvents);
+        }
+
+    }
+
+    @Nested
+    class saveAsync {
+
+        @Test
+        void saveAsyncCallsProcessAndApplyAndWriteEventsAsync() {
+            CreateGameCommand cmd = new CreateGameCommand(UUID.randomUUID(), UUID.randomUUID());
+            List<DomainEvent> events = Arrays.asList(
+                    new GameCreated(UUID.randomUUID(), cmd.getPlayer1Id(), cmd.getPlayer2Id()));
+            when(gameFactory.createAggregate()).thenReturn(game);
+            when(game.process(isA(CreateGameCommand.class))).thenReturn(events);
+
+            assertThat(gameESRepository.saveAsync(cmd)).succeedsWithin(5, SECONDS).isSameAs(game);
+
+            verify(game).process(cmd);
+            verify(gameESRepository).applyAndWriteEventsAsync(game, events);
+        }
+
+    }
+
+    @Nested
+    class updateAsyncWithPlayMoveCommand {
+
+        private UUID gameId;
+        private PlayMoveCommand cmd;
+        private Move move = new Move("e2", "e4");
+
+        @BeforeEach
+        void setup() {
+            gameId = UUID.randomUUID();
+            when(gameFactory.createAggregate()).thenReturn(game);
+            cmd = new PlayMoveCommand(UUID.randomUUID(), move);
+        }
+
+        @Test
+        void updateAsyncCallsProcessAndApplyAndWriteEventsAsync() throws GameNotInProgressException,
+                IllegalMoveException {
+            List<DomainEvent> newEvents = Arrays.asList(new MovePlayed(gameId, UUID.randomUUID(), move));
+            when(game.process(isA(PlayMoveCommand.class))).thenReturn(newEvents);
+
+            assertThat(gameESRepository.updateAsync(gameId, cmd)).succeedsWithin(5, SECONDS).isSameAs(game);
+
+            verify(gameESRepository).replayEventsForAggregateAsync(game, gameId, 0L);
+            verify(game).process(cmd);
+            verify(gameESRepository).applyAndWriteEventsAsync(game, newEvents);
+        }
+
+        @Test
+        void updateAsyncCompletesExceptionallyIfMoveIsRejected() throws GameNotInProgressException,
+                IllegalMoveException {
+            when(game.process(isA(PlayMoveCommand.class))).thenThrow(new IllegalMoveException(move));
+
+            assertThat(gameESRepository.updateAsync(gameId, cmd)).failsWithin(5, SECONDS)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IllegalMoveException.class);
+            verify(gameESRepository, never()).applyAndWriteEventsAsync(any(), any());
+        }
+
+        @Test
+        void updateAsyncRetriesOnWriteConflict() throws GameNotInProgressException, IllegalMoveException {
+            List<DomainEvent> newEvents = Arrays.asList(new MovePlayed(gameId, UUID.randomUUID(), move));
+            when(game.process(isA(PlayMoveCommand.class))).thenReturn(newEvents);
+            doReturn(CompletableFuture.failedFuture(mock(WrongExpectedRevisionException.class)))
+                    .doReturn(CompletableFuture.completedFuture(null))
+                    .when(gameESRepository).applyAndWriteEventsAsync(game, newEvents);
+
+            assertThat(gameESRepository.updateAsync(gameId, cmd)).succeedsWithin(5, SECONDS);
+
+            verify(gameFactory, times(2)).createAggregate();
+            verify(gameESRepository, times(2)).applyAndWriteEventsAsync(game, newEvents);
+        }
+
+        @Test
+        void updateAsyncGivesUpAfterMaxWriteAttempts() throws GameNotInProgressException, IllegalMoveException {
+            List<DomainEvent> newEvents = Arrays.asList(new MovePlayed(gameId, UUID.randomUUID(), move));
+            when(game.process(isA(PlayMoveCommand.class))).thenReturn(newEvents);
+            doReturn(CompletableFuture.failedFuture(mock(WrongExpectedRevisionException.class)))
+                    .when(gameESRepository).applyAndWriteEventsAsync(game, newEvents);
+
+            assertThat(gameESRepository.updateAsync(gameId, cmd)).failsWithin(5, SECONDS)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(WrongExpectedRevisionException.class);
+            verify(gameESRepository, times(ESRepository.MAX_WRITE_ATTEMPTS)).applyAndWriteEventsAsync(game, newEvents);
+        }
+
+    }
+
+    @Nested
+    class findAsync {
+
+        @Test
+        void findAsyncRestoresGameWithoutWriting() {
+            when(gameFactory.createAggregate()).thenReturn(game);
+            UUID gameId = UUID.randomUUID();
+
+            assertThat(gameESRepository.findAsync(gameId)).succeedsWithin(5, SECONDS).isEqualTo(game);
+
+            verify(gameESRepository).replayEventsForAggregateAsync(game, gameId, 0);
+            verify(gameESRepository, never()).applyAndWriteEventsAsync(any(), any());
+        }
+
     }
 
 }
@@ -11,6 +11,7 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,12 +22,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import io.github.marcodiri.core.repository.eventstore.AggregateNotFoundException;
 import io.github.marcodiri.gameservice.api.web.Move;
 import io.github.marcodiri.gameservice.domain.GameAggregate;
 import io.github.marcodiri.gameservice.domain.GameNotInProgressException;
 import io.github.marcodiri.gameservice.domain.GameService;
 import io.github.marcodiri.gameservice.domain.GameState;
 import io.github.marcodiri.gameservice.domain.IllegalMoveException;
+import io.github.marcodiri.gameservice.domain.chess.Position;
 import io.github.marcodiri.rest.InMemoryRestServer;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
@@ -77,7 +80,7 @@ public class GameControllerTest {
         void JSONResponse() throws Exception {
             UUID gameId = UUID.randomUUID();
             when(game.getId()).thenReturn(gameId);
-            when(gameService.createGame(testPlayer1Id, testPlayer2Id)).thenReturn(game);
+            when(gameService.createGameAsync(testPlayer1Id, testPlayer2Id)).thenReturn(CompletableFuture.completedFuture(game));
             RequestSpecification request = with()
                     .contentType(ContentType.JSON)
                     .body("{ \"player1Id\" : \"" + testPlayer1Id + "\", \"player2Id\" : \"" + testPlayer2Id + "\" }");
@@ -85,7 +88,7 @@ public class GameControllerTest {
             Response post = request.post(server.target("/game/create-game").getUri());
             ResponseBody<?> responseBody = post.getBody();
 
-            verify(gameService).createGame(testPlayer1Id, testPlayer2Id);
+            verify(gameService).createGameAsync(testPlayer1Id, testPlayer2Id);
             post.then()
                     .assertThat()
                     .statusCode(equalTo(200))
@@ -96,7 +99,8 @@ public class GameControllerTest {
 
         @Test
         void internalErrorOnException() throws Exception {
-            when(gameService.createGame(any(UUID.class), any(UUID.class))).thenThrow(new IllegalAccessException());
+            when(gameService.createGameAsync(any(UUID.class), any(UUID.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalAccessException()));
 
             given()
                     .contentType(ContentType.JSON)
@@ -119,6 +123,7 @@ public class GameControllerTest {
         @Test
         void OKResponse() throws Exception {
             UUID gameId = UUID.randomUUID();
+            when(gameService.playMoveAsync(gameId, testPlayer1Id, move)).thenReturn(CompletableFuture.completedFuture(game));
 
             given()
                     .contentType(ContentType.JSON)
@@ -130,14 +135,14 @@ public class GameControllerTest {
                     .assertThat()
                     .statusCode(equalTo(200));
 
-            verify(gameService).playMove(gameId, testPlayer1Id, move);
+            verify(gameService).playMoveAsync(gameId, testPlayer1Id, move);
         }
 
         @Test
         void badRequestOnGameNotInProgressException() throws Exception {
             UUID gameId = UUID.randomUUID();
-            when(gameService.playMove(any(UUID.class), any(UUID.class), any(Move.class)))
-                    .thenThrow(new GameNotInProgressException(GameState.ENDED));
+            when(gameService.playMoveAsync(any(UUID.class), any(UUID.class), any(Move.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new GameNotInProgressException(GameState.ENDED)));
 
             given()
                     .contentType(ContentType.JSON)
@@ -153,8 +158,8 @@ public class GameControllerTest {
         @Test
         void badRequestOnIllegalMoveException() throws Exception {
             UUID gameId = UUID.randomUUID();
-            when(gameService.playMove(any(UUID.class), any(UUID.class), any(Move.class)))
-                    .thenThrow(new IllegalMoveException(move));
+            when(gameService.playMoveAsync(any(UUID.class), any(UUID.class), any(Move.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalMoveException(move)));
 
             given()
                     .contentType(ContentType.JSON)
@@ -170,8 +175,8 @@ public class GameControllerTest {
         @Test
         void internalErrorOnException() throws Exception {
             UUID gameId = UUID.randomUUID();
-            when(gameService.playMove(any(UUID.class), any(UUID.class), any(Move.class)))
-                    .thenThrow(new IllegalArgumentException());
+            when(gameService.playMoveAsync(any(UUID.class), any(UUID.class), any(Move.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException()));
 
             given()
                     .contentType(ContentType.JSON)
@@ -186,4 +191,52 @@ public class GameControllerTest {
 
     }
 
+    @Nested
+    class GetPosition {
+
+        @Test
+        void JSONResponse() throws Exception {
+            UUID gameId = UUID.randomUUID();
+            when(game.getId()).thenReturn(gameId);
+            when(game.getRevision()).thenReturn(0L);
+            when(game.getFen()).thenReturn(Position.STARTING_FEN);
+            when(gameService.findGameAsync(gameId)).thenReturn(CompletableFuture.completedFuture(game));
+
+            get(server.target("/game/position/" + gameId).getUri())
+                    .then()
+                    .assertThat()
+                    .statusCode(equalTo(200))
+                    .and()
+                    .contentType(ContentType.JSON)
+                    .body("gameId", equalTo(gameId.toString()))
+                    .body("version", equalTo(0))
+                    .body("fen", equalTo(Position.STARTING_FEN));
+        }
+
+        @Test
+        void notFoundOnAggregateNotFoundException() throws Exception {
+            UUID gameId = UUID.randomUUID();
+            when(gameService.findGameAsync(gameId)).thenReturn(CompletableFuture.failedFuture(
+                    new AggregateNotFoundException(gameId, "Game_" + gameId)));
+
+            get(server.target("/game/position/" + gameId).getUri())
+                    .then()
+                    .assertThat()
+                    .statusCode(equalTo(404));
+        }
+
+        @Test
+        void internalErrorOnException() throws Exception {
+            UUID gameId = UUID.randomUUID();
+            when(gameService.findGameAsync(gameId))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalStateException()));
+
+            get(server.target("/game/position/" + gameId).getUri())
+                    .then()
+                    .assertThat()
+                    .statusCode(equalTo(500));
+        }
+
+    }
+
 }
@@ -0,0 +1,33 @@
+package io.github.marcodiri.loadgenerator;
+
+import java.lang.reflect.Type;
+import java.util.function.Consumer;
+
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Hands the JSON payload of the frames of a subscription to a consumer,
+ * whether it holds one event or an array of them.
+ */
+class JsonFrameHandler implements StompFrameHandler {
+
+    private final Consumer<JsonNode> consumer;
+
+    JsonFrameHandler(final Consumer<JsonNode> consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+        return JsonNode.class;
+    }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        consumer.accept((JsonNode) payload);
+    }
+
+}
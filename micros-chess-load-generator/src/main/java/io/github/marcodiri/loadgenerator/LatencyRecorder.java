@@ -0,0 +1,59 @@
+package io.github.marcodiri.loadgenerator;
+
+import java.util.Arrays;
+
+/**
+ * Collects latencies, in nanoseconds, from any number of threads and reports
+ * their percentiles.
+ * <p>
+ * Every sample is kept, so the percentiles are exact: a run of thousands of
+ * games of a few hundred moves is a few million samples, tens of
+ * megabytes.
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    /**
+     * @param nanos the latency.
+     */
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 exclusive and 100.
+     * @return the latency below or at which {@code percentile} percent of the
+     *         samples are, by nearest rank, or 0 without samples.
+     */
+    public synchronized long percentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException(String.format("Invalid percentile %s", percentile));
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        // Less a rounding error, or 99.9 of 1000 would be rank 1000
+        int rank = (int) Math.ceil(percentile * count / 100 - 1e-9);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    public synchronized long max() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,253 @@
+package io.github.marcodiri.loadgenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.loadgenerator.standin.StandInServer;
+
+/**
+ * Plays {@code games} concurrent games over STOMP, two sessions each, against
+ * the {@code /ws} endpoint of a web service, and reports the percentiles of
+ * the latency of the moves, see {@link SimulatedGame}.
+ * <p>
+ * With {@code --stand-in} the games are played against a
+ * {@link StandInServer} started in process instead.
+ */
+public class LoadGenerator {
+
+    static final String USAGE = "Usage: java -jar load-generator.jar"
+            + " [--url ws://localhost:8080/ws | --stand-in]"
+            + " [--games 100] [--moves 40] [--think-ms 0] [--start-delay-ms 100] [--timeout-s 120]";
+
+    /** Sessions connected at once, not to flood the endpoint. */
+    private static final int CONNECT_BATCH = 100;
+
+    private String url = "ws://localhost:8080/ws";
+    private boolean standIn;
+    private int games = 100;
+    private int moves = 40;
+    private long thinkTime;
+    private long startDelay = 100;
+    private long timeout = 120;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LatencyRecorder latencies = new LatencyRecorder();
+
+    /**
+     * @param args the options, see {@link #USAGE}.
+     * @throws IllegalArgumentException if an option is unknown or invalid.
+     */
+    LoadGenerator(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--stand-in")) {
+                standIn = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(String.format("Missing value of %s", option));
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--url":
+                    url = value;
+                    break;
+                case "--games":
+                    games = (int) parse(option, value, 1);
+                    break;
+                case "--moves":
+                    moves = (int) parse(option, value, 1);
+                    break;
+                case "--think-ms":
+                    thinkTime = parse(option, value, 0);
+                    break;
+                case "--start-delay-ms":
+                    startDelay = parse(option, value, 0);
+                    break;
+                case "--timeout-s":
+                    timeout = parse(option, value, 1);
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unknown option %s", option));
+            }
+        }
+    }
+
+    private static long parse(String option, String value, long min) {
+        long number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s %s", option, value), e);
+        }
+        if (number < min) {
+            throw new IllegalArgumentException(String.format("%s must be at least %d", option, min));
+        }
+        return number;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    boolean isStandIn() {
+        return standIn;
+    }
+
+    int getGames() {
+        return games;
+    }
+
+    int getMoves() {
+        return moves;
+    }
+
+    long getThinkTime() {
+        return thinkTime;
+    }
+
+    long getStartDelay() {
+        return startDelay;
+    }
+
+    long getTimeout() {
+        return timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator;
+        try {
+            generator = new LoadGenerator(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        int failed;
+        if (generator.standIn) {
+            try (ConfigurableApplicationContext context = StandInServer.start()) {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                failed = generator.run(String.format("ws://localhost:%s/ws", port));
+            }
+        } else {
+            failed = generator.run(generator.url);
+        }
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * Plays the games and prints the report.
+     *
+     * @param endpoint the STOMP endpoint.
+     * @return the number of games that could not be played to the end.
+     */
+    int run(String endpoint) throws InterruptedException, ExecutionException, TimeoutException {
+        MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.setObjectMapper(mapper);
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        // The player ids as plain text, the moves and the events as JSON
+        client.setMessageConverter(new CompositeMessageConverter(
+                List.of(new StringMessageConverter(), jsonConverter)));
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Runtime.getRuntime().availableProcessors(), runnable -> {
+                    Thread thread = new Thread(runnable, "load-generator");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        List<StompSession> sessions = new ArrayList<>();
+        List<SimulatedGame> simulatedGames = new ArrayList<>();
+        try {
+            System.out.printf("Connecting %d sessions to %s%n", 2 * games + 1, endpoint);
+            connect(client, endpoint, 2 * games + 1, sessions);
+            LobbyWatcher lobby = new LobbyWatcher(mapper);
+            lobby.watch(sessions.get(0));
+            for (int i = 0; i < games; i++) {
+                simulatedGames.add(new SimulatedGame(sessions.get(2 * i + 1), sessions.get(2 * i + 2), moves,
+                        thinkTime, startDelay, scheduler, latencies, mapper));
+            }
+            // For the subscription of the lobby to reach the broker
+            Thread.sleep(startDelay);
+
+            System.out.printf("Playing %d games of %d moves%n", games, moves);
+            long start = System.nanoTime();
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+            for (SimulatedGame simulatedGame : simulatedGames) {
+                results.add(simulatedGame.start(lobby).orTimeout(timeout, TimeUnit.SECONDS));
+            }
+            int failed = 0;
+            Throwable firstFailure = null;
+            for (CompletableFuture<Void> result : results) {
+                try {
+                    result.join();
+                } catch (CompletionException e) {
+                    failed++;
+                    if (firstFailure == null) {
+                        firstFailure = e.getCause();
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            report(failed, elapsed);
+            if (firstFailure != null) {
+                System.out.println("First failure: " + firstFailure);
+            }
+            return failed;
+        } finally {
+            sessions.stream().filter(StompSession::isConnected).forEach(StompSession::disconnect);
+            client.stop();
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void connect(WebSocketStompClient client, String endpoint, int count, List<StompSession> sessions)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        for (int i = 0; i < count; i += CONNECT_BATCH) {
+            List<CompletableFuture<StompSession>> batch = new ArrayList<>();
+            for (int j = i; j < Math.min(count, i + CONNECT_BATCH); j++) {
+                batch.add(client.connectAsync(endpoint, new StompSessionHandlerAdapter() {
+                }));
+            }
+            for (CompletableFuture<StompSession> session : batch) {
+                sessions.add(session.get(timeout, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    private void report(int failed, long elapsed) {
+        double seconds = elapsed / 1e9;
+        System.out.printf("Games: %d completed, %d failed in %.1f s%n", games - failed, failed, seconds);
+        System.out.printf("Moves: %d received, %.0f moves/s%n", latencies.count(), latencies.count() / seconds);
+        System.out.printf("Move latency (ms): p50 %.3f  p99 %.3f  p999 %.3f  max %.3f%n",
+                millis(latencies.percentile(50)),
+                millis(latencies.percentile(99)),
+                millis(latencies.percentile(99.9)),
+                millis(latencies.max()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+}
@@ -0,0 +1,63 @@
+package io.github.marcodiri.loadgenerator;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.messaging.simp.stomp.StompSession;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+
+/**
+ * Follows {@code /topic/game-proposals} on a session of its own, so that the
+ * acceptors learn the id of the proposal of their creator the way the lobby
+ * of the frontend shows it. One subscription serves every game, instead of
+ * every player receiving every proposal.
+ */
+class LobbyWatcher {
+
+    private final ObjectMapper mapper;
+
+    /** The proposals still to show up, by creator. */
+    private final Map<UUID, CompletableFuture<UUID>> proposals = new ConcurrentHashMap<>();
+
+    LobbyWatcher(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    void watch(StompSession session) {
+        session.subscribe("/topic/game-proposals", new JsonFrameHandler(this::onFrame));
+    }
+
+    /**
+     * Must be called before the proposal is created.
+     *
+     * @param creatorId the creator of the proposal.
+     * @return the id of the proposal once it shows up.
+     */
+    CompletableFuture<UUID> awaitProposal(UUID creatorId) {
+        return proposals.computeIfAbsent(creatorId, id -> new CompletableFuture<>());
+    }
+
+    private void onFrame(JsonNode frame) {
+        if (!"CREATED".equals(frame.path("type").asText())) {
+            return;
+        }
+        try {
+            GameProposalCreated event = mapper.treeToValue(frame, GameProposalCreated.class);
+            CompletableFuture<UUID> proposal = proposals.remove(event.getCreatorId());
+            if (proposal != null) {
+                proposal.complete(event.getGameProposalId());
+            }
+        } catch (JsonProcessingException e) {
+            // If the proposal was one of ours, its game times out
+            System.err.println("Could not read game proposal " + frame + ": " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package io.github.marcodiri.loadgenerator;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.messaging.simp.stomp.StompSession;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.web.Move;
+
+/**
+ * A game between two simulated players, each on a STOMP session of its own,
+ * played through the web service the way the frontend plays it: the creator
+ * proposes a game, the acceptor accepts the proposal once it shows up in the
+ * lobby, then the two shuffle their knights, each replying to the move of
+ * the other as soon as it reaches it, until {@code moves} moves are played.
+ * <p>
+ * The latency of a move is the time from its player sending it to the
+ * opponent receiving it on {@code /topic/game/{id}}.
+ */
+class SimulatedGame {
+
+    /** The knights go out and back, so the game never ends. */
+    private static final Move[] MOVES = {
+            new Move("g1", "f3"),
+            new Move("g8", "f6"),
+            new Move("f3", "g1"),
+            new Move("f6", "g8")
+    };
+
+    private static final class Player {
+
+        private final UUID id = UUID.randomUUID();
+        private final StompSession session;
+
+        Player(final StompSession session) {
+            this.session = session;
+        }
+
+    }
+
+    private final Player creator;
+    private final Player acceptor;
+    private final int moves;
+    private final long thinkTime;
+    private final long startDelay;
+    private final ScheduledExecutorService scheduler;
+    private final LatencyRecorder latencies;
+    private final ObjectMapper mapper;
+
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private final AtomicInteger subscribedPlayers = new AtomicInteger();
+
+    private volatile UUID gameId;
+    private volatile Player white;
+
+    // The players move in turn, so one of them at a time writes these
+    private volatile int ply;
+    private volatile long sentAt;
+
+    /**
+     * @param creatorSession  the session of the player proposing the game.
+     * @param acceptorSession the session of the player accepting it.
+     * @param moves           the moves to play.
+     * @param thinkTime       the milliseconds a player waits before replying.
+     * @param startDelay      the milliseconds white waits after both players
+     *                        subscribed to the game, for the subscriptions to
+     *                        reach the broker.
+     * @param scheduler       the scheduler of the moves.
+     * @param latencies       the recorder of the latencies of the moves.
+     * @param mapper          the mapper reading the events.
+     */
+    SimulatedGame(
+            final StompSession creatorSession,
+            final StompSession acceptorSession,
+            final int moves,
+            final long thinkTime,
+            final long startDelay,
+            final ScheduledExecutorService scheduler,
+            final LatencyRecorder latencies,
+            final ObjectMapper mapper) {
+        this.creator = new Player(creatorSession);
+        this.acceptor = new Player(acceptorSession);
+        this.moves = moves;
+        this.thinkTime = thinkTime;
+        this.startDelay = startDelay;
+        this.scheduler = scheduler;
+        this.latencies = latencies;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Proposes the game and plays it.
+     *
+     * @param lobby the watcher of the game proposals.
+     * @return completed once all the moves have been received, exceptionally
+     *         if the game could not be played.
+     */
+    CompletableFuture<Void> start(LobbyWatcher lobby) {
+        try {
+            subscribePlayerChannel(creator);
+            subscribePlayerChannel(acceptor);
+            lobby.awaitProposal(creator.id)
+                    .thenAccept(gameProposalId -> acceptor.session.send(
+                            "/app/accept-game-proposal/" + gameProposalId, acceptor.id.toString()))
+                    .exceptionally(this::fail);
+            creator.session.send("/app/create-game-proposal", creator.id.toString());
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+        return finished;
+    }
+
+    private void subscribePlayerChannel(Player player) {
+        player.session.subscribe("/topic/player/" + player.id,
+                new JsonFrameHandler(frame -> onPlayerFrame(player, frame)));
+    }
+
+    private void onPlayerFrame(Player player, JsonNode frame) {
+        if (!"CREATED".equals(frame.path("type").asText())) {
+            return;
+        }
+        try {
+            GameCreated event = mapper.treeToValue(frame, GameCreated.class);
+            gameId = event.getGameId();
+            // Player 1 plays white
+            white = event.getPlayer1Id().equals(creator.id) ? creator : acceptor;
+            player.session.subscribe("/topic/game/" + gameId,
+                    new JsonFrameHandler(gameFrame -> onGameFrame(player, gameFrame)));
+            if (subscribedPlayers.incrementAndGet() == 2) {
+                scheduler.schedule(() -> play(white, 0), startDelay, TimeUnit.MILLISECONDS);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void onGameFrame(Player receiver, JsonNode frame) {
+        // A frame holds either one move or a batch of them
+        if (frame.isArray()) {
+            frame.forEach(event -> onGameEvent(receiver, event));
+        } else {
+            onGameEvent(receiver, frame);
+        }
+    }
+
+    private void onGameEvent(Player receiver, JsonNode event) {
+        if (!"MOVE".equals(event.path("type").asText())) {
+            return;
+        }
+        try {
+            MovePlayed movePlayed = mapper.treeToValue(event, MovePlayed.class);
+            if (receiver.id.equals(movePlayed.getPlayerId())) {
+                // The echo of its own move
+                return;
+            }
+            latencies.record(System.nanoTime() - sentAt);
+            int next = ply + 1;
+            ply = next;
+            if (next >= moves) {
+                finished.complete(null);
+            } else {
+                scheduler.schedule(() -> play(receiver, next), thinkTime, TimeUnit.MILLISECONDS);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void play(Player player, int moveNumber) {
+        try {
+            sentAt = System.nanoTime();
+            player.session.send("/app/game/" + gameId + "/" + player.id, MOVES[moveNumber % MOVES.length]);
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private Void fail(Throwable e) {
+        finished.completeExceptionally(e);
+        return null;
+    }
+
+}
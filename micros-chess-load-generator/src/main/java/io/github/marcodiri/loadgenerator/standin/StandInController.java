@@ -0,0 +1,63 @@
+package io.github.marcodiri.loadgenerator.standin;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Controller;
+
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.web.Move;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+
+/**
+ * Answers the requests of the WebController destinations with the events the
+ * services would publish, right away.
+ */
+@Controller
+public class StandInController {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    /** The creators of the open proposals, by proposal. */
+    private final Map<UUID, UUID> creators = new ConcurrentHashMap<>();
+
+    public StandInController(final SimpMessageSendingOperations messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @MessageMapping("/create-game-proposal")
+    public void createGameProposal(String playerId) {
+        UUID gameProposalId = UUID.randomUUID();
+        UUID creatorId = UUID.fromString(playerId);
+        creators.put(gameProposalId, creatorId);
+        messagingTemplate.convertAndSend("/topic/game-proposals", new GameProposalCreated(gameProposalId, creatorId));
+    }
+
+    @MessageMapping("/accept-game-proposal/{gameProposalId}")
+    public void acceptGameProposal(@DestinationVariable String gameProposalId, String playerId) {
+        UUID gameProposalUuid = UUID.fromString(gameProposalId);
+        UUID creatorId = creators.remove(gameProposalUuid);
+        if (creatorId == null) {
+            return;
+        }
+        UUID acceptorId = UUID.fromString(playerId);
+        messagingTemplate.convertAndSend("/topic/game-proposals",
+                new GameProposalAccepted(gameProposalUuid, creatorId, acceptorId));
+        GameCreated gameCreated = new GameCreated(UUID.randomUUID(), creatorId, acceptorId);
+        messagingTemplate.convertAndSend("/topic/player/" + creatorId, gameCreated);
+        messagingTemplate.convertAndSend("/topic/player/" + acceptorId, gameCreated);
+    }
+
+    @MessageMapping("/game/{gameId}/{playerId}")
+    public void playMove(@DestinationVariable String gameId, @DestinationVariable String playerId, Move move) {
+        messagingTemplate.convertAndSend("/topic/game/" + gameId,
+                new MovePlayed(UUID.fromString(gameId), UUID.fromString(playerId), move));
+    }
+
+}
@@ -0,0 +1,48 @@
+package io.github.marcodiri.loadgenerator.standin;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+/**
+ * An in-process stand-in of the web service: the same {@code /ws} endpoint
+ * and destinations, on the simple broker, with {@link StandInController}
+ * answering in place of the lobby and game services.
+ * <p>
+ * Nothing is stored and no move is validated, so a run against it measures
+ * the STOMP layer and the load generator alone: the floor under the
+ * latencies of the real services.
+ */
+@SpringBootApplication
+@EnableWebSocketMessageBroker
+public class StandInServer implements WebSocketMessageBrokerConfigurer {
+
+    /**
+     * Starts the stand-in on a free port, see {@code local.server.port}.
+     *
+     * @return the context of the stand-in, to close it.
+     */
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(StandInServer.class)
+                .bannerMode(Banner.Mode.OFF)
+                .properties("server.port=0")
+                .run();
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry config) {
+        config.enableSimpleBroker("/topic");
+        config.setApplicationDestinationPrefixes("/app");
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws");
+    }
+
+}
@@ -0,0 +1,73 @@
+package io.github.marcodiri.loadgenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyRecorderTest {
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    @Test
+    void percentilesAreTheNearestRankOfTheSortedSamples() {
+        for (long i = 1000; i >= 1; i--) {
+            recorder.record(i);
+        }
+
+        assertThat(recorder.count()).isEqualTo(1000);
+        assertThat(recorder.percentile(50)).isEqualTo(500);
+        assertThat(recorder.percentile(99)).isEqualTo(990);
+        assertThat(recorder.percentile(99.9)).isEqualTo(999);
+        assertThat(recorder.percentile(100)).isEqualTo(1000);
+        assertThat(recorder.max()).isEqualTo(1000);
+    }
+
+    @Test
+    void percentilesOfFewSamplesAreTheHighestOnes() {
+        recorder.record(7);
+        recorder.record(3);
+
+        assertThat(recorder.percentile(50)).isEqualTo(3);
+        assertThat(recorder.percentile(99.9)).isEqualTo(7);
+    }
+
+    @Test
+    void percentilesWithoutSamplesAreZero() {
+        assertThat(recorder.count()).isZero();
+        assertThat(recorder.percentile(99)).isZero();
+        assertThat(recorder.max()).isZero();
+    }
+
+    @Test
+    void invalidPercentileIsRejected() {
+        assertThatThrownBy(() -> recorder.percentile(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recorder.percentile(101))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void samplesOfConcurrentThreadsAreAllKept() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    recorder.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(recorder.count()).isEqualTo(40_000);
+        assertThat(recorder.max()).isEqualTo(9_999);
+    }
+
+}
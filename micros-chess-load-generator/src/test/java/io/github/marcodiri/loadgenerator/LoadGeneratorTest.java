@@ -0,0 +1,70 @@
+package io.github.marcodiri.loadgenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class LoadGeneratorTest {
+
+    @Test
+    void defaultsTargetTheComposeWebService() {
+        LoadGenerator generator = new LoadGenerator(new String[0]);
+
+        assertThat(generator.getUrl()).isEqualTo("ws://localhost:8080/ws");
+        assertThat(generator.isStandIn()).isFalse();
+        assertThat(generator.getGames()).isEqualTo(100);
+        assertThat(generator.getMoves()).isEqualTo(40);
+        assertThat(generator.getThinkTime()).isZero();
+        assertThat(generator.getStartDelay()).isEqualTo(100);
+        assertThat(generator.getTimeout()).isEqualTo(120);
+    }
+
+    @Test
+    void optionsAreParsed() {
+        LoadGenerator generator = new LoadGenerator(new String[] {
+                "--url", "ws://webservice:8080/ws",
+                "--games", "2000",
+                "--moves", "200",
+                "--think-ms", "50",
+                "--start-delay-ms", "0",
+                "--timeout-s", "600",
+                "--stand-in" });
+
+        assertThat(generator.getUrl()).isEqualTo("ws://webservice:8080/ws");
+        assertThat(generator.isStandIn()).isTrue();
+        assertThat(generator.getGames()).isEqualTo(2000);
+        assertThat(generator.getMoves()).isEqualTo(200);
+        assertThat(generator.getThinkTime()).isEqualTo(50);
+        assertThat(generator.getStartDelay()).isZero();
+        assertThat(generator.getTimeout()).isEqualTo(600);
+    }
+
+    @Test
+    void unknownOptionIsRejected() {
+        assertThatThrownBy(() -> new LoadGenerator(new String[] { "--players", "2" }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown option --players");
+    }
+
+    @Test
+    void missingValueIsRejected() {
+        assertThatThrownBy(() -> new LoadGenerator(new String[] { "--games" }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing value of --games");
+    }
+
+    @Test
+    void invalidValuesAreRejected() {
+        assertThatThrownBy(() -> new LoadGenerator(new String[] { "--games", "many" }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid --games many");
+        assertThatThrownBy(() -> new LoadGenerator(new String[] { "--games", "0" }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("--games must be at least 1");
+        assertThatThrownBy(() -> new LoadGenerator(new String[] { "--think-ms", "-1" }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("--think-ms must be at least 0");
+    }
+
+}
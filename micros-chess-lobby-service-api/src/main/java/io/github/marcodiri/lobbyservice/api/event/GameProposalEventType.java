@@ -38,6 +38,7 @@ public enum GameProposalEventType implements DomainEventType {
         return type;
     }
 
+    @Override
     public Class<? extends GameProposalEvent> getEventClass() {
         return eventClass;
     }
@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.UUID;
 
 import io.github.marcodiri.core.domain.Aggregate;
+import io.github.marcodiri.core.domain.AggregateSnapshot;
+import io.github.marcodiri.core.domain.Snapshotting;
 import io.github.marcodiri.core.domain.event.DomainEvent;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalCanceled;
@@ -13,7 +15,7 @@ import io.github.marcodiri.lobbyservice.domain.command.AcceptGameProposalCommand
 import io.github.marcodiri.lobbyservice.domain.command.CancelGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CreateGameProposalCommand;
 
-public class GameProposalAggregate extends Aggregate {
+public class GameProposalAggregate extends Aggregate implements Snapshotting {
 
     private UUID creatorId;
     private UUID acceptorId;
@@ -77,4 +79,18 @@ public class GameProposalAggregate extends Aggregate {
         this.state = GameProposalState.ACCEPTED;
     }
 
+    @Override
+    public GameProposalSnapshot takeSnapshot() {
+        return new GameProposalSnapshot(getId(), getCreatorId(), getAcceptorId(), getState());
+    }
+
+    @Override
+    public void restoreSnapshot(AggregateSnapshot snapshot) {
+        GameProposalSnapshot gameProposalSnapshot = (GameProposalSnapshot) snapshot;
+        this.id = gameProposalSnapshot.getGameProposalId();
+        this.creatorId = gameProposalSnapshot.getCreatorId();
+        this.acceptorId = gameProposalSnapshot.getAcceptorId();
+        this.state = gameProposalSnapshot.getState();
+    }
+
 }
@@ -0,0 +1,73 @@
+package io.github.marcodiri.lobbyservice.domain;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.github.marcodiri.core.domain.AggregateSnapshot;
+
+public class GameProposalSnapshot implements AggregateSnapshot {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UUID gameProposalId;
+    private final UUID creatorId;
+    private final UUID acceptorId;
+    private final GameProposalState state;
+
+    @JsonCreator
+    public GameProposalSnapshot(
+            @JsonProperty("gameProposalId") final UUID gameProposalId,
+            @JsonProperty("creatorId") final UUID creatorId,
+            @JsonProperty("acceptorId") final UUID acceptorId,
+            @JsonProperty("state") final GameProposalState state) {
+        this.gameProposalId = gameProposalId;
+        this.creatorId = creatorId;
+        this.acceptorId = acceptorId;
+        this.state = state;
+    }
+
+    public UUID getGameProposalId() {
+        return gameProposalId;
+    }
+
+    public UUID getCreatorId() {
+        return creatorId;
+    }
+
+    public UUID getAcceptorId() {
+        return acceptorId;
+    }
+
+    public GameProposalState getState() {
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameProposalId, creatorId, acceptorId, state);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        GameProposalSnapshot snapshot = (GameProposalSnapshot) o;
+        return Objects.equals(gameProposalId, snapshot.gameProposalId)
+                && Objects.equals(creatorId, snapshot.creatorId)
+                && Objects.equals(acceptorId, snapshot.acceptorId)
+                && Objects.equals(state, snapshot.state);
+    }
+
+}
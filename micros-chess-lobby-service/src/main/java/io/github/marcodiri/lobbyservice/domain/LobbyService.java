@@ -1,25 +1,33 @@
 package io.github.marcodiri.lobbyservice.domain;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.core.exc.StreamReadException;
-import com.fasterxml.jackson.databind.DatabindException;
-
+import io.github.marcodiri.core.domain.command.AggregateCommandExecutor;
 import io.github.marcodiri.lobbyservice.domain.command.AcceptGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CancelGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CreateGameProposalCommand;
 import io.github.marcodiri.lobbyservice.repository.eventstore.GameProposalESRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 
+/**
+ * A single instance serves every request, so that the commands of a game
+ * proposal are processed one at a time. They are only processed through the
+ * {@code *Async} methods, which submit them to the executor of the commands
+ * of the game proposal.
+ */
+@Singleton
 public class LobbyService {
 
     private final GameProposalESRepository gameProposalESRepository;
+    private final AggregateCommandExecutor commandExecutor = new AggregateCommandExecutor();
 
     private static final Logger LOGGER = LogManager.getLogger(LobbyService.class);
 
@@ -37,24 +45,37 @@ public class LobbyService {
         return gameProposal;
     }
 
-    public GameProposalAggregate cancelGameProposal(UUID gameProposalId, UUID creatorId)
-            throws StreamReadException, DatabindException, InterruptedException, ExecutionException, IOException,
-            IllegalAccessException, InvocationTargetException, NoSuchMethodException,
-            UnsupportedStateTransitionException {
-        GameProposalAggregate gameProposal = gameProposalESRepository
-                .update(gameProposalId, new CancelGameProposalCommand(creatorId));
-        LOGGER.info("Canceled: {}", gameProposal);
-        return gameProposal;
+    public CompletionStage<GameProposalAggregate> createGameProposalAsync(UUID creatorId) {
+        return gameProposalESRepository.saveAsync(new CreateGameProposalCommand(creatorId))
+                .thenApply(gameProposal -> {
+                    LOGGER.info("Created: {}", gameProposal);
+                    return gameProposal;
+                });
     }
 
-    public GameProposalAggregate acceptGameProposal(UUID gameProposalId, UUID acceptorId)
-            throws StreamReadException, DatabindException, InterruptedException, ExecutionException, IOException,
-            IllegalAccessException, InvocationTargetException, NoSuchMethodException,
-            UnsupportedStateTransitionException {
-        GameProposalAggregate gameProposal = gameProposalESRepository
-                .update(gameProposalId, new AcceptGameProposalCommand(acceptorId));
-        LOGGER.info("Accepted: {}", gameProposal);
-        return gameProposal;
+    public CompletionStage<GameProposalAggregate> cancelGameProposalAsync(UUID gameProposalId, UUID creatorId) {
+        CancelGameProposalCommand cmd = new CancelGameProposalCommand(creatorId);
+        return commandExecutor
+                .submit(gameProposalId, () -> gameProposalESRepository.updateAsync(gameProposalId, cmd))
+                .thenApply(gameProposal -> {
+                    LOGGER.info("Canceled: {}", gameProposal);
+                    return gameProposal;
+                });
+    }
+
+    public CompletionStage<GameProposalAggregate> acceptGameProposalAsync(UUID gameProposalId, UUID acceptorId) {
+        AcceptGameProposalCommand cmd = new AcceptGameProposalCommand(acceptorId);
+        return commandExecutor
+                .submit(gameProposalId, () -> gameProposalESRepository.updateAsync(gameProposalId, cmd))
+                .thenApply(gameProposal -> {
+                    LOGGER.info("Accepted: {}", gameProposal);
+                    return gameProposal;
+                });
+    }
+
+    @PreDestroy
+    void close() {
+        commandExecutor.close();
     }
 
 }
@@ -5,31 +5,53 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 import com.eventstore.dbclient.EventStoreDBClient;
-import com.eventstore.dbclient.RecordedEvent;
-import com.eventstore.dbclient.ResolvedEvent;
 import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.databind.DatabindException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventRecord;
+import io.github.marcodiri.core.eventstore.EventStore;
 import io.github.marcodiri.core.repository.eventstore.ESRepository;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalEventType;
 import io.github.marcodiri.lobbyservice.domain.GameProposalAggregate;
 import io.github.marcodiri.lobbyservice.domain.GameProposalFactory;
+import io.github.marcodiri.lobbyservice.domain.GameProposalSnapshot;
 import io.github.marcodiri.lobbyservice.domain.UnsupportedStateTransitionException;
 import io.github.marcodiri.lobbyservice.domain.command.AcceptGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CancelGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CreateGameProposalCommand;
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 
+@Singleton
 public class GameProposalESRepository extends ESRepository {
 
+    /**
+     * GameProposal streams are at most two events long, so replaying them is
+     * cheaper than reading a snapshot: snapshots are disabled by default.
+     */
+    public static final int SNAPSHOT_INTERVAL = 0;
+
+    /** Codec of the game proposal events, shared by every repository. */
+    public static final EventCodec EVENT_CODEC = new EventCodec(GameProposalEventType.values());
+
     @Inject
+    public GameProposalESRepository(final EventStore eventStore, final GameProposalFactory gameProposalFactory) {
+        super(eventStore, gameProposalFactory, EVENT_CODEC, GameProposalSnapshot.class, SNAPSHOT_INTERVAL);
+    }
+
     public GameProposalESRepository(final EventStoreDBClient client, final GameProposalFactory gameProposalFactory) {
-        super(client, gameProposalFactory);
+        this(client, gameProposalFactory, SNAPSHOT_INTERVAL);
+    }
+
+    public GameProposalESRepository(final EventStoreDBClient client, final GameProposalFactory gameProposalFactory,
+            final int snapshotInterval) {
+        super(client, gameProposalFactory, EVENT_CODEC, GameProposalSnapshot.class, snapshotInterval);
     }
 
     public GameProposalAggregate save(CreateGameProposalCommand cmd)
@@ -48,34 +70,89 @@ public class GameProposalESRepository extends ESRepository {
             throws StreamReadException, DatabindException, InterruptedException, ExecutionException, IOException,
             IllegalAccessException, InvocationTargetException, NoSuchMethodException,
             UnsupportedStateTransitionException {
-        GameProposalAggregate gameProposal = restoreAggregate(gameProposalId);
-
-        List<DomainEvent> events = gameProposal.process(cmd);
-        applyAndWriteEvents(gameProposal, events);
-
-        return gameProposal;
+        for (int attempt = 1;; attempt++) {
+            GameProposalAggregate gameProposal = (GameProposalAggregate) loadAggregate(gameProposalId);
+
+            List<DomainEvent> events;
+            try {
+                events = gameProposal.process(cmd);
+            } catch (UnsupportedStateTransitionException | RuntimeException e) {
+                releaseAggregate(gameProposal);
+                throw e;
+            }
+            try {
+                applyAndWriteEvents(gameProposal, events);
+                return gameProposal;
+            } catch (ExecutionException e) {
+                if (!isWriteConflict(e) || attempt == MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.info("GameProposal {} was modified concurrently, retrying {}", gameProposalId, cmd);
+            }
+        }
     }
 
     public GameProposalAggregate update(UUID gameProposalId, AcceptGameProposalCommand cmd)
             throws StreamReadException, DatabindException, InterruptedException, ExecutionException, IOException,
             IllegalAccessException, InvocationTargetException, NoSuchMethodException,
             UnsupportedStateTransitionException {
-        GameProposalAggregate gameProposal = restoreAggregate(gameProposalId);
+        for (int attempt = 1;; attempt++) {
+            GameProposalAggregate gameProposal = (GameProposalAggregate) loadAggregate(gameProposalId);
+
+            List<DomainEvent> events;
+            try {
+                events = gameProposal.process(cmd);
+            } catch (UnsupportedStateTransitionException | RuntimeException e) {
+                releaseAggregate(gameProposal);
+                throw e;
+            }
+            try {
+                applyAndWriteEvents(gameProposal, events);
+                return gameProposal;
+            } catch (ExecutionException e) {
+                if (!isWriteConflict(e) || attempt == MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.info("GameProposal {} was modified concurrently, retrying {}", gameProposalId, cmd);
+            }
+        }
+    }
 
-        List<DomainEvent> events = gameProposal.process(cmd);
-        applyAndWriteEvents(gameProposal, events);
+    /**
+     * Non-blocking variant of {@link #save(CreateGameProposalCommand)}.
+     *
+     * @param cmd the command.
+     * @return the new game proposal once its events are written.
+     */
+    public CompletionStage<GameProposalAggregate> saveAsync(CreateGameProposalCommand cmd) {
+        GameProposalAggregate gameProposal = (GameProposalAggregate) aggregateFactory.createAggregate();
+        return processAndWriteAsync(gameProposal, aggregate -> aggregate.process(cmd));
+    }
 
-        return gameProposal;
+    /**
+     * Non-blocking variant of {@link #update(UUID, CancelGameProposalCommand)}.
+     *
+     * @param gameProposalId the id of the game proposal.
+     * @param cmd            the command.
+     * @return the game proposal once its events are written; completes
+     *         exceptionally with an {@link UnsupportedStateTransitionException}
+     *         if the proposal cannot be canceled.
+     */
+    public CompletionStage<GameProposalAggregate> updateAsync(UUID gameProposalId, CancelGameProposalCommand cmd) {
+        return this.<GameProposalAggregate>updateAsync(gameProposalId, gameProposal -> gameProposal.process(cmd));
     }
 
-    private GameProposalAggregate restoreAggregate(UUID gameProposalId)
-            throws InterruptedException, ExecutionException, StreamReadException,
-            DatabindException, IOException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
-        GameProposalAggregate gameProposal = (GameProposalAggregate) aggregateFactory.createAggregate();
-        List<DomainEvent> pastEvents = readEventsForAggregate(gameProposalId);
-        applyEventsToAggregate(gameProposal, pastEvents);
-        LOGGER.info("Restored GameProposal from events: {}, \n{}", pastEvents, gameProposal);
-        return gameProposal;
+    /**
+     * Non-blocking variant of {@link #update(UUID, AcceptGameProposalCommand)}.
+     *
+     * @param gameProposalId the id of the game proposal.
+     * @param cmd            the command.
+     * @return the game proposal once its events are written; completes
+     *         exceptionally with an {@link UnsupportedStateTransitionException}
+     *         if the proposal cannot be accepted.
+     */
+    public CompletionStage<GameProposalAggregate> updateAsync(UUID gameProposalId, AcceptGameProposalCommand cmd) {
+        return this.<GameProposalAggregate>updateAsync(gameProposalId, gameProposal -> gameProposal.process(cmd));
     }
 
     @Override
@@ -84,17 +161,21 @@ public class GameProposalESRepository extends ESRepository {
     }
 
     @Override
-    protected List<DomainEvent> convertEvents(List<ResolvedEvent> resolvedEvents)
+    protected List<DomainEvent> convertEvents(List<EventRecord> records)
             throws StreamReadException, DatabindException, IOException {
         List<DomainEvent> domainEvents = new ArrayList<>();
-        for (ResolvedEvent resolvedEvent : resolvedEvents) {
-            RecordedEvent originalEvent = resolvedEvent.getOriginalEvent();
-            DomainEvent event = new ObjectMapper().readValue(
-                    originalEvent.getEventData(),
-                    GameProposalEventType.fromString(originalEvent.getEventType()).getEventClass());
-            domainEvents.add(event);
+        for (EventRecord record : records) {
+            domainEvents.add(convertEvent(record));
         }
         return domainEvents;
     }
 
+    @Override
+    protected DomainEvent convertEvent(EventRecord record) throws IOException {
+        return eventCodec.decode(
+                record.getType(),
+                record.getData(),
+                record.getMetadata());
+    }
+
 }
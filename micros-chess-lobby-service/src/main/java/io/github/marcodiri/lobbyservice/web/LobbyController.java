@@ -1,5 +1,7 @@
 package io.github.marcodiri.lobbyservice.web;
 
+import java.util.concurrent.CompletionException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -7,7 +9,6 @@ import io.github.marcodiri.lobbyservice.api.web.AcceptGameProposalRequest;
 import io.github.marcodiri.lobbyservice.api.web.CancelGameProposalRequest;
 import io.github.marcodiri.lobbyservice.api.web.CreateGameProposalRequest;
 import io.github.marcodiri.lobbyservice.api.web.CreateGameProposalResponse;
-import io.github.marcodiri.lobbyservice.domain.GameProposalAggregate;
 import io.github.marcodiri.lobbyservice.domain.LobbyService;
 import io.github.marcodiri.lobbyservice.domain.UnsupportedStateTransitionException;
 import jakarta.inject.Inject;
@@ -16,6 +17,8 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -41,78 +44,68 @@ public class LobbyController {
     @Path("/create-game-proposal")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createGameProposal(CreateGameProposalRequest request) {
+    public void createGameProposal(CreateGameProposalRequest request, @Suspended AsyncResponse asyncResponse) {
         LOGGER.info("Received CreateGameProposalRequest: {}", request);
 
-        try {
-            GameProposalAggregate gameProposal = lobbyService.createGameProposal(request.getCreatorId());
-            CreateGameProposalResponse response = new CreateGameProposalResponse(gameProposal.getId());
-            LOGGER.info("Sending CreateGameProposalResponse: {}", response);
-            return Response
-                    .ok()
-                    .entity(response)
-                    .build();
-        } catch (Exception e) {
-            LOGGER.catching(e);
-        }
-
-        return Response
-                .serverError()
-                .build();
+        lobbyService.createGameProposalAsync(request.getCreatorId())
+                .whenComplete((gameProposal, e) -> {
+                    if (e != null) {
+                        LOGGER.catching(e);
+                        asyncResponse.resume(Response
+                                .serverError()
+                                .build());
+                        return;
+                    }
+                    CreateGameProposalResponse response = new CreateGameProposalResponse(gameProposal.getId());
+                    LOGGER.info("Sending CreateGameProposalResponse: {}", response);
+                    asyncResponse.resume(Response
+                            .ok()
+                            .entity(response)
+                            .build());
+                });
     }
 
     @POST
     @Path("/cancel-game-proposal")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response cancelGameProposal(CancelGameProposalRequest request) {
+    public void cancelGameProposal(CancelGameProposalRequest request, @Suspended AsyncResponse asyncResponse) {
         LOGGER.info("Received CancelGameProposalRequest: {}", request);
 
-        try {
-            lobbyService.cancelGameProposal(request.getGameProposalId(), request.getCreatorId());
-            LOGGER.info("Sending OK");
-            return Response
-                    .ok()
-                    .build();
-        } catch (UnsupportedStateTransitionException e) {
-            LOGGER.catching(e);
-            return Response
-                    .status(Response.Status.BAD_REQUEST)
-                    .build();
-        } catch (Exception e) {
-            LOGGER.catching(e);
-        }
-
-        return Response
-                .serverError()
-                .build();
+        lobbyService.cancelGameProposalAsync(request.getGameProposalId(), request.getCreatorId())
+                .whenComplete((gameProposal, e) -> resumeWithOkOrError(asyncResponse, e));
     }
 
     @POST
     @Path("/accept-game-proposal")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response acceptGameProposal(AcceptGameProposalRequest request) {
+    public void acceptGameProposal(AcceptGameProposalRequest request, @Suspended AsyncResponse asyncResponse) {
         LOGGER.info("Received AcceptGameProposalRequest: {}", request);
 
-        try {
-            lobbyService.acceptGameProposal(request.getGameProposalId(), request.getAcceptorId());
+        lobbyService.acceptGameProposalAsync(request.getGameProposalId(), request.getAcceptorId())
+                .whenComplete((gameProposal, e) -> resumeWithOkOrError(asyncResponse, e));
+    }
+
+    private static void resumeWithOkOrError(AsyncResponse asyncResponse, Throwable e) {
+        if (e == null) {
             LOGGER.info("Sending OK");
-            return Response
+            asyncResponse.resume(Response
                     .ok()
-                    .build();
-        } catch (UnsupportedStateTransitionException e) {
-            LOGGER.catching(e);
-            return Response
+                    .build());
+            return;
+        }
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        LOGGER.catching(cause);
+        if (cause instanceof UnsupportedStateTransitionException) {
+            asyncResponse.resume(Response
                     .status(Response.Status.BAD_REQUEST)
-                    .build();
-        } catch (Exception e) {
-            LOGGER.catching(e);
+                    .build());
+        } else {
+            asyncResponse.resume(Response
+                    .serverError()
+                    .build());
         }
-
-        return Response
-                .serverError()
-                .build();
     }
 
 }
@@ -1,14 +1,15 @@
 package io.github.marcodiri.lobbyservice.domain;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.Nested;
@@ -18,9 +19,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.fasterxml.jackson.core.exc.StreamReadException;
-import com.fasterxml.jackson.databind.DatabindException;
-
 import io.github.marcodiri.lobbyservice.domain.command.AcceptGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CancelGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CreateGameProposalCommand;
@@ -68,32 +66,27 @@ class LobbyServiceTest {
     class CancelGameProposal {
 
         @Test
-        void cancelGameProposalCallsRepositoryUpdateWithCommand()
-                throws StreamReadException, DatabindException, InterruptedException, ExecutionException, IOException,
-                IllegalAccessException, InvocationTargetException, NoSuchMethodException,
-                UnsupportedStateTransitionException {
+        void cancelGameProposalAsyncCallsRepositoryUpdateAsyncWithCommand() {
             UUID creatorId = UUID.randomUUID();
             UUID gameProposalId = UUID.randomUUID();
-            CancelGameProposalCommand expectedCommand = new CancelGameProposalCommand(creatorId);
-
-            lobbyService.cancelGameProposal(gameProposalId, creatorId);
+            GameProposalAggregate gameProposal = new GameProposalAggregate();
+            when(gameProposalESRepository.updateAsync(gameProposalId, new CancelGameProposalCommand(creatorId)))
+                    .thenReturn(CompletableFuture.completedFuture(gameProposal));
 
-            verify(gameProposalESRepository).update(gameProposalId, expectedCommand);
+            assertThat(lobbyService.cancelGameProposalAsync(gameProposalId, creatorId))
+                    .succeedsWithin(5, SECONDS).isEqualTo(gameProposal);
         }
 
         @Test
-        void cancelGameProposalReturnsAggregate()
-                throws StreamReadException, DatabindException, InterruptedException, ExecutionException, IOException,
-                IllegalAccessException, InvocationTargetException, NoSuchMethodException,
-                UnsupportedStateTransitionException {
-            GameProposalAggregate gameProposal = new GameProposalAggregate();
-            when(gameProposalESRepository.update(isA(UUID.class), isA(CancelGameProposalCommand.class)))
-                    .thenReturn(gameProposal);
-
-            GameProposalAggregate returnedGameProposal = lobbyService.cancelGameProposal(UUID.randomUUID(),
-                    UUID.randomUUID());
-
-            assertThat(returnedGameProposal).isEqualTo(gameProposal);
+        void cancelGameProposalAsyncPropagatesRejectedCommand() {
+            when(gameProposalESRepository.updateAsync(isA(UUID.class), isA(CancelGameProposalCommand.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new UnsupportedStateTransitionException(
+                            GameProposalState.CANCELED, GameProposalState.CANCELED)));
+
+            assertThat(lobbyService.cancelGameProposalAsync(UUID.randomUUID(), UUID.randomUUID()))
+                    .failsWithin(5, SECONDS)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(UnsupportedStateTransitionException.class);
         }
 
     }
@@ -102,32 +95,15 @@ class LobbyServiceTest {
     class AcceptGameProposal {
 
         @Test
-        void acceptGameProposalCallsRepositoryUpdateWithCommand()
-                throws StreamReadException, DatabindException, IllegalAccessException, InvocationTargetException,
-                NoSuchMethodException, InterruptedException, ExecutionException, IOException,
-                UnsupportedStateTransitionException {
+        void acceptGameProposalAsyncCallsRepositoryUpdateAsyncWithCommand() {
             UUID acceptorId = UUID.randomUUID();
             UUID gameProposalId = UUID.randomUUID();
-            AcceptGameProposalCommand expectedCommand = new AcceptGameProposalCommand(acceptorId);
-
-            lobbyService.acceptGameProposal(gameProposalId, acceptorId);
-
-            verify(gameProposalESRepository).update(gameProposalId, expectedCommand);
-        }
-
-        @Test
-        void acceptGameProposalReturnsAggregate()
-                throws StreamReadException, DatabindException, IllegalAccessException, InvocationTargetException,
-                NoSuchMethodException, InterruptedException, ExecutionException, IOException,
-                UnsupportedStateTransitionException {
             GameProposalAggregate gameProposal = new GameProposalAggregate();
-            when(gameProposalESRepository.update(isA(UUID.class), isA(AcceptGameProposalCommand.class)))
-                    .thenReturn(gameProposal);
-
-            GameProposalAggregate returnedGameProposal = lobbyService.acceptGameProposal(UUID.randomUUID(),
-                    UUID.randomUUID());
+            when(gameProposalESRepository.updateAsync(gameProposalId, new AcceptGameProposalCommand(acceptorId)))
+                    .thenReturn(CompletableFuture.completedFuture(gameProposal));
 
-            assertThat(returnedGameProposal).isEqualTo(gameProposal);
+            assertThat(lobbyService.acceptGameProposalAsync(gameProposalId, acceptorId))
+                    .succeedsWithin(5, SECONDS).isEqualTo(gameProposal);
         }
 
     }
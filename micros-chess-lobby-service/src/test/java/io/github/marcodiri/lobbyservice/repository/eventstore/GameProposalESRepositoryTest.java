@@ -1,9 +1,15 @@
 package io.github.marcodiri.lobbyservice.repository.eventstore;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -12,6 +18,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,16 +30,19 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.eventstore.dbclient.EventData;
+import com.eventstore.dbclient.EventStoreDBClient;
 import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.databind.DatabindException;
 
 import io.github.marcodiri.core.domain.Aggregate;
 import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+import io.github.marcodiri.core.eventstore.WrongExpectedRevisionException;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalCanceled;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
 import io.github.marcodiri.lobbyservice.domain.GameProposalAggregate;
 import io.github.marcodiri.lobbyservice.domain.GameProposalFactory;
+import io.github.marcodiri.lobbyservice.domain.GameProposalState;
 import io.github.marcodiri.lobbyservice.domain.UnsupportedStateTransitionException;
 import io.github.marcodiri.lobbyservice.domain.command.AcceptGameProposalCommand;
 import io.github.marcodiri.lobbyservice.domain.command.CancelGameProposalCommand;
@@ -50,17 +60,21 @@ public class GameProposalESRepositoryTest {
     private class TestGameProposalESRepository extends GameProposalESRepository {
 
         public TestGameProposalESRepository() {
-            super(null, gameProposalFactory);
+            super((EventStoreDBClient) null, gameProposalFactory);
         }
 
         @Override
-        public List<DomainEvent> readEventsForAggregate(UUID gameProposalId)
-                throws InterruptedException, ExecutionException, IOException {
-            return null;
+        protected long replayEventsForAggregate(Aggregate aggregate, UUID gameProposalId, long fromRevision) {
+            return 1;
+        }
+
+        @Override
+        protected long restoreFromLatestSnapshot(Aggregate aggregate, UUID gameProposalId) {
+            return 0;
         }
 
         @Override
-        protected List<EventData> applyEventsToAggregate(Aggregate aggregate, List<DomainEvent> events)
+        protected List<EncodedEvent> applyEventsToAggregate(Aggregate aggregate, List<DomainEvent> events)
                 throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
             return null;
         }
@@ -69,6 +83,22 @@ public class GameProposalESRepositoryTest {
         protected void applyAndWriteEvents(Aggregate aggregate, List<DomainEvent> events) {
         }
 
+        @Override
+        protected CompletableFuture<Long> replayEventsForAggregateAsync(Aggregate aggregate, UUID gameProposalId,
+                long fromRevision) {
+            return CompletableFuture.completedFuture(1L);
+        }
+
+        @Override
+        protected CompletableFuture<Long> restoreFromLatestSnapshotAsync(Aggregate aggregate, UUID gameProposalId) {
+            return CompletableFuture.completedFuture(0L);
+        }
+
+        @Override
+        protected CompletableFuture<Void> applyAndWriteEventsAsync(Aggregate aggregate, List<DomainEvent> events) {
+            return CompletableFuture.completedFuture(null);
+        }
+
     }
 
     @Spy
@@ -134,22 +164,19 @@ public class GameProposalESRepositoryTest {
         }
 
         @Test
-        void updateCreatesNewGameProposalAndAppliesPastEvents() throws IllegalAccessException, IllegalArgumentException,
+        void updateCreatesNewGameProposalAndReplaysPastEvents() throws IllegalAccessException, IllegalArgumentException,
                 InvocationTargetException, NoSuchMethodException, SecurityException,
                 InterruptedException,
                 ExecutionException, StreamReadException, DatabindException, IOException,
                 UnsupportedStateTransitionException {
-            List<DomainEvent> events = Arrays.asList(
-                    new GameProposalCreated(gameProposalId, UUID.randomUUID()),
-                    new GameProposalCanceled(gameProposalId));
-            doReturn(events).when(gameProposalESRepository).readEventsForAggregate(gameProposalId);
+            doReturn(2L).when(gameProposalESRepository).replayEventsForAggregate(gameProposal, gameProposalId, 0L);
 
             gameProposalESRepository.update(gameProposalId, cmd);
 
             verify(gameProposalFactory).createAggregate();
-            InOrder inOrder = inOrder(gameProposalESRepository);
-            inOrder.verify(gameProposalESRepository).readEventsForAggregate(gameProposalId);
-            inOrder.verify(gameProposalESRepository).applyEventsToAggregate(gameProposal, events);
+            InOrder inOrder = inOrder(gameProposalESRepository, gameProposal);
+            inOrder.verify(gameProposalESRepository).replayEventsForAggregate(gameProposal, gameProposalId, 0L);
+            inOrder.verify(gameProposal).setRevision(1L);
         }
 
         @Test
@@ -193,22 +220,19 @@ public class GameProposalESRepositoryTest {
         }
 
         @Test
-        void updateCreatesNewGameProposalAndAppliesPastEvents() throws IllegalAccessException, IllegalArgumentException,
+        void updateCreatesNewGameProposalAndReplaysPastEvents() throws IllegalAccessException, IllegalArgumentException,
                 InvocationTargetException, NoSuchMethodException, SecurityException,
                 InterruptedException,
                 ExecutionException, StreamReadException, DatabindException, IOException,
                 UnsupportedStateTransitionException {
-            List<DomainEvent> events = Arrays.asList(
-                    new GameProposalCreated(gameProposalId, UUID.randomUUID()),
-                    new GameProposalCanceled(gameProposalId));
-            doReturn(events).when(gameProposalESRepository).readEventsForAggregate(gameProposalId);
+            doReturn(2L).when(gameProposalESRepository).replayEventsForAggregate(gameProposal, gameProposalId, 0L);
 
             gameProposalESRepository.update(gameProposalId, cmd);
 
             verify(gameProposalFactory).createAggregate();
-            InOrder inOrder = inOrder(gameProposalESRepository);
-            inOrder.verify(gameProposalESRepository).readEventsForAggregate(gameProposalId);
-            inOrder.verify(gameProposalESRepository).applyEventsToAggregate(gameProposal, events);
+            InOrder inOrder = inOrder(gameProposalESRepository, gameProposal);
+            inOrder.verify(gameProposalESRepository).replayEventsForAggregate(gameProposal, gameProposalId, 0L);
+            inOrder.verify(gameProposal).setRevision(1L);
         }
 
         @Test
@@ -236,6 +260,76 @@ public class GameProposalESRepositoryTest {
             assertThat(returnedGameProposal).isInstanceOf(GameProposalAggregate.class);
         }
 
+        @Test
+        void updateRetriesOnWriteConflict() throws StreamReadException, DatabindException, IllegalAccessException,
+                InvocationTargetException, NoSuchMethodException, InterruptedException, ExecutionException,
+                IOException, UnsupportedStateTransitionException {
+            List<DomainEvent> newEvents = Arrays.asList(new GameProposalCanceled(gameProposalId));
+            when(gameProposal.process(isA(AcceptGameProposalCommand.class))).thenReturn(newEvents);
+            doThrow(new ExecutionException(mock(WrongExpectedRevisionException.class)))
+                    .doNothing()
+                    .when(gameProposalESRepository).applyAndWriteEvents(gameProposal, newEvents);
+
+            gameProposalESRepository.update(gameProposalId, cmd);
+
+            verify(gameProposalFactory, times(2)).createAggregate();
+            verify(gameProposalESRepository, times(2)).applyAndWriteEvents(gameProposal, newEvents);
+        }
+
+    }
+
+    @Nested
+    class updateAsyncWithAcceptGameProposalCommand {
+
+        private UUID gameProposalId;
+        private AcceptGameProposalCommand cmd;
+
+        @BeforeEach
+        void setup() {
+            gameProposalId = UUID.randomUUID();
+            when(gameProposalFactory.createAggregate()).thenReturn(gameProposal);
+            cmd = new AcceptGameProposalCommand(UUID.randomUUID());
+        }
+
+        @Test
+        void updateAsyncCallsProcessAndApplyAndWriteEventsAsync() throws UnsupportedStateTransitionException {
+            List<DomainEvent> newEvents = Arrays.asList(new GameProposalCreated(gameProposalId, UUID.randomUUID()));
+            when(gameProposal.process(isA(AcceptGameProposalCommand.class))).thenReturn(newEvents);
+
+            assertThat(gameProposalESRepository.updateAsync(gameProposalId, cmd)).succeedsWithin(5, SECONDS)
+                    .isSameAs(gameProposal);
+
+            verify(gameProposal).process(cmd);
+            verify(gameProposalESRepository).applyAndWriteEventsAsync(gameProposal, newEvents);
+        }
+
+        @Test
+        void updateAsyncCompletesExceptionallyOnUnsupportedStateTransition()
+                throws UnsupportedStateTransitionException {
+            when(gameProposal.process(isA(AcceptGameProposalCommand.class)))
+                    .thenThrow(new UnsupportedStateTransitionException(GameProposalState.CANCELED,
+                            GameProposalState.ACCEPTED));
+
+            assertThat(gameProposalESRepository.updateAsync(gameProposalId, cmd)).failsWithin(5, SECONDS)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(UnsupportedStateTransitionException.class);
+            verify(gameProposalESRepository, never()).applyAndWriteEventsAsync(any(), any());
+        }
+
+        @Test
+        void updateAsyncRetriesOnWriteConflict() throws UnsupportedStateTransitionException {
+            List<DomainEvent> newEvents = Arrays.asList(new GameProposalCreated(gameProposalId, UUID.randomUUID()));
+            when(gameProposal.process(isA(AcceptGameProposalCommand.class))).thenReturn(newEvents);
+            doReturn(CompletableFuture.failedFuture(mock(WrongExpectedRevisionException.class)))
+                    .doReturn(CompletableFuture.completedFuture(null))
+                    .when(gameProposalESRepository).applyAndWriteEventsAsync(gameProposal, newEvents);
+
+            assertThat(gameProposalESRepository.updateAsync(gameProposalId, cmd)).succeedsWithin(5, SECONDS);
+
+            verify(gameProposalFactory, times(2)).createAggregate();
+            verify(gameProposalESRepository, times(2)).applyAndWriteEventsAsync(gameProposal, newEvents);
+        }
+
     }
 
 }
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.AfterEach;
@@ -81,7 +82,8 @@ public class LobbyControllerTest {
                 NoSuchMethodException, SecurityException, InterruptedException, ExecutionException {
             UUID gameProposalId = UUID.randomUUID();
             when(gameProposal.getId()).thenReturn(gameProposalId);
-            when(lobbyService.createGameProposal(testPlayerId)).thenReturn(gameProposal);
+            when(lobbyService.createGameProposalAsync(testPlayerId))
+                    .thenReturn(CompletableFuture.completedFuture(gameProposal));
             RequestSpecification request = with()
                     .contentType(ContentType.JSON)
                     .body("{ \"creatorId\" : \"" + testPlayerId + "\" }");
@@ -89,7 +91,7 @@ public class LobbyControllerTest {
             Response post = request.post(server.target("/lobby/create-game-proposal").getUri());
             ResponseBody<?> responseBody = post.getBody();
 
-            verify(lobbyService).createGameProposal(testPlayerId);
+            verify(lobbyService).createGameProposalAsync(testPlayerId);
             post.then()
                     .assertThat()
                     .statusCode(equalTo(200))
@@ -101,7 +103,8 @@ public class LobbyControllerTest {
         @Test
         void internalErrorOnException() throws IllegalAccessException, IllegalArgumentException,
         InvocationTargetException, NoSuchMethodException, SecurityException, InterruptedException, ExecutionException {
-            when(lobbyService.createGameProposal(any(UUID.class))).thenThrow(new IllegalArgumentException());
+            when(lobbyService.createGameProposalAsync(any(UUID.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException()));
 
             given()
                     .contentType(ContentType.JSON)
@@ -124,6 +127,8 @@ public class LobbyControllerTest {
                 NoSuchMethodException, SecurityException, InterruptedException, ExecutionException, StreamReadException,
                 DatabindException, IOException, UnsupportedStateTransitionException {
             UUID gameProposalId = UUID.randomUUID();
+            when(lobbyService.cancelGameProposalAsync(gameProposalId, testPlayerId))
+                    .thenReturn(CompletableFuture.completedFuture(gameProposal));
 
             given()
                     .contentType(ContentType.JSON)
@@ -135,7 +140,7 @@ public class LobbyControllerTest {
                     .assertThat()
                     .statusCode(equalTo(200));
 
-            verify(lobbyService).cancelGameProposal(gameProposalId, testPlayerId);
+            verify(lobbyService).cancelGameProposalAsync(gameProposalId, testPlayerId);
         }
 
         @Test
@@ -144,9 +149,9 @@ public class LobbyControllerTest {
                 ExecutionException, StreamReadException, DatabindException, IOException,
                 UnsupportedStateTransitionException {
             UUID gameProposalId = UUID.randomUUID();
-            when(lobbyService.cancelGameProposal(any(UUID.class), any(UUID.class)))
-                    .thenThrow(new UnsupportedStateTransitionException(GameProposalState.ACCEPTED,
-                            GameProposalState.CANCELED));
+            when(lobbyService.cancelGameProposalAsync(any(UUID.class), any(UUID.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new UnsupportedStateTransitionException(
+                            GameProposalState.ACCEPTED, GameProposalState.CANCELED)));
 
             given()
                     .contentType(ContentType.JSON)
@@ -165,8 +170,8 @@ public class LobbyControllerTest {
                 ExecutionException, StreamReadException, DatabindException, IOException,
                 UnsupportedStateTransitionException {
             UUID gameProposalId = UUID.randomUUID();
-            when(lobbyService.cancelGameProposal(any(UUID.class), any(UUID.class)))
-                    .thenThrow(new IllegalArgumentException());
+            when(lobbyService.cancelGameProposalAsync(any(UUID.class), any(UUID.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException()));
 
             given()
                     .contentType(ContentType.JSON)
@@ -189,6 +194,8 @@ public class LobbyControllerTest {
                 NoSuchMethodException, SecurityException, InterruptedException, ExecutionException, StreamReadException,
                 DatabindException, IOException, UnsupportedStateTransitionException {
             UUID gameProposalId = UUID.randomUUID();
+            when(lobbyService.acceptGameProposalAsync(gameProposalId, testPlayerId))
+                    .thenReturn(CompletableFuture.completedFuture(gameProposal));
 
             given()
                     .contentType(ContentType.JSON)
@@ -200,7 +207,7 @@ public class LobbyControllerTest {
                     .assertThat()
                     .statusCode(equalTo(200));
 
-            verify(lobbyService).acceptGameProposal(gameProposalId, testPlayerId);
+            verify(lobbyService).acceptGameProposalAsync(gameProposalId, testPlayerId);
         }
 
         @Test
@@ -209,9 +216,9 @@ public class LobbyControllerTest {
                 ExecutionException, StreamReadException, DatabindException, IOException,
                 UnsupportedStateTransitionException {
             UUID gameProposalId = UUID.randomUUID();
-            when(lobbyService.acceptGameProposal(any(UUID.class), any(UUID.class)))
-                    .thenThrow(new UnsupportedStateTransitionException(GameProposalState.CANCELED,
-                            GameProposalState.ACCEPTED));
+            when(lobbyService.acceptGameProposalAsync(any(UUID.class), any(UUID.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new UnsupportedStateTransitionException(
+                            GameProposalState.CANCELED, GameProposalState.ACCEPTED)));
 
             given()
                     .contentType(ContentType.JSON)
@@ -230,8 +237,8 @@ public class LobbyControllerTest {
                 ExecutionException, StreamReadException, DatabindException, IOException,
                 UnsupportedStateTransitionException {
             UUID gameProposalId = UUID.randomUUID();
-            when(lobbyService.acceptGameProposal(any(UUID.class), any(UUID.class)))
-                    .thenThrow(new IllegalArgumentException());
+            when(lobbyService.acceptGameProposalAsync(any(UUID.class), any(UUID.class)))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException()));
 
             given()
                     .contentType(ContentType.JSON)
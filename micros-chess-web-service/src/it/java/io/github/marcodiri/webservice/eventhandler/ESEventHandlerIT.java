@@ -1,18 +1,24 @@
 package io.github.marcodiri.webservice.eventhandler;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
-import java.io.IOException;
+import java.nio.file.Path;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -20,12 +26,13 @@ import com.eventstore.dbclient.EventData;
 import com.eventstore.dbclient.EventStoreDBClient;
 import com.eventstore.dbclient.EventStoreDBClientSettings;
 import com.eventstore.dbclient.EventStoreDBConnectionString;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.github.marcodiri.gameservice.api.event.GameCreated;
 import io.github.marcodiri.gameservice.api.event.MovePlayed;
 import io.github.marcodiri.gameservice.api.web.Move;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
-import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.webservice.AppConfig;
 import io.github.marcodiri.webservice.web.WebController;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +43,13 @@ public class ESEventHandlerIT {
 
     ESEventHandler eventHandler;
 
+    @TempDir
+    Path checkpointDirectory;
+
+    SubscriptionCheckpoint checkpoint;
+
+    PartitionedDispatcher dispatcher;
+
     private static EventStoreDBClientSettings setts;
     private static EventStoreDBClient readerClient, writerClient;
 
@@ -53,8 +67,27 @@ public class ESEventHandlerIT {
     }
 
     @BeforeEach
-    void setup() throws IOException {
-        eventHandler = new ESEventHandler(readerClient, webController);
+    void setup() throws Exception {
+        checkpoint = new SubscriptionCheckpoint(checkpointDirectory.resolve("checkpoint"), 100);
+        dispatcher = new PartitionedDispatcher(2, 10);
+        eventHandler = startEventHandler(webController);
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        eventHandler.unsubscribe();
+        dispatcher.close();
+        checkpoint.close();
+    }
+
+    private ESEventHandler startEventHandler(WebController controller) throws Exception {
+        ESEventHandler handler = new ESEventHandler(readerClient, controller,
+                new AppConfig().eventCodec(new ObjectMapper()), checkpoint, new Backoff(100, 1000),
+                dispatcher, new InstancePartition(0, 1));
+        // Without a checkpoint the subscription starts from the end of $all
+        // as of when it is established
+        handler.subscription.get(2, SECONDS);
+        return handler;
     }
 
     @Test
@@ -75,23 +108,6 @@ public class ESEventHandlerIT {
         await().atMost(2, SECONDS).untilAsserted(() -> verify(webController).sendCreateGameRequest(event));
     }
 
-    @Test
-    void listenerCallsWebServiceOnGameProposalCreatedEvents() throws Exception {
-        UUID gameProposalId = UUID.randomUUID();
-        UUID creatorId = UUID.randomUUID();
-        GameProposalCreated event = new GameProposalCreated(gameProposalId, creatorId);
-        EventData eventData = EventData
-                .builderAsJson(event.getType().toString(), event)
-                .build();
-        String streamName = String.format("Test_%s", gameProposalId);
-
-        writerClient
-                .appendToStream(streamName, eventData)
-                .get();
-
-        await().atMost(2, SECONDS).untilAsserted(() -> verify(webController).notifyClients(event));
-    }
-
     @Test
     void listenerCallsWebServiceOnGameCreatedEvents() throws Exception {
         UUID gameId = UUID.randomUUID();
@@ -125,7 +141,38 @@ public class ESEventHandlerIT {
                 .appendToStream(streamName, eventData)
                 .get();
 
-        await().atMost(2, SECONDS).untilAsserted(() -> verify(webController).notifyClients(event));
+        // The first event of its stream
+        await().atMost(2, SECONDS).untilAsserted(() -> verify(webController).notifyClients(event, 0));
+    }
+
+    @Test
+    void listenerResumesAfterLastProcessedEvent() throws Exception {
+        GameCreated processed = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        writerClient
+                .appendToStream(String.format("Test_%s", processed.getGameId()), EventData
+                        .builderAsJson(processed.getType().toString(), processed)
+                        .build())
+                .get();
+        await().atMost(2, SECONDS).untilAsserted(() -> {
+            verify(webController).notifyClients(processed);
+            assertThat(checkpoint.inFlight()).isZero();
+        });
+        eventHandler.unsubscribe();
+        checkpoint.flush();
+
+        GameCreated missed = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        writerClient
+                .appendToStream(String.format("Test_%s", missed.getGameId()), EventData
+                        .builderAsJson(missed.getType().toString(), missed)
+                        .build())
+                .get();
+
+        WebController restartedController = mock(WebController.class);
+        eventHandler = startEventHandler(restartedController);
+
+        await().atMost(2, SECONDS).untilAsserted(() -> verify(restartedController).notifyClients(missed));
+        verify(restartedController, never()).notifyClients(processed);
+        verify(restartedController, never()).sendCreateGameRequest(any());
     }
 
 }
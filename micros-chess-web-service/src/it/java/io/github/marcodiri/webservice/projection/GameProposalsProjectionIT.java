@@ -0,0 +1,117 @@
+package io.github.marcodiri.webservice.projection;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.eventstore.dbclient.EventData;
+import com.eventstore.dbclient.EventStoreDBClient;
+import com.eventstore.dbclient.EventStoreDBClientSettings;
+import com.eventstore.dbclient.EventStoreDBConnectionString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.core.eventstore.EventStoreDBEventStore;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCanceled;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEvent;
+import io.github.marcodiri.webservice.AppConfig;
+import io.github.marcodiri.webservice.eventhandler.Backoff;
+import io.github.marcodiri.webservice.eventhandler.InstancePartition;
+import io.github.marcodiri.webservice.web.WebController;
+
+@ExtendWith(MockitoExtension.class)
+public class GameProposalsProjectionIT {
+
+    @Mock
+    WebController webController;
+
+    @TempDir
+    Path directory;
+
+    GameProposalsProjection projection;
+
+    private static EventStoreDBClientSettings setts;
+    private static EventStoreDBClient readerClient, writerClient;
+
+    @BeforeAll
+    static void setupClient() {
+        setts = EventStoreDBConnectionString.parseOrThrow("esdb://localhost:2113?tls=false");
+        readerClient = EventStoreDBClient.create(setts);
+        writerClient = EventStoreDBClient.create(setts);
+    }
+
+    @AfterAll
+    static void teardownClient() throws ExecutionException, InterruptedException {
+        writerClient.shutdown();
+        readerClient.shutdown();
+    }
+
+    @BeforeEach
+    void setup() {
+        projection = createProjection("game-proposals.json");
+    }
+
+    private GameProposalsProjection createProjection(String stateFile) {
+        ObjectMapper mapper = new ObjectMapper();
+        return new GameProposalsProjection(new EventStoreDBEventStore(readerClient), webController,
+                new AppConfig().eventCodec(mapper), new Backoff(100, 1000), new InstancePartition(0, 1),
+                directory.resolve(stateFile).toString(), 1000, mapper);
+    }
+
+    @AfterEach
+    void teardown() {
+        projection.close();
+    }
+
+    private void append(GameProposalEvent event) throws Exception {
+        writerClient
+                .appendToStream(String.format("Test_%s", event.getGameProposalId()), EventData
+                        .builderAsJson(event.getType().toString(), event)
+                        .build())
+                .get();
+    }
+
+    @Test
+    void projectionFollowsCreatedAndCanceledProposals() throws Exception {
+        GameProposalCreated created = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+
+        append(created);
+
+        await().atMost(5, SECONDS).untilAsserted(
+                () -> assertThat(projection.snapshot().getGameProposals()).contains(created));
+
+        append(new GameProposalCanceled(created.getGameProposalId()));
+
+        await().atMost(5, SECONDS).untilAsserted(
+                () -> assertThat(projection.snapshot().getGameProposals()).doesNotContain(created));
+    }
+
+    @Test
+    void newProjectionCatchesUpOnOpenProposals() throws Exception {
+        GameProposalCreated created = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        append(created);
+
+        GameProposalsProjection restarted = createProjection("restarted.json");
+        try {
+            await().atMost(5, SECONDS).untilAsserted(
+                    () -> assertThat(restarted.snapshot().getGameProposals()).contains(created));
+        } finally {
+            restarted.close();
+        }
+    }
+
+}
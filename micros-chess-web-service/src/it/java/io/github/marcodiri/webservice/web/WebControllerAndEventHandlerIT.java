@@ -110,8 +110,69 @@ public class WebControllerAndEventHandlerIT {
         assertThat(blockingQueue2.poll(2, SECONDS)).isEqualTo(testEvent);
     }
 
+    @Test
+    void verifyEventsAreRelayedOnceToClientsOfEveryInstance() throws Exception {
+
+        BlockingQueue<GameProposalCreated> blockingQueue1 = new ArrayBlockingQueue<>(2);
+        BlockingQueue<GameProposalCreated> blockingQueue2 = new ArrayBlockingQueue<>(2);
+
+        webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        StompSession session1 = webSocketStompClient
+                .connectAsync(getWsPath(), new StompSessionHandlerAdapter() {
+                })
+                .get(1, SECONDS);
+        StompSession session2 = webSocketStompClient
+                .connectAsync(getSecondInstanceWsPath(), new StompSessionHandlerAdapter() {
+                })
+                .get(1, SECONDS);
+        session1.subscribe("/topic/game-proposals", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return GameProposalCreated.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                blockingQueue1.add((GameProposalCreated) payload);
+            }
+        });
+        session2.subscribe("/topic/game-proposals", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return GameProposalCreated.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                blockingQueue2.add((GameProposalCreated) payload);
+            }
+        });
+
+        UUID gameProposalId = UUID.randomUUID();
+        UUID creatorId = UUID.randomUUID();
+        GameProposalCreated testEvent = new GameProposalCreated(gameProposalId, creatorId);
+        EventData eventData = EventData
+                .builderAsJson(testEvent.getType().toString(), testEvent)
+                .build();
+        String streamName = String.format("Test_%s", gameProposalId);
+
+        writerClient
+                .appendToStream(streamName, eventData)
+                .get();
+
+        assertThat(blockingQueue1.poll(2, SECONDS)).isEqualTo(testEvent);
+        assertThat(blockingQueue2.poll(2, SECONDS)).isEqualTo(testEvent);
+        assertThat(blockingQueue1.poll(1, SECONDS)).isNull();
+        assertThat(blockingQueue2.poll(1, SECONDS)).isNull();
+    }
+
     private String getWsPath() {
         return "ws://localhost:8080/ws";
     }
 
+    private String getSecondInstanceWsPath() {
+        return "ws://localhost:8084/ws";
+    }
+
 }
@@ -1,13 +1,42 @@
 package io.github.marcodiri.webservice;
 
 import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import com.eventstore.dbclient.EventStoreDBClient;
 import com.eventstore.dbclient.EventStoreDBClientSettings;
 import com.eventstore.dbclient.EventStoreDBConnectionString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.core.domain.event.DomainEventType;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.EventStoreDBEventStore;
+import io.github.marcodiri.core.repository.eventstore.EventStoreClientPool;
+import io.github.marcodiri.gameservice.api.event.GameEventType;
+import io.github.marcodiri.gameservice.api.event.MovePlayedFormat;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEventType;
+import io.github.marcodiri.webservice.eventhandler.Backoff;
+import io.github.marcodiri.webservice.eventhandler.InstancePartition;
+import io.github.marcodiri.webservice.eventhandler.PartitionedDispatcher;
+import io.github.marcodiri.webservice.eventhandler.SubscriptionCheckpoint;
+import io.github.marcodiri.webservice.web.BackendClient;
+import io.github.marcodiri.webservice.web.FanOutPublisher;
+import io.github.marcodiri.webservice.web.MoveBatcher;
 
 @Configuration
 public class AppConfig {
@@ -22,6 +51,89 @@ public class AppConfig {
         return URI.create("http://game-service:8080/micros-chess/rest");
     }
 
+    /**
+     * A single pooled client for the calls to the lobby and game services, so
+     * consecutive requests reuse kept-alive connections instead of opening a
+     * new TCP connection each.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            @Value("${http-client.max-total:200}") int maxTotal,
+            @Value("${http-client.max-per-route:50}") int maxPerRoute,
+            @Value("${http-client.connect-timeout-ms:2000}") int connectTimeout,
+            @Value("${http-client.socket-timeout-ms:5000}") int socketTimeout,
+            @Value("${http-client.pool-timeout-ms:1000}") int poolTimeout,
+            @Value("${http-client.keep-alive-ms:30000}") long keepAlive) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                keepAlive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(1000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .setConnectionRequestTimeout(poolTimeout)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    // Honour the Keep-Alive header of the server, but never keep a
+                    // connection longer than configured.
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response,
+                            context);
+                    return duration < 0 ? keepAlive : Math.min(duration, keepAlive);
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public BackendClient lobbyServiceClient(
+            CloseableHttpClient httpClient,
+            EventCodec eventCodec,
+            @Value("${lobby-service.max-in-flight:50}") int maxInFlight,
+            @Value("${lobby-service.max-queued:500}") int maxQueued) {
+        return new BackendClient("lobby-service", httpClient, eventCodec, maxInFlight, maxQueued);
+    }
+
+    @Bean(destroyMethod = "close")
+    public BackendClient gameServiceClient(
+            CloseableHttpClient httpClient,
+            EventCodec eventCodec,
+            @Value("${game-service.max-in-flight:50}") int maxInFlight,
+            @Value("${game-service.max-queued:500}") int maxQueued) {
+        return new BackendClient("game-service", httpClient, eventCodec, maxInFlight, maxQueued);
+    }
+
+    /**
+     * Sends each event serialized once, however many destinations and
+     * subscribers it has.
+     */
+    @Bean
+    public FanOutPublisher fanOutPublisher(SimpMessagingTemplate messagingTemplate, EventCodec eventCodec) {
+        return new FanOutPublisher(messagingTemplate, eventCodec);
+    }
+
+    /**
+     * Sends each move in a frame of its own, right away, unless batching is
+     * configured: a window coalesces the moves of each game played within it,
+     * at the cost of that much latency, and the ARRAY format sends them in
+     * one frame, which only the clients reading arrays understand.
+     */
+    @Bean(destroyMethod = "close")
+    public MoveBatcher moveBatcher(
+            FanOutPublisher fanOutPublisher,
+            EventCodec eventCodec,
+            @Value("${move-batching.window-ms:0}") long window,
+            @Value("${move-batching.max-moves:50}") int maxMoves,
+            @Value("${move-batching.frame-format:SINGLE}") MoveBatcher.FrameFormat frameFormat) {
+        return new MoveBatcher(fanOutPublisher, eventCodec, window, maxMoves, frameFormat);
+    }
+
     // This is set to the name of the event store docker container
     private static final String hostname = "eventstore";
     private static final int port = 2113;
@@ -34,4 +146,76 @@ public class AppConfig {
         return EventStoreDBClient.create(setts);
     }
 
+    /**
+     * The clients of the reads and subscriptions of the projections,
+     * configured by the {@code EVENTSTORE_*} environment variables, see
+     * {@link EventStoreClientPool#fromEnvironment}.
+     */
+    @Bean(destroyMethod = "close")
+    public EventStoreClientPool eventStoreClientPool() {
+        return EventStoreClientPool.fromEnvironment(System::getenv);
+    }
+
+    @Bean
+    public EventStore eventStore(EventStoreClientPool eventStoreClientPool) {
+        return new EventStoreDBEventStore(eventStoreClientPool);
+    }
+
+    /**
+     * The position the event handler resumes from after a restart; the file
+     * must be on a volume that outlives the container.
+     */
+    @Bean(destroyMethod = "close")
+    public SubscriptionCheckpoint subscriptionCheckpoint(
+            @Value("${event-handler.checkpoint-file:/var/lib/micros-chess/es-checkpoint}") String file,
+            @Value("${event-handler.checkpoint-flush-ms:1000}") long flushInterval) {
+        return new SubscriptionCheckpoint(Path.of(file), flushInterval);
+    }
+
+    /**
+     * The delays between the attempts to re-establish a dropped event store
+     * subscription.
+     */
+    @Bean
+    public Backoff resubscribeBackoff(
+            @Value("${event-handler.resubscribe-initial-delay-ms:200}") long initialDelay,
+            @Value("${event-handler.resubscribe-max-delay-ms:30000}") long maxDelay) {
+        return new Backoff(initialDelay, maxDelay);
+    }
+
+    /**
+     * Handles the subscribed events in parallel across streams and in order
+     * within each stream.
+     */
+    @Bean(destroyMethod = "close")
+    public PartitionedDispatcher eventDispatcher(
+            @Value("${event-handler.dispatch-partitions:8}") int partitions,
+            @Value("${event-handler.dispatch-queue-capacity:1000}") int capacity) {
+        return new PartitionedDispatcher(partitions, capacity);
+    }
+
+    /**
+     * The streams whose events this instance handles, all of them unless
+     * several instances share an external broker.
+     */
+    @Bean
+    public InstancePartition instancePartition(
+            @Value("${event-handler.instance-index:0}") int index,
+            @Value("${event-handler.instance-count:1}") int count) {
+        return new InstancePartition(index, count);
+    }
+
+    /**
+     * Events and requests are (de)serialized with the ObjectMapper Spring
+     * already configured, so the service keeps a single set of Jackson caches.
+     */
+    @Bean
+    public EventCodec eventCodec(ObjectMapper objectMapper) {
+        List<DomainEventType> eventTypes = new ArrayList<>();
+        Collections.addAll(eventTypes, GameProposalEventType.values());
+        Collections.addAll(eventTypes, GameEventType.values());
+        return new EventCodec(objectMapper, eventTypes.toArray(new DomainEventType[0]))
+                .withFormat(GameEventType.MOVE, new MovePlayedFormat());
+    }
+
 }
@@ -0,0 +1,43 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter between the attempts to re-establish a
+ * subscription.
+ * <p>
+ * The delay before attempt {@code n} is drawn between half and the whole of
+ * {@code min(maxDelay, initialDelay * 2^n)}, so many web service instances
+ * dropped by the same event store restart do not all reconnect at once.
+ */
+public class Backoff {
+
+    private final long initialDelay;
+    private final long maxDelay;
+
+    /**
+     * @param initialDelay the milliseconds before the first attempt.
+     * @param maxDelay     the maximum milliseconds between two attempts.
+     */
+    public Backoff(final long initialDelay, final long maxDelay) {
+        if (initialDelay <= 0 || maxDelay < initialDelay) {
+            throw new IllegalArgumentException(String.format("Invalid backoff %d..%d ms", initialDelay, maxDelay));
+        }
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @param attempt the number of attempts already failed, from 0.
+     * @return the milliseconds to wait before the next attempt.
+     */
+    public long delay(int attempt) {
+        long ceiling = maxDelay;
+        if (attempt < Long.numberOfLeadingZeros(initialDelay) - 1) {
+            ceiling = Math.min(maxDelay, initialDelay << attempt);
+        }
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+}
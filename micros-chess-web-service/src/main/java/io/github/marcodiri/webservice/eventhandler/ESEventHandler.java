@@ -1,6 +1,22 @@
 package io.github.marcodiri.webservice.eventhandler;
 
+import java.net.ConnectException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -8,18 +24,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.eventstore.dbclient.EventStoreDBClient;
+import com.eventstore.dbclient.Position;
 import com.eventstore.dbclient.RecordedEvent;
 import com.eventstore.dbclient.ResolvedEvent;
-import com.eventstore.dbclient.SubscribeToStreamOptions;
+import com.eventstore.dbclient.SubscribeToAllOptions;
 import com.eventstore.dbclient.Subscription;
+import com.eventstore.dbclient.SubscriptionFilter;
 import com.eventstore.dbclient.SubscriptionListener;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventStoreDBEventStore;
 import io.github.marcodiri.gameservice.api.event.GameCreated;
 import io.github.marcodiri.gameservice.api.event.GameEventType;
 import io.github.marcodiri.gameservice.api.event.MovePlayed;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
-import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalEventType;
 import io.github.marcodiri.webservice.web.WebController;
 
@@ -28,23 +47,154 @@ public class ESEventHandler implements AutoCloseable {
 
     private static final Logger LOGGER = LogManager.getLogger(ESEventHandler.class);
 
+    /** Attempts of a request creating a game that could not be sent. */
+    static final int MAX_CREATE_GAME_ATTEMPTS = 5;
+
+    private static final CompletableFuture<Void> HANDLED = CompletableFuture.completedFuture(null);
+
     private final EventStoreDBClient clientES;
 
     private WebController controller;
 
-    private abstract class ESListener extends SubscriptionListener {
+    private final EventCodec eventCodec;
+
+    private final SubscriptionCheckpoint checkpoint;
+
+    private final Backoff backoff;
+
+    private final PartitionedDispatcher dispatcher;
+
+    private final InstancePartition partition;
+
+    /**
+     * The listener of the current subscription; the events and errors of the
+     * listeners of the previous subscriptions are ignored.
+     */
+    private volatile ESListener listener;
+
+    /**
+     * The position of the last event received and handed over for handling,
+     * null until the first one.
+     */
+    private volatile Position lastReceived;
+
+    private final ScheduledExecutorService resubscriber = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "es-resubscribe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    volatile CompletableFuture<Subscription> subscription;
+
+    private volatile boolean closed;
+    private volatile boolean live;
+    private final AtomicBoolean resubscribing = new AtomicBoolean();
+    private final AtomicInteger failedAttempts = new AtomicInteger();
+    /** When the live subscription was lost, 0 while it is live. */
+    private final AtomicLong droppedAt = new AtomicLong();
+    private final AtomicLong drops = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong reconnectNanos = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+
+    /**
+     * Handles an event, given its revision in its stream.
+     */
+    @FunctionalInterface
+    private interface EventHandler {
+
+        /**
+         * @return completes once the event is handled, exceptionally if it
+         *         could not be.
+         */
+        CompletableFuture<?> handle(DomainEvent event, long revision);
+
+    }
+
+    /**
+     * Handlers of the event types the web service reacts to, by type name.
+     */
+    private final Map<String, EventHandler> handlers = new HashMap<>();
+
+    /**
+     * Handlers of the event types every instance follows to keep its own
+     * state up to date, for the events of the streams another instance
+     * handles.
+     */
+    private final Map<String, EventHandler> followers = new HashMap<>();
+
+    private class ESListener extends SubscriptionListener {
 
         @Override
         public void onEvent(Subscription subscription, ResolvedEvent event) {
+            if (this != listener) {
+                // Late delivery of a dropped subscription, the current one
+                // starts after the events begun by this one
+                return;
+            }
+            RecordedEvent recordedEvent = event.getEvent();
             LOGGER.info("Received event"
-                    + event.getOriginalEvent().getRevision()
-                    + "@" + event.getOriginalEvent().getStreamId());
+                    + recordedEvent.getRevision()
+                    + "@" + recordedEvent.getStreamId());
+            Position position = event.getOriginalEvent().getPosition();
+            long ticket = checkpoint.begin(position);
+            EventHandler handler = (partition.owns(recordedEvent.getStreamId()) ? handlers : followers)
+                    .get(recordedEvent.getEventType());
+            if (handler == null) {
+                checkpoint.complete(ticket);
+                lastReceived = position;
+                return;
+            }
+            try {
+                // Blocks while the partition of the stream is full, holding
+                // back the subscription
+                dispatcher.dispatch(recordedEvent.getStreamId(), () -> {
+                    CompletableFuture<?> handled;
+                    try {
+                        handled = handler.handle(eventCodec.decode(
+                                recordedEvent.getEventType(),
+                                recordedEvent.getEventData(),
+                                recordedEvent.getUserMetadata()),
+                                recordedEvent.getRevision());
+                    } catch (Exception e) {
+                        handled = CompletableFuture.failedFuture(e);
+                    }
+                    // The checkpoint moves past the event once it is handled,
+                    // not once its handling has been started
+                    handled.whenComplete((result, e) -> {
+                        if (e != null) {
+                            LOGGER.error(e.getMessage());
+                        }
+                        checkpoint.complete(ticket);
+                    });
+                });
+                lastReceived = position;
+            } catch (RejectedExecutionException e) {
+                // The checkpoint stays before it, so it is delivered again by
+                // the next subscription or after a restart
+                checkpoint.abort(ticket);
+                LOGGER.warn("Event " + recordedEvent.getRevision() + "@" + recordedEvent.getStreamId()
+                        + " not dispatched: " + e.getMessage());
+                if (!closed && !dispatcher.isClosed()) {
+                    resubscribe();
+                }
+            }
         }
 
         @Override
         public void onError(Subscription subscription, Throwable throwable) {
-            LOGGER.info("Subscription was dropped due to " + throwable.getMessage());
-            // TODO: reconnect if client not shutdown
+            if (this != listener) {
+                return;
+            }
+            if (closed || clientES.isShutdown()) {
+                LOGGER.info("Subscription was dropped due to " + throwable.getMessage());
+                return;
+            }
+            LOGGER.warn("Subscription was dropped due to " + throwable.getMessage());
+            if (lost()) {
+                drops.incrementAndGet();
+            }
+            resubscribeLater();
         }
 
         @Override
@@ -55,99 +205,255 @@ public class ESEventHandler implements AutoCloseable {
     };
 
     @Autowired
-    public ESEventHandler(final EventStoreDBClient clientES, WebController controller) {
+    public ESEventHandler(
+            final EventStoreDBClient clientES,
+            WebController controller,
+            EventCodec eventCodec,
+            SubscriptionCheckpoint checkpoint,
+            Backoff backoff,
+            PartitionedDispatcher dispatcher,
+            InstancePartition partition) {
         this.clientES = clientES;
         this.controller = controller;
+        this.eventCodec = eventCodec;
+        this.checkpoint = checkpoint;
+        this.backoff = backoff;
+        this.dispatcher = dispatcher;
+        this.partition = partition;
 
-        SubscribeToStreamOptions options = SubscribeToStreamOptions.get()
-                .fromStart()
-                .resolveLinkTos();
-
-        clientES.subscribeToStream(
-                "$et-" + GameProposalEventType.ACCEPTED.toString(),
-                new ESListener() {
-                    @Override
-                    public void onEvent(Subscription subscription, ResolvedEvent event) {
-                        super.onEvent(subscription, event);
-                        try {
-                            // $et-* are streams of links
-                            // use getEvent() to get the actual event instead of the link event
-                            RecordedEvent originalEvent = event.getEvent();
-                            GameProposalAccepted gameProposalAcceptedEvent = new ObjectMapper().readValue(
-                                    originalEvent.getEventData(),
-                                    GameProposalAccepted.class);
-
-                            controller.sendCreateGameRequest(gameProposalAcceptedEvent);
-                        } catch (Exception e) {
-                            LOGGER.error(e.getMessage());
-                        }
-                    }
-                },
-                options);
-
-        clientES.subscribeToStream(
-                "$et-" + GameProposalEventType.CREATED.toString(),
-                new ESListener() {
-                    @Override
-                    public void onEvent(Subscription subscription, ResolvedEvent event) {
-                        super.onEvent(subscription, event);
-                        try {
-                            RecordedEvent originalEvent = event.getEvent();
-                            GameProposalCreated gameProposalCreatedEvent = new ObjectMapper().readValue(
-                                    originalEvent.getEventData(),
-                                    GameProposalCreated.class);
-
-                            controller.notifyClients(gameProposalCreatedEvent);
-                        } catch (Exception e) {
-                            LOGGER.error(e.getMessage());
-                        }
-                    }
+        handlers.put(GameProposalEventType.ACCEPTED.toString(),
+                (event, revision) -> createGame((GameProposalAccepted) event, 0));
+        handlers.put(GameEventType.CREATED.toString(), (event, revision) -> {
+            controller.notifyClients((GameCreated) event);
+            return HANDLED;
+        });
+        // The n-th move of a game is at revision n of its stream
+        handlers.put(GameEventType.MOVE.toString(), (event, revision) -> {
+            controller.notifyClients((MovePlayed) event, revision);
+            return HANDLED;
+        });
+        followers.put(GameEventType.MOVE.toString(), (event, revision) -> {
+            controller.updateGamePosition((MovePlayed) event, revision);
+            return HANDLED;
+        });
+
+        subscribe();
+    }
+
+    private void subscribe() {
+        // A single subscription to $all, filtered by the server on the handled
+        // event types: no link events to resolve and no dependency on the
+        // $by_event_type projection
+        SubscribeToAllOptions options = SubscribeToAllOptions.get()
+                .filter(eventTypeFilter(handlers.keySet()));
+        // Without a checkpoint only the new events are handled: replaying the
+        // history would broadcast old games to the clients and create again
+        // the games of old proposals.
+        getResumePosition().ifPresentOrElse(
+                position -> {
+                    LOGGER.info("Subscribing after " + position);
+                    options.fromPosition(position);
                 },
-                options);
-
-        clientES.subscribeToStream(
-                "$et-" + GameEventType.CREATED.toString(),
-                new ESListener() {
-                    @Override
-                    public void onEvent(Subscription subscription, ResolvedEvent event) {
-                        super.onEvent(subscription, event);
-                        try {
-                            RecordedEvent originalEvent = event.getEvent();
-                            GameCreated gameCreatedEvent = new ObjectMapper().readValue(
-                                    originalEvent.getEventData(),
-                                    GameCreated.class);
-
-                            controller.notifyClients(gameCreatedEvent);
-                        } catch (Exception e) {
-                            LOGGER.error(e.getMessage());
-                        }
+                options::fromEnd);
+
+        ESListener current = new ESListener();
+        listener = current;
+        CompletableFuture<Subscription> attempt = clientES.subscribeToAll(current, options);
+        subscription = attempt;
+        attempt.whenComplete((result, e) -> {
+            if (e == null) {
+                subscribed();
+            } else if (!closed && !clientES.isShutdown()) {
+                LOGGER.warn("Could not subscribe: " + e.getMessage());
+                lost();
+                resubscribeLater();
+            }
+        });
+    }
+
+    /**
+     * Asks the game service to create the game of an accepted proposal. A
+     * request that could not be sent is sent again after a backoff, up to
+     * {@link #MAX_CREATE_GAME_ATTEMPTS} times; one that was sent is not, since
+     * the game may have been created even though the response was lost.
+     *
+     * @param event          the accepted proposal.
+     * @param failedAttempts the number of attempts already failed.
+     * @return completes with the response of the game service, exceptionally
+     *         once the game can no longer be created.
+     */
+    private CompletableFuture<Object> createGame(GameProposalAccepted event, int failedAttempts) {
+        return controller.sendCreateGameRequest(event)
+                .<CompletableFuture<Object>>handle((response, e) -> {
+                    if (e == null) {
+                        return CompletableFuture.completedFuture(response);
                     }
-                },
-                options);
-
-        clientES.subscribeToStream(
-                "$et-" + GameEventType.MOVE.toString(),
-                new ESListener() {
-                    @Override
-                    public void onEvent(Subscription subscription, ResolvedEvent event) {
-                        super.onEvent(subscription, event);
-                        try {
-                            RecordedEvent originalEvent = event.getEvent();
-                            MovePlayed movePlayedEvent = new ObjectMapper().readValue(
-                                    originalEvent.getEventData(),
-                                    MovePlayed.class);
-
-                            controller.notifyClients(movePlayedEvent);
-                        } catch (Exception e) {
-                            LOGGER.error(e.getMessage());
-                        }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    boolean notSent = cause instanceof RejectedExecutionException
+                            || cause instanceof ConnectException;
+                    if (closed || !notSent || failedAttempts + 1 == MAX_CREATE_GAME_ATTEMPTS) {
+                        failedEvents.incrementAndGet();
+                        LOGGER.error("Could not create the game of proposal " + event.getGameProposalId()
+                                + " after " + (failedAttempts + 1) + " attempts: " + cause);
+                        return CompletableFuture.failedFuture(cause);
                     }
-                },
-                options);
+                    long delay = backoff.delay(failedAttempts);
+                    LOGGER.warn("Could not send the request creating the game of proposal "
+                            + event.getGameProposalId() + ", retrying in " + delay + " ms: " + cause);
+                    return CompletableFuture.runAsync(() -> {
+                    }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(v -> createGame(event, failedAttempts + 1));
+                })
+                .thenCompose(future -> future);
+    }
+
+    /**
+     * On startup the subscription resumes after the last processed event.
+     * After a drop it resumes after the last received one instead: the events
+     * still in flight are handled and checkpointed by their original tickets,
+     * while resuming from the checkpoint would deliver them again, handling
+     * them twice and beginning tickets behind the in-flight ones.
+     *
+     * @return the position to subscribe after, empty to subscribe from the
+     *         end of {@code $all}.
+     */
+    Optional<Position> getResumePosition() {
+        Position received = lastReceived;
+        return received != null ? Optional.of(received) : checkpoint.getPosition();
+    }
+
+    /**
+     * Stops the current subscription and subscribes again after the last
+     * received event.
+     */
+    private void resubscribe() {
+        listener = null;
+        subscription.thenAccept(Subscription::stop);
+        if (lost()) {
+            drops.incrementAndGet();
+        }
+        resubscribeLater();
+    }
+
+    private void subscribed() {
+        live = true;
+        failedAttempts.set(0);
+        long since = droppedAt.getAndSet(0);
+        if (since != 0) {
+            reconnects.incrementAndGet();
+            reconnectNanos.addAndGet(System.nanoTime() - since);
+            LOGGER.info("Subscription re-established");
+        }
+    }
+
+    /**
+     * @return whether the subscription was live.
+     */
+    private boolean lost() {
+        boolean wasLive = live;
+        live = false;
+        droppedAt.compareAndSet(0, System.nanoTime());
+        return wasLive;
+    }
+
+    private void resubscribeLater() {
+        // A failed attempt may be reported both by its future and by onError
+        if (!resubscribing.compareAndSet(false, true)) {
+            return;
+        }
+        long delay = backoff.delay(failedAttempts.getAndIncrement());
+        LOGGER.info("Resubscribing in " + delay + " ms");
+        try {
+            resubscriber.schedule(() -> {
+                resubscribing.set(false);
+                if (!closed) {
+                    subscribe();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed in the meantime
+        }
+    }
+
+    /**
+     * @return whether the subscription is established and receiving events.
+     */
+    public boolean isLive() {
+        return live;
+    }
+
+    /**
+     * @return the number of received events waiting to be handled.
+     */
+    public int getQueuedEvents() {
+        return dispatcher.queued();
+    }
+
+    /**
+     * @return the number of times the subscription was dropped.
+     */
+    public long getDrops() {
+        return drops.get();
+    }
+
+    /**
+     * @return the number of times the subscription was re-established.
+     */
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    /**
+     * @return the number of events that could not be handled.
+     */
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    /**
+     * @param unit the unit of the result.
+     * @return the total time spent without a subscription after a drop, up to
+     *         the last reconnection.
+     */
+    public double getReconnectTime(TimeUnit unit) {
+        return (double) reconnectNanos.get() / unit.toNanos(1);
+    }
+
+    /**
+     * @return the names of the event types the subscription is filtered on.
+     */
+    Set<String> getHandledEventTypes() {
+        return Collections.unmodifiableSet(handlers.keySet());
+    }
+
+    /**
+     * Stops the subscription for good, leaving the client open.
+     */
+    void unsubscribe() {
+        closed = true;
+        resubscriber.shutdownNow();
+        subscription.thenAccept(Subscription::stop);
+    }
+
+    /**
+     * @param eventTypes the names of the event types.
+     * @return a server side filter selecting the events of those types.
+     */
+    public static SubscriptionFilter eventTypeFilter(Collection<String> eventTypes) {
+        return EventStoreDBEventStore.eventTypeFilter(eventTypes);
+    }
+
+    /**
+     * @param eventTypes the names of the event types.
+     * @return a regular expression matching exactly those names.
+     */
+    static String eventTypePattern(Collection<String> eventTypes) {
+        return EventStoreDBEventStore.eventTypePattern(eventTypes);
     }
 
     @Override
     public void close() throws ExecutionException, InterruptedException {
+        unsubscribe();
         clientES.shutdown();
     }
 
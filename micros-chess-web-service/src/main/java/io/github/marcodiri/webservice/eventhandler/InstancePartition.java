@@ -0,0 +1,46 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+/**
+ * The share of the event streams a web-service instance handles when several
+ * instances follow the same event store behind an external broker.
+ * <p>
+ * Every instance receives every event, but only the instance owning its
+ * stream reacts to it, publishing it to the clients or calling the backend
+ * services, so each event is handled once across the instances. A stream is
+ * owned by the instance whose index is the hash of its name modulo the
+ * number of instances.
+ */
+public class InstancePartition {
+
+    private final int index;
+    private final int count;
+
+    /**
+     * @param index the index of this instance, from 0 to {@code count - 1}.
+     * @param count the number of instances.
+     */
+    public InstancePartition(final int index, final int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid instance " + index + " of " + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param streamId the name of a stream.
+     * @return whether this instance handles the events of the stream.
+     */
+    public boolean owns(String streamId) {
+        return Math.floorMod(streamId.hashCode(), count) == index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,114 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs the handling of the subscribed events off the subscription thread.
+ * <p>
+ * Events are spread by key over a fixed set of partitions, each handled by a
+ * single thread in arrival order: the events of one stream stay in order while
+ * different streams are handled in parallel, and a slow handler only holds up
+ * the streams of its partition. Each partition queues at most
+ * {@code capacity} events; when it is full {@link #dispatch(String, Runnable)}
+ * blocks, which stops the subscription from reading further events until the
+ * partition catches up.
+ */
+public class PartitionedDispatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(PartitionedDispatcher.class);
+
+    private final ThreadPoolExecutor[] partitions;
+
+    /**
+     * @param partitionCount the number of partitions.
+     * @param capacity       the maximum number of events queued per partition.
+     */
+    public PartitionedDispatcher(final int partitionCount, final int capacity) {
+        this.partitions = new ThreadPoolExecutor[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            String threadName = "es-dispatch-" + i;
+            partitions[i] = new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    PartitionedDispatcher::waitForRoom);
+        }
+    }
+
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor partition) {
+        if (partition.isShutdown()) {
+            throw new RejectedExecutionException("Dispatcher is closed");
+        }
+        try {
+            partition.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    /**
+     * Queues a task behind the tasks already dispatched with the same key,
+     * waiting for room if its partition is full.
+     *
+     * @param key  the key of the task, the stream of an event.
+     * @param task the task.
+     * @throws RejectedExecutionException if the dispatcher is closed or the
+     *                                    caller is interrupted while waiting.
+     */
+    public void dispatch(String key, Runnable task) {
+        partitions[Math.floorMod(key.hashCode(), partitions.length)].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Event handling failed", e);
+            }
+        });
+    }
+
+    /**
+     * @return whether the dispatcher no longer accepts tasks.
+     */
+    public boolean isClosed() {
+        return partitions[0].isShutdown();
+    }
+
+    /**
+     * @return the number of tasks queued and not yet started.
+     */
+    public int queued() {
+        int queued = 0;
+        for (ThreadPoolExecutor partition : partitions) {
+            queued += partition.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * Stops accepting tasks and waits a few seconds for the queued ones.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.shutdown();
+        }
+        for (ThreadPoolExecutor partition : partitions) {
+            if (!partition.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.warn("Events still queued on close: {}", partition.getQueue().size());
+            }
+        }
+    }
+
+}
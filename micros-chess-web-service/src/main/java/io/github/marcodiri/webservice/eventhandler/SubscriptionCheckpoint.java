@@ -0,0 +1,203 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.eventstore.dbclient.Position;
+
+/**
+ * The position in {@code $all} of the last event the web service processed,
+ * kept in a local file so a restart resumes from there instead of replaying
+ * the whole history.
+ * <p>
+ * Positions are recorded in memory as the events are processed and written to
+ * the file, synced to disk, every {@code flushInterval} milliseconds and on
+ * {@link #close()}. After a crash the events processed since the last flush
+ * are delivered again.
+ * <p>
+ * Events handled concurrently may complete out of order: those are tracked
+ * with {@link #begin(Position)} and {@link #complete(long)}, and the
+ * checkpoint only moves past an event once every earlier event is complete.
+ * Events that will not be processed are forgotten with {@link #abort(long)}.
+ */
+public class SubscriptionCheckpoint implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(SubscriptionCheckpoint.class);
+
+    private final Path file;
+    private final ScheduledExecutorService flusher;
+
+    private volatile Position position;
+    private Position flushedPosition;
+
+    private final AtomicLong sequence = new AtomicLong();
+    /** Positions of the events begun and not yet passed, by ticket. */
+    private final ConcurrentSkipListMap<Long, Position> inFlight = new ConcurrentSkipListMap<>();
+    /** Tickets of the events complete while an earlier one is in flight. */
+    private final ConcurrentSkipListSet<Long> completed = new ConcurrentSkipListSet<>();
+
+    /**
+     * @param file          the file holding the checkpoint.
+     * @param flushInterval the milliseconds between two writes of the file.
+     */
+    public SubscriptionCheckpoint(final Path file, final long flushInterval) {
+        this.file = file;
+        this.position = read(file);
+        this.flushedPosition = position;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "es-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private static Position read(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            String[] parts = Files.readString(file, StandardCharsets.US_ASCII).trim().split("/");
+            return new Position(Long.parseUnsignedLong(parts[0]), Long.parseUnsignedLong(parts[1]));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable checkpoint {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the position of the last processed event, if any.
+     */
+    public Optional<Position> getPosition() {
+        return Optional.ofNullable(position);
+    }
+
+    /**
+     * Records that the event at the given position has been processed.
+     *
+     * @param position the position of the event in {@code $all}.
+     */
+    public void update(Position position) {
+        this.position = position;
+    }
+
+    /**
+     * Records that the event at the given position is being processed. Events
+     * must be begun in the order of their positions.
+     *
+     * @param position the position of the event in {@code $all}.
+     * @return the ticket to pass to {@link #complete(long)}.
+     */
+    public long begin(Position position) {
+        long ticket = sequence.getAndIncrement();
+        inFlight.put(ticket, position);
+        return ticket;
+    }
+
+    /**
+     * Records that a begun event has been processed, moving the checkpoint
+     * past it and any following event already complete if no earlier event
+     * is still in flight.
+     *
+     * @param ticket the ticket returned by {@link #begin(Position)}.
+     */
+    public void complete(long ticket) {
+        // Not on this, which a flush holds while syncing the file
+        synchronized (inFlight) {
+            if (!inFlight.containsKey(ticket)) {
+                // Aborted
+                return;
+            }
+            completed.add(ticket);
+            Map.Entry<Long, Position> oldest;
+            while ((oldest = inFlight.firstEntry()) != null && completed.remove(oldest.getKey())) {
+                inFlight.remove(oldest.getKey());
+                position = oldest.getValue();
+            }
+        }
+    }
+
+    /**
+     * Forgets a begun event that will not be processed, and every event begun
+     * after it: they are to be begun again when they are delivered again, and
+     * the checkpoint does not move past them until then.
+     *
+     * @param ticket the ticket returned by {@link #begin(Position)}.
+     */
+    public void abort(long ticket) {
+        synchronized (inFlight) {
+            inFlight.tailMap(ticket, true).clear();
+            completed.tailSet(ticket, true).clear();
+        }
+    }
+
+    /**
+     * @return the number of begun events not yet complete.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Writes the last recorded position to the file, if it changed since the
+     * last write.
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        Position current = position;
+        if (current == null || current == flushedPosition) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        byte[] content = (Long.toUnsignedString(current.getCommitUnsigned())
+                + "/" + Long.toUnsignedString(current.getPrepareUnsigned()))
+                .getBytes(StandardCharsets.US_ASCII);
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(content));
+            channel.force(true);
+        }
+        // Readers see either the previous checkpoint or the new one, never a
+        // partially written file
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        flushedPosition = current;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOGGER.error("Could not write checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the periodic writes and writes the last recorded position.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+}
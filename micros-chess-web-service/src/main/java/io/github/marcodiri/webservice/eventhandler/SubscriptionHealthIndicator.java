@@ -0,0 +1,65 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Reports the event store subscription of {@link ESEventHandler} on
+ * {@code /actuator/health} and as metrics: whether it is live, how many events
+ * wait to be handled, how many could not be handled, how many times it was
+ * dropped and how long it took to re-establish it.
+ */
+@Component("eventStoreSubscription")
+public class SubscriptionHealthIndicator implements HealthIndicator, MeterBinder {
+
+    private final ESEventHandler eventHandler;
+
+    @Autowired
+    public SubscriptionHealthIndicator(final ESEventHandler eventHandler) {
+        this.eventHandler = eventHandler;
+    }
+
+    @Override
+    public Health health() {
+        return (eventHandler.isLive() ? Health.up() : Health.down())
+                .withDetail("queuedEvents", eventHandler.getQueuedEvents())
+                .withDetail("failedEvents", eventHandler.getFailedEvents())
+                .withDetail("drops", eventHandler.getDrops())
+                .withDetail("reconnects", eventHandler.getReconnects())
+                .withDetail("reconnectTimeMs", (long) eventHandler.getReconnectTime(TimeUnit.MILLISECONDS))
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("eventstore.subscription.live", eventHandler, handler -> handler.isLive() ? 1 : 0)
+                .description("Whether the event store subscription is established")
+                .register(registry);
+        Gauge.builder("eventstore.subscription.queued", eventHandler, ESEventHandler::getQueuedEvents)
+                .description("Received events waiting to be handled")
+                .register(registry);
+        FunctionCounter.builder("eventstore.subscription.failed", eventHandler, ESEventHandler::getFailedEvents)
+                .description("Received events that could not be handled")
+                .register(registry);
+        FunctionCounter.builder("eventstore.subscription.drops", eventHandler, ESEventHandler::getDrops)
+                .description("Times the event store subscription was dropped")
+                .register(registry);
+        FunctionTimer.builder("eventstore.subscription.reconnect", eventHandler,
+                ESEventHandler::getReconnects,
+                handler -> handler.getReconnectTime(TimeUnit.NANOSECONDS),
+                TimeUnit.NANOSECONDS)
+                .description("Time spent re-establishing the event store subscription")
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,74 @@
+package io.github.marcodiri.webservice.projection;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * The position of a game, in Forsyth-Edwards Notation, as of a version, the
+ * number of moves played: a spectator sets it up and then applies the moves
+ * published after it, those with a greater version.
+ */
+public class GamePositionSnapshot {
+
+    private UUID gameId;
+    private long version;
+    private String fen;
+
+    public GamePositionSnapshot() {
+    }
+
+    public GamePositionSnapshot(final UUID gameId, final long version, final String fen) {
+        this.gameId = gameId;
+        this.version = version;
+        this.fen = fen;
+    }
+
+    public UUID getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(final UUID gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(final long version) {
+        this.version = version;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(final String fen) {
+        this.fen = fen;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        GamePositionSnapshot snapshot = (GamePositionSnapshot) o;
+        return version == snapshot.version
+                && Objects.equals(gameId, snapshot.gameId)
+                && Objects.equals(fen, snapshot.fen);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameId, version, fen);
+    }
+
+}
@@ -0,0 +1,115 @@
+package io.github.marcodiri.webservice.projection;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.web.GamePositionResponse;
+import io.github.marcodiri.webservice.web.BackendClient;
+
+/**
+ * The positions of the games being watched, for the spectators joining them.
+ * <p>
+ * A game is asked to the game service the first time a spectator asks for it,
+ * and its position is kept for the spectators joining before its next move:
+ * a move with a greater version drops it, and the next spectator asks for it
+ * again. At most {@code maxGames} games are kept, the least recently watched
+ * are dropped first.
+ */
+@Component
+public class GamePositions {
+
+    private final BackendClient gameServiceClient;
+    private final URI gameServiceBaseUri;
+    private final long readTimeout;
+
+    /** Positions of the cached games, least recently used first. */
+    private final Map<UUID, GamePositionSnapshot> games;
+
+    /**
+     * @param gameServiceClient  the client of the game service.
+     * @param gameServiceBaseUri the base URI of the game service.
+     * @param maxGames           the maximum number of games kept.
+     * @param readTimeout        the milliseconds to wait for the game service.
+     */
+    @Autowired
+    public GamePositions(
+            final BackendClient gameServiceClient,
+            final URI gameServiceBaseUri,
+            @Value("${spectating.max-cached-games:1000}") final int maxGames,
+            @Value("${spectating.read-timeout-ms:5000}") final long readTimeout) {
+        this.gameServiceClient = gameServiceClient;
+        this.gameServiceBaseUri = gameServiceBaseUri;
+        this.readTimeout = readTimeout;
+        this.games = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, GamePositionSnapshot> eldest) {
+                return size() > maxGames;
+            }
+        };
+    }
+
+    /**
+     * @param gameId the id of the game.
+     * @return the position of the game and its version, empty if there is no
+     *         such game.
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws TimeoutException
+     */
+    public Optional<GamePositionSnapshot> snapshot(UUID gameId)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        synchronized (games) {
+            GamePositionSnapshot snapshot = games.get(gameId);
+            if (snapshot != null) {
+                return Optional.of(snapshot);
+            }
+        }
+
+        // Ask without holding the lock: the other games keep being served
+        // and updated in the meantime
+        Optional<GamePositionResponse> response = gameServiceClient
+                .get(gameServiceBaseUri.toString() + "/game/position/" + gameId, GamePositionResponse.class)
+                .get(readTimeout, TimeUnit.MILLISECONDS);
+        if (response.isEmpty()) {
+            return Optional.empty();
+        }
+        GamePositionSnapshot read = new GamePositionSnapshot(gameId, response.get().getVersion(),
+                response.get().getFen());
+        synchronized (games) {
+            GamePositionSnapshot snapshot = games.get(gameId);
+            // Another spectator may have asked first, and got a later position
+            if (snapshot == null || snapshot.getVersion() < read.getVersion()) {
+                games.put(gameId, read);
+                snapshot = read;
+            }
+            return Optional.of(snapshot);
+        }
+    }
+
+    /**
+     * Drops the position of the game of a move, if the move is past it.
+     *
+     * @param move    the move.
+     * @param version the version of the game after the move.
+     */
+    public void apply(MovePlayed move, long version) {
+        synchronized (games) {
+            GamePositionSnapshot snapshot = games.get(move.getGameId());
+            if (snapshot != null && version > snapshot.getVersion()) {
+                games.remove(move.getGameId());
+            }
+        }
+    }
+
+}
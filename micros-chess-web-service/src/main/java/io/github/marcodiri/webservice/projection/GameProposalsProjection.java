@@ -0,0 +1,330 @@
+package io.github.marcodiri.webservice.projection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventRecord;
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.EventStoreSubscription;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEvent;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEventType;
+import io.github.marcodiri.webservice.eventhandler.Backoff;
+import io.github.marcodiri.webservice.eventhandler.InstancePartition;
+import io.github.marcodiri.webservice.web.WebController;
+
+/**
+ * The game proposals still open, kept in memory for the lobby.
+ * <p>
+ * The projection catches up on the game proposal events of the event store
+ * and then follows the new ones on the same subscription. Each change
+ * increments its version and is published to the clients as a delta, the
+ * event itself with the version in a header; a client joining the lobby asks
+ * for a {@link #snapshot()} and applies the deltas following it, instead of
+ * waiting for new proposals or replaying the old ones.
+ * <p>
+ * The open proposals, their version and the position of the last applied
+ * event are written to a file every {@code flushInterval} milliseconds and
+ * on {@link #close()}, so a restart catches up from there instead of from
+ * the start of the store. Only the events written after the start of this
+ * instance are published: the clients connecting to it take a snapshot
+ * anyway.
+ * <p>
+ * With several web-service instances every instance keeps the whole
+ * projection, at the same versions, but only the one owning the stream of a
+ * proposal publishes its changes.
+ */
+@Component
+public class GameProposalsProjection implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(GameProposalsProjection.class);
+
+    private static final Set<String> EVENT_TYPES = Stream.of(GameProposalEventType.values())
+            .map(GameProposalEventType::toString)
+            .collect(Collectors.toSet());
+
+    private final EventStore eventStore;
+    private final WebController controller;
+    private final EventCodec eventCodec;
+    private final Backoff backoff;
+    private final InstancePartition partition;
+    private final Path stateFile;
+    private final ObjectMapper mapper;
+
+    // Guarded by this, like the position they are at
+    private final Map<UUID, GameProposalCreated> openProposals = new LinkedHashMap<>();
+    private long version;
+
+    /** Position of the last applied event, to resume from after a drop. */
+    private long position = EventStore.START;
+    private long preparePosition = EventStore.START;
+
+    /** Held while writing the file, not to block the events meanwhile. */
+    private final Object flushLock = new Object();
+    private long flushedPosition = EventStore.START;
+
+    /** Position of the last event written before this instance started. */
+    private volatile Long lastHistoricalPosition;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-proposals");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean resubscribing = new AtomicBoolean();
+    private final AtomicInteger failedAttempts = new AtomicInteger();
+    private volatile boolean closed;
+    private volatile CompletableFuture<EventStoreSubscription> subscription;
+
+    private class ProjectionListener implements EventStore.Listener {
+
+        @Override
+        public void onEvent(EventRecord event) {
+            GameProposalEvent decoded = null;
+            try {
+                decoded = (GameProposalEvent) eventCodec.decode(event.getType(), event.getData(),
+                        event.getMetadata());
+            } catch (Exception e) {
+                LOGGER.error(e.getMessage());
+            }
+            synchronized (GameProposalsProjection.this) {
+                if (decoded != null) {
+                    apply(decoded, event.getPosition() > lastHistoricalPosition
+                            && partition.owns(event.getStreamId()));
+                }
+                position = event.getPosition();
+                preparePosition = event.getPreparePosition();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (closed) {
+                return;
+            }
+            LOGGER.warn("Game proposals subscription was dropped due to " + e.getMessage());
+            resubscribeLater();
+        }
+
+    }
+
+    private final ProjectionListener listener = new ProjectionListener();
+
+    /**
+     * @param eventStore    the store of the game proposal events.
+     * @param controller    publishes the changes to the clients.
+     * @param eventCodec    decodes the events.
+     * @param backoff       the delays between the attempts to subscribe.
+     * @param partition     the streams whose changes this instance publishes.
+     * @param stateFile     the file holding the state of the projection; it
+     *                      must be on a volume that outlives the container.
+     * @param flushInterval the milliseconds between two writes of the file.
+     * @param mapper        writes the state to the file.
+     */
+    @Autowired
+    public GameProposalsProjection(
+            final EventStore eventStore,
+            final WebController controller,
+            final EventCodec eventCodec,
+            final Backoff backoff,
+            final InstancePartition partition,
+            @Value("${game-proposals.state-file:/var/lib/micros-chess/game-proposals.json}") final String stateFile,
+            @Value("${game-proposals.flush-ms:1000}") final long flushInterval,
+            final ObjectMapper mapper) {
+        this.eventStore = eventStore;
+        this.controller = controller;
+        this.eventCodec = eventCodec;
+        this.backoff = backoff;
+        this.partition = partition;
+        this.stateFile = Path.of(stateFile);
+        this.mapper = mapper;
+
+        read();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        subscribe();
+    }
+
+    private void subscribe() {
+        CompletableFuture<Long> lastHistorical = lastHistoricalPosition != null
+                ? CompletableFuture.completedFuture(lastHistoricalPosition)
+                : eventStore.readLastPosition();
+        subscription = lastHistorical.thenApply(lastPosition -> {
+            lastHistoricalPosition = lastPosition;
+            synchronized (this) {
+                return eventStore.subscribe(position, preparePosition, EVENT_TYPES, listener);
+            }
+        });
+        subscription.whenComplete((result, e) -> {
+            if (e == null) {
+                failedAttempts.set(0);
+            } else {
+                LOGGER.warn("Could not subscribe to game proposals: " + e.getMessage());
+                resubscribeLater();
+            }
+        });
+    }
+
+    private void resubscribeLater() {
+        if (closed || !resubscribing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> {
+                resubscribing.set(false);
+                if (!closed) {
+                    subscribe();
+                }
+            }, backoff.delay(failedAttempts.getAndIncrement()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed in the meantime
+        }
+    }
+
+    /**
+     * Applies a game proposal event and publishes it to the clients if it
+     * changed the open proposals.
+     *
+     * @param event the event.
+     */
+    public void apply(GameProposalEvent event) {
+        apply(event, true);
+    }
+
+    /**
+     * Applies a game proposal event and, if it changed the open proposals and
+     * {@code publish} is set, publishes it to the clients.
+     *
+     * @param event   the event.
+     * @param publish whether this instance publishes the event.
+     */
+    public synchronized void apply(GameProposalEvent event, boolean publish) {
+        boolean changed;
+        switch (event.getType()) {
+            case CREATED:
+                changed = openProposals.putIfAbsent(event.getGameProposalId(), (GameProposalCreated) event) == null;
+                break;
+            case CANCELED:
+            case ACCEPTED:
+                changed = openProposals.remove(event.getGameProposalId()) != null;
+                break;
+            default:
+                changed = false;
+        }
+        if (changed) {
+            version++;
+        }
+        if (changed && publish) {
+            // Published while holding the lock, so the clients receive the
+            // deltas in version order
+            controller.notifyClients(event, version);
+        }
+    }
+
+    /**
+     * @return the open proposals, oldest first, and the current version.
+     */
+    public synchronized GameProposalsSnapshot snapshot() {
+        return new GameProposalsSnapshot(version, new ArrayList<>(openProposals.values()));
+    }
+
+    private void read() {
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+        try {
+            JsonNode state = mapper.readTree(stateFile.toFile());
+            GameProposalsSnapshot snapshot = mapper.treeToValue(state.get("snapshot"), GameProposalsSnapshot.class);
+            long savedPosition = state.get("position").asLong();
+            long savedPreparePosition = state.get("preparePosition").asLong();
+            synchronized (this) {
+                for (GameProposalCreated gameProposal : snapshot.getGameProposals()) {
+                    openProposals.put(gameProposal.getGameProposalId(), gameProposal);
+                }
+                version = snapshot.getVersion();
+                position = savedPosition;
+                preparePosition = savedPreparePosition;
+            }
+            flushedPosition = savedPosition;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable game proposals state {}: {}", stateFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the open proposals and the position they are at to the file, if
+     * an event was applied since the last write.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            ObjectNode state = mapper.createObjectNode();
+            long current;
+            synchronized (this) {
+                current = position;
+                if (current == flushedPosition) {
+                    return;
+                }
+                state.put("position", current);
+                state.put("preparePosition", preparePosition);
+                state.set("snapshot", mapper.valueToTree(snapshot()));
+            }
+            Path directory = stateFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = directory.resolve(stateFile.getFileName() + ".tmp");
+            Files.write(temporary, mapper.writeValueAsBytes(state));
+            // Readers see either the previous state or the new one, never a
+            // partially written file
+            Files.move(temporary, stateFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            flushedPosition = current;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOGGER.error("Could not write game proposals state {}: {}", stateFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the subscription and writes the state to the file.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        subscription.thenAccept(EventStoreSubscription::close);
+        flushQuietly();
+    }
+
+}
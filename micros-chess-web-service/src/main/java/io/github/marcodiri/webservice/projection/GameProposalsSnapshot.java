@@ -0,0 +1,65 @@
+package io.github.marcodiri.webservice.projection;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+
+/**
+ * The open game proposals as of a version of {@link GameProposalsProjection}:
+ * a client applies the deltas published after it, those with a greater
+ * version.
+ */
+public class GameProposalsSnapshot {
+
+    private long version;
+    private List<GameProposalCreated> gameProposals;
+
+    public GameProposalsSnapshot() {
+    }
+
+    public GameProposalsSnapshot(final long version, final List<GameProposalCreated> gameProposals) {
+        this.version = version;
+        this.gameProposals = gameProposals;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(final long version) {
+        this.version = version;
+    }
+
+    public List<GameProposalCreated> getGameProposals() {
+        return gameProposals;
+    }
+
+    public void setGameProposals(final List<GameProposalCreated> gameProposals) {
+        this.gameProposals = gameProposals;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        GameProposalsSnapshot snapshot = (GameProposalsSnapshot) o;
+        return version == snapshot.version
+                && Objects.equals(gameProposals, snapshot.gameProposals);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, gameProposals);
+    }
+
+}
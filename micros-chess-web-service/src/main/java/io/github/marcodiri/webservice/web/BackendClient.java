@@ -0,0 +1,184 @@
+package io.github.marcodiri.webservice.web;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+
+/**
+ * Sends the requests to one backend service off the caller thread.
+ * <p>
+ * Requests run on a pool of at most {@code maxInFlight} threads sharing the
+ * pooled HTTP client; up to {@code maxQueued} more wait for a free thread and
+ * the rest fail right away with a {@link RejectedExecutionException}. A slow
+ * backend therefore holds at most its own threads, never the threads of the
+ * websocket inbound channel or the requests to the other backends.
+ */
+public class BackendClient implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(BackendClient.class);
+
+    private final String name;
+    private final CloseableHttpClient httpClient;
+    private final EventCodec eventCodec;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param name        the name of the backend, used for its thread names.
+     * @param httpClient  the client to send the requests with.
+     * @param eventCodec  the codec of the request and response bodies.
+     * @param maxInFlight the maximum number of concurrent requests.
+     * @param maxQueued   the maximum number of requests waiting to be sent.
+     */
+    public BackendClient(
+            final String name,
+            final CloseableHttpClient httpClient,
+            final EventCodec eventCodec,
+            final int maxInFlight,
+            final int maxQueued) {
+        this.name = name;
+        this.httpClient = httpClient;
+        this.eventCodec = eventCodec;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                maxInFlight,
+                maxInFlight,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-client-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * POSTs a JSON body and reads the JSON response.
+     *
+     * @param <T>           the type of the response.
+     * @param uri           the endpoint.
+     * @param body          the request body.
+     * @param responseClass the class of the response.
+     * @return the response, or the failure of the request.
+     */
+    public <T> CompletableFuture<T> post(String uri, Object body, Class<T> responseClass) {
+        return submit("POST", uri, () -> createRequest(uri, body), httpResponse -> eventCodec
+                .readerFor(responseClass)
+                .readValue(httpResponse.getEntity().getContent()));
+    }
+
+    /**
+     * POSTs a JSON body, discarding the response body.
+     *
+     * @param uri  the endpoint.
+     * @param body the request body.
+     * @return the status of the response, or the failure of the request.
+     */
+    public CompletableFuture<StatusLine> post(String uri, Object body) {
+        return submit("POST", uri, () -> createRequest(uri, body), BackendClient::consumeResponse);
+    }
+
+    /**
+     * GETs a JSON response.
+     *
+     * @param <T>           the type of the response.
+     * @param uri           the resource.
+     * @param responseClass the class of the response.
+     * @return the response, empty if the resource is not found, or the
+     *         failure of the request; any other status that is not a success
+     *         fails it with an {@link HttpResponseException}.
+     */
+    public <T> CompletableFuture<Optional<T>> get(String uri, Class<T> responseClass) {
+        return submit("GET", uri, () -> createGetRequest(uri), httpResponse -> {
+            StatusLine statusLine = httpResponse.getStatusLine();
+            if (statusLine.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                consumeResponse(httpResponse);
+                return Optional.empty();
+            }
+            if (statusLine.getStatusCode() >= HttpStatus.SC_MULTIPLE_CHOICES) {
+                consumeResponse(httpResponse);
+                throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+            }
+            T response = eventCodec.readerFor(responseClass).readValue(httpResponse.getEntity().getContent());
+            return Optional.of(response);
+        });
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpUriRequest create() throws IOException;
+    }
+
+    private <T> CompletableFuture<T> submit(String method, String uri, RequestFactory requestFactory,
+            ResponseHandler<T> responseHandler) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(httpClient.execute(requestFactory.create(), responseHandler));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Too many requests in flight to {}, rejecting {} to {}", name, method, uri);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static HttpGet createGetRequest(String uri) {
+        HttpGet request = new HttpGet(uri);
+        request.setHeader("Accept", "application/json");
+        return request;
+    }
+
+    private HttpPost createRequest(String uri, Object body) throws IOException {
+        HttpPost request = new HttpPost(uri);
+        request.setHeader("Content-Type", "application/json");
+        request.setHeader("Accept", "application/json");
+
+        ByteArrayEntity entity = new ByteArrayEntity(eventCodec.encode(body));
+        entity.setContentType(ContentType.APPLICATION_JSON.getMimeType());
+
+        request.setEntity(entity);
+        return request;
+    }
+
+    private static StatusLine consumeResponse(HttpResponse httpResponse) throws IOException {
+        // The pooled connection is released only once the entity is consumed
+        EntityUtils.consume(httpResponse.getEntity());
+        return httpResponse.getStatusLine();
+    }
+
+    /**
+     * Stops accepting requests; those already submitted are still sent.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+}
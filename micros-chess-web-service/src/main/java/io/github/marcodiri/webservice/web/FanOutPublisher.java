@@ -0,0 +1,86 @@
+package io.github.marcodiri.webservice.web;
+
+import java.util.Map;
+
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+
+/**
+ * Publishes a payload to any number of destinations serializing it once.
+ * <p>
+ * {@code convertAndSend} runs the message converters on every call, so an
+ * event sent to several destinations was serialized once per destination.
+ * Here the payload is encoded with the {@link EventCodec} up front and every
+ * destination gets a message wrapping the same bytes; the simple broker then
+ * hands those bytes to each of its subscribers, players and spectators
+ * alike, without converting them again.
+ */
+public class FanOutPublisher {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final EventCodec eventCodec;
+
+    /**
+     * @param messagingTemplate the template to send the messages with.
+     * @param eventCodec        the codec serializing the payloads.
+     */
+    public FanOutPublisher(final SimpMessageSendingOperations messagingTemplate, final EventCodec eventCodec) {
+        this.messagingTemplate = messagingTemplate;
+        this.eventCodec = eventCodec;
+    }
+
+    /**
+     * @param payload      the payload, serialized once for all the
+     *                     destinations.
+     * @param destinations the destinations.
+     * @throws MessageConversionException if the payload cannot be serialized.
+     */
+    public void publish(Object payload, String... destinations) {
+        publish(payload, Map.of(), destinations);
+    }
+
+    /**
+     * @param payload       the payload, serialized once for all the
+     *                      destinations.
+     * @param nativeHeaders the STOMP headers of the messages.
+     * @param destinations  the destinations.
+     * @throws MessageConversionException if the payload cannot be serialized.
+     */
+    public void publish(Object payload, Map<String, String> nativeHeaders, String... destinations) {
+        byte[] frame;
+        try {
+            frame = eventCodec.encode(payload);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Could not serialize " + payload, e);
+        }
+        for (String destination : destinations) {
+            send(destination, frame, nativeHeaders);
+        }
+    }
+
+    /**
+     * Sends an already serialized JSON payload.
+     *
+     * @param destination   the destination.
+     * @param frame         the JSON payload.
+     * @param nativeHeaders the STOMP headers of the message.
+     */
+    public void send(String destination, byte[] frame, Map<String, String> nativeHeaders) {
+        // A fresh set of headers for each destination, the template sets the
+        // destination on them, around the shared payload
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        nativeHeaders.forEach(headers::setNativeHeader);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(frame, headers.getMessageHeaders()));
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.github.marcodiri.webservice.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import io.github.marcodiri.webservice.projection.GameProposalsProjection;
+import io.github.marcodiri.webservice.projection.GameProposalsSnapshot;
+
+@Controller
+public class GameProposalsController {
+
+    private GameProposalsProjection gameProposals;
+
+    @Autowired
+    public void setGameProposals(GameProposalsProjection gameProposals) {
+        this.gameProposals = gameProposals;
+    }
+
+    /**
+     * Replies to a subscription to {@code /app/game-proposals} with the open
+     * game proposals; the changes that follow are published to
+     * {@code /topic/game-proposals}.
+     *
+     * @return the open game proposals and their version.
+     */
+    @SubscribeMapping("/game-proposals")
+    public GameProposalsSnapshot subscribeGameProposals() {
+        return gameProposals.snapshot();
+    }
+
+}
@@ -0,0 +1,177 @@
+package io.github.marcodiri.webservice.web;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+
+/**
+ * Coalesces the moves published to each {@code /topic/game/{id}} destination.
+ * <p>
+ * The first move of a game starts a window of {@code window} milliseconds;
+ * the moves of that game played within it, up to {@code maxMoves}, are sent
+ * together when it closes. A frame is serialized once, here, and published
+ * through the {@link FanOutPublisher}, so the broker hands the same bytes to
+ * every subscriber. With a window of 0 every move is sent right away.
+ * <p>
+ * Batches are sent in {@link FrameFormat#ARRAY} frames, a JSON array of
+ * moves, or as one {@link FrameFormat#SINGLE} frame per move for clients
+ * that expect a single event per frame. Each frame carries the version of the
+ * game after its last move, for spectators to detect the frames they missed.
+ */
+public class MoveBatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(MoveBatcher.class);
+
+    public enum FrameFormat {
+        SINGLE, ARRAY
+    }
+
+    private final FanOutPublisher publisher;
+    private final ObjectWriter moveWriter;
+    private final ObjectWriter batchWriter;
+    private final long window;
+    private final int maxMoves;
+    private final FrameFormat frameFormat;
+
+    /** The moves of a game sent together, with the versions after them. */
+    private static class Batch {
+
+        private final List<MovePlayed> moves = new ArrayList<>();
+        private final List<Long> versions = new ArrayList<>();
+
+        void add(MovePlayed move, long version) {
+            moves.add(move);
+            versions.add(version);
+        }
+
+        int size() {
+            return moves.size();
+        }
+
+    }
+
+    /** Moves waiting for their window to close, by game. */
+    private final Map<UUID, Batch> pending = new HashMap<>();
+
+    /** Sends the frames, one at a time, so a game's batches stay in order. */
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "move-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param publisher   the publisher to send the frames with.
+     * @param eventCodec  the codec serializing the frames.
+     * @param window      the milliseconds moves are held for, 0 to send each
+     *                    move right away.
+     * @param maxMoves    the maximum number of moves in a batch.
+     * @param frameFormat the format of the frames.
+     */
+    public MoveBatcher(
+            final FanOutPublisher publisher,
+            final EventCodec eventCodec,
+            final long window,
+            final int maxMoves,
+            final FrameFormat frameFormat) {
+        this.publisher = publisher;
+        this.moveWriter = eventCodec.writerFor(MovePlayed.class);
+        this.batchWriter = eventCodec.writerFor(MovePlayed[].class);
+        this.window = window;
+        this.maxMoves = maxMoves;
+        this.frameFormat = frameFormat;
+    }
+
+    /**
+     * Queues a move for the subscribers of its game.
+     *
+     * @param move    the move.
+     * @param version the version of the game after the move.
+     */
+    public void add(MovePlayed move, long version) {
+        UUID gameId = move.getGameId();
+        if (window <= 0) {
+            Batch batch = new Batch();
+            batch.add(move, version);
+            send(gameId, batch);
+            return;
+        }
+        synchronized (pending) {
+            Batch batch = pending.get(gameId);
+            if (batch == null) {
+                Batch newBatch = new Batch();
+                pending.put(gameId, newBatch);
+                sender.schedule(() -> flush(gameId, newBatch), window, TimeUnit.MILLISECONDS);
+                batch = newBatch;
+            }
+            batch.add(move, version);
+            if (batch.size() >= maxMoves) {
+                pending.remove(gameId);
+                Batch full = batch;
+                sender.execute(() -> send(gameId, full));
+            }
+        }
+    }
+
+    private void flush(UUID gameId, Batch batch) {
+        synchronized (pending) {
+            // Already sent if it filled up before the window closed
+            if (!pending.remove(gameId, batch)) {
+                return;
+            }
+        }
+        send(gameId, batch);
+    }
+
+    private void send(UUID gameId, Batch batch) {
+        String destination = "/topic/game/" + gameId;
+        try {
+            if (frameFormat == FrameFormat.ARRAY) {
+                // Versioned by the last move, the others precede it
+                publisher.send(destination, batchWriter.writeValueAsBytes(batch.moves.toArray(new MovePlayed[0])),
+                        versionHeader(batch.versions.get(batch.size() - 1)));
+            } else {
+                for (int i = 0; i < batch.size(); i++) {
+                    publisher.send(destination, moveWriter.writeValueAsBytes(batch.moves.get(i)),
+                            versionHeader(batch.versions.get(i)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Could not send {} moves to {}: {}", batch.size(), destination, e.getMessage());
+        }
+    }
+
+    private static Map<String, String> versionHeader(long version) {
+        return Map.of(WebController.VERSION_HEADER, Long.toString(version));
+    }
+
+    /**
+     * Sends the moves still held and stops.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        Map<UUID, Batch> remaining;
+        synchronized (pending) {
+            remaining = new HashMap<>(pending);
+            pending.clear();
+        }
+        remaining.forEach((gameId, batch) -> sender.execute(() -> send(gameId, batch)));
+        sender.shutdown();
+        sender.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,128 @@
+package io.github.marcodiri.webservice.web;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bounds the messages waiting on the client outbound channel for each
+ * websocket session.
+ * <p>
+ * The simple broker hands a message to the outbound channel for every
+ * subscriber, and the channel queues them without limit while its threads
+ * are busy writing to the sessions: a game with thousands of spectators, some
+ * of them on slow connections, would pile up on the heap. Once a session has
+ * {@code maxPending} messages queued, further messages to it from the broker
+ * destinations are dropped instead; the session skips those frames and,
+ * seeing a gap in the versions, asks for a new snapshot. Any other frame, such
+ * as a snapshot reply, a receipt or an error, is never dropped.
+ */
+public class SlowConsumerGuard implements ExecutorChannelInterceptor, MeterBinder {
+
+    private static final Logger LOGGER = LogManager.getLogger(SlowConsumerGuard.class);
+
+    private final String brokerPrefix;
+    private final int maxPending;
+
+    /** Messages queued for each session, sessions with none are left out. */
+    private final Map<String, Integer> pending = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param brokerPrefix the prefix of the broker destinations.
+     * @param maxPending   the maximum number of messages queued for a
+     *                     session.
+     */
+    public SlowConsumerGuard(final String brokerPrefix, final int maxPending) {
+        this.brokerPrefix = brokerPrefix;
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        int queued = pending.merge(sessionId, 1, Integer::sum);
+        if (queued > maxPending && isBrokerMessage(message)) {
+            release(sessionId);
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                LOGGER.warn("Dropping messages to slow session {}, {} dropped so far", sessionId, dropped.get());
+            }
+            return null;
+        }
+        return message;
+    }
+
+    private boolean isBrokerMessage(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE
+                && destination != null && destination.startsWith(brokerPrefix);
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Never queued, so never handled
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (ex != null && sessionId != null) {
+            release(sessionId);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+            Exception ex) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            release(sessionId);
+        }
+    }
+
+    private void release(String sessionId) {
+        pending.computeIfPresent(sessionId, (id, queued) -> queued == 1 ? null : queued - 1);
+    }
+
+    /**
+     * @return the number of messages queued for all the sessions.
+     */
+    public int getPending() {
+        int total = 0;
+        for (int queued : pending.values()) {
+            total += queued;
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of messages dropped.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("websocket.outbound.pending", this, SlowConsumerGuard::getPending)
+                .description("Messages queued for the websocket sessions")
+                .register(registry);
+        FunctionCounter.builder("websocket.outbound.dropped", this, SlowConsumerGuard::getDropped)
+                .description("Messages dropped for websocket sessions too slow to keep up")
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,40 @@
+package io.github.marcodiri.webservice.web;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import io.github.marcodiri.webservice.projection.GamePositionSnapshot;
+import io.github.marcodiri.webservice.projection.GamePositions;
+
+@Controller
+public class SpectatorController {
+
+    private GamePositions gamePositions;
+
+    @Autowired
+    public void setGamePositions(GamePositions gamePositions) {
+        this.gamePositions = gamePositions;
+    }
+
+    /**
+     * Replies to a subscription to {@code /app/game/{gameId}/spectate} with
+     * the position of the game so far; the moves that follow are published to
+     * {@code /topic/game/{gameId}}, versioned by the
+     * {@link WebController#VERSION_HEADER} header.
+     *
+     * @param gameId the id of the game to watch.
+     * @return the position of the game and its version.
+     * @throws Exception if the game cannot be read.
+     */
+    @SubscribeMapping("/game/{gameId}/spectate")
+    public GamePositionSnapshot spectate(@DestinationVariable String gameId) throws Exception {
+        return gamePositions.snapshot(UUID.fromString(gameId))
+                .orElseThrow(() -> new MessagingException("No game " + gameId));
+    }
+
+}
@@ -1,26 +1,17 @@
 package io.github.marcodiri.webservice.web;
 
-import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
-import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import io.github.marcodiri.gameservice.api.event.GameCreated;
 import io.github.marcodiri.gameservice.api.event.MovePlayed;
 import io.github.marcodiri.gameservice.api.web.CreateGameRequest;
@@ -28,16 +19,22 @@ import io.github.marcodiri.gameservice.api.web.CreateGameResponse;
 import io.github.marcodiri.gameservice.api.web.Move;
 import io.github.marcodiri.gameservice.api.web.PlayMoveRequest;
 import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
-import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEvent;
 import io.github.marcodiri.lobbyservice.api.web.AcceptGameProposalRequest;
 import io.github.marcodiri.lobbyservice.api.web.CreateGameProposalRequest;
 import io.github.marcodiri.lobbyservice.api.web.CreateGameProposalResponse;
+import io.github.marcodiri.webservice.projection.GamePositions;
 
 @Controller
 public class WebController {
 
     private URI lobbyServiceBaseUri;
     private URI gameServiceBaseUri;
+    private BackendClient lobbyServiceClient;
+    private BackendClient gameServiceClient;
+    private MoveBatcher moveBatcher;
+    private FanOutPublisher fanOutPublisher;
+    private GamePositions gamePositions;
 
     @Autowired
     public void setLobbyServiceBaseUri(URI lobbyServiceBaseUri) {
@@ -50,145 +47,136 @@ public class WebController {
     }
 
     @Autowired
-    private SimpMessagingTemplate simpMessagingTemplate;
+    public void setLobbyServiceClient(BackendClient lobbyServiceClient) {
+        this.lobbyServiceClient = lobbyServiceClient;
+    }
+
+    @Autowired
+    public void setGameServiceClient(BackendClient gameServiceClient) {
+        this.gameServiceClient = gameServiceClient;
+    }
+
+    @Autowired
+    public void setMoveBatcher(MoveBatcher moveBatcher) {
+        this.moveBatcher = moveBatcher;
+    }
+
+    @Autowired
+    public void setFanOutPublisher(FanOutPublisher fanOutPublisher) {
+        this.fanOutPublisher = fanOutPublisher;
+    }
+
+    @Autowired
+    public void setGamePositions(GamePositions gamePositions) {
+        this.gamePositions = gamePositions;
+    }
 
     private static final Logger LOGGER = LogManager.getLogger(WebController.class);
 
-    public void notifyClients(GameProposalCreated event) {
+    /**
+     * Header of the game proposal deltas and of the move frames carrying the
+     * version they bring the proposals or the game to.
+     */
+    public static final String VERSION_HEADER = "version";
+
+    /**
+     * Publishes a change of the open game proposals.
+     *
+     * @param event   the event that changed them.
+     * @param version the version of the open game proposals after the event.
+     */
+    public void notifyClients(GameProposalEvent event, long version) {
         // FIXME: should not send back creatorId
         LOGGER.info("Sending websocket message: " + event);
-        this.simpMessagingTemplate.convertAndSend("/topic/game-proposals", event);
+        fanOutPublisher.publish(event, Map.of(VERSION_HEADER, Long.toString(version)), "/topic/game-proposals");
     }
 
     public void notifyClients(GameCreated event) {
         // FIXME: should not send back players Id
         LOGGER.info("Sending websocket message: " + event);
-        this.simpMessagingTemplate.convertAndSend("/topic/player/" + event.getPlayer1Id(), event);
-        this.simpMessagingTemplate.convertAndSend("/topic/player/" + event.getPlayer2Id(), event);
+        fanOutPublisher.publish(event,
+                "/topic/player/" + event.getPlayer1Id(),
+                "/topic/player/" + event.getPlayer2Id());
     }
 
-    public void notifyClients(MovePlayed event) {
+    /**
+     * Publishes a move to the players and the spectators of its game.
+     *
+     * @param event   the move.
+     * @param version the version of the game after the move.
+     */
+    public void notifyClients(MovePlayed event, long version) {
         // FIXME: should not send back players Id
         LOGGER.info("Sending websocket message: " + event);
-        this.simpMessagingTemplate.convertAndSend("/topic/game/" + event.getGameId(), event);
+        updateGamePosition(event, version);
+        moveBatcher.add(event, version);
+    }
+
+    /**
+     * Keeps the position served to the spectators of a game up to date,
+     * without publishing the move.
+     *
+     * @param event   the move.
+     * @param version the version of the game after the move.
+     */
+    public void updateGamePosition(MovePlayed event, long version) {
+        gamePositions.apply(event, version);
     }
 
     @MessageMapping("/create-game-proposal")
-    public CreateGameProposalResponse sendCreateGameProposalRequest(String playerId)
-            throws ClientProtocolException, IOException {
+    public CompletableFuture<CreateGameProposalResponse> sendCreateGameProposalRequest(String playerId) {
         UUID playerUuid = UUID.fromString(playerId);
         CreateGameProposalRequest createGameProposalRequest = new CreateGameProposalRequest(playerUuid);
 
-        ObjectMapper mapper = new ObjectMapper();
-
         String uri = lobbyServiceBaseUri.toString() + "/lobby/create-game-proposal";
         LOGGER.info("POSTing to endpoint {} {}", uri, createGameProposalRequest);
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-
-            HttpPost request = new HttpPost(uri);
-            request.setHeader("Content-Type", "application/json");
-            request.setHeader("Accept", "application/json");
-
-            StringEntity entity = new StringEntity(mapper.writeValueAsString(createGameProposalRequest));
-            entity.setContentType(ContentType.APPLICATION_JSON.getMimeType());
-
-            request.setEntity(entity);
-
-            CreateGameProposalResponse response = client.execute(request,
-                    httpResponse -> mapper.readValue(httpResponse.getEntity().getContent(),
-                            CreateGameProposalResponse.class));
-
-            LOGGER.info("Received response " + response);
-            return response;
-        }
+        return logResponse(lobbyServiceClient.post(uri, createGameProposalRequest, CreateGameProposalResponse.class));
     }
 
     @MessageMapping("/accept-game-proposal/{gameProposalId}")
     public void sendAcceptGameProposalRequest(
             @DestinationVariable String gameProposalId,
-            String playerId) throws IOException {
+            String playerId) {
         UUID gameProposalUuid = UUID.fromString(gameProposalId);
         UUID playerUuid = UUID.fromString(playerId);
         AcceptGameProposalRequest acceptGameProposalRequest = new AcceptGameProposalRequest(gameProposalUuid,
                 playerUuid);
 
-        ObjectMapper mapper = new ObjectMapper();
-
         String uri = lobbyServiceBaseUri.toString() + "/lobby/accept-game-proposal";
         LOGGER.info("POSTing to endpoint {} {}", uri, acceptGameProposalRequest);
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-
-            HttpPost request = new HttpPost(uri);
-            request.setHeader("Content-Type", "application/json");
-            request.setHeader("Accept", "application/json");
-
-            StringEntity entity = new StringEntity(mapper.writeValueAsString(acceptGameProposalRequest));
-            entity.setContentType(ContentType.APPLICATION_JSON.getMimeType());
-
-            request.setEntity(entity);
-
-            HttpResponse response = client.execute(request);
-
-            LOGGER.info("Received response " + response);
-        }
+        logResponse(lobbyServiceClient.post(uri, acceptGameProposalRequest));
     }
 
-    public CreateGameResponse sendCreateGameRequest(GameProposalAccepted event)
-            throws ClientProtocolException, IOException {
+    public CompletableFuture<CreateGameResponse> sendCreateGameRequest(GameProposalAccepted event) {
         CreateGameRequest createGameRequest = new CreateGameRequest(
                 event.getCreatorId(),
                 event.getAcceptorId());
 
-        ObjectMapper mapper = new ObjectMapper();
-
         String uri = gameServiceBaseUri.toString() + "/game/create-game";
         LOGGER.info("POSTing to endpoint {} {}", uri, createGameRequest);
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-
-            HttpPost request = new HttpPost(uri);
-            request.setHeader("Content-Type", "application/json");
-            request.setHeader("Accept", "application/json");
-
-            StringEntity entity = new StringEntity(mapper.writeValueAsString(createGameRequest));
-            entity.setContentType(ContentType.APPLICATION_JSON.getMimeType());
-
-            request.setEntity(entity);
-
-            CreateGameResponse response = client.execute(request,
-                    httpResponse -> mapper.readValue(httpResponse.getEntity().getContent(), CreateGameResponse.class));
-
-            LOGGER.info("Received response " + response);
-            return response;
-        }
+        return logResponse(gameServiceClient.post(uri, createGameRequest, CreateGameResponse.class));
     }
 
     @MessageMapping("/game/{gameId}/{playerId}")
     public void sendPlayMoveRequest(@DestinationVariable String gameId, @DestinationVariable String playerId,
-            Move move)
-            throws IllegalArgumentException, ClientProtocolException, IOException {
+            Move move) throws IllegalArgumentException {
         UUID gameUuid = UUID.fromString(gameId);
         UUID playerUuid = UUID.fromString(playerId);
         PlayMoveRequest playMoveRequest = new PlayMoveRequest(gameUuid, playerUuid, move);
 
-        ObjectMapper mapper = new ObjectMapper();
-
         String uri = gameServiceBaseUri.toString() + "/game/play-move";
         LOGGER.info("POSTing to endpoint {} {}", uri, playMoveRequest);
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-
-            HttpPost request = new HttpPost(uri);
-            request.setHeader("Content-Type", "application/json");
-            request.setHeader("Accept", "application/json");
-
-            StringEntity entity = new StringEntity(mapper.writeValueAsString(playMoveRequest));
-            entity.setContentType(ContentType.APPLICATION_JSON.getMimeType());
-
-            request.setEntity(entity);
-
-            HttpResponse response = client.execute(request);
+        logResponse(gameServiceClient.post(uri, playMoveRequest));
+    }
 
-            LOGGER.info("Received response " + response);
-        }
+    private static <T> CompletableFuture<T> logResponse(CompletableFuture<T> response) {
+        return response.whenComplete((result, e) -> {
+            if (e != null) {
+                LOGGER.catching(e);
+            } else {
+                LOGGER.info("Received response " + result);
+            }
+        });
     }
 
 }
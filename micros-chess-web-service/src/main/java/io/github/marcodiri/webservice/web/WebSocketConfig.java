@@ -1,21 +1,113 @@
 package io.github.marcodiri.webservice.web;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * The STOMP endpoint and the broker of the {@code /topic} destinations.
+ * <p>
+ * In {@link BrokerMode#SIMPLE} mode the subscriptions are kept by the simple
+ * broker in memory, so every client must connect to the same instance. In
+ * {@link BrokerMode#RELAY} mode they are relayed to an external STOMP broker,
+ * such as ActiveMQ, and a message published by any instance reaches the
+ * subscribers of all of them; the instances then split the event streams
+ * between them, see {@code event-handler.instance-index}.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    public enum BrokerMode {
+        SIMPLE, RELAY
+    }
+
+    private static final String BROKER_PREFIX = "/topic";
+
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final int sendTimeLimit;
+    private final int sendBufferSizeLimit;
+
+    private final BrokerMode brokerMode;
+    private final String relayHost;
+    private final int relayPort;
+    private final String relayLogin;
+    private final String relayPasscode;
+
+    /**
+     * @param maxPending          the maximum number of messages queued for a
+     *                            session before the broker messages to it
+     *                            are dropped.
+     * @param sendTimeLimit       the milliseconds a send to a session may
+     *                            take before the session is closed.
+     * @param sendBufferSizeLimit the bytes buffered for a session while a
+     *                            send to it is in progress before the
+     *                            session is closed.
+     * @param brokerMode          where the subscriptions are kept.
+     * @param relayHost           the host of the external broker.
+     * @param relayPort           the STOMP port of the external broker.
+     * @param relayLogin          the login on the external broker.
+     * @param relayPasscode       the passcode on the external broker.
+     */
+    public WebSocketConfig(
+            @Value("${websocket.max-pending-per-session:100}") int maxPending,
+            @Value("${websocket.send-time-limit-ms:5000}") int sendTimeLimit,
+            @Value("${websocket.send-buffer-size-limit:65536}") int sendBufferSizeLimit,
+            @Value("${websocket.broker:SIMPLE}") BrokerMode brokerMode,
+            @Value("${websocket.relay.host:localhost}") String relayHost,
+            @Value("${websocket.relay.port:61613}") int relayPort,
+            @Value("${websocket.relay.login:guest}") String relayLogin,
+            @Value("${websocket.relay.passcode:guest}") String relayPasscode) {
+        this.slowConsumerGuard = new SlowConsumerGuard(BROKER_PREFIX, maxPending);
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.brokerMode = brokerMode;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.relayLogin = relayLogin;
+        this.relayPasscode = relayPasscode;
+    }
+
+    @Bean
+    public SlowConsumerGuard slowConsumerGuard() {
+        return slowConsumerGuard;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if (brokerMode == BrokerMode.RELAY) {
+            config.enableStompBrokerRelay(BROKER_PREFIX)
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            config.enableSimpleBroker(BROKER_PREFIX);
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(slowConsumerGuard);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session that cannot keep up even with its queue bounded is closed,
+        // the client reconnects and starts over from a snapshot
+        registration.setSendTimeLimit(sendTimeLimit);
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws");
@@ -0,0 +1,28 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+public class BackoffTest {
+
+    private final Backoff backoff = new Backoff(100, 1000);
+
+    @RepeatedTest(20)
+    void delayDoublesWithJitterUpToMax() {
+        assertThat(backoff.delay(0)).isBetween(50L, 100L);
+        assertThat(backoff.delay(1)).isBetween(100L, 200L);
+        assertThat(backoff.delay(3)).isBetween(400L, 800L);
+        assertThat(backoff.delay(4)).isBetween(500L, 1000L);
+        assertThat(backoff.delay(100)).isBetween(500L, 1000L);
+    }
+
+    @Test
+    void invalidDelaysAreRejected() {
+        assertThatThrownBy(() -> new Backoff(0, 1000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Backoff(100, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,522 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.eventstore.dbclient.EventStoreDBClient;
+import com.eventstore.dbclient.Position;
+import com.eventstore.dbclient.RecordedEvent;
+import com.eventstore.dbclient.ResolvedEvent;
+import com.eventstore.dbclient.SubscribeToAllOptions;
+import com.eventstore.dbclient.Subscription;
+import com.eventstore.dbclient.SubscriptionListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.core.domain.event.DomainEvent;
+import io.github.marcodiri.core.domain.event.EncodedEvent;
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+import io.github.marcodiri.gameservice.api.event.GameEventType;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.web.CreateGameResponse;
+import io.github.marcodiri.gameservice.api.web.Move;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEventType;
+import io.github.marcodiri.webservice.AppConfig;
+import io.github.marcodiri.webservice.web.WebController;
+
+public class ESEventHandlerTest {
+
+    private EventStoreDBClient clientES;
+    private WebController controller;
+    private SubscriptionCheckpoint checkpoint;
+    private EventCodec eventCodec;
+    private PartitionedDispatcher dispatcher;
+    private ESEventHandler eventHandler;
+
+    @BeforeEach
+    void setup() {
+        clientES = mock(EventStoreDBClient.class);
+        controller = mock(WebController.class);
+        checkpoint = mock(SubscriptionCheckpoint.class);
+        eventCodec = new AppConfig().eventCodec(new ObjectMapper());
+        dispatcher = new PartitionedDispatcher(2, 10);
+    }
+
+    @AfterEach
+    void teardown() throws InterruptedException {
+        if (eventHandler != null) {
+            eventHandler.unsubscribe();
+        }
+        dispatcher.close();
+    }
+
+    private ESEventHandler startEventHandler() {
+        return startEventHandler(new InstancePartition(0, 1));
+    }
+
+    private ESEventHandler startEventHandler(InstancePartition partition) {
+        return new ESEventHandler(clientES, controller, eventCodec, checkpoint, new Backoff(1, 10), dispatcher,
+                partition);
+    }
+
+    private SubscriptionListener listener() {
+        ArgumentCaptor<SubscriptionListener> listener = ArgumentCaptor.forClass(SubscriptionListener.class);
+        verify(clientES).subscribeToAll(listener.capture(), any(SubscribeToAllOptions.class));
+        return listener.getValue();
+    }
+
+    private void stubSubscriptions() {
+        when(clientES.subscribeToAll(any(SubscriptionListener.class), any(SubscribeToAllOptions.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(mock(Subscription.class)));
+    }
+
+    private ResolvedEvent resolvedEvent(String streamId, DomainEvent event, Position position) throws IOException {
+        EncodedEvent encodedEvent = eventCodec.encodeEvent(event);
+        RecordedEvent recordedEvent = mock(RecordedEvent.class);
+        when(recordedEvent.getStreamId()).thenReturn(streamId);
+        when(recordedEvent.getEventType()).thenReturn(encodedEvent.getType());
+        when(recordedEvent.getEventData()).thenReturn(encodedEvent.getData());
+        when(recordedEvent.getUserMetadata()).thenReturn(encodedEvent.getMetadata());
+        when(recordedEvent.getPosition()).thenReturn(position);
+        ResolvedEvent resolvedEvent = mock(ResolvedEvent.class);
+        when(resolvedEvent.getEvent()).thenReturn(recordedEvent);
+        when(resolvedEvent.getOriginalEvent()).thenReturn(recordedEvent);
+        return resolvedEvent;
+    }
+
+    @Nested
+    class EventTypeFilter {
+
+        @Test
+        void subscriptionIsFilteredOnTheHandledEventTypes() {
+            stubSubscriptions();
+            eventHandler = startEventHandler();
+
+            assertThat(eventHandler.getHandledEventTypes()).containsExactlyInAnyOrder(
+                    GameProposalEventType.ACCEPTED.toString(),
+                    GameEventType.CREATED.toString(),
+                    GameEventType.MOVE.toString());
+        }
+
+        @Test
+        void patternMatchesExactlyTheHandledEventTypes() {
+            stubSubscriptions();
+            eventHandler = startEventHandler();
+            Pattern pattern = Pattern.compile(ESEventHandler.eventTypePattern(eventHandler.getHandledEventTypes()));
+
+            assertThat(eventHandler.getHandledEventTypes())
+                    .allSatisfy(eventType -> assertThat(pattern.matcher(eventType).matches()).isTrue());
+            assertThat(List.of(
+                    GameProposalEventType.CREATED.toString(),
+                    GameProposalEventType.CANCELED.toString(),
+                    "x" + GameEventType.CREATED,
+                    GameEventType.CREATED + "x",
+                    GameEventType.CREATED + "|" + GameEventType.MOVE,
+                    "$metadata",
+                    ""))
+                    .allSatisfy(eventType -> assertThat(pattern.matcher(eventType).find()).isFalse());
+        }
+
+        @Test
+        void patternEscapesRegularExpressionCharacters() {
+            Pattern pattern = Pattern.compile(ESEventHandler.eventTypePattern(List.of("game.created", "move+")));
+
+            assertThat(pattern.matcher("game.created").matches()).isTrue();
+            assertThat(pattern.matcher("move+").matches()).isTrue();
+            assertThat(pattern.matcher("game-created").matches()).isFalse();
+            assertThat(pattern.matcher("movee").matches()).isFalse();
+        }
+
+    }
+
+    @Test
+    void handledEventsAreDispatchedAndCheckpointed() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        GameCreated event = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        Position position = new Position(10, 5);
+        when(checkpoint.begin(position)).thenReturn(7L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent("Game_1", event, position));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> {
+            verify(controller).notifyClients(event);
+            verify(checkpoint).complete(7L);
+        });
+    }
+
+    @Test
+    void eventOfUnhandledTypeIsCheckpointedWithoutHandling() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        GameProposalCreated event = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        Position position = new Position(10, 5);
+        when(checkpoint.begin(position)).thenReturn(7L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent("GameProposal_1", event, position));
+
+        verify(checkpoint).complete(7L);
+        verifyNoInteractions(controller);
+    }
+
+    @Test
+    void eventOfUnknownTypeIsCheckpointedWithoutDecoding() {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        Position position = new Position(10, 5);
+        RecordedEvent recordedEvent = mock(RecordedEvent.class);
+        when(recordedEvent.getStreamId()).thenReturn("Unknown_1");
+        when(recordedEvent.getEventType()).thenReturn("unknown-type");
+        when(recordedEvent.getEventData()).thenReturn("not json".getBytes(StandardCharsets.UTF_8));
+        when(recordedEvent.getPosition()).thenReturn(position);
+        ResolvedEvent resolvedEvent = mock(ResolvedEvent.class);
+        when(resolvedEvent.getEvent()).thenReturn(recordedEvent);
+        when(resolvedEvent.getOriginalEvent()).thenReturn(recordedEvent);
+        when(checkpoint.begin(position)).thenReturn(7L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent);
+
+        verify(checkpoint).complete(7L);
+        verifyNoInteractions(controller);
+        assertThat(eventHandler.getFailedEvents()).isZero();
+    }
+
+    @Test
+    void eachHandledTypeIsDispatchedToItsHandler() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        GameProposalAccepted accepted = new GameProposalAccepted(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        when(controller.sendCreateGameRequest(accepted))
+                .thenReturn(CompletableFuture.completedFuture(mock(CreateGameResponse.class)));
+        GameCreated created = new GameCreated(UUID.randomUUID(), accepted.getCreatorId(), accepted.getAcceptorId());
+        MovePlayed move = new MovePlayed(created.getGameId(), created.getPlayer1Id(), new Move("e2", "e4"));
+        ResolvedEvent resolvedMove = resolvedEvent("Game_1", move, new Position(3, 3));
+        when(resolvedMove.getEvent().getRevision()).thenReturn(1L);
+        SubscriptionListener listener = listener();
+
+        listener.onEvent(mock(Subscription.class), resolvedEvent("GameProposal_1", accepted, new Position(1, 1)));
+        listener.onEvent(mock(Subscription.class), resolvedEvent("Game_1", created, new Position(2, 2)));
+        listener.onEvent(mock(Subscription.class), resolvedMove);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> {
+            verify(controller).sendCreateGameRequest(accepted);
+            verify(controller).notifyClients(created);
+            verify(controller).notifyClients(move, 1);
+        });
+        verify(controller, never()).updateGamePosition(move, 1);
+    }
+
+    @Test
+    void movesArePublishedWithTheirRevision() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        MovePlayed move = new MovePlayed(UUID.randomUUID(), UUID.randomUUID(), new Move("e2", "e4"));
+        ResolvedEvent resolvedEvent = resolvedEvent("Game_1", move, new Position(10, 5));
+        when(resolvedEvent.getEvent().getRevision()).thenReturn(3L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(controller).notifyClients(move, 3));
+    }
+
+    @Test
+    void eventsOfStreamsOwnedByAnotherInstanceAreOnlyFollowed() throws IOException {
+        stubSubscriptions();
+        String stream = "Game_1";
+        InstancePartition partition = new InstancePartition(0, 2);
+        if (partition.owns(stream)) {
+            partition = new InstancePartition(1, 2);
+        }
+        eventHandler = startEventHandler(partition);
+        GameCreated created = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        MovePlayed move = new MovePlayed(created.getGameId(), UUID.randomUUID(), new Move("e2", "e4"));
+        ResolvedEvent resolvedMove = resolvedEvent(stream, move, new Position(11, 6));
+        when(resolvedMove.getEvent().getRevision()).thenReturn(1L);
+        SubscriptionListener listener = listener();
+
+        listener.onEvent(mock(Subscription.class), resolvedEvent(stream, created, new Position(10, 5)));
+        listener.onEvent(mock(Subscription.class), resolvedMove);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(controller).updateGamePosition(move, 1));
+        verify(controller, never()).notifyClients(created);
+        verify(controller, never()).notifyClients(move, 1);
+    }
+
+    @Test
+    void slowStreamDoesNotHoldUpOtherStreams() throws Exception {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        CountDownLatch release = new CountDownLatch(1);
+        GameProposalAccepted slowEvent = new GameProposalAccepted(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        when(controller.sendCreateGameRequest(slowEvent)).thenAnswer(invocation -> {
+            release.await();
+            return CompletableFuture.completedFuture(null);
+        });
+        GameCreated slowStreamEvent = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        GameCreated otherStreamEvent = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        // Two partitions: keys whose hash codes differ in parity never share one
+        String slowStream = "a";
+        String otherStream = "b";
+        SubscriptionListener listener = listener();
+
+        listener.onEvent(mock(Subscription.class), resolvedEvent(slowStream, slowEvent, new Position(1, 1)));
+        listener.onEvent(mock(Subscription.class), resolvedEvent(slowStream, slowStreamEvent, new Position(2, 2)));
+        listener.onEvent(mock(Subscription.class), resolvedEvent(otherStream, otherStreamEvent, new Position(3, 3)));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(controller).notifyClients(otherStreamEvent));
+        verify(controller, never()).notifyClients(slowStreamEvent);
+
+        release.countDown();
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(controller).notifyClients(slowStreamEvent));
+    }
+
+    @Test
+    void acceptedProposalIsCheckpointedOnceTheGameIsCreated() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        GameProposalAccepted event = new GameProposalAccepted(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        CompletableFuture<CreateGameResponse> response = new CompletableFuture<>();
+        when(controller.sendCreateGameRequest(event)).thenReturn(response);
+        Position position = new Position(10, 5);
+        when(checkpoint.begin(position)).thenReturn(7L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent("GameProposal_1", event, position));
+
+        verify(checkpoint, after(200).never()).complete(7L);
+
+        response.complete(mock(CreateGameResponse.class));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(checkpoint).complete(7L));
+        assertThat(eventHandler.getFailedEvents()).isZero();
+    }
+
+    @Test
+    void createGameRequestThatCouldNotBeSentIsRetried() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        GameProposalAccepted event = new GameProposalAccepted(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        when(controller.sendCreateGameRequest(event))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("too many requests")))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("connection refused")))
+                .thenReturn(CompletableFuture.completedFuture(mock(CreateGameResponse.class)));
+        Position position = new Position(10, 5);
+        when(checkpoint.begin(position)).thenReturn(7L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent("GameProposal_1", event, position));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(checkpoint).complete(7L));
+        verify(controller, times(3)).sendCreateGameRequest(event);
+        assertThat(eventHandler.getFailedEvents()).isZero();
+    }
+
+    @Test
+    void createGameRequestThatWasSentIsNotRetried() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        GameProposalAccepted event = new GameProposalAccepted(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        when(controller.sendCreateGameRequest(event))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("read timed out")));
+        Position position = new Position(10, 5);
+        when(checkpoint.begin(position)).thenReturn(7L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent("GameProposal_1", event, position));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(checkpoint).complete(7L));
+        verify(controller, after(200).times(1)).sendCreateGameRequest(event);
+        assertThat(eventHandler.getFailedEvents()).isEqualTo(1);
+    }
+
+    @Test
+    void createGameRequestIsSentAtMostMaxAttemptsTimes() throws IOException {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        GameProposalAccepted event = new GameProposalAccepted(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        when(controller.sendCreateGameRequest(event))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new ConnectException("connection refused")));
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent("GameProposal_1", event, new Position(10, 5)));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(eventHandler.getFailedEvents()).isEqualTo(1));
+        verify(controller, times(ESEventHandler.MAX_CREATE_GAME_ATTEMPTS)).sendCreateGameRequest(event);
+    }
+
+    @Test
+    void droppedSubscriptionIsReestablished() {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        assertThat(eventHandler.isLive()).isTrue();
+
+        listener().onError(mock(Subscription.class), new RuntimeException("connection reset"));
+
+        assertThat(eventHandler.getDrops()).isEqualTo(1);
+        await().atMost(5, SECONDS).untilAsserted(() -> {
+            verify(clientES, times(2)).subscribeToAll(any(SubscriptionListener.class),
+                    any(SubscribeToAllOptions.class));
+            assertThat(eventHandler.isLive()).isTrue();
+            assertThat(eventHandler.getReconnects()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void droppedSubscriptionResumesAfterTheEventsInFlight() throws IOException {
+        stubSubscriptions();
+        Position checkpointed = new Position(1, 1);
+        when(checkpoint.getPosition()).thenReturn(Optional.of(checkpointed));
+        eventHandler = startEventHandler();
+        GameProposalAccepted inFlightEvent = new GameProposalAccepted(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        CompletableFuture<CreateGameResponse> response = new CompletableFuture<>();
+        when(controller.sendCreateGameRequest(inFlightEvent)).thenReturn(response);
+        Position inFlightPosition = new Position(10, 5);
+        when(checkpoint.begin(inFlightPosition)).thenReturn(7L);
+        ResolvedEvent resolvedInFlightEvent = resolvedEvent("GameProposal_1", inFlightEvent, inFlightPosition);
+        SubscriptionListener droppedListener = listener();
+        assertThat(eventHandler.getResumePosition()).containsSame(checkpointed);
+
+        droppedListener.onEvent(mock(Subscription.class), resolvedInFlightEvent);
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(controller).sendCreateGameRequest(inFlightEvent));
+        droppedListener.onError(mock(Subscription.class), new RuntimeException("connection reset"));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(clientES, times(2))
+                .subscribeToAll(any(SubscriptionListener.class), any(SubscribeToAllOptions.class)));
+        ArgumentCaptor<SubscriptionListener> listeners = ArgumentCaptor.forClass(SubscriptionListener.class);
+        verify(clientES, times(2)).subscribeToAll(listeners.capture(), any(SubscribeToAllOptions.class));
+        assertThat(eventHandler.getResumePosition()).containsSame(inFlightPosition);
+
+        // A late delivery of the dropped subscription is not handled again
+        droppedListener.onEvent(mock(Subscription.class), resolvedInFlightEvent);
+        GameCreated nextEvent = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        Position nextPosition = new Position(11, 6);
+        when(checkpoint.begin(nextPosition)).thenReturn(8L);
+        listeners.getAllValues().get(1).onEvent(mock(Subscription.class),
+                resolvedEvent("Game_1", nextEvent, nextPosition));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> {
+            verify(controller).notifyClients(nextEvent);
+            verify(checkpoint).complete(8L);
+        });
+        verify(checkpoint, never()).complete(7L);
+
+        response.complete(mock(CreateGameResponse.class));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(checkpoint).complete(7L));
+        verify(checkpoint, times(1)).begin(inFlightPosition);
+        verify(controller, times(1)).sendCreateGameRequest(inFlightEvent);
+    }
+
+    @Test
+    void rejectedEventIsAbortedAndDeliveredAgain() throws IOException {
+        stubSubscriptions();
+        PartitionedDispatcher rejectingDispatcher = mock(PartitionedDispatcher.class);
+        doThrow(new RejectedExecutionException("interrupted"))
+                .doAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(1).run();
+                    return null;
+                })
+                .when(rejectingDispatcher).dispatch(any(), any());
+        eventHandler = new ESEventHandler(clientES, controller, eventCodec, checkpoint, new Backoff(1, 10),
+                rejectingDispatcher, new InstancePartition(0, 1));
+        GameCreated event = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        Position position = new Position(10, 5);
+        when(checkpoint.begin(position)).thenReturn(7L, 8L);
+        ResolvedEvent resolvedEvent = resolvedEvent("Game_1", event, position);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent);
+
+        verify(checkpoint).abort(7L);
+        verify(checkpoint, never()).complete(7L);
+        assertThat(eventHandler.getResumePosition()).isEmpty();
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(clientES, times(2))
+                .subscribeToAll(any(SubscriptionListener.class), any(SubscribeToAllOptions.class)));
+        ArgumentCaptor<SubscriptionListener> listeners = ArgumentCaptor.forClass(SubscriptionListener.class);
+        verify(clientES, times(2)).subscribeToAll(listeners.capture(), any(SubscribeToAllOptions.class));
+
+        listeners.getAllValues().get(1).onEvent(mock(Subscription.class), resolvedEvent);
+
+        verify(controller).notifyClients(event);
+        verify(checkpoint).complete(8L);
+    }
+
+    @Test
+    void eventRejectedByClosedDispatcherIsAborted() throws Exception {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        dispatcher.close();
+        GameCreated event = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        Position position = new Position(10, 5);
+        when(checkpoint.begin(position)).thenReturn(7L);
+
+        listener().onEvent(mock(Subscription.class), resolvedEvent("Game_1", event, position));
+
+        verify(checkpoint).abort(7L);
+        verify(controller, never()).notifyClients(event);
+        verify(clientES, after(200).times(1)).subscribeToAll(any(SubscriptionListener.class),
+                any(SubscribeToAllOptions.class));
+    }
+
+    @Test
+    void failedSubscriptionAttemptsAreRetried() {
+        when(clientES.subscribeToAll(any(SubscriptionListener.class), any(SubscribeToAllOptions.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("unavailable")))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("unavailable")))
+                .thenReturn(CompletableFuture.completedFuture(mock(Subscription.class)));
+
+        eventHandler = startEventHandler();
+
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(eventHandler.isLive()).isTrue());
+        verify(clientES, times(3)).subscribeToAll(any(SubscriptionListener.class),
+                any(SubscribeToAllOptions.class));
+        assertThat(eventHandler.getDrops()).isZero();
+    }
+
+    @Test
+    void subscriptionIsNotReestablishedOnceUnsubscribed() {
+        stubSubscriptions();
+        eventHandler = startEventHandler();
+        SubscriptionListener listener = listener();
+
+        eventHandler.unsubscribe();
+        listener.onError(mock(Subscription.class), new RuntimeException("cancelled"));
+
+        verify(clientES, after(200).times(1)).subscribeToAll(any(SubscriptionListener.class),
+                any(SubscribeToAllOptions.class));
+        assertThat(eventHandler.getDrops()).isZero();
+    }
+
+}
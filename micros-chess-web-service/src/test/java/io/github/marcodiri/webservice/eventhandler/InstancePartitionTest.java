@@ -0,0 +1,41 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class InstancePartitionTest {
+
+    @Test
+    void everyStreamIsOwnedByExactlyOneInstance() {
+        List<InstancePartition> partitions = IntStream.range(0, 3)
+                .mapToObj(index -> new InstancePartition(index, 3))
+                .toList();
+
+        for (int i = 0; i < 100; i++) {
+            String streamId = "Game_" + UUID.randomUUID();
+            assertThat(partitions.stream().filter(partition -> partition.owns(streamId))).hasSize(1);
+        }
+    }
+
+    @Test
+    void singleInstanceOwnsEveryStream() {
+        InstancePartition partition = new InstancePartition(0, 1);
+
+        assertThat(partition.owns("Game_" + UUID.randomUUID())).isTrue();
+        assertThat(partition.owns("GameProposal_" + UUID.randomUUID())).isTrue();
+    }
+
+    @Test
+    void invalidInstancesAreRejected() {
+        assertThatThrownBy(() -> new InstancePartition(0, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new InstancePartition(2, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new InstancePartition(-1, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
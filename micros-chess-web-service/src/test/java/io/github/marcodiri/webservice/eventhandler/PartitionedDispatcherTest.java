@@ -0,0 +1,82 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class PartitionedDispatcherTest {
+
+    private PartitionedDispatcher dispatcher;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        dispatcher.close();
+    }
+
+    @Test
+    void tasksOfOneKeyRunInOrder() {
+        dispatcher = new PartitionedDispatcher(4, 100);
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            int task = i;
+            dispatcher.dispatch("stream", () -> handled.add(task));
+        }
+
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(handled)
+                .containsExactlyElementsOf(IntStream.range(0, 50).boxed().collect(Collectors.toList())));
+    }
+
+    @Test
+    void failingTaskDoesNotStopItsPartition() {
+        dispatcher = new PartitionedDispatcher(1, 10);
+        CountDownLatch handled = new CountDownLatch(1);
+
+        dispatcher.dispatch("stream", () -> {
+            throw new IllegalStateException("handler failed");
+        });
+        dispatcher.dispatch("stream", handled::countDown);
+
+        await().atMost(5, SECONDS).until(() -> handled.getCount() == 0);
+    }
+
+    @Test
+    void dispatchBlocksWhilePartitionIsFull() throws Exception {
+        dispatcher = new PartitionedDispatcher(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch("stream", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, SECONDS)).isTrue();
+        dispatcher.dispatch("stream", () -> {
+        });
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> dispatcher.dispatch("stream", () -> {
+        }));
+
+        assertThat(blocked).failsWithin(200, MILLISECONDS)
+                .withThrowableOfType(TimeoutException.class);
+        assertThat(dispatcher.queued()).isEqualTo(1);
+        release.countDown();
+        assertThat(blocked).succeedsWithin(5, SECONDS);
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.github.marcodiri.webservice.eventhandler;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.eventstore.dbclient.Position;
+
+public class SubscriptionCheckpointTest {
+
+    private static final long NO_PERIODIC_FLUSH = 60_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void checkpointIsEmptyWithoutFile() {
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(directory.resolve("checkpoint"),
+                NO_PERIODIC_FLUSH)) {
+            assertThat(checkpoint.getPosition()).isEmpty();
+        }
+    }
+
+    @Test
+    void closeWritesLastPositionForNextStart() {
+        Path file = directory.resolve("data/checkpoint");
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(file, NO_PERIODIC_FLUSH)) {
+            checkpoint.update(new Position(10, 5));
+            checkpoint.update(new Position(20, 15));
+        }
+
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(file, NO_PERIODIC_FLUSH)) {
+            assertThat(checkpoint.getPosition()).hasValueSatisfying(position -> {
+                assertThat(position.getCommitUnsigned()).isEqualTo(20);
+                assertThat(position.getPrepareUnsigned()).isEqualTo(15);
+            });
+        }
+    }
+
+    @Test
+    void flushWritesOnlyChangedPositions() throws Exception {
+        Path file = directory.resolve("checkpoint");
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(file, NO_PERIODIC_FLUSH)) {
+            checkpoint.flush();
+            assertThat(file).doesNotExist();
+
+            checkpoint.update(new Position(10, 5));
+            checkpoint.flush();
+            assertThat(file).hasContent("10/5");
+
+            Files.writeString(file, "overwritten");
+            checkpoint.flush();
+            assertThat(file).hasContent("overwritten");
+        }
+    }
+
+    @Test
+    void positionsAreFlushedPeriodically() throws Exception {
+        Path file = directory.resolve("checkpoint");
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(file, 10)) {
+            checkpoint.update(new Position(10, 5));
+
+            await().atMost(5, SECONDS).untilAsserted(() -> assertThat(file).hasContent("10/5"));
+        }
+    }
+
+    @Test
+    void unreadableCheckpointIsIgnored() throws Exception {
+        Path file = directory.resolve("checkpoint");
+        Files.writeString(file, "garbage");
+
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(file, NO_PERIODIC_FLUSH)) {
+            assertThat(checkpoint.getPosition()).isEmpty();
+        }
+    }
+
+    @Test
+    void checkpointPassesOnlyEventsWithAllEarlierEventsComplete() {
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(directory.resolve("checkpoint"),
+                NO_PERIODIC_FLUSH)) {
+            Position first = new Position(10, 10);
+            Position second = new Position(20, 20);
+            Position third = new Position(30, 30);
+            long firstTicket = checkpoint.begin(first);
+            long secondTicket = checkpoint.begin(second);
+            long thirdTicket = checkpoint.begin(third);
+
+            checkpoint.complete(secondTicket);
+            assertThat(checkpoint.getPosition()).isEmpty();
+
+            checkpoint.complete(firstTicket);
+            assertThat(checkpoint.getPosition()).containsSame(second);
+            assertThat(checkpoint.inFlight()).isEqualTo(1);
+
+            checkpoint.complete(thirdTicket);
+            assertThat(checkpoint.getPosition()).containsSame(third);
+            assertThat(checkpoint.inFlight()).isZero();
+        }
+    }
+
+    @Test
+    void abortedEventsAreForgottenWithoutPassingThem() {
+        try (SubscriptionCheckpoint checkpoint = new SubscriptionCheckpoint(directory.resolve("checkpoint"),
+                NO_PERIODIC_FLUSH)) {
+            Position first = new Position(10, 10);
+            long firstTicket = checkpoint.begin(first);
+            long secondTicket = checkpoint.begin(new Position(20, 20));
+            long thirdTicket = checkpoint.begin(new Position(30, 30));
+            checkpoint.complete(thirdTicket);
+
+            checkpoint.abort(secondTicket);
+            assertThat(checkpoint.inFlight()).isEqualTo(1);
+
+            checkpoint.complete(firstTicket);
+            assertThat(checkpoint.getPosition()).containsSame(first);
+            assertThat(checkpoint.inFlight()).isZero();
+
+            // Late completions of aborted events are ignored
+            checkpoint.complete(secondTicket);
+            checkpoint.complete(thirdTicket);
+            assertThat(checkpoint.getPosition()).containsSame(first);
+            assertThat(checkpoint.inFlight()).isZero();
+
+            Position again = new Position(20, 20);
+            checkpoint.complete(checkpoint.begin(again));
+            assertThat(checkpoint.getPosition()).containsSame(again);
+        }
+    }
+
+}
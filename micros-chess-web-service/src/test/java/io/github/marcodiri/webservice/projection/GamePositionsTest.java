@@ -0,0 +1,122 @@
+package io.github.marcodiri.webservice.projection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.web.GamePositionResponse;
+import io.github.marcodiri.gameservice.api.web.Move;
+import io.github.marcodiri.webservice.web.BackendClient;
+
+public class GamePositionsTest {
+
+    private static final URI GAME_SERVICE = URI.create("http://game-service/rest");
+
+    private static final String STARTING = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+    private static final String AFTER_E5 = "rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2";
+
+    private BackendClient gameServiceClient;
+    private GamePositions positions;
+
+    @BeforeEach
+    void setup() {
+        gameServiceClient = mock(BackendClient.class);
+        positions = new GamePositions(gameServiceClient, GAME_SERVICE, 10, 1000);
+    }
+
+    private static String positionUri(UUID gameId) {
+        return "http://game-service/rest/game/position/" + gameId;
+    }
+
+    private void stubPosition(UUID gameId, long version, String fen) {
+        when(gameServiceClient.get(positionUri(gameId), GamePositionResponse.class))
+                .thenReturn(CompletableFuture.completedFuture(
+                        Optional.of(new GamePositionResponse(gameId, version, fen))));
+    }
+
+    private void verifyReads(UUID gameId, int times) {
+        verify(gameServiceClient, times(times)).get(positionUri(gameId), GamePositionResponse.class);
+    }
+
+    private static MovePlayed move(UUID gameId, String from, String to) {
+        return new MovePlayed(gameId, UUID.randomUUID(), new Move(from, to));
+    }
+
+    @Test
+    void gameIsReadOnceUntilItsNextMove() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        stubPosition(gameId, 1, AFTER_E4);
+
+        assertThat(positions.snapshot(gameId)).contains(new GamePositionSnapshot(gameId, 1, AFTER_E4));
+        assertThat(positions.snapshot(gameId)).contains(new GamePositionSnapshot(gameId, 1, AFTER_E4));
+        verifyReads(gameId, 1);
+
+        positions.apply(move(gameId, "e7", "e5"), 2);
+        stubPosition(gameId, 2, AFTER_E5);
+
+        assertThat(positions.snapshot(gameId)).contains(new GamePositionSnapshot(gameId, 2, AFTER_E5));
+        verifyReads(gameId, 2);
+    }
+
+    @Test
+    void movesDeliveredAgainAreIgnored() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        stubPosition(gameId, 1, AFTER_E4);
+        positions.snapshot(gameId);
+
+        positions.apply(move(gameId, "e2", "e4"), 1);
+
+        assertThat(positions.snapshot(gameId)).contains(new GamePositionSnapshot(gameId, 1, AFTER_E4));
+        verifyReads(gameId, 1);
+    }
+
+    @Test
+    void movesOfGamesNotWatchedAreNotRead() throws Exception {
+        UUID gameId = UUID.randomUUID();
+
+        positions.apply(move(gameId, "e2", "e4"), 1);
+
+        verify(gameServiceClient, never()).get(any(String.class), eq(GamePositionResponse.class));
+    }
+
+    @Test
+    void leastRecentlyWatchedGamesAreDropped() throws Exception {
+        positions = new GamePositions(gameServiceClient, GAME_SERVICE, 1, 1000);
+        UUID gameId = UUID.randomUUID();
+        UUID otherGameId = UUID.randomUUID();
+        stubPosition(gameId, 0, STARTING);
+        stubPosition(otherGameId, 0, STARTING);
+
+        positions.snapshot(gameId);
+        positions.snapshot(otherGameId);
+        positions.snapshot(gameId);
+
+        verifyReads(gameId, 2);
+        verifyReads(otherGameId, 1);
+    }
+
+    @Test
+    void unknownGameHasNoSnapshot() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        when(gameServiceClient.get(positionUri(gameId), GamePositionResponse.class))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        assertThat(positions.snapshot(gameId)).isEmpty();
+    }
+
+}
@@ -0,0 +1,153 @@
+package io.github.marcodiri.webservice.projection;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.core.eventstore.EventStore;
+import io.github.marcodiri.core.eventstore.InMemoryEventStore;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalAccepted;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCanceled;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalCreated;
+import io.github.marcodiri.lobbyservice.api.event.GameProposalEvent;
+import io.github.marcodiri.webservice.AppConfig;
+import io.github.marcodiri.webservice.eventhandler.Backoff;
+import io.github.marcodiri.webservice.eventhandler.InstancePartition;
+import io.github.marcodiri.webservice.web.WebController;
+
+public class GameProposalsProjectionTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final EventCodec eventCodec = new AppConfig().eventCodec(mapper);
+
+    private EventStore eventStore;
+    private WebController controller;
+    private GameProposalsProjection projection;
+
+    @BeforeEach
+    void setup() {
+        eventStore = new InMemoryEventStore();
+        controller = mock(WebController.class);
+        projection = createProjection();
+    }
+
+    private GameProposalsProjection createProjection() {
+        return new GameProposalsProjection(eventStore, controller, eventCodec, new Backoff(1, 10),
+                new InstancePartition(0, 1), directory.resolve("game-proposals.json").toString(), 60_000, mapper);
+    }
+
+    @AfterEach
+    void teardown() {
+        projection.close();
+        eventStore.close();
+    }
+
+    private void append(GameProposalEvent event) throws Exception {
+        eventStore.append("GameProposal_" + event.getGameProposalId(), EventStore.ANY,
+                List.of(eventCodec.encodeEvent(event))).get();
+    }
+
+    @Test
+    void snapshotIsEmptyAtVersionZero() {
+        assertThat(projection.snapshot()).isEqualTo(new GameProposalsSnapshot(0, List.of()));
+    }
+
+    @Test
+    void createdProposalsAreOpenUntilAcceptedOrCanceled() {
+        GameProposalCreated first = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        GameProposalCreated second = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        GameProposalCreated third = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        GameProposalEvent accepted = new GameProposalAccepted(first.getGameProposalId(), first.getCreatorId(),
+                UUID.randomUUID());
+        GameProposalEvent canceled = new GameProposalCanceled(third.getGameProposalId());
+
+        projection.apply(first);
+        projection.apply(second);
+        projection.apply(third);
+        projection.apply(accepted);
+        projection.apply(canceled);
+
+        assertThat(projection.snapshot().getGameProposals()).containsExactly(second);
+        assertThat(projection.snapshot().getVersion()).isEqualTo(5);
+        verify(controller).notifyClients(first, 1);
+        verify(controller).notifyClients(second, 2);
+        verify(controller).notifyClients(third, 3);
+        verify(controller).notifyClients(accepted, 4);
+        verify(controller).notifyClients(canceled, 5);
+    }
+
+    @Test
+    void eventsNotChangingOpenProposalsAreNotPublished() {
+        GameProposalCreated created = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        GameProposalEvent canceledUnknown = new GameProposalCanceled(UUID.randomUUID());
+
+        projection.apply(created);
+        projection.apply(created);
+        projection.apply(canceledUnknown);
+
+        assertThat(projection.snapshot()).isEqualTo(new GameProposalsSnapshot(1, List.of(created)));
+        verify(controller).notifyClients(created, 1);
+        verify(controller, times(1)).notifyClients(any(GameProposalEvent.class), anyLong());
+    }
+
+    @Test
+    void eventsWrittenBeforeTheProjectionStartedAreAppliedButNotPublished() throws Exception {
+        projection.close();
+        GameProposalCreated old = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        append(old);
+
+        projection = createProjection();
+
+        await().atMost(5, SECONDS).untilAsserted(
+                () -> assertThat(projection.snapshot()).isEqualTo(new GameProposalsSnapshot(1, List.of(old))));
+        verify(controller, never()).notifyClients(any(GameProposalEvent.class), anyLong());
+
+        GameProposalCreated created = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        append(created);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(controller).notifyClients(created, 2));
+    }
+
+    @Test
+    void restartedProjectionResumesFromItsState() throws Exception {
+        GameProposalCreated canceledLater = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        GameProposalCreated open = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        append(canceledLater);
+        append(open);
+        append(new GameProposalCanceled(canceledLater.getGameProposalId()));
+        await().atMost(5, SECONDS).untilAsserted(
+                () -> assertThat(projection.snapshot()).isEqualTo(new GameProposalsSnapshot(3, List.of(open))));
+        projection.close();
+        GameProposalCreated whileDown = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        append(whileDown);
+
+        projection = createProjection();
+
+        // Replayed from the start, the canceled proposal would be opened and
+        // canceled again, counting twice in the version
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(projection.snapshot())
+                .isEqualTo(new GameProposalsSnapshot(4, List.of(open, whileDown))));
+    }
+
+}
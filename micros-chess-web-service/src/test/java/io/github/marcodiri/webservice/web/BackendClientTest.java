@@ -0,0 +1,156 @@
+package io.github.marcodiri.webservice.web;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.web.Move;
+
+public class BackendClientTest {
+
+    private CloseableHttpClient httpClient;
+    private BackendClient backendClient;
+
+    @BeforeEach
+    void setup() {
+        httpClient = mock(CloseableHttpClient.class);
+        backendClient = new BackendClient("test-service", httpClient, new EventCodec(), 1, 1);
+    }
+
+    @AfterEach
+    void close() {
+        backendClient.close();
+    }
+
+    @Test
+    void postSendsJsonBodyOffCallerThread() throws Exception {
+        StatusLine statusLine = mock(StatusLine.class);
+        Thread caller = Thread.currentThread();
+        Thread[] sender = new Thread[1];
+        when(httpClient.execute(any(HttpUriRequest.class), any(ResponseHandler.class)))
+                .thenAnswer(invocation -> {
+                    sender[0] = Thread.currentThread();
+                    return statusLine;
+                });
+
+        StatusLine response = backendClient.post("http://test-service/endpoint", new Move("e2", "e4"))
+                .get(5, SECONDS);
+
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(request.capture(), any(ResponseHandler.class));
+        assertThat(response).isSameAs(statusLine);
+        assertThat(sender[0]).isNotSameAs(caller);
+        assertThat(request.getValue().getURI()).hasToString("http://test-service/endpoint");
+        assertThat(((HttpPost) request.getValue()).getEntity().getContent().readAllBytes())
+                .isEqualTo(new EventCodec().encode(new Move("e2", "e4")));
+    }
+
+    @Test
+    void postCompletesExceptionallyIfRequestFails() throws Exception {
+        when(httpClient.execute(any(HttpUriRequest.class), any(ResponseHandler.class)))
+                .thenThrow(new IOException("connection refused"));
+
+        CompletableFuture<StatusLine> response = backendClient.post("http://test-service/endpoint",
+                new Move("e2", "e4"));
+
+        assertThat(response).failsWithin(5, SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void postRejectsRequestsBeyondInFlightAndQueuedLimits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(httpClient.execute(any(HttpUriRequest.class), any(ResponseHandler.class)))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await();
+                    return null;
+                });
+
+        CompletableFuture<StatusLine> inFlight = backendClient.post("http://test-service/endpoint", "1");
+        assertThat(started.await(5, SECONDS)).isTrue();
+        CompletableFuture<StatusLine> queued = backendClient.post("http://test-service/endpoint", "2");
+        CompletableFuture<StatusLine> rejected = backendClient.post("http://test-service/endpoint", "3");
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThat(rejected).failsWithin(0, SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+
+        assertThat(inFlight).succeedsWithin(5, SECONDS);
+        assertThat(queued).succeedsWithin(5, SECONDS);
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class), any(ResponseHandler.class));
+    }
+
+    private void respond(int statusCode, String body) throws Exception {
+        StatusLine statusLine = mock(StatusLine.class);
+        when(statusLine.getStatusCode()).thenReturn(statusCode);
+        HttpResponse httpResponse = mock(HttpResponse.class);
+        when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        when(httpResponse.getEntity()).thenReturn(new StringEntity(body, ContentType.APPLICATION_JSON));
+        when(httpClient.execute(any(HttpUriRequest.class), any(ResponseHandler.class)))
+                .thenAnswer(invocation -> invocation.<ResponseHandler<?>>getArgument(1).handleResponse(httpResponse));
+    }
+
+    @Test
+    void getReadsJsonResponse() throws Exception {
+        respond(200, "{\"from\":\"e2\",\"to\":\"e4\"}");
+
+        Optional<Move> response = backendClient.get("http://test-service/resource", Move.class).get(5, SECONDS);
+
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(request.capture(), any(ResponseHandler.class));
+        assertThat(request.getValue()).isInstanceOf(HttpGet.class);
+        assertThat(request.getValue().getURI()).hasToString("http://test-service/resource");
+        assertThat(response).contains(new Move("e2", "e4"));
+    }
+
+    @Test
+    void getIsEmptyIfResourceIsNotFound() throws Exception {
+        respond(404, "");
+
+        assertThat(backendClient.get("http://test-service/resource", Move.class)).succeedsWithin(5, SECONDS)
+                .isEqualTo(Optional.empty());
+    }
+
+    @Test
+    void getCompletesExceptionallyOnErrorStatus() throws Exception {
+        respond(500, "");
+
+        assertThat(backendClient.get("http://test-service/resource", Move.class)).failsWithin(5, SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(HttpResponseException.class);
+    }
+
+}
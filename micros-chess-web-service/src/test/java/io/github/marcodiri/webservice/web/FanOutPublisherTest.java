@@ -0,0 +1,89 @@
+package io.github.marcodiri.webservice.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.util.MimeTypeUtils;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.event.GameCreated;
+
+public class FanOutPublisherTest {
+
+    private EventCodec eventCodec;
+    private SimpMessageSendingOperations messagingTemplate;
+    private FanOutPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        eventCodec = spy(new EventCodec());
+        messagingTemplate = mock(SimpMessageSendingOperations.class);
+        publisher = new FanOutPublisher(messagingTemplate, eventCodec);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message<byte[]>> sentMessages(int count) {
+        ArgumentCaptor<Message<byte[]>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(count)).send(any(String.class), messages.capture());
+        return messages.getAllValues();
+    }
+
+    @Test
+    void payloadIsSerializedOnceForAllDestinations() throws Exception {
+        GameCreated event = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        publisher.publish(event, "/topic/player/" + event.getPlayer1Id(), "/topic/player/" + event.getPlayer2Id());
+
+        verify(eventCodec, times(1)).encode(event);
+        verify(messagingTemplate).send(eq("/topic/player/" + event.getPlayer1Id()), any(Message.class));
+        verify(messagingTemplate).send(eq("/topic/player/" + event.getPlayer2Id()), any(Message.class));
+        verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+
+        List<Message<byte[]>> messages = sentMessages(2);
+        assertThat(messages.get(1).getPayload()).isSameAs(messages.get(0).getPayload());
+        assertThat(eventCodec.decode(messages.get(0).getPayload(), GameCreated.class)).isEqualTo(event);
+        assertThat(messages.get(0).getHeaders().get(MessageHeaders.CONTENT_TYPE))
+                .isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    @Test
+    void nativeHeadersAreSentWithEveryMessage() {
+        GameCreated event = new GameCreated(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        publisher.publish(event, Map.of("version", "7"), "/topic/a", "/topic/b");
+
+        for (Message<byte[]> message : sentMessages(2)) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+            assertThat(headers.getFirstNativeHeader("version")).isEqualTo("7");
+        }
+    }
+
+    @Test
+    void unserializablePayloadIsNotSent() {
+        Object unserializable = new Object();
+
+        assertThatThrownBy(() -> publisher.publish(unserializable, "/topic/a"))
+                .isInstanceOf(MessageConversionException.class);
+        verify(messagingTemplate, never()).send(any(String.class), any(Message.class));
+    }
+
+}
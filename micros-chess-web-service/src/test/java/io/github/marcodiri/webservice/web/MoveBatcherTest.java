@@ -0,0 +1,158 @@
+package io.github.marcodiri.webservice.web;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.util.MimeTypeUtils;
+
+import io.github.marcodiri.core.domain.event.EventCodec;
+import io.github.marcodiri.gameservice.api.event.MovePlayed;
+import io.github.marcodiri.gameservice.api.web.Move;
+
+public class MoveBatcherTest {
+
+    private static final long LONG_WINDOW = 60_000;
+
+    private final EventCodec eventCodec = new EventCodec();
+    private SimpMessageSendingOperations messagingTemplate;
+    private FanOutPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        messagingTemplate = mock(SimpMessageSendingOperations.class);
+        publisher = new FanOutPublisher(messagingTemplate, eventCodec);
+    }
+
+    private static MovePlayed move(UUID gameId, String from, String to) {
+        return new MovePlayed(gameId, UUID.randomUUID(), new Move(from, to));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message<byte[]>> sentFrames(String destination, int count) {
+        ArgumentCaptor<Message<byte[]>> frames = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(count)).send(eq(destination), frames.capture());
+        return frames.getAllValues();
+    }
+
+    private List<MovePlayed> decode(Message<byte[]> frame) throws Exception {
+        assertThat(frame.getHeaders().get(MessageHeaders.CONTENT_TYPE)).isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+        return List.of(eventCodec.decode(frame.getPayload(), MovePlayed[].class));
+    }
+
+    private static String version(Message<byte[]> frame) {
+        return SimpMessageHeaderAccessor.wrap(frame).getFirstNativeHeader(WebController.VERSION_HEADER);
+    }
+
+    @Test
+    void movesOfAGameWithinTheWindowAreSentInOneFrame() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        MovePlayed first = move(gameId, "e2", "e4");
+        MovePlayed second = move(gameId, "e7", "e5");
+        try (MoveBatcher batcher = new MoveBatcher(publisher, eventCodec, 100, 50,
+                MoveBatcher.FrameFormat.ARRAY)) {
+            batcher.add(first, 1);
+            batcher.add(second, 2);
+
+            await().atMost(5, SECONDS).untilAsserted(() -> verify(messagingTemplate).send(eq("/topic/game/" + gameId),
+                    any(Message.class)));
+        }
+
+        Message<byte[]> frame = sentFrames("/topic/game/" + gameId, 1).get(0);
+        assertThat(decode(frame)).containsExactly(first, second);
+        assertThat(version(frame)).isEqualTo("2");
+    }
+
+    @Test
+    void batchIsSentAsSoonAsItIsFull() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        List<MovePlayed> moves = new ArrayList<>();
+        try (MoveBatcher batcher = new MoveBatcher(publisher, eventCodec, LONG_WINDOW, 3,
+                MoveBatcher.FrameFormat.ARRAY)) {
+            for (int i = 0; i < 4; i++) {
+                MovePlayed move = move(gameId, "e2", "e4");
+                moves.add(move);
+                batcher.add(move, i + 1);
+            }
+
+            await().atMost(5, SECONDS).untilAsserted(() -> verify(messagingTemplate).send(eq("/topic/game/" + gameId),
+                    any(Message.class)));
+            assertThat(decode(sentFrames("/topic/game/" + gameId, 1).get(0)))
+                    .containsExactlyElementsOf(moves.subList(0, 3));
+        }
+
+        // The rest is sent on close
+        assertThat(decode(sentFrames("/topic/game/" + gameId, 2).get(1))).containsExactly(moves.get(3));
+    }
+
+    @Test
+    void gamesAreBatchedSeparately() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        UUID otherGameId = UUID.randomUUID();
+        MovePlayed move = move(gameId, "e2", "e4");
+        MovePlayed otherMove = move(otherGameId, "d2", "d4");
+        try (MoveBatcher batcher = new MoveBatcher(publisher, eventCodec, LONG_WINDOW, 50,
+                MoveBatcher.FrameFormat.ARRAY)) {
+            batcher.add(move, 1);
+            batcher.add(otherMove, 1);
+
+            verify(messagingTemplate, after(100).never()).send(any(String.class), any(Message.class));
+        }
+
+        assertThat(decode(sentFrames("/topic/game/" + gameId, 1).get(0))).containsExactly(move);
+        assertThat(decode(sentFrames("/topic/game/" + otherGameId, 1).get(0))).containsExactly(otherMove);
+    }
+
+    @Test
+    void zeroWindowSendsEachMoveRightAway() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        MovePlayed move = move(gameId, "e2", "e4");
+        try (MoveBatcher batcher = new MoveBatcher(publisher, eventCodec, 0, 50,
+                MoveBatcher.FrameFormat.ARRAY)) {
+            batcher.add(move, 1);
+
+            assertThat(decode(sentFrames("/topic/game/" + gameId, 1).get(0))).containsExactly(move);
+        }
+    }
+
+    @Test
+    void singleFrameFormatSendsOneFramePerMove() throws Exception {
+        UUID gameId = UUID.randomUUID();
+        MovePlayed first = move(gameId, "e2", "e4");
+        MovePlayed second = move(gameId, "e7", "e5");
+        try (MoveBatcher batcher = new MoveBatcher(publisher, eventCodec, 100, 50,
+                MoveBatcher.FrameFormat.SINGLE)) {
+            batcher.add(first, 1);
+            batcher.add(second, 2);
+
+            await().atMost(5, SECONDS).untilAsserted(() -> verify(messagingTemplate, times(2))
+                    .send(eq("/topic/game/" + gameId), any(Message.class)));
+        }
+
+        List<Message<byte[]>> frames = sentFrames("/topic/game/" + gameId, 2);
+        assertThat(eventCodec.decode(frames.get(0).getPayload(), MovePlayed.class)).isEqualTo(first);
+        assertThat(version(frames.get(0))).isEqualTo("1");
+        assertThat(eventCodec.decode(frames.get(1).getPayload(), MovePlayed.class)).isEqualTo(second);
+        assertThat(version(frames.get(1))).isEqualTo("2");
+        verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+    }
+
+}
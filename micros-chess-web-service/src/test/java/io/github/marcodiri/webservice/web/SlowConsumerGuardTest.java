@@ -0,0 +1,89 @@
+package io.github.marcodiri.webservice.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+public class SlowConsumerGuardTest {
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final MessageHandler handler = mock(MessageHandler.class);
+    private SlowConsumerGuard guard;
+
+    @BeforeEach
+    void setup() {
+        guard = new SlowConsumerGuard("/topic", 2);
+    }
+
+    private static Message<byte[]> message(String sessionId, SimpMessageType type, String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(type);
+        headers.setSessionId(sessionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private static Message<byte[]> brokerMessage(String sessionId) {
+        return message(sessionId, SimpMessageType.MESSAGE, "/topic/game/1");
+    }
+
+    @Test
+    void brokerMessagesBeyondTheLimitAreDropped() {
+        assertThat(guard.preSend(brokerMessage("slow"), channel)).isNotNull();
+        assertThat(guard.preSend(brokerMessage("slow"), channel)).isNotNull();
+
+        assertThat(guard.preSend(brokerMessage("slow"), channel)).isNull();
+        assertThat(guard.getDropped()).isEqualTo(1);
+        assertThat(guard.getPending()).isEqualTo(2);
+    }
+
+    @Test
+    void sessionsAreLimitedSeparately() {
+        guard.preSend(brokerMessage("slow"), channel);
+        guard.preSend(brokerMessage("slow"), channel);
+
+        assertThat(guard.preSend(brokerMessage("fast"), channel)).isNotNull();
+        assertThat(guard.getDropped()).isZero();
+    }
+
+    @Test
+    void handledMessagesMakeRoomAgain() {
+        Message<byte[]> first = brokerMessage("slow");
+        guard.preSend(first, channel);
+        guard.preSend(brokerMessage("slow"), channel);
+
+        guard.afterMessageHandled(first, channel, handler, null);
+
+        assertThat(guard.preSend(brokerMessage("slow"), channel)).isNotNull();
+        assertThat(guard.getPending()).isEqualTo(2);
+    }
+
+    @Test
+    void repliesAreNeverDropped() {
+        guard.preSend(brokerMessage("slow"), channel);
+        guard.preSend(brokerMessage("slow"), channel);
+
+        assertThat(guard.preSend(message("slow", SimpMessageType.MESSAGE, "/app/game/1/spectate"), channel))
+                .isNotNull();
+        assertThat(guard.preSend(message("slow", SimpMessageType.DISCONNECT_ACK, null), channel)).isNotNull();
+        assertThat(guard.getDropped()).isZero();
+    }
+
+    @Test
+    void idleSessionsAreForgotten() {
+        Message<byte[]> message = brokerMessage("slow");
+        guard.preSend(message, channel);
+
+        guard.afterMessageHandled(message, channel, handler, null);
+
+        assertThat(guard.getPending()).isZero();
+    }
+
+}
@@ -42,6 +42,8 @@ import io.github.marcodiri.lobbyservice.api.web.AcceptGameProposalRequest;
 import io.github.marcodiri.lobbyservice.api.web.CreateGameProposalRequest;
 import io.github.marcodiri.lobbyservice.api.web.CreateGameProposalResponse;
 import io.github.marcodiri.rest.InMemoryRestServer;
+import io.github.marcodiri.webservice.projection.GameProposalsProjection;
+import io.github.marcodiri.webservice.projection.GameProposalsSnapshot;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
@@ -60,6 +62,9 @@ public class WebControllerTest {
     @Autowired
     WebController controller;
 
+    @Autowired
+    GameProposalsProjection gameProposals;
+
     @BeforeEach
     void setup() throws Exception {
         this.webSocketStompClient = new WebSocketStompClient(new SockJsClient(
@@ -70,6 +75,7 @@ public class WebControllerTest {
     void verifyGameProposalsCreatedIsReceivedByClients() throws Exception {
         BlockingQueue<GameProposalCreated> blockingQueue1 = new ArrayBlockingQueue<>(1);
         BlockingQueue<GameProposalCreated> blockingQueue2 = new ArrayBlockingQueue<>(1);
+        BlockingQueue<String> versions = new ArrayBlockingQueue<>(1);
 
         webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
 
@@ -90,6 +96,7 @@ public class WebControllerTest {
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
                 blockingQueue1.add((GameProposalCreated) payload);
+                versions.add(headers.getFirst(WebController.VERSION_HEADER));
             }
         });
         session2.subscribe("/topic/game-proposals", new StompFrameHandler() {
@@ -107,10 +114,39 @@ public class WebControllerTest {
         UUID gameProposalId = UUID.randomUUID();
         UUID creatorId = UUID.randomUUID();
         GameProposalCreated testEvent = new GameProposalCreated(gameProposalId, creatorId);
-        controller.notifyClients(testEvent);
+        controller.notifyClients(testEvent, 42);
 
         assertThat(blockingQueue1.poll(5, SECONDS)).isEqualTo(testEvent);
         assertThat(blockingQueue2.poll(5, SECONDS)).isEqualTo(testEvent);
+        assertThat(versions.poll(5, SECONDS)).isEqualTo("42");
+    }
+
+    @Test
+    void verifySubscribingToGameProposalsRepliesWithSnapshot() throws Exception {
+        BlockingQueue<GameProposalsSnapshot> snapshots = new ArrayBlockingQueue<>(1);
+        GameProposalCreated openProposal = new GameProposalCreated(UUID.randomUUID(), UUID.randomUUID());
+        gameProposals.apply(openProposal);
+
+        webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        StompSession session = webSocketStompClient
+                .connectAsync(getWsPath(), new StompSessionHandlerAdapter() {
+                })
+                .get(1, SECONDS);
+        session.subscribe("/app/game-proposals", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return GameProposalsSnapshot.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                snapshots.add((GameProposalsSnapshot) payload);
+            }
+        });
+
+        GameProposalsSnapshot snapshot = snapshots.poll(5, SECONDS);
+        assertThat(snapshot).isEqualTo(gameProposals.snapshot());
+        assertThat(snapshot.getGameProposals()).contains(openProposal);
     }
 
     @Test
@@ -207,7 +243,7 @@ public class WebControllerTest {
         UUID playerId = UUID.randomUUID();
         Move move = new Move("e2", "e4");
         MovePlayed testEvent = new MovePlayed(gameId, playerId, move);
-        controller.notifyClients(testEvent);
+        controller.notifyClients(testEvent, 1);
 
         assertThat(blockingQueue1.poll(10, SECONDS)).isEqualTo(testEvent);
         assertThat(blockingQueue2.poll(10, SECONDS)).isEqualTo(testEvent);
@@ -329,7 +365,7 @@ public class WebControllerTest {
             GameProposalAccepted event = new GameProposalAccepted(UUID.randomUUID(), player1Id, player2Id);
             CreateGameRequest expectedRequest = new CreateGameRequest(player1Id, player2Id);
 
-            CreateGameResponse response = controller.sendCreateGameRequest(event);
+            CreateGameResponse response = controller.sendCreateGameRequest(event).get(5, SECONDS);
 
             await().atMost(5, SECONDS).untilAsserted(() -> verify(myResourceGame).createGame(expectedRequest));
             assertThat(response).isInstanceOf(CreateGameResponse.class);